@@ -34,6 +34,8 @@ public enum Group
     PAGE_CACHE_EVICTION( "PageCacheEviction" ),
     /* Page cache background eviction. */
     PAGE_CACHE_PRE_FETCHER( "PageCachePreFetcher", ExecutorServiceFactory.cachedWithDiscard() ),
+    /** Page cache warmup, and profiling of the pages that are kept in memory. */
+    PAGE_CACHE_WARMER( "PageCacheWarmer" ),
     /** Watch out for, and report, external manipulation of store files. */
     FILE_WATCHER( "FileWatcher" ),
     /** Monitor and report system-wide pauses, in case they lead to service interruption. */
@@ -48,6 +50,10 @@ public enum Group
     INDEX_CLEANUP( "IndexCleanup" ),
     /** Index recovery cleanup work. */
     INDEX_CLEANUP_WORK( "IndexCleanupWork" ),
+    /** Appends to the transaction log, and applies to the store, the transactions committed through the commit pipeline. */
+    TRANSACTION_COMMIT_PIPELINE( "TransactionCommitPipeline" ),
+    /** Writes the record updates of large transactions to the store, by multiple threads. */
+    TRANSACTION_APPLY( "TransactionApply" ),
     /** Terminates kernel transactions that have timed out. */
     TRANSACTION_TIMEOUT_MONITOR( "TransactionTimeoutMonitor" ),
     /** Background index population. */
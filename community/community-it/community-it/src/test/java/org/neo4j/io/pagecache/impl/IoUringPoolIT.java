@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import org.neo4j.internal.nativeimpl.IoUring;
+import org.neo4j.internal.nativeimpl.NativeAccess;
+import org.neo4j.internal.nativeimpl.NativeAccessProvider;
+import org.neo4j.time.FakeClock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class IoUringPoolIT
+{
+    private final NativeAccess nativeAccess = NativeAccessProvider.getNativeAccess();
+    private final FakeClock clock = new FakeClock();
+    private IoUringPool pool;
+
+    @BeforeEach
+    void setUp()
+    {
+        assumeTrue( nativeAccess.isIoUringAvailable() );
+        pool = new IoUringPool( nativeAccess, 2, Duration.ofSeconds( 10 ).toNanos(), clock );
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        if ( pool != null )
+        {
+            pool.close();
+        }
+    }
+
+    @Test
+    void mustNotCreateMoreInstancesThanTheLimit()
+    {
+        IoUring first = pool.acquire();
+        IoUring second = pool.acquire();
+        assertThat( first ).isNotNull();
+        assertThat( second ).isNotNull();
+
+        assertThat( pool.acquire() ).isNull();
+        assertThat( pool.openInstances() ).isEqualTo( 2 );
+
+        pool.release( first );
+        assertThat( pool.acquire() ).isSameAs( first );
+        pool.release( first );
+        pool.release( second );
+    }
+
+    @Test
+    void mustCloseInstancesThatHaveBeenIdleForTooLong()
+    {
+        IoUring first = pool.acquire();
+        IoUring second = pool.acquire();
+        pool.release( first );
+
+        clock.forward( Duration.ofSeconds( 11 ) );
+        pool.release( second );
+
+        assertThat( pool.openInstances() ).isEqualTo( 1 );
+        assertThat( pool.acquire() ).isSameAs( second );
+        pool.release( second );
+    }
+
+    @Test
+    void mustCloseAllInstancesWhenClosed()
+    {
+        IoUring idle = pool.acquire();
+        IoUring borrowed = pool.acquire();
+        pool.release( idle );
+
+        pool.close();
+        assertThat( pool.openInstances() ).isEqualTo( 1 );
+        assertThat( pool.acquire() ).isNull();
+
+        pool.release( borrowed );
+        assertThat( pool.openInstances() ).isZero();
+    }
+}
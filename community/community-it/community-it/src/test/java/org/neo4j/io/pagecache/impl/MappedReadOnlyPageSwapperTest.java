@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.internal.unsafe.UnsafeUtil;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.mem.MemoryAllocator;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.memory.EmptyMemoryTracker;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.testdirectory.TestDirectoryExtension;
+import org.neo4j.test.rule.TestDirectory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.neo4j.io.ByteUnit.KibiByte;
+
+@TestDirectoryExtension
+class MappedReadOnlyPageSwapperTest
+{
+    private static final int PAGE_SIZE = 32;
+
+    @Inject
+    private TestDirectory testDirectory;
+    @Inject
+    private DefaultFileSystemAbstraction fs;
+
+    private MemoryAllocator mman;
+    private long buffer;
+
+    @BeforeEach
+    void setUp()
+    {
+        mman = MemoryAllocator.createAllocator( KibiByte.toBytes( 4 ), EmptyMemoryTracker.INSTANCE );
+        buffer = mman.allocateAligned( PAGE_SIZE, Long.BYTES );
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        mman.close();
+    }
+
+    @Test
+    void mustReadPagesFromMappedFile() throws IOException
+    {
+        File file = fileWithBytes( PAGE_SIZE * 2 + 5 );
+        PageSwapper swapper = new SingleFilePageSwapperFactory( fs ).createReadOnlyPageSwapper( file, PAGE_SIZE, filePageId -> {} );
+        try
+        {
+            assertThat( swapper ).isInstanceOf( MappedReadOnlyPageSwapper.class );
+            assertThat( swapper.getLastPageId() ).isEqualTo( 2 );
+
+            assertThat( swapper.read( 1, buffer ) ).isEqualTo( PAGE_SIZE );
+            assertThat( UnsafeUtil.getByte( buffer ) ).isEqualTo( (byte) PAGE_SIZE );
+            assertThat( UnsafeUtil.getByte( buffer + PAGE_SIZE - 1 ) ).isEqualTo( (byte) (PAGE_SIZE * 2 - 1) );
+
+            assertThat( swapper.read( 2, buffer ) ).isEqualTo( 5 );
+            assertThat( UnsafeUtil.getByte( buffer + 4 ) ).isEqualTo( (byte) (PAGE_SIZE * 2 + 4) );
+            assertThat( UnsafeUtil.getByte( buffer + 5 ) ).isEqualTo( (byte) 0 );
+
+            assertThat( swapper.read( 3, buffer ) ).isEqualTo( 0 );
+        }
+        finally
+        {
+            swapper.close();
+        }
+    }
+
+    @Test
+    void mustRejectWrites() throws IOException
+    {
+        File file = fileWithBytes( PAGE_SIZE );
+        PageSwapper swapper = new SingleFilePageSwapperFactory( fs ).createReadOnlyPageSwapper( file, PAGE_SIZE, filePageId -> {} );
+        try
+        {
+            assertThrows( IOException.class, () -> swapper.write( 0, buffer ) );
+            assertThrows( IOException.class, swapper::truncate );
+        }
+        finally
+        {
+            swapper.close();
+        }
+        assertThrows( IOException.class, () -> swapper.read( 0, buffer ) );
+    }
+
+    @Test
+    void mustNotReadFromUnmappedSegmentsWhenRacingWithClose() throws Exception
+    {
+        File file = fileWithBytes( PAGE_SIZE * 4 );
+        PageSwapper swapper = new SingleFilePageSwapperFactory( fs ).createReadOnlyPageSwapper( file, PAGE_SIZE, filePageId -> {} );
+        CountDownLatch reading = new CountDownLatch( 1 );
+        AtomicLong reads = new AtomicLong();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            Future<?> reader = executor.submit( () ->
+            {
+                try
+                {
+                    while ( true )
+                    {
+                        swapper.read( reads.getAndIncrement() % 4, buffer );
+                        reading.countDown();
+                    }
+                }
+                catch ( IOException e )
+                {
+                    // The swapper has been closed.
+                    return;
+                }
+            } );
+            reading.await();
+
+            swapper.close();
+            reader.get();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        assertThrows( IOException.class, () -> swapper.read( 0, buffer ) );
+        swapper.close();
+    }
+
+    @Test
+    void mustFallBackToRegularSwapperForNonDefaultFileSystem() throws Exception
+    {
+        try ( EphemeralFileSystemAbstraction ephemeralFs = new EphemeralFileSystemAbstraction() )
+        {
+            File file = new File( "file" ).getCanonicalFile();
+            ephemeralFs.write( file ).close();
+            PageSwapper swapper = new SingleFilePageSwapperFactory( ephemeralFs ).createReadOnlyPageSwapper( file, PAGE_SIZE, filePageId -> {} );
+            assertThat( swapper ).isInstanceOf( SingleFilePageSwapper.class );
+            swapper.close();
+        }
+    }
+
+    private File fileWithBytes( int size ) throws IOException
+    {
+        File file = testDirectory.file( "file" );
+        try ( OutputStream out = fs.openAsOutputStream( file, false ) )
+        {
+            for ( int i = 0; i < size; i++ )
+            {
+                out.write( i );
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.neo4j.internal.unsafe.UnsafeUtil;
+import org.neo4j.io.mem.MemoryAllocator;
+import org.neo4j.memory.EmptyMemoryTracker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.neo4j.io.ByteUnit.MebiByte;
+
+class EvictionSelectorTest
+{
+    private static final int PAGE_COUNT = 10;
+
+    private MemoryAllocator mman;
+    private PageList pages;
+
+    @BeforeEach
+    void setUp()
+    {
+        mman = MemoryAllocator.createAllocator( MebiByte.toBytes( 1 ), EmptyMemoryTracker.INSTANCE );
+        int pageSize = UnsafeUtil.pageSize();
+        pages = new PageList( PAGE_COUNT, pageSize, mman, new SwapperSet(), VictimPageReference.getVictimPage( pageSize ), Long.BYTES );
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        mman.close();
+    }
+
+    @Test
+    void clockMustAgeAllPagesEvenly()
+    {
+        EvictionSelector selector = EvictionPolicy.CLOCK.createSelector( pages );
+        long once = touch( 0, 1 );
+        long hot = touch( 1, 4 );
+
+        assertThat( selector.ageAndCheckEvictable( once ) ).isTrue();
+        assertThat( selector.ageAndCheckEvictable( hot ) ).isFalse();
+        assertThat( pages.getUsageCounter( hot ) ).isEqualTo( (byte) 3 );
+    }
+
+    @Test
+    void probationaryMustEvictPagesTouchedOnlyByScanOnFirstPass()
+    {
+        EvictionSelector selector = EvictionPolicy.PROBATIONARY.createSelector( pages );
+        long faultedAndPinned = touch( 0, 2 );
+
+        assertThat( selector.ageAndCheckEvictable( faultedAndPinned ) ).isFalse();
+        assertThat( selector.ageAndCheckEvictable( faultedAndPinned ) ).isTrue();
+    }
+
+    @Test
+    void probationaryMustNotAgeProtectedPagesWhileProtectedSegmentIsSmall()
+    {
+        EvictionSelector selector = EvictionPolicy.PROBATIONARY.createSelector( pages );
+        long hot = touch( 0, 4 );
+        for ( int i = 1; i < PAGE_COUNT; i++ )
+        {
+            selector.ageAndCheckEvictable( touch( i, 1 ) );
+        }
+        selector.ageAndCheckEvictable( hot );
+        selector.revolutionCompleted();
+        assertThat( pages.getUsageCounter( hot ) ).isEqualTo( (byte) 3 );
+
+        pages.incrementUsage( hot );
+        assertThat( selector.ageAndCheckEvictable( hot ) ).isFalse();
+        assertThat( pages.getUsageCounter( hot ) ).isEqualTo( (byte) 4 );
+    }
+
+    @Test
+    void probationaryMustAgeProtectedPagesWhenProtectedSegmentIsTooLarge()
+    {
+        EvictionSelector selector = EvictionPolicy.PROBATIONARY.createSelector( pages );
+        for ( int i = 0; i < PAGE_COUNT; i++ )
+        {
+            selector.ageAndCheckEvictable( touch( i, 4 ) );
+        }
+        selector.revolutionCompleted();
+
+        long hot = pages.deref( 0 );
+        assertThat( selector.ageAndCheckEvictable( hot ) ).isFalse();
+        assertThat( pages.getUsageCounter( hot ) ).isEqualTo( (byte) 2 );
+    }
+
+    private long touch( int pageId, int times )
+    {
+        long pageRef = pages.deref( pageId );
+        for ( int i = 0; i < times; i++ )
+        {
+            pages.incrementUsage( pageRef );
+        }
+        return pageRef;
+    }
+}
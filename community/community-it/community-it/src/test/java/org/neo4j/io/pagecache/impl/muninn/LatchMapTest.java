@@ -106,4 +106,14 @@ class LatchMapTest
         latches.takeOrAwaitLatch( 42 ).release();
         latches.takeOrAwaitLatch( 42 ).release();
     }
+
+    @Test
+    void tryTakeLatchMustReturnLatchIfAvailable()
+    {
+        LatchMap.Latch latch = latches.tryTakeLatch( 42 );
+        assertThat( latch ).isNotNull();
+        assertThat( latches.tryTakeLatch( 42 ) ).isNull();
+        latch.release();
+        latches.tryTakeLatch( 42 ).release();
+    }
 }
@@ -33,6 +33,7 @@ import org.neo4j.time.Clocks;
 public class MuninnPageCacheFixture extends PageCacheTestSupport.Fixture<MuninnPageCache>
 {
     CountDownLatch backgroundFlushLatch;
+    int flushThreads = MuninnPageCache.DEFAULT_FLUSH_THREADS;
     private MemoryAllocator allocator;
 
     @Override
@@ -41,7 +42,8 @@ public class MuninnPageCacheFixture extends PageCacheTestSupport.Fixture<MuninnP
     {
         long memory = MuninnPageCache.memoryRequiredForPages( maxPages );
         allocator = MemoryAllocator.createAllocator( memory, new LocalMemoryTracker() );
-        return new MuninnPageCache( swapperFactory, allocator, tracer, contextSupplier, jobScheduler, Clocks.nanoClock() );
+        return new MuninnPageCache( swapperFactory, allocator, tracer, contextSupplier, jobScheduler, Clocks.nanoClock(), EvictionPolicy.CLOCK,
+                flushThreads );
     }
 
     @Override
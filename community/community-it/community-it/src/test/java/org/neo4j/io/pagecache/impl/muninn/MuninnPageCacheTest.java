@@ -23,6 +23,7 @@ import org.apache.commons.lang3.mutable.MutableBoolean;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.io.Flushable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.OpenOption;
@@ -31,6 +32,9 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.IntSupplier;
 import java.util.function.LongSupplier;
 
@@ -45,6 +49,7 @@ import org.neo4j.io.pagecache.PageCacheTest;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.DelegatingPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
@@ -64,9 +69,11 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.neo4j.io.pagecache.PagedFile.PF_ADAPTIVE_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_GROW;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
 import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
 import static org.neo4j.io.pagecache.tracing.recording.RecordingPageCacheTracer.Evict;
 
@@ -148,6 +155,138 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         }
     }
 
+    @Test
+    void mustReadAheadWhenScanningColdFile() throws IOException
+    {
+        int pageCount = 100;
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPageCache( fs, 200, tracer ) )
+        {
+            try ( PagedFile pagedFile = map( pageCache, file( "a" ), 8 );
+                  PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK, NULL ) )
+            {
+                for ( int pageId = 0; pageId < pageCount; pageId++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( pageId );
+                }
+            }
+            // Mapping the file again gives it a new swapper id, so none of the pages we wrote will be hits.
+            try ( var cursorTracer = tracer.createPageCursorTracer( "mustReadAheadWhenScanningColdFile" );
+                  PagedFile pagedFile = map( pageCache, file( "a" ), 8 );
+                  PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_ADAPTIVE_READ_AHEAD, cursorTracer ) )
+            {
+                for ( int pageId = 0; pageId < pageCount; pageId++ )
+                {
+                    assertTrue( cursor.next() );
+                    long value;
+                    do
+                    {
+                        value = cursor.getLong();
+                    }
+                    while ( cursor.shouldRetry() );
+                    assertEquals( pageId, value );
+                }
+                assertFalse( cursor.next() );
+                assertThat( cursorTracer.pins() ).isEqualTo( pageCount );
+                assertThat( cursorTracer.faults() ).isLessThan( pageCount / 4 );
+                assertThat( cursorTracer.bytesRead() ).isEqualTo( pageCount * 8 );
+            }
+        }
+    }
+
+    @Test
+    void mustCountActivityPerFile() throws IOException
+    {
+        try ( MuninnPageCache pageCache = createPageCache( fs, 20, PageCacheTracer.NULL );
+              PagedFile fileA = map( pageCache, file( "a" ), 8 );
+              PagedFile fileB = map( pageCache, existingFile( "b" ), 8 ) )
+        {
+            try ( PageCursor cursor = fileA.io( 0, PF_SHARED_WRITE_LOCK, NULL ) )
+            {
+                for ( int pageId = 0; pageId < 3; pageId++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( pageId );
+                }
+            }
+            fileA.flushAndForce();
+            try ( PageCursor cursor = fileA.io( 0, PF_SHARED_READ_LOCK, NULL ) )
+            {
+                assertTrue( cursor.next( 1 ) );
+                assertTrue( cursor.next( 2 ) );
+            }
+
+            PagedFileCounters countersA = fileA.counters();
+            assertThat( countersA.faults().count() ).isEqualTo( 3 );
+            assertThat( countersA.hits().count() ).isEqualTo( 2 );
+            assertThat( countersA.flushes().count() ).isEqualTo( 3 );
+            assertThat( countersA.bytesWritten().count() ).isEqualTo( 3 * 8 );
+
+            PagedFileCounters countersB = fileB.counters();
+            assertThat( countersB.faults().count() ).isZero();
+            assertThat( countersB.hits().count() ).isZero();
+            assertThat( countersB.flushes().count() ).isZero();
+
+            evictAllPages( pageCache );
+            assertThat( countersA.evictions().count() ).isEqualTo( 3 );
+            assertThat( countersB.evictions().count() ).isZero();
+        }
+    }
+
+    @Test
+    void transientCursorsMustNotCountHits() throws IOException
+    {
+        try ( MuninnPageCache pageCache = createPageCache( fs, 20, PageCacheTracer.NULL );
+              PagedFile pagedFile = map( pageCache, file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK, NULL ) )
+            {
+                assertTrue( cursor.next() );
+            }
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_TRANSIENT, NULL ) )
+            {
+                assertTrue( cursor.next() );
+            }
+            assertThat( pagedFile.counters().hits().count() ).isZero();
+
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK, NULL ) )
+            {
+                assertTrue( cursor.next() );
+            }
+            assertThat( pagedFile.counters().hits().count() ).isEqualTo( 1 );
+        }
+    }
+
+    @Test
+    void mustNotReadAheadUnlessCursorAsksForIt() throws IOException
+    {
+        int pageCount = 100;
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPageCache( fs, 200, tracer ) )
+        {
+            try ( PagedFile pagedFile = map( pageCache, file( "a" ), 8 );
+                  PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK, NULL ) )
+            {
+                for ( int pageId = 0; pageId < pageCount; pageId++ )
+                {
+                    assertTrue( cursor.next() );
+                }
+            }
+            try ( var cursorTracer = tracer.createPageCursorTracer( "mustNotReadAheadUnlessCursorAsksForIt" );
+                  PagedFile pagedFile = map( pageCache, file( "a" ), 8 );
+                  PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK, cursorTracer ) )
+            {
+                while ( cursor.next() )
+                {
+                    // Just visit every page.
+                }
+                assertThat( cursorTracer.faults() ).isEqualTo( pageCount );
+                assertThat( cursorTracer.bytesRead() ).isEqualTo( pageCount * 8 );
+            }
+        }
+    }
+
     @Test
     void mustEvictCleanPageWithoutFlushing() throws Exception
     {
@@ -729,6 +868,60 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         } );
     }
 
+    @Test
+    void limitedShouldFlushInParallelWithSharedBudget()
+    {
+        assertTimeoutPreemptively( ofMillis( SEMI_LONG_TIMEOUT_MILLIS ), () ->
+        {
+            List<File> mappedFiles = new ArrayList<>();
+            mappedFiles.add( existingFile( "a" ) );
+            mappedFiles.add( existingFile( "b" ) );
+            fixture.flushThreads = mappedFiles.size();
+            getPageCache( fs, maxPages, new FlushRendezvousTracer( mappedFiles.size() ) );
+
+            List<PagedFile> mappedPagedFiles = new ArrayList<>();
+            for ( File mappedFile : mappedFiles )
+            {
+                PagedFile pagedFile = map( pageCache, mappedFile, filePageSize );
+                mappedPagedFiles.add( pagedFile );
+                try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK, NULL ) )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putInt( 1 );
+                }
+            }
+
+            // Every call must continue from the stamp of the previous call, regardless of which file or thread made it.
+            AtomicLong nextStamp = new AtomicLong( IOLimiter.INITIAL_STAMP );
+            AtomicBoolean stampsShared = new AtomicBoolean( true );
+            AtomicInteger completedIOs = new AtomicInteger();
+            IOLimiter limiter = new IOLimiter()
+            {
+                @Override
+                public long maybeLimitIO( long previousStamp, int recentlyCompletedIOs, Flushable flushable )
+                {
+                    if ( !nextStamp.compareAndSet( previousStamp, previousStamp + 1 ) )
+                    {
+                        stampsShared.set( false );
+                    }
+                    completedIOs.addAndGet( recentlyCompletedIOs );
+                    return previousStamp + 1;
+                }
+
+                @Override
+                public boolean isLimited()
+                {
+                    return true;
+                }
+            };
+            pageCache.flushAndForce( limiter );
+
+            assertTrue( stampsShared.get() );
+            assertThat( completedIOs.get() ).isEqualTo( mappedFiles.size() );
+            IOUtils.closeAll( mappedPagedFiles );
+        } );
+    }
+
     private static class FlushRendezvousTracer extends DefaultPageCacheTracer
     {
         private final CountDownLatch latch;
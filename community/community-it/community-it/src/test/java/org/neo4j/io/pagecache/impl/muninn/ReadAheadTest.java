@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadAheadTest
+{
+    private final ReadAhead readAhead = new ReadAhead();
+
+    @Test
+    void mustNotReadAheadForRandomFaults()
+    {
+        assertThat( readAhead.pagesToReadAhead( 10 ) ).isZero();
+        assertThat( readAhead.pagesToReadAhead( 3 ) ).isZero();
+        assertThat( readAhead.pagesToReadAhead( 42 ) ).isZero();
+        assertThat( readAhead.pagesToReadAhead( 7 ) ).isZero();
+    }
+
+    @Test
+    void mustStartReadingAheadAfterSequentialFaults()
+    {
+        long pageId = 0;
+        for ( int i = 0; i < ReadAhead.sequentialFaultsThreshold; i++ )
+        {
+            assertThat( readAhead.pagesToReadAhead( pageId++ ) ).isZero();
+        }
+        assertThat( readAhead.pagesToReadAhead( pageId ) ).isEqualTo( ReadAhead.minWindow );
+    }
+
+    @Test
+    void mustGrowWindowWhenWholeWindowWasUsed()
+    {
+        long pageId = startReadingAhead();
+        readAhead.windowCovered( pageId + 1, ReadAhead.minWindow );
+        pageId += ReadAhead.minWindow + 1;
+        assertThat( readAhead.pagesToReadAhead( pageId ) ).isEqualTo( ReadAhead.minWindow * 2 );
+    }
+
+    @Test
+    void mustShrinkWindowAndThenStopWhenReadAheadPagesAreEvictedBeforeUse()
+    {
+        long pageId = startReadingAhead();
+        readAhead.windowCovered( pageId + 1, ReadAhead.minWindow );
+        pageId += ReadAhead.minWindow + 1;
+        int window = readAhead.pagesToReadAhead( pageId );
+        readAhead.windowCovered( pageId + 1, window );
+
+        assertThat( readAhead.pagesToReadAhead( pageId + 2 ) ).isEqualTo( window / 2 );
+        readAhead.windowCovered( pageId + 3, window / 2 );
+        assertThat( readAhead.pagesToReadAhead( pageId + 4 ) ).isZero();
+    }
+
+    @Test
+    void mustStopReadingAheadWhenCursorJumps()
+    {
+        long pageId = startReadingAhead();
+        readAhead.windowCovered( pageId + 1, ReadAhead.minWindow );
+        assertThat( readAhead.pagesToReadAhead( pageId + 1000 ) ).isZero();
+        assertThat( readAhead.pagesToReadAhead( pageId + 1001 ) ).isZero();
+    }
+
+    private long startReadingAhead()
+    {
+        long pageId = 0;
+        while ( readAhead.pagesToReadAhead( pageId ) == 0 )
+        {
+            pageId++;
+        }
+        return pageId;
+    }
+}
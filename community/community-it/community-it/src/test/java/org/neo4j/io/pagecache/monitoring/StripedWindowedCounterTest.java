@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import org.neo4j.time.FakeClock;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class StripedWindowedCounterTest
+{
+    private final FakeClock clock = new FakeClock();
+    private final StripedWindowedCounter counter = new StripedWindowedCounter( clock );
+
+    @Test
+    void mustCountIncrementsAndAdditions()
+    {
+        counter.increment();
+        counter.add( 41 );
+
+        assertThat( counter.count() ).isEqualTo( 42 );
+    }
+
+    @Test
+    void ratesMustBeZeroBeforeFirstTick()
+    {
+        counter.add( 100 );
+        clock.forward( 4, SECONDS );
+
+        assertThat( counter.oneMinuteRate() ).isEqualTo( 0.0 );
+        assertThat( counter.fiveMinuteRate() ).isEqualTo( 0.0 );
+        assertThat( counter.fifteenMinuteRate() ).isEqualTo( 0.0 );
+    }
+
+    @Test
+    void firstTickMustSetAllRates()
+    {
+        counter.add( 50 );
+        clock.forward( 5, SECONDS );
+
+        assertThat( counter.oneMinuteRate() ).isEqualTo( 10.0, within( 0.0001 ) );
+        assertThat( counter.fiveMinuteRate() ).isEqualTo( 10.0, within( 0.0001 ) );
+        assertThat( counter.fifteenMinuteRate() ).isEqualTo( 10.0, within( 0.0001 ) );
+    }
+
+    @Test
+    void ratesMustConvergeOnSteadyRate()
+    {
+        for ( int i = 0; i < 15 * 12; i++ )
+        {
+            counter.add( 100 );
+            clock.forward( 5, SECONDS );
+            counter.oneMinuteRate();
+        }
+
+        assertThat( counter.oneMinuteRate() ).isEqualTo( 20.0, within( 0.01 ) );
+        assertThat( counter.fiveMinuteRate() ).isEqualTo( 20.0, within( 0.01 ) );
+        assertThat( counter.fifteenMinuteRate() ).isEqualTo( 20.0, within( 0.01 ) );
+    }
+
+    @Test
+    void shorterWindowsMustDecayFasterWhenIdle()
+    {
+        counter.add( 600 );
+        clock.forward( 5, SECONDS );
+        counter.oneMinuteRate();
+        clock.forward( 5, MINUTES );
+
+        double oneMinuteRate = counter.oneMinuteRate();
+        double fiveMinuteRate = counter.fiveMinuteRate();
+        double fifteenMinuteRate = counter.fifteenMinuteRate();
+        assertThat( oneMinuteRate ).isLessThan( fiveMinuteRate );
+        assertThat( fiveMinuteRate ).isLessThan( fifteenMinuteRate );
+        assertThat( fifteenMinuteRate ).isLessThan( 120.0 );
+        // After five idle minutes, the five minute average should have decayed to about a third.
+        assertThat( fiveMinuteRate ).isEqualTo( 120.0 * Math.exp( -1 ), within( 1.0 ) );
+    }
+}
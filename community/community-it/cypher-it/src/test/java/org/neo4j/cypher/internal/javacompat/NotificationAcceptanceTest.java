@@ -55,10 +55,10 @@ class NotificationAcceptanceTest extends NotificationTestSupport
     }
 
     @Test
-    void shouldWarnWhenRequestingSlottedRuntimeOnUnsupportedQuery()
+    void shouldWarnWhenRequestingPipelinedRuntimeOnUnsupportedQuery()
     {
-        shouldNotifyInStreamWithDetail( "EXPLAIN CYPHER runtime=slotted RETURN 1", InputPosition.empty, RUNTIME_UNSUPPORTED,
-                NotificationDetail.Factory.message( "Runtime unsupported", "This version of Neo4j does not " + "support requested runtime: slotted" ) );
+        shouldNotifyInStreamWithDetail( "EXPLAIN CYPHER runtime=pipelined RETURN 1", InputPosition.empty, RUNTIME_UNSUPPORTED,
+                NotificationDetail.Factory.message( "Runtime unsupported", "This version of Neo4j does not " + "support requested runtime: pipelined" ) );
     }
 
     @Test
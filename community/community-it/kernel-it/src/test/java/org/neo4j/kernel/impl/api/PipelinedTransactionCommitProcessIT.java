@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointer;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.SimpleTriggerInfo;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.storageengine.api.TransactionIdStore;
+import org.neo4j.test.Race;
+import org.neo4j.test.TestDatabaseManagementServiceBuilder;
+import org.neo4j.test.extension.ExtensionCallback;
+import org.neo4j.test.extension.ImpermanentDbmsExtension;
+import org.neo4j.test.extension.Inject;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.neo4j.internal.helpers.collection.Iterators.count;
+
+@ImpermanentDbmsExtension( configurationCallback = "configure" )
+class PipelinedTransactionCommitProcessIT
+{
+    private static final int THREADS = 6;
+    private static final int TRANSACTIONS_PER_THREAD = 200;
+    private static final Label LABEL = Label.label( "Pipelined" );
+
+    @Inject
+    private GraphDatabaseAPI db;
+    @Inject
+    private CheckPointer checkPointer;
+    @Inject
+    private TransactionIdStore transactionIdStore;
+
+    @ExtensionCallback
+    static void configure( TestDatabaseManagementServiceBuilder builder )
+    {
+        builder.setConfig( GraphDatabaseSettings.pipelined_commit, true );
+        builder.setConfig( GraphDatabaseSettings.check_point_interval_time, Duration.ofMillis( 10 ) );
+    }
+
+    @Test
+    @Timeout( value = 5, unit = TimeUnit.MINUTES )
+    void concurrentCommitsMustAllBeVisibleOnceCommitted() throws Throwable
+    {
+        Race race = new Race();
+        race.addContestants( THREADS, () ->
+        {
+            for ( int i = 0; i < TRANSACTIONS_PER_THREAD; i++ )
+            {
+                long nodeId;
+                try ( Transaction tx = db.beginTx() )
+                {
+                    nodeId = tx.createNode( LABEL ).getId();
+                    tx.commit();
+                }
+                try ( Transaction tx = db.beginTx() )
+                {
+                    assertThat( tx.getNodeById( nodeId ).hasLabel( LABEL ) ).isTrue();
+                }
+            }
+        } );
+        race.go();
+
+        try ( Transaction tx = db.beginTx() )
+        {
+            assertThat( count( tx.findNodes( LABEL ) ) ).isEqualTo( THREADS * TRANSACTIONS_PER_THREAD );
+        }
+        long checkpointedTx = checkPointer.forceCheckPoint( new SimpleTriggerInfo( "test" ) );
+        assertThat( checkpointedTx ).isEqualTo( transactionIdStore.getLastClosedTransactionId() );
+        assertThat( transactionIdStore.getLastClosedTransactionId() ).isEqualTo( transactionIdStore.getLastCommittedTransactionId() );
+    }
+}
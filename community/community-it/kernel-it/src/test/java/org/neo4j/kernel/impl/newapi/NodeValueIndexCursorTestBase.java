@@ -350,6 +350,28 @@ public abstract class NodeValueIndexCursorTestBase<G extends KernelAPIReadTestSu
         }
     }
 
+    @Test
+    void shouldPerformManyExactLookups() throws Exception
+    {
+        // given
+        int prop = token.propertyKey( "prop" );
+        IndexReadSession index = read.indexReadSession( schemaRead.indexGetForName( NODE_PROP_INDEX_NAME ) );
+        try ( NodeValueIndexCursor node = cursors.allocateNodeValueIndexCursor( NULL ) )
+        {
+            MutableLongSet uniqueIds = new LongHashSet();
+
+            // when
+            read.nodeIndexSeekMany( index, node, unconstrained(),
+                    new IndexQuery.ExactPredicate[]{IndexQuery.exact( prop, "three" )},
+                    new IndexQuery.ExactPredicate[]{IndexQuery.exact( prop, "zero" )},
+                    new IndexQuery.ExactPredicate[]{IndexQuery.exact( prop, "one" )},
+                    new IndexQuery.ExactPredicate[]{IndexQuery.exact( prop, "three" )} );
+
+            // then
+            assertFoundNodesAndNoValue( node, uniqueIds, strOne, strThree1, strThree2, strThree3 );
+        }
+    }
+
     @Test
     void shouldPerformStringPrefixSearch() throws Exception
     {
@@ -1106,6 +1128,31 @@ public abstract class NodeValueIndexCursorTestBase<G extends KernelAPIReadTestSu
         }
     }
 
+    @Test
+    void shouldFindSwappedNodeInManyIndexSeeks() throws Exception
+    {
+        // Given
+        int label = token.nodeLabel( "Node" );
+        int prop = token.propertyKey( "prop" );
+        IndexReadSession index = read.indexReadSession( schemaRead.indexGetForName( NODE_PROP_INDEX_NAME ) );
+        try ( KernelTransaction tx = beginTransaction();
+              NodeValueIndexCursor node = cursors.allocateNodeValueIndexCursor( NULL ) )
+        {
+            MutableLongSet uniqueIds = new LongHashSet();
+
+            // when
+            tx.dataWrite().nodeRemoveLabel( strOne, label );
+            tx.dataWrite().nodeAddLabel( strOneNoLabel, label );
+            tx.dataWrite().nodeDelete( strTwo1 );
+            tx.dataRead().nodeIndexSeekMany( index, node, unordered( false ),
+                    new IndexQuery.ExactPredicate[]{IndexQuery.exact( prop, "one" )},
+                    new IndexQuery.ExactPredicate[]{IndexQuery.exact( prop, "two" )} );
+
+            // then
+            assertFoundNodesAndNoValue( node, uniqueIds, strOneNoLabel, strTwo2 );
+        }
+    }
+
     @Test
     void shouldNotFindDeletedNodeInRangeSearch() throws Exception
     {
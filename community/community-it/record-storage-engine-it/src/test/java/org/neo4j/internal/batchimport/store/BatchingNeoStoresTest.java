@@ -343,7 +343,7 @@ class BatchingNeoStoresTest
                             new StandardConstraintSemantics(), indexConfigCompleter, LockService.NO_LOCK_SERVICE,
                             new DatabaseHealth( new DatabasePanicEventGenerator( new DatabaseEventListeners( nullLog ), DEFAULT_DATABASE_NAME ), nullLog ),
                             new DefaultIdGeneratorFactory( fileSystem, immediate() ), new DefaultIdController(),
-                            recoveryCleanupWorkCollector, PageCacheTracer.NULL, true ) );
+                            recoveryCleanupWorkCollector, scheduler, PageCacheTracer.NULL, true ) );
             // Create the relationship type token
             TxState txState = new TxState();
             Monitors monitors = new Monitors();
@@ -415,6 +415,12 @@ public class GraphDatabaseSettings implements SettingsDeclaration
     @Internal
     public static final Setting<Integer> cypher_worker_count = newBuilder( "unsupported.cypher.number_of_workers", INT, 0 ).build();
 
+    @Description( "The amount of memory that sorts, distincts and hash joins of the interpreted runtime keep rows in before they spill " +
+                  "them to temporary files on disk. If set to 0, they keep all rows in memory." )
+    @Internal
+    public static final Setting<Long> cypher_spill_threshold =
+            newBuilder( "unsupported.cypher.spill_threshold", BYTES, 0L ).addConstraint( min( 0L ) ).build();
+
     public enum CypherOperatorEngine
     {
         COMPILED,
@@ -494,6 +500,11 @@ public class GraphDatabaseSettings implements SettingsDeclaration
     public static final Setting<Duration> transaction_timeout =
             newBuilder( "dbms.transaction.timeout", DURATION, Duration.ZERO ).dynamic().build();
 
+    @Internal
+    @Description( "Commit transactions through a pipeline, where appending to the transaction log and applying to the store are done by " +
+            "separate threads, so that applying one group of transactions overlaps with appending the next." )
+    public static final Setting<Boolean> pipelined_commit = newBuilder( "unsupported.dbms.transaction.pipelined_commit", BOOL, false ).build();
+
     // @see Status.Transaction#LockAcquisitionTimeout
     @Description( "The maximum time interval within which lock should be acquired." )
     public static final Setting<Duration> lock_acquisition_timeout =
@@ -627,6 +638,14 @@ public class GraphDatabaseSettings implements SettingsDeclaration
     public static final Setting<Integer> check_point_iops_limit =
             newBuilder( "dbms.checkpoint.iops.limit", INT, 300 ).dynamic().build();
 
+    @Description( "The number of threads used for flushing the page cache during a checkpoint. " +
+            "By default the page cache is flushed by a single thread. With more threads, " +
+            "large store files are split into ranges of pages, that are flushed by several threads at once. " +
+            "The IO limit of 'dbms.checkpoint.iops.limit' applies to all of these threads together, not to each thread. " +
+            "The page cache is shared by all databases, so this setting applies to all of them." )
+    public static final Setting<Integer> check_point_flush_threads =
+            newBuilder( "dbms.checkpoint.flush.threads", INT, 1 ).addConstraint( min( 1 ) ).build();
+
     // Index sampling
     @Description( "Enable or disable background index sampling" )
     public static final Setting<Boolean> index_background_sampling_enabled =
@@ -760,6 +779,19 @@ public class GraphDatabaseSettings implements SettingsDeclaration
     @Description( "Specify if Neo4j should try to preallocate logical log file in advance." )
     public static final Setting<Boolean> preallocate_logical_logs = newBuilder( "dbms.tx_log.preallocate", BOOL, true ).dynamic().build();
 
+    @Description( "The longest time a committing transaction may hold back the force of the transaction log, so that more concurrently " +
+            "committing transactions can share that force. The actual delay adapts to the observed force latency and rate of commits, " +
+            "and is zero whenever too few transactions commit concurrently to benefit from it. " +
+            "This trades a little commit latency for fewer forces under high write concurrency. Set to '0' to never delay forces." )
+    public static final Setting<Duration> group_commit_max_delay =
+            newBuilder( "dbms.tx_log.group_commit.max_delay", DURATION, Duration.ZERO ).addConstraint( range( Duration.ZERO, ofMillis( 100 ) ) ).build();
+
+    @Description( "Compress the commands of each transaction written to the transaction log with zstd, using a dictionary trained on " +
+            "the first transactions written and stored at the start of every log file that uses it. This saves disk space and " +
+            "bandwidth for shipping transaction logs, at the cost of some CPU time when committing. " +
+            "Transaction logs can be read regardless of this setting." )
+    public static final Setting<Boolean> transaction_log_compression = newBuilder( "dbms.tx_log.compression", BOOL, false ).build();
+
     @Description( "If `true`, Neo4j will abort recovery if any errors are encountered in the logical log. Setting " +
             "this to `false` will allow Neo4j to restore as much as possible from the corrupted log files and ignore " +
             "the rest, but, the integrity of the database might be compromised." )
@@ -801,17 +833,22 @@ public class GraphDatabaseSettings implements SettingsDeclaration
             .addConstraint( range( 0, 255 ) ).build();
 
     @Description( "The profiling frequency for the page cache. Accurate profiles allow the page cache to do active " +
-            "warmup after a restart, reducing the mean time to performance. " +
-            "This feature available in Neo4j Enterprise Edition." )
+            "warmup after a restart, reducing the mean time to performance." )
     public static final Setting<Duration> pagecache_warmup_profiling_interval =
             newBuilder( "dbms.memory.pagecache.warmup.profile.interval", DURATION, ofMinutes( 1 ) ).build();
 
     @Description( "Page cache can be configured to perform usage sampling of loaded pages that can be used to construct active load profile. " +
             "According to that profile pages can be reloaded on the restart, replication, etc. " +
-            "This setting allows disabling that behavior. " +
-            "This feature available in Neo4j Enterprise Edition." )
+            "Profiles are kept in the 'profiles' directory of each database, and the warmup delays the start of a database by up to " +
+            "'dbms.memory.pagecache.warmup.time_budget'. This setting allows enabling that behavior." )
     public static final Setting<Boolean> pagecache_warmup_enabled =
-            newBuilder( "dbms.memory.pagecache.warmup.enable", BOOL, true ).build();
+            newBuilder( "dbms.memory.pagecache.warmup.enable", BOOL, false ).build();
+
+    @Description( "The maximum amount of time a database may spend reloading pages into the page cache when it starts. " +
+            "The database does not become available before the warmup has either completed, or used up this time budget. " +
+            "Set to '0' to start without warming up the page cache." )
+    public static final Setting<Duration> pagecache_warmup_time_budget =
+            newBuilder( "dbms.memory.pagecache.warmup.time_budget", DURATION, ofMinutes( 5 ) ).build();
 
     @Description( "Page cache warmup can be configured to prefetch files, preferably when cache size is bigger than store size. " +
             "Files to be prefetched can be filtered by 'dbms.memory.pagecache.warmup.preload.whitelist'. " +
@@ -828,6 +865,23 @@ public class GraphDatabaseSettings implements SettingsDeclaration
     public static final Setting<Boolean> pagecache_direct_io =
             newBuilder( "dbms.memory.pagecache.directio", BOOL, false ).build();
 
+    public enum PageCacheEvictionPolicy
+    {
+        CLOCK, PROBATIONARY
+    }
+
+    @Description( "The policy the page cache uses for choosing which pages to evict, when it needs to make room for new pages. " +
+            "'CLOCK' ages all pages evenly. 'PROBATIONARY' is scan resistant: pages that have only been touched once or twice since they were " +
+            "loaded are evicted first, so large scans are less likely to push frequently used pages out of the page cache. " +
+            "The page cache is shared by all databases, so this policy applies to all of them." )
+    public static final Setting<PageCacheEvictionPolicy> pagecache_eviction_policy =
+            newBuilder( "dbms.memory.pagecache.eviction_policy", ofEnum( PageCacheEvictionPolicy.class ), PageCacheEvictionPolicy.CLOCK ).build();
+
+    @Description( "Use io_uring for the vectored reads and writes of the page cache, which are used when flushing and reading ahead. " +
+            "This lets several page cache I/O operations be in flight at once, without holding locks on the files. " +
+            "Setting is supported only on Linux with a kernel that supports io_uring. Otherwise the page cache falls back to regular I/O." )
+    public static final Setting<Boolean> pagecache_io_uring = newBuilder( "dbms.memory.pagecache.io_uring", BOOL, false ).build();
+
     @Description( "Allows the enabling or disabling of the file watcher service." +
             " This is an auxiliary service but should be left enabled in almost all cases." )
     public static final Setting<Boolean> filewatcher_enabled = newBuilder( "dbms.filewatcher.enabled", BOOL, true ).build();
@@ -883,6 +937,20 @@ public class GraphDatabaseSettings implements SettingsDeclaration
     public static final Setting<Integer> dense_node_threshold =
             newBuilder( "dbms.relationship_grouping_threshold", INT, 50 ).addConstraint( min( 1 ) ).build();
 
+    @Internal
+    @Description( "Lower the high id of the node, relationship, relationship group and property stores, including the string and " +
+            "array stores, on every checkpoint, past the free ids at the end of those stores, so that these ids are allocated again " +
+            "before any higher id. The store files are truncated to their high id when the database shuts down. " +
+            "This lets store files shrink back after many of their highest records have been deleted." )
+    public static final Setting<Boolean> trim_free_id_tail = newBuilder( "unsupported.dbms.store.trim_free_id_tail", BOOL, false ).build();
+
+    @Internal
+    @Description( "Number of threads writing the node, relationship, property and relationship group records of a large transaction to the " +
+            "record stores when the transaction is applied, for example during recovery or on a cluster member replicating transactions. " +
+            "Records are partitioned by id over the threads. A value of 1 writes all records on the thread applying the transaction." )
+    public static final Setting<Integer> tx_apply_parallelism =
+            newBuilder( "unsupported.dbms.tx_apply.parallelism", INT, 1 ).addConstraint( min( 1 ) ).build();
+
     @Description( "Specifies the use of the new faster but experimental consistency checker" )
     public static final Setting<Boolean> experimental_consistency_checker = newBuilder( "unsupported.consistency_checker.experimental", BOOL, true ).build();
 
@@ -1176,6 +1244,17 @@ public class GraphDatabaseSettings implements SettingsDeclaration
     public static final Setting<Integer> tx_state_off_heap_block_cache_size =
             newBuilder( "dbms.memory.off_heap.block_cache_size", INT, 128 ).addConstraint( min( 16 ) ).build();
 
+    @Description( "Allow transaction state to spill to a memory mapped swap file in the data directory when dbms.memory.off_heap.max_size " +
+            "is reached, instead of failing the transaction. Used when dbms.tx_state.memory_allocation is set to 'OFF_HEAP'." )
+    public static final Setting<Boolean> tx_state_off_heap_spill_to_disk =
+            newBuilder( "dbms.memory.off_heap.spill_to_disk", BOOL, false ).build();
+
+    @Description( "The maximum amount of transaction state that can be spilled to disk; it's a total amount shared across all active " +
+            "transactions. Allocations beyond it fail the transaction. Zero means 'unlimited'. " +
+            "Used when dbms.memory.off_heap.spill_to_disk is enabled." )
+    public static final Setting<Long> tx_state_off_heap_max_spilled_size =
+            newBuilder( "dbms.memory.off_heap.max_spilled_size", BYTES, BYTES.parse( "8G" ) ).addConstraint( min( 0L ) ).build();
+
     @Description( "Defines whether the dbms may retry reconciling a database to its desired state." )
     public static final Setting<Boolean> reconciler_may_retry = newBuilder( "dbms.reconciler.may_retry", BOOL, false ).build();
 
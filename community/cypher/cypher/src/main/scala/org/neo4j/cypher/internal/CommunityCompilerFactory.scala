@@ -30,9 +30,12 @@ import org.neo4j.cypher.internal.compiler.phases.Compatibility4_1
 import org.neo4j.cypher.internal.planning.CypherPlanner
 import org.neo4j.exceptions.SyntaxException
 import org.neo4j.kernel.GraphDatabaseQueryService
+import org.neo4j.kernel.api.Kernel
 import org.neo4j.logging.Log
 import org.neo4j.logging.LogProvider
 import org.neo4j.monitoring
+import org.neo4j.scheduler.Group
+import org.neo4j.scheduler.JobScheduler
 
 /**
  * Factory which creates cypher compilers.
@@ -79,10 +82,20 @@ class CommunityCompilerFactory(graph: GraphDatabaseQueryService,
     else
       CommunityRuntimeFactory.getRuntime(cypherRuntime, plannerConfig.useErrorsOverWarnings)
 
+    // The workers of the parallel runtime read with cursors which are not bound to the thread of the transaction,
+    // in the Cypher worker pool of the job scheduler
+    val (threadSafeCursors, workerExecutor) =
+      if (cypherRuntime == CypherRuntimeOption.parallel) {
+        val resolver = graph.getDependencyResolver
+        (Some(resolver.resolveDependency(classOf[Kernel]).cursors()), Some(resolver.resolveDependency(classOf[JobScheduler]).executor(Group.CYPHER_WORKER)))
+      } else {
+        (None, None)
+      }
+
     CypherCurrentCompiler(
       planner,
       runtime,
-      CommunityRuntimeContextManager(log, runtimeConfig),
+      CommunityRuntimeContextManager(log, runtimeConfig, threadSafeCursors, workerExecutor),
       kernelMonitors)
   }
 }
@@ -24,8 +24,10 @@ import java.time.Clock
 import org.neo4j.cypher.CypherInterpretedPipesFallbackOption
 import org.neo4j.cypher.CypherOperatorEngineOption
 import org.neo4j.cypher.internal.planner.spi.TokenContext
+import org.neo4j.internal.kernel.api.CursorFactory
 import org.neo4j.internal.kernel.api.SchemaRead
 import org.neo4j.logging.Log
+import org.neo4j.scheduler.CallableExecutor
 
 /**
  * The regular community runtime context.
@@ -33,22 +35,25 @@ import org.neo4j.logging.Log
 case class CommunityRuntimeContext(tokenContext: TokenContext,
                                    schemaRead: SchemaRead,
                                    log: Log,
-                                   config: CypherRuntimeConfiguration) extends RuntimeContext {
+                                   config: CypherRuntimeConfiguration,
+                                   compileExpressions: Boolean = false,
+                                   override val threadSafeCursors: Option[CursorFactory] = None,
+                                   override val workerExecutor: Option[CallableExecutor] = None) extends RuntimeContext
 
-  override def compileExpressions: Boolean = false
-}
-
-case class CommunityRuntimeContextManager(log: Log, config: CypherRuntimeConfiguration) extends RuntimeContextManager[CommunityRuntimeContext] {
+case class CommunityRuntimeContextManager(log: Log,
+                                          config: CypherRuntimeConfiguration,
+                                          threadSafeCursors: Option[CursorFactory] = None,
+                                          workerExecutor: Option[CallableExecutor] = None) extends RuntimeContextManager[CommunityRuntimeContext] {
   override def create(tokenContext: TokenContext,
                       schemaRead: SchemaRead,
                       clock: Clock,
                       debugOptions: Set[String],
-                      ignore: Boolean,
+                      compileExpressions: Boolean,
                       ignore2: Boolean,
                       ignore3: CypherOperatorEngineOption,
                       ignore4: CypherInterpretedPipesFallbackOption
                      ): CommunityRuntimeContext =
-    CommunityRuntimeContext(tokenContext, schemaRead, log, config)
+    CommunityRuntimeContext(tokenContext, schemaRead, log, config, compileExpressions, threadSafeCursors, workerExecutor)
 
   // As we rely completely on transaction bound resources in community,
   // there is no need for further assertions here.
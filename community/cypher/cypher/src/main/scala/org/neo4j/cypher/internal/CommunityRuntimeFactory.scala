@@ -26,6 +26,8 @@ object CommunityRuntimeFactory {
 
   val interpreted = new FallbackRuntime[RuntimeContext](List(SchemaCommandRuntime, InterpretedRuntime), CypherRuntimeOption.interpreted)
   val default = new FallbackRuntime[RuntimeContext](List(SchemaCommandRuntime, InterpretedRuntime), CypherRuntimeOption.default)
+  val slotted = new FallbackRuntime[RuntimeContext](List(SchemaCommandRuntime, SlottedInterpretedRuntime), CypherRuntimeOption.slotted)
+  val parallel = new FallbackRuntime[RuntimeContext](List(SchemaCommandRuntime, ParallelInterpretedRuntime), CypherRuntimeOption.parallel)
 
   def getRuntime(cypherRuntime: CypherRuntimeOption, disallowFallback: Boolean): CypherRuntime[RuntimeContext] =
     cypherRuntime match {
@@ -33,6 +35,10 @@ object CommunityRuntimeFactory {
 
       case CypherRuntimeOption.default => default
 
+      case CypherRuntimeOption.slotted => slotted
+
+      case CypherRuntimeOption.parallel => parallel
+
       case unsupported if disallowFallback =>
         throw new RuntimeUnsupportedException(s"This version of Neo4j does not support requested runtime: $unsupported")
 
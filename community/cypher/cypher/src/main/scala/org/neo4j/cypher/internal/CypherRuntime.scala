@@ -38,8 +38,10 @@ import org.neo4j.cypher.internal.util.InternalNotification
 import org.neo4j.cypher.internal.util.attribution.IdGen
 import org.neo4j.exceptions.CantCompileQueryException
 import org.neo4j.exceptions.RuntimeUnsupportedException
+import org.neo4j.internal.kernel.api.CursorFactory
 import org.neo4j.internal.kernel.api.SchemaRead
 import org.neo4j.logging.Log
+import org.neo4j.scheduler.CallableExecutor
 import org.neo4j.util.Preconditions
 
 /**
@@ -98,6 +100,16 @@ abstract class RuntimeContext {
   def config: CypherRuntimeConfiguration
   def compileExpressions: Boolean
   def log: Log
+
+  /**
+   * Cursors which can be used by other threads than the one of the transaction, if the runtime can use any.
+   */
+  def threadSafeCursors: Option[CursorFactory] = None
+
+  /**
+   * Thread pool of the DBMS which runs the workers reading with [[threadSafeCursors]], if the runtime can use any.
+   */
+  def workerExecutor: Option[CallableExecutor] = None
 }
 
 /**
@@ -202,7 +214,9 @@ case class CypherRuntimeConfiguration(pipelinedBatchSizeSmall: Int,
                                       schedulerTracing: SchedulerTracingConfiguration,
                                       lenientCreateRelationship: Boolean,
                                       memoryTrackingController: MemoryTrackingController,
-                                      enableMonitors: Boolean) {
+                                      enableMonitors: Boolean,
+                                      workers: Int,
+                                      spillThreshold: Long) {
 
   Preconditions.checkArgument(pipelinedBatchSizeSmall <= pipelinedBatchSizeBig, s"pipelinedBatchSizeSmall (got $pipelinedBatchSizeSmall) must be <= pipelinedBatchSizeBig (got $pipelinedBatchSizeBig)")
 }
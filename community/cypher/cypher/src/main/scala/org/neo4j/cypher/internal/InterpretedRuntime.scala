@@ -19,6 +19,7 @@
  */
 package org.neo4j.cypher.internal
 
+import org.neo4j.cypher.internal.logical.plans.Aggregation
 import org.neo4j.cypher.internal.plandescription.Argument
 import org.neo4j.cypher.internal.runtime.ExecutionMode
 import org.neo4j.cypher.internal.runtime.ExplainMode
@@ -26,6 +27,10 @@ import org.neo4j.cypher.internal.runtime.InputDataStream
 import org.neo4j.cypher.internal.runtime.ProfileMode
 import org.neo4j.cypher.internal.runtime.QueryContext
 import org.neo4j.cypher.internal.runtime.QueryIndexRegistrator
+import org.neo4j.cypher.internal.runtime.ResourceManager
+import org.neo4j.cypher.internal.runtime.ResourceMonitor
+import org.neo4j.cypher.internal.runtime.SlotLayout
+import org.neo4j.cypher.internal.runtime.ThreadSafeResourceManager
 import org.neo4j.cypher.internal.runtime.expressionVariableAllocation
 import org.neo4j.cypher.internal.runtime.expressionVariableAllocation.Result
 import org.neo4j.cypher.internal.runtime.interpreted.ExecutionResultBuilderFactory
@@ -33,28 +38,51 @@ import org.neo4j.cypher.internal.runtime.interpreted.InterpretedExecutionResultB
 import org.neo4j.cypher.internal.runtime.interpreted.InterpretedPipeMapper
 import org.neo4j.cypher.internal.runtime.interpreted.UpdateCountingQueryContext
 import org.neo4j.cypher.internal.runtime.interpreted.commands.convert.CommunityExpressionConverter
+import org.neo4j.cypher.internal.runtime.interpreted.commands.convert.CompiledExpressionConverter
 import org.neo4j.cypher.internal.runtime.interpreted.commands.convert.ExpressionConverters
+import org.neo4j.cypher.internal.runtime.interpreted.commands.convert.SlottedExpressionConverter
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.NestedPipeExpressions
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.ParallelEagerAggregationPipe
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.ParallelEagerAggregationPipe.Parallelism
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.PipeTreeBuilder
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.SlottedPipeMapper
 import org.neo4j.cypher.internal.runtime.interpreted.profiler.InterpretedProfileInformation
 import org.neo4j.cypher.internal.runtime.interpreted.profiler.Profiler
 import org.neo4j.cypher.internal.runtime.slottedParameters
 import org.neo4j.cypher.internal.util.InternalNotification
 import org.neo4j.cypher.result.RuntimeResult
 import org.neo4j.exceptions.PeriodicCommitInOpenTransactionException
+import org.neo4j.internal.kernel.api.CursorFactory
 import org.neo4j.kernel.impl.query.QuerySubscriber
 import org.neo4j.values.virtual.MapValue
 
 object InterpretedRuntime extends CypherRuntime[RuntimeContext] {
   override def name: String = "interpreted"
 
-  override def compileToExecutable(query: LogicalQuery, context: RuntimeContext): ExecutionPlan = {
+  override def compileToExecutable(query: LogicalQuery, context: RuntimeContext): ExecutionPlan =
+    compileToExecutable(query, context, slottedRows = false)
+
+  /**
+   * @param slottedRows whether the pipes should pass rows which keep the variables of the query at fixed offsets of an array, see [[SlotLayout]]
+   * @param parallelism how to read the node scans of eager aggregations with several workers, and the thread safe cursors they read with,
+   *                    see [[ParallelEagerAggregationPipe]]
+   */
+  private[internal] def compileToExecutable(query: LogicalQuery,
+                                            context: RuntimeContext,
+                                            slottedRows: Boolean,
+                                            parallelism: Option[(Parallelism, CursorFactory)] = None): ExecutionPlan = {
     val Result(logicalPlan, nExpressionSlots, availableExpressionVars) = expressionVariableAllocation.allocate(query.logicalPlan)
     val (withSlottedParameters, parameterMapping) = slottedParameters(logicalPlan)
 
-    val converters = new ExpressionConverters(CommunityExpressionConverter(context.tokenContext))
+    val layout = if (slottedRows) Some(SlotLayout.from(withSlottedParameters)) else None
+    val slottedConverter = layout.map(SlottedExpressionConverter)
+    val compiledConverter = if (context.compileExpressions) Some(new CompiledExpressionConverter(layout)) else None
+    val converters = new ExpressionConverters(slottedConverter.toSeq ++ compiledConverter :+ CommunityExpressionConverter(context.tokenContext): _*)
     val queryIndexRegistrator = new QueryIndexRegistrator(context.schemaRead)
-    val pipeMapper = InterpretedPipeMapper(query.readOnly, converters, context.tokenContext, queryIndexRegistrator)(query.semanticTable)
+    val interpretedPipeMapper =
+      InterpretedPipeMapper(query.readOnly, converters, context.tokenContext, queryIndexRegistrator, parallelism.map(_._1),
+        context.config.spillThreshold)(query.semanticTable)
+    val pipeMapper = layout.map(SlottedPipeMapper(interpretedPipeMapper, _)).getOrElse(interpretedPipeMapper)
     val pipeTreeBuilder = PipeTreeBuilder(pipeMapper)
     val logicalPlanWithConvertedNestedPlans = NestedPipeExpressions.build(pipeTreeBuilder, withSlottedParameters, availableExpressionVars)
     val pipe = pipeTreeBuilder.build(logicalPlanWithConvertedNestedPlans)
@@ -70,11 +98,17 @@ object InterpretedRuntime extends CypherRuntime[RuntimeContext] {
       context.config.memoryTrackingController,
       query.hasLoadCSV)
 
+    // The workers of parallel aggregations need cursors which can be used by other threads than the one of the transaction
+    val threadSafeCursors = parallelism.collect {
+      case (_, cursors) if query.readOnly && logicalPlan.treeExists { case _: Aggregation => true } => cursors
+    }
+
     new InterpretedExecutionPlan(query.periodicCommitInfo,
       resultBuilderFactory,
-      InterpretedRuntimeName,
+      if (parallelism.isDefined) ParallelRuntimeName else if (slottedRows) SlottedRuntimeName else InterpretedRuntimeName,
       query.readOnly,
-      IndexedSeq.empty)
+      IndexedSeq.empty,
+      threadSafeCursors)
   }
 
   /**
@@ -85,7 +119,8 @@ object InterpretedRuntime extends CypherRuntime[RuntimeContext] {
                                  resultBuilderFactory: ExecutionResultBuilderFactory,
                                  override val runtimeName: RuntimeName,
                                  readOnly: Boolean,
-                                 override val metadata: Seq[Argument]) extends ExecutionPlan {
+                                 override val metadata: Seq[Argument],
+                                 threadSafeCursors: Option[CursorFactory] = None) extends ExecutionPlan {
 
     override def run(queryContext: QueryContext,
                      executionMode: ExecutionMode,
@@ -111,6 +146,42 @@ object InterpretedRuntime extends CypherRuntime[RuntimeContext] {
       builder.build(params, readOnly, profileInformation, prePopulateResults, input, subscriber, doProfile)
     }
 
+    override def threadSafeExecutionResources(): Option[(CursorFactory, ResourceManagerFactory)] =
+      threadSafeCursors.map(cursors => (cursors, new ResourceManagerFactory {
+        override def apply(monitor: ResourceMonitor): ResourceManager = new ThreadSafeResourceManager(monitor)
+      }))
+
     override def notifications: Set[InternalNotification] = Set.empty
   }
 }
+
+/**
+ * The interpreted runtime, passing rows which keep the variables of the query at fixed offsets of an array instead of in a hash map.
+ */
+object SlottedInterpretedRuntime extends CypherRuntime[RuntimeContext] {
+  override def name: String = "slotted"
+
+  override def compileToExecutable(query: LogicalQuery, context: RuntimeContext): ExecutionPlan =
+    InterpretedRuntime.compileToExecutable(query, context, slottedRows = true)
+}
+
+/**
+ * The interpreted runtime, reading the node scans of read-only eager aggregations with several workers, see [[ParallelEagerAggregationPipe]].
+ * The workers reserve batches of the size of the big batches of the pipelined runtime.
+ * Runs the queries with the interpreted runtime if there is only one worker, or no thread safe cursors or worker pool to read with.
+ */
+object ParallelInterpretedRuntime extends CypherRuntime[RuntimeContext] {
+  override def name: String = "parallel"
+
+  override def compileToExecutable(query: LogicalQuery, context: RuntimeContext): ExecutionPlan = {
+    // 0 workers means one per processor, just like for the workers of the parallel runtime
+    val workers = if (context.config.workers == 0) Runtime.getRuntime.availableProcessors() else context.config.workers
+    (context.threadSafeCursors, context.workerExecutor) match {
+      case (Some(cursors), Some(executor)) if workers > 1 =>
+        val parallelism = Parallelism(workers, context.config.pipelinedBatchSizeBig, executor)
+        InterpretedRuntime.compileToExecutable(query, context, slottedRows = false, parallelism = Some((parallelism, cursors)))
+      case _ =>
+        InterpretedRuntime.compileToExecutable(query, context)
+    }
+  }
+}
@@ -137,6 +137,10 @@ class ExceptionTranslatingQueryContext(val inner: QueryContext) extends QueryCon
                                            values: Seq[IndexQuery]): NodeValueIndexCursor =
     translateException(tokenNameLookup, inner.indexSeek(index, needsValues, indexOrder, values))
 
+  override def indexSeekMany[RESULT <: AnyRef](index: IndexReadSession,
+                                               queries: Seq[Seq[IndexQuery.ExactPredicate]]): NodeValueIndexCursor =
+    translateException(tokenNameLookup, inner.indexSeekMany(index, queries))
+
   override def getNodesByLabel(id: Int): Iterator[NodeValue] =
     translateException(tokenNameLookup, inner.getNodesByLabel(id))
 
@@ -159,6 +159,10 @@ abstract class DelegatingQueryContext(val inner: QueryContext) extends QueryCont
                                            queries: Seq[IndexQuery]): NodeValueIndexCursor =
     manyDbHits(inner.indexSeek(index, needsValues, indexOrder, queries))
 
+  override def indexSeekMany[RESULT <: AnyRef](index: IndexReadSession,
+                                               queries: Seq[Seq[IndexQuery.ExactPredicate]]): NodeValueIndexCursor =
+    manyDbHits(inner.indexSeekMany(index, queries))
+
   override def indexScan[RESULT <: AnyRef](index: IndexReadSession,
                                            needsValues: Boolean,
                                            indexOrder: IndexOrder): NodeValueIndexCursor =
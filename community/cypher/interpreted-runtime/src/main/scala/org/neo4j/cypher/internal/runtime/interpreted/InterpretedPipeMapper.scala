@@ -94,6 +94,7 @@ import org.neo4j.cypher.internal.logical.plans.PruningVarExpand
 import org.neo4j.cypher.internal.logical.plans.RelationshipCountFromCountStore
 import org.neo4j.cypher.internal.logical.plans.RemoveLabels
 import org.neo4j.cypher.internal.logical.plans.ResolvedCall
+import org.neo4j.cypher.internal.logical.plans.ResolvedFunctionInvocation
 import org.neo4j.cypher.internal.logical.plans.RightOuterHashJoin
 import org.neo4j.cypher.internal.logical.plans.RollUpApply
 import org.neo4j.cypher.internal.logical.plans.SelectOrAntiSemiApply
@@ -188,6 +189,8 @@ import org.neo4j.cypher.internal.runtime.interpreted.pipes.OptionalExpandIntoPip
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.OptionalPipe
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.OrderedAggregationPipe
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.OrderedDistinctPipe
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.ParallelEagerAggregationPipe
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.ParallelEagerAggregationPipe.Parallelism
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.PartialSortPipe
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.PartialTop1Pipe
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.PartialTop1WithTiesPipe
@@ -238,11 +241,16 @@ import org.neo4j.values.virtual.RelationshipValue
 /**
  * Responsible for turning a logical plan with argument pipes into a new pipe.
  * When adding new Pipes and LogicalPlans, this is where you should be looking.
+ *
+ * @param parallelism how to read the node scans of eager aggregations with several workers, if at all, see [[ParallelEagerAggregationPipe]]
+ * @param spillThreshold how many bytes of rows sorts, distincts and hash joins keep in memory before spilling them to disk, or 0 to never spill
  */
 case class InterpretedPipeMapper(readOnly: Boolean,
                                  expressionConverters: ExpressionConverters,
                                  tokenContext: TokenContext,
-                                 indexRegistrator: QueryIndexRegistrator)
+                                 indexRegistrator: QueryIndexRegistrator,
+                                 parallelism: Option[ParallelEagerAggregationPipe.Parallelism] = None,
+                                 spillThreshold: Long = 0)
                                 (implicit semanticTable: SemanticTable) extends PipeMapper {
 
   private def getBuildExpression(id: Id): internal.expressions.Expression => Expression =
@@ -398,7 +406,7 @@ case class InterpretedPipeMapper(readOnly: Boolean,
         PruningVarLengthExpandPipe(source, from, toName, RelationshipTypes(types.toArray), dir, minLength, maxLength, predicate)(id = id)
 
       case Sort(_, sortItems) =>
-        SortPipe(source, InterpretedExecutionContextOrdering.asComparator(sortItems.map(translateColumnOrder)))(id = id)
+        SortPipe(source, InterpretedExecutionContextOrdering.asComparator(sortItems.map(translateColumnOrder)), spillThreshold)(id = id)
 
       case PartialSort(_, alreadySortedPrefix, stillToSortSuffix) =>
         PartialSortPipe(source, InterpretedExecutionContextOrdering.asComparator(alreadySortedPrefix.map(translateColumnOrder)), InterpretedExecutionContextOrdering.asComparator(stillToSortSuffix.map(translateColumnOrder)))(id = id)
@@ -413,7 +421,7 @@ case class InterpretedPipeMapper(readOnly: Boolean,
 
       case Top(_, sortItems, limit) =>
         TopNPipe(source, buildExpression(limit),
-          InterpretedExecutionContextOrdering.asComparator(sortItems.map(translateColumnOrder).toList))(id = id)
+          InterpretedExecutionContextOrdering.asComparator(sortItems.map(translateColumnOrder).toList), spillThreshold)(id = id)
 
       case PartialTop(_, _, stillToSortSuffix, _) if stillToSortSuffix.isEmpty => source
 
@@ -430,7 +438,7 @@ case class InterpretedPipeMapper(readOnly: Boolean,
 
       case Limit(_, count, IncludeTies) =>
         (source, count) match {
-          case (SortPipe(inner, comparator), SignedDecimalIntegerLiteral("1")) =>
+          case (SortPipe(inner, comparator, _), SignedDecimalIntegerLiteral("1")) =>
             Top1WithTiesPipe(inner, comparator)(id = id)
           case (PartialSortPipe(inner, prefixComparator, suffixComparator), SignedDecimalIntegerLiteral("1")) =>
             PartialTop1WithTiesPipe(inner, prefixComparator, suffixComparator)(id = id)
@@ -442,13 +450,13 @@ case class InterpretedPipeMapper(readOnly: Boolean,
         val projection = groupingExpressions.map {
           case (key, value) => DistinctPipe.GroupingCol(key, buildExpression(value))
         }.toArray
-        DistinctPipe(source, projection)(id = id)
+        DistinctPipe(source, projection, spillThreshold)(id = id)
 
       case Distinct(_, groupingExpressions) =>
         val projection = groupingExpressions.map {
           case (key, value) => DistinctPipe.GroupingCol(key, buildExpression(value))
         }.toArray
-        DistinctPipe(source, projection)(id = id)
+        DistinctPipe(source, projection, spillThreshold)(id = id)
 
       case OrderedDistinct(_, groupingExpressions, orderToLeverage) =>
         val projection = groupingExpressions.map {
@@ -481,7 +489,14 @@ case class InterpretedPipeMapper(readOnly: Boolean,
             val groupingFunction: (CypherRow, QueryState) => AnyValue = AggregationPipe.computeGroupingFunction(groupingColumns)
             GroupingAggTable.Factory(groupingColumns, groupingFunction, aggregationColumns)
           }
-        EagerAggregationPipe(source, tableFactory)(id = id)
+        parallelism match {
+          case Some(Parallelism(workers, batchSize, executor))
+            if workers > 1 && readOnly && ParallelEagerAggregationPipe.canAggregate(source, aggregationColumns) && !callsThreadUnsafeFunctions(plan) =>
+            val mergeTableFactory = ParallelEagerAggregationPipe.mergeTableFactory(groupingExpressions.keys.toArray, aggregationColumns)
+            ParallelEagerAggregationPipe(source, tableFactory, mergeTableFactory, workers, batchSize, executor)(id = id)
+          case _ =>
+            EagerAggregationPipe(source, tableFactory)(id = id)
+        }
 
       case OrderedAggregation(_, groupingExpressions, aggregatingExpressions, orderToLeverage) =>
         val aggregationColumns = aggregatingExpressions.map {
@@ -663,7 +678,7 @@ case class InterpretedPipeMapper(readOnly: Boolean,
         CartesianProductPipe(lhs, rhs)(id = id)
 
       case NodeHashJoin(nodes, _, _) =>
-        NodeHashJoinPipe(nodes, lhs, rhs)(id = id)
+        NodeHashJoinPipe(nodes, lhs, rhs, spillThreshold)(id = id)
 
       case LeftOuterHashJoin(nodes, l, r) =>
         val nullableVariables = r.availableSymbols -- l.availableSymbols
@@ -715,7 +730,7 @@ case class InterpretedPipeMapper(readOnly: Boolean,
         TriadicSelectionPipe(positivePredicate, lhs, sourceId, seenId, targetId, rhs)(id = id)
 
       case ValueHashJoin(_, _, internal.expressions.Equals(lhsExpression, rhsExpression)) =>
-        ValueHashJoinPipe(buildExpression(lhsExpression), buildExpression(rhsExpression), lhs, rhs)(id = id)
+        ValueHashJoinPipe(buildExpression(lhsExpression), buildExpression(rhsExpression), lhs, rhs, spillThreshold)(id = id)
 
       case ForeachApply(_, _, variable, expression) =>
         ForeachPipe(lhs, rhs, variable, buildExpression(expression))(id = id)
@@ -733,6 +748,11 @@ case class InterpretedPipeMapper(readOnly: Boolean,
       .rewrite(KeyTokenResolver.resolveExpressions(_, tokenContext))
       .asInstanceOf[Predicate]
 
+  // Functions which are not known to be thread safe can't be called by the workers of a parallel aggregation
+  private def callsThreadUnsafeFunctions(plan: LogicalPlan): Boolean = plan.treeExists {
+    case f: ResolvedFunctionInvocation => !f.fcnSignature.exists(_.threadSafe)
+  }
+
   private def translateColumnOrder(s: plans.ColumnOrder): org.neo4j.cypher.internal.runtime.interpreted.ColumnOrder = s match {
     case plans.Ascending(name) => org.neo4j.cypher.internal.runtime.interpreted.Ascending(name)
     case plans.Descending(name) => org.neo4j.cypher.internal.runtime.interpreted.Descending(name)
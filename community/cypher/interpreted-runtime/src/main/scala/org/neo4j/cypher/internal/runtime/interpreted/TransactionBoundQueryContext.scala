@@ -287,7 +287,7 @@ sealed class TransactionBoundQueryContext(val transactionalContext: Transactiona
 
     val impossiblePredicate =
       predicates.exists {
-        case p: IndexQuery.ExactPredicate => (p.value() eq Values.NO_VALUE) || (p.value().isInstanceOf[FloatingPointValue] && p.value().asInstanceOf[FloatingPointValue].isNaN)
+        case p: IndexQuery.ExactPredicate => impossibleExactPredicate(p)
         case _: IndexQuery.ExistsPredicate => predicates.length <= 1
         case p: IndexQuery.RangePredicate[_] =>
           !RANGE_SEEKABLE_VALUE_GROUPS.contains(p.valueGroup())
@@ -298,6 +298,20 @@ sealed class TransactionBoundQueryContext(val transactionalContext: Transactiona
     else seek(index, needsValues, indexOrder, predicates: _*)
   }
 
+  override def indexSeekMany[RESULT <: AnyRef](index: IndexReadSession,
+                                               queries: Seq[Seq[IndexQuery.ExactPredicate]]): NodeValueIndexCursor = {
+    val possibleQueries = queries.filterNot(_.exists(impossibleExactPredicate))
+    if (possibleQueries.isEmpty) NodeValueIndexCursor.EMPTY
+    else {
+      val nodeCursor: NodeValueIndexCursor = allocateAndTraceNodeValueIndexCursor()
+      reads().nodeIndexSeekMany(index, nodeCursor, IndexQueryConstraints.unordered(false), possibleQueries.map(_.toArray[IndexQuery.ExactPredicate]): _*)
+      nodeCursor
+    }
+  }
+
+  private def impossibleExactPredicate(p: IndexQuery.ExactPredicate): Boolean =
+    (p.value() eq Values.NO_VALUE) || (p.value().isInstanceOf[FloatingPointValue] && p.value().asInstanceOf[FloatingPointValue].isNaN)
+
   override def indexReference(label: Int,
                               properties: Int*): IndexDescriptor =
     Iterators.single(
@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.commands.convert
+
+import java.util.concurrent.atomic.AtomicLong
+
+import org.neo4j.codegen.CodeGenerationNotSupportedException
+import org.neo4j.codegen.CompilationFailureException
+import org.neo4j.codegen.api.ClassDeclaration
+import org.neo4j.codegen.api.CodeGeneration
+import org.neo4j.codegen.api.CodeGeneration.ByteCodeGeneration
+import org.neo4j.codegen.api.CodeGeneration.CodeSaver
+import org.neo4j.codegen.api.IntermediateRepresentation
+import org.neo4j.codegen.api.IntermediateRepresentation.arrayLoad
+import org.neo4j.codegen.api.IntermediateRepresentation.assign
+import org.neo4j.codegen.api.IntermediateRepresentation.block
+import org.neo4j.codegen.api.IntermediateRepresentation.constant
+import org.neo4j.codegen.api.IntermediateRepresentation.declare
+import org.neo4j.codegen.api.IntermediateRepresentation.equal
+import org.neo4j.codegen.api.IntermediateRepresentation.falseValue
+import org.neo4j.codegen.api.IntermediateRepresentation.getStatic
+import org.neo4j.codegen.api.IntermediateRepresentation.ifElse
+import org.neo4j.codegen.api.IntermediateRepresentation.invoke
+import org.neo4j.codegen.api.IntermediateRepresentation.invokeStatic
+import org.neo4j.codegen.api.IntermediateRepresentation.invokeStaticSideEffect
+import org.neo4j.codegen.api.IntermediateRepresentation.load
+import org.neo4j.codegen.api.IntermediateRepresentation.method
+import org.neo4j.codegen.api.IntermediateRepresentation.noValue
+import org.neo4j.codegen.api.IntermediateRepresentation.noop
+import org.neo4j.codegen.api.IntermediateRepresentation.or
+import org.neo4j.codegen.api.IntermediateRepresentation.param
+import org.neo4j.codegen.api.IntermediateRepresentation.ternary
+import org.neo4j.codegen.api.IntermediateRepresentation.trueValue
+import org.neo4j.codegen.api.IntermediateRepresentation.typeRefOf
+import org.neo4j.codegen.api.MethodDeclaration
+import org.neo4j.codegen.api.StaticField
+import org.neo4j.cypher.internal.expressions
+import org.neo4j.cypher.internal.expressions.Expression
+import org.neo4j.cypher.internal.runtime.DbAccess
+import org.neo4j.cypher.internal.runtime.ExpressionCursors
+import org.neo4j.cypher.internal.runtime.ReadableRow
+import org.neo4j.cypher.internal.runtime.SlotLayout
+import org.neo4j.cypher.internal.runtime.VariableSlot
+import org.neo4j.cypher.internal.runtime.ast.ParameterFromSlot
+import org.neo4j.cypher.internal.runtime.interpreted.ValueConversion.asValue
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.CompiledExpression
+import org.neo4j.cypher.operations.CypherBoolean
+import org.neo4j.cypher.operations.CypherFunctions
+import org.neo4j.cypher.operations.CypherMath
+import org.neo4j.internal.kernel.api.NodeCursor
+import org.neo4j.internal.kernel.api.PropertyCursor
+import org.neo4j.internal.kernel.api.RelationshipScanCursor
+import org.neo4j.values.AnyValue
+import org.neo4j.values.storable.Value
+import org.neo4j.values.storable.Values
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+  * Compiles expressions into classes implementing [[CompiledExpression]], using the helpers in [[CypherMath]], [[CypherBoolean]] and
+  * [[CypherFunctions]] for the operators, so that evaluating an expression is one call instead of a walk over a tree of commands.
+  *
+  * Only a subset of the expressions is supported: variables, parameters, literals, property access, arithmetics, comparisons and boolean
+  * operators. An expression containing anything else is not compiled as a whole, but its supported sub-expressions still are,
+  * see [[CompiledExpressionConverter]].
+  */
+object ExpressionCompiler {
+
+  private val PACKAGE_NAME = "org.neo4j.codegen"
+  private val classNameCounter = new AtomicLong()
+
+  private val ROW = "row"
+  private val PARAMS = "params"
+  private val DB_ACCESS = "dbAccess"
+  private val CURSORS = "cursors"
+
+  /**
+    * @param layout the layout of the rows the expression is evaluated on, if they are slotted, so that variables are read at their offsets
+    * @return a compiled instance of the expression, or `None` if the expression isn't supported or not worth compiling
+    */
+  def compile(expression: Expression, layout: Option[SlotLayout] = None): Option[CompiledExpression] = {
+    if (!isOperator(expression)) {
+      None
+    } else {
+      val generation = new Generation(layout)
+      generation.compile(expression).flatMap(value => compileClass(generation, value))
+    }
+  }
+
+  /**
+    * @return `true` if the expression can only evaluate to `true`, `false` or `null`
+    */
+  def isPredicate(expression: Expression): Boolean = expression match {
+    case _: expressions.True | _: expressions.False => true
+    case _: expressions.Equals | _: expressions.NotEquals | _: expressions.InequalityExpression => true
+    case _: expressions.IsNull | _: expressions.IsNotNull => true
+    case _: expressions.Not | _: expressions.And | _: expressions.Or | _: expressions.Xor | _: expressions.Ands | _: expressions.Ors => true
+    case _ => false
+  }
+
+  // Variables, parameters, literals and single property reads are as cheap to interpret as to call into a generated class
+  private def isOperator(expression: Expression): Boolean = expression match {
+    case _: expressions.Variable | _: expressions.Literal | _: ParameterFromSlot => false
+    case expressions.Property(_: expressions.Variable, _) => false
+    case _ => true
+  }
+
+  private def compileClass(generation: Generation, value: IntermediateRepresentation): Option[CompiledExpression] = {
+    val evaluate = MethodDeclaration("evaluate",
+      typeRefOf[AnyValue],
+      Seq(param[ReadableRow](ROW), param[Array[AnyValue]](PARAMS), param[DbAccess](DB_ACCESS), param[ExpressionCursors](CURSORS)),
+      block(generation.statements :+ value: _*))
+    val constants = generation.constants
+    val declaration = ClassDeclaration[CompiledExpression](PACKAGE_NAME,
+      "CompiledExpression" + classNameCounter.getAndIncrement(),
+      None,
+      Seq(typeRefOf[CompiledExpression]),
+      Seq.empty,
+      noop(),
+      () => constants,
+      Seq(evaluate))
+    try {
+      val generator = CodeGeneration.createGenerator(ByteCodeGeneration(new CodeSaver(false, false)))
+      Some(CodeGeneration.compileClass(declaration, generator).getDeclaredConstructor().newInstance())
+    } catch {
+      case _: CodeGenerationNotSupportedException | _: CompilationFailureException => None
+    }
+  }
+
+  /**
+    * State of compiling one expression. Every compiled sub-expression is assigned to a local variable, in statements which are evaluated
+    * in order, so that no sub-expression is evaluated more than once.
+    */
+  private class Generation(layout: Option[SlotLayout]) {
+    private var nLocals = 0
+    private var currentStatements = new ArrayBuffer[IntermediateRepresentation]()
+    private val constantFields = new ArrayBuffer[StaticField]()
+
+    def statements: Seq[IntermediateRepresentation] = currentStatements
+
+    def constants: Seq[StaticField] = constantFields
+
+    /**
+      * Adds the statements evaluating the expression and returns a side effect free representation of its value.
+      */
+    def compile(expression: Expression): Option[IntermediateRepresentation] = expression match {
+      case _: expressions.Null => Some(noValue)
+      case _: expressions.True => Some(trueValue)
+      case _: expressions.False => Some(falseValue)
+      case e: expressions.Literal => Some(constantValue(asValue(e.value)))
+      case e: expressions.Variable => layout match {
+        case Some(slots) =>
+          val slot = constantSlot(slots.slotFor(e.name))
+          Some(local(invoke(slot, method[VariableSlot, AnyValue, ReadableRow]("getByName"), load(ROW))))
+        case None =>
+          Some(local(invoke(load(ROW), method[ReadableRow, AnyValue, String]("getByName"), constant(e.name))))
+      }
+      case e: ParameterFromSlot => Some(local(arrayLoad(load(PARAMS), e.offset)))
+
+      case expressions.Property(map, key) =>
+        unary(map)(m => nullChecked(m)(propertyGet(key.name, m)))
+
+      case e: expressions.Add => binary(e.lhs, e.rhs)((l, r) => nullChecked(l, r)(invokeStatic(math("add"), l, r)))
+      case e: expressions.Subtract => binary(e.lhs, e.rhs)((l, r) => nullChecked(l, r)(invokeStatic(math("subtract"), l, r)))
+      case e: expressions.Multiply => binary(e.lhs, e.rhs)((l, r) => nullChecked(l, r)(invokeStatic(math("multiply"), l, r)))
+      case e: expressions.Modulo => binary(e.lhs, e.rhs)((l, r) => nullChecked(l, r)(invokeStatic(math("modulo"), l, r)))
+      case e: expressions.Divide =>
+        binary(e.lhs, e.rhs) { (l, r) =>
+          currentStatements += invokeStaticSideEffect(method[CypherMath, Boolean, AnyValue, AnyValue]("divideCheckForNull"), l, r)
+          nullChecked(l, r)(invokeStatic(math("divide"), l, r))
+        }
+      case e: expressions.UnarySubtract =>
+        val zero = constantValue(Values.longValue(0))
+        unary(e.rhs)(r => nullChecked(r)(invokeStatic(math("subtract"), zero, r)))
+
+      case e: expressions.Equals => binary(e.lhs, e.rhs)((l, r) => nullChecked(l, r)(invokeStatic(boolean("equals"), l, r)))
+      case e: expressions.NotEquals => binary(e.lhs, e.rhs)((l, r) => nullChecked(l, r)(invokeStatic(boolean("notEquals"), l, r)))
+      case e: expressions.LessThan => binary(e.lhs, e.rhs)((l, r) => invokeStatic(boolean("lessThan"), l, r))
+      case e: expressions.LessThanOrEqual => binary(e.lhs, e.rhs)((l, r) => invokeStatic(boolean("lessThanOrEqual"), l, r))
+      case e: expressions.GreaterThan => binary(e.lhs, e.rhs)((l, r) => invokeStatic(boolean("greaterThan"), l, r))
+      case e: expressions.GreaterThanOrEqual => binary(e.lhs, e.rhs)((l, r) => invokeStatic(boolean("greaterThanOrEqual"), l, r))
+      case e: expressions.IsNull => unary(e.lhs)(v => ternary(equal(v, noValue), trueValue, falseValue))
+      case e: expressions.IsNotNull => unary(e.lhs)(v => ternary(equal(v, noValue), falseValue, trueValue))
+
+      // Boolean operators only take operands which are known to be booleans, everything else needs the coercion of the interpreted predicates
+      case e: expressions.Not if isPredicate(e.rhs) =>
+        unary(e.rhs)(v => nullChecked(v)(invokeStatic(method[CypherBoolean, Value, AnyValue]("not"), v)))
+      case e: expressions.Xor if isPredicate(e.lhs) && isPredicate(e.rhs) =>
+        binary(e.lhs, e.rhs)((l, r) => nullChecked(l, r)(invokeStatic(method[CypherBoolean, Value, AnyValue, AnyValue]("xor"), l, r)))
+      case e: expressions.And if isPredicate(e.lhs) && isPredicate(e.rhs) => shortCircuit(Seq(e.lhs, e.rhs), falseValue)
+      case e: expressions.Or if isPredicate(e.lhs) && isPredicate(e.rhs) => shortCircuit(Seq(e.lhs, e.rhs), trueValue)
+      case e: expressions.Ands if e.exprs.forall(isPredicate) => shortCircuit(e.exprs.toSeq, falseValue)
+      case e: expressions.Ors if e.exprs.forall(isPredicate) => shortCircuit(e.exprs.toSeq, trueValue)
+
+      case _ => None
+    }
+
+    private def unary(operand: Expression)(value: IntermediateRepresentation => IntermediateRepresentation): Option[IntermediateRepresentation] =
+      compile(operand).map(o => local(value(o)))
+
+    private def binary(lhs: Expression, rhs: Expression)
+                      (value: (IntermediateRepresentation, IntermediateRepresentation) => IntermediateRepresentation): Option[IntermediateRepresentation] =
+      for {
+        l <- compile(lhs)
+        r <- compile(rhs)
+      } yield local(value(l, r))
+
+    /**
+      * Evaluates the operands in order until one of them evaluates to `decisive`, which is then the value of the whole expression.
+      * Otherwise the value is `null` if any operand was `null`, and the negation of `decisive` if none was.
+      */
+    private def shortCircuit(operands: Seq[Expression], decisive: IntermediateRepresentation): Option[IntermediateRepresentation] = {
+      val result = newLocal()
+      val sawNull = newLocal()
+      val indecisive = if (decisive == trueValue) falseValue else trueValue
+      currentStatements += declare[AnyValue](result)
+      currentStatements += declare[AnyValue](sawNull)
+      currentStatements += assign(result, indecisive)
+      currentStatements += assign(sawNull, falseValue)
+
+      // if (operand == decisive) result = decisive else { next operand... }
+      def evaluate(remaining: List[Expression]): Option[IntermediateRepresentation] = remaining match {
+        case Nil =>
+          Some(assign(result, ternary(equal(load(sawNull), trueValue), noValue, indecisive)))
+        case operand :: tail =>
+          val outer = currentStatements
+          currentStatements = new ArrayBuffer[IntermediateRepresentation]()
+          val compiled = compile(operand)
+          val operandStatements = currentStatements
+          currentStatements = outer
+          for {
+            value <- compiled
+            rest <- evaluate(tail)
+          } yield block(operandStatements :+
+            ifElse(equal(value, decisive))(assign(result, decisive))(block(
+              assign(sawNull, ternary(equal(value, noValue), trueValue, load(sawNull))),
+              rest)): _*)
+      }
+
+      evaluate(operands.toList).map { statement =>
+        currentStatements += statement
+        load(result)
+      }
+    }
+
+    private def nullChecked(operands: IntermediateRepresentation*)(value: IntermediateRepresentation): IntermediateRepresentation =
+      ternary(or(operands.map(o => equal(o, noValue))), noValue, value)
+
+    private def propertyGet(key: String, container: IntermediateRepresentation): IntermediateRepresentation =
+      invokeStatic(
+        method[CypherFunctions, AnyValue, String, AnyValue, DbAccess, NodeCursor, RelationshipScanCursor, PropertyCursor]("propertyGet"),
+        constant(key),
+        container,
+        load(DB_ACCESS),
+        invoke(load(CURSORS), method[ExpressionCursors, NodeCursor]("nodeCursor")),
+        invoke(load(CURSORS), method[ExpressionCursors, RelationshipScanCursor]("relationshipScanCursor")),
+        invoke(load(CURSORS), method[ExpressionCursors, PropertyCursor]("propertyCursor")))
+
+    private def constantValue(value: AnyValue): IntermediateRepresentation = {
+      val field = StaticField(typeRefOf[AnyValue], "CONSTANT" + constantFields.size, Some(value))
+      constantFields += field
+      getStatic(field)
+    }
+
+    private def constantSlot(slot: VariableSlot): IntermediateRepresentation = {
+      val field = StaticField(typeRefOf[VariableSlot], "SLOT" + constantFields.size, Some(slot))
+      constantFields += field
+      getStatic(field)
+    }
+
+    private def local(value: IntermediateRepresentation): IntermediateRepresentation = {
+      val name = newLocal()
+      currentStatements += declare[AnyValue](name)
+      currentStatements += assign(name, value)
+      load(name)
+    }
+
+    private def newLocal(): String = {
+      val name = "v" + nLocals
+      nLocals += 1
+      name
+    }
+  }
+
+  private def math(name: String) = method[CypherMath, AnyValue, AnyValue, AnyValue](name)
+
+  private def boolean(name: String) = method[CypherBoolean, Value, AnyValue, AnyValue](name)
+}
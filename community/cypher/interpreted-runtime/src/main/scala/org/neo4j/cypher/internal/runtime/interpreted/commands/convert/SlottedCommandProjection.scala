@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.commands.convert
+
+import org.neo4j.cypher.internal.runtime.ReadWriteRow
+import org.neo4j.cypher.internal.runtime.SlotLayout
+import org.neo4j.cypher.internal.runtime.interpreted.CommandProjection
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Expression
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.QueryState
+
+/**
+  * Projection which writes its results at the offsets of the given layout, looked up once when the projection is built.
+  */
+case class SlottedCommandProjection(layout: SlotLayout, expressions: Map[String, Expression]) extends CommandProjection {
+
+  private val (slots, projections) = {
+    val entries = expressions.toArray
+    (entries.map(entry => layout.slotFor(entry._1)), entries.map(_._2))
+  }
+
+  override def isEmpty: Boolean = expressions.isEmpty
+
+  override def project(ctx: ReadWriteRow, state: QueryState): Unit = {
+    var i = 0
+    while (i < slots.length) {
+      slots(i).set(ctx, projections(i)(ctx, state))
+      i += 1
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.commands.expressions
+
+import org.neo4j.cypher.internal
+import org.neo4j.cypher.internal.runtime.DbAccess
+import org.neo4j.cypher.internal.runtime.ExpressionCursors
+import org.neo4j.cypher.internal.runtime.ReadableRow
+import org.neo4j.cypher.internal.runtime.interpreted.commands.AstNode
+import org.neo4j.cypher.internal.runtime.interpreted.commands.predicates.Predicate
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.QueryState
+import org.neo4j.values.AnyValue
+import org.neo4j.values.storable.Value
+import org.neo4j.values.storable.Values
+
+/**
+  * Interface of the classes generated by the [[org.neo4j.cypher.internal.runtime.interpreted.commands.convert.ExpressionCompiler]].
+  */
+trait CompiledExpression {
+  def evaluate(row: ReadableRow, params: Array[AnyValue], dbAccess: DbAccess, cursors: ExpressionCursors): AnyValue
+}
+
+/**
+  * Evaluates an expression with a generated class instead of walking a tree of commands.
+  */
+case class CompiledCommandExpression(compiled: CompiledExpression, expression: internal.expressions.Expression) extends Expression {
+
+  override def apply(row: ReadableRow, state: QueryState): AnyValue = compiled.evaluate(row, state.params, state.query, state.cursors)
+
+  override def rewrite(f: Expression => Expression): Expression = f(this)
+
+  override def arguments: Seq[Expression] = Seq.empty
+
+  override def children: Seq[AstNode[_]] = Seq.empty
+
+  override def toString: String = s"Compiled(${expression.asCanonicalStringVal})"
+}
+
+/**
+  * Evaluates a predicate with a generated class instead of walking a tree of commands. The generated class returns `true`, `false` or `null`.
+  */
+case class CompiledCommandPredicate(compiled: CompiledExpression, expression: internal.expressions.Expression) extends Predicate {
+
+  override def isMatch(ctx: ReadableRow, state: QueryState): Option[Boolean] =
+    compiled.evaluate(ctx, state.params, state.query, state.cursors) match {
+      case Values.TRUE => Some(true)
+      case Values.FALSE => Some(false)
+      case _ => None
+    }
+
+  override def apply(row: ReadableRow, state: QueryState): Value =
+    compiled.evaluate(row, state.params, state.query, state.cursors).asInstanceOf[Value]
+
+  override def containsIsNull: Boolean = expression.treeExists {
+    case _: internal.expressions.IsNull => true
+  }
+
+  override def rewrite(f: Expression => Expression): Expression = f(this)
+
+  override def arguments: Seq[Expression] = Seq.empty
+
+  override def children: Seq[AstNode[_]] = Seq.empty
+
+  override def toString: String = s"Compiled(${expression.asCanonicalStringVal})"
+}
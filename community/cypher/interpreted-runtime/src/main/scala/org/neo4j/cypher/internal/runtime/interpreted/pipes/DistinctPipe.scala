@@ -22,13 +22,18 @@ package org.neo4j.cypher.internal.runtime.interpreted.pipes
 import org.neo4j.cypher.internal.runtime.CypherRow
 import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Expression
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.DistinctPipe.GroupingCol
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.spill.PartitionedDistinct
 import org.neo4j.cypher.internal.util.attribution.Id
 import org.neo4j.values.AnyValue
 import org.neo4j.values.virtual.ListValueBuilder
 
 import scala.collection.mutable
 
-case class DistinctPipe(source: Pipe, groupingColumns: Array[GroupingCol])
+/**
+  * @param spillThreshold how many bytes of keys to keep in memory before spilling them to disk, see [[PartitionedDistinct]], or 0 to keep
+  *                       all keys in memory
+  */
+case class DistinctPipe(source: Pipe, groupingColumns: Array[GroupingCol], spillThreshold: Long = 0)
                        (val id: Id = Id.INVALID_ID) extends PipeWithSource(source) {
 
   private val keyNames = groupingColumns.map(_.key)
@@ -39,29 +44,41 @@ case class DistinctPipe(source: Pipe, groupingColumns: Array[GroupingCol])
      * The filtering is done by extracting from the context the values of all return expressions, and keeping them
      * in a set.
      */
-    val seen = mutable.Set[AnyValue]()
-
-    input.filter { ctx =>
+    val projected = input.map { ctx =>
       var i = 0
       while (i < groupingColumns.length) {
         ctx.set(groupingColumns(i).key, groupingColumns(i).expression(ctx, state))
         i += 1
       }
-      val builder = ListValueBuilder.newListBuilder(keyNames.length)
-      keyNames.foreach(name => builder.add(ctx.getByName(name)))
-      val groupingValue = builder.build()
-      val added = seen.add(groupingValue)
-      if (added) {
-        state.memoryTracker.allocated(groupingValue, id.x)
+      ctx
+    }
+
+    if (spillThreshold > 0) {
+      new PartitionedDistinct(spillThreshold, state, executionContextFactory, id.x).distinct(projected, groupingValue)
+    } else {
+      val seen = mutable.Set[AnyValue]()
+
+      projected.filter { ctx =>
+        val groupingValue = this.groupingValue(ctx)
+        val added = seen.add(groupingValue)
+        if (added) {
+          state.memoryTracker.allocated(groupingValue, id.x)
+        }
+        added
       }
-      added
     }
   }
 
+  private def groupingValue(ctx: CypherRow): AnyValue = {
+    val builder = ListValueBuilder.newListBuilder(keyNames.length)
+    keyNames.foreach(name => builder.add(ctx.getByName(name)))
+    builder.build()
+  }
+
   override def equals(obj: Any): Boolean = {
     obj match {
-      case DistinctPipe(otherSource, otherGroupingColumns) =>
-        otherSource == this.source && otherGroupingColumns.sameElements(this.groupingColumns)
+      case DistinctPipe(otherSource, otherGroupingColumns, otherSpillThreshold) =>
+        otherSource == this.source && otherGroupingColumns.sameElements(this.groupingColumns) && otherSpillThreshold == this.spillThreshold
       case _ => false
     }
   }
@@ -35,10 +35,12 @@ case class ExpandAllPipe(source: Pipe,
                          types: RelationshipTypes)
                         (val id: Id = Id.INVALID_ID) extends PipeWithSource(source) {
 
+  private lazy val fromSlot = executionContextFactory.slotFor(fromName)
+
   protected def internalCreateResults(input: Iterator[CypherRow], state: QueryState): Iterator[CypherRow] = {
     input.flatMap {
       row =>
-        row.getByName(fromName) match {
+        fromSlot.getByName(row) match {
           case n: NodeValue =>
             val relationships: Iterator[RelationshipValue] = state.query.getRelationshipsForIds(n.id(), dir, types.types(state.query))
             relationships.map { r =>
@@ -23,6 +23,7 @@ import org.neo4j.cypher.internal.expressions.SemanticDirection
 import org.neo4j.cypher.internal.runtime.CypherRow
 import org.neo4j.cypher.internal.runtime.IsNoValue
 import org.neo4j.cypher.internal.runtime.QueryContext
+import org.neo4j.cypher.internal.runtime.VariableSlot
 import org.neo4j.cypher.internal.runtime.interpreted.TransactionBoundQueryContext.CursorIterator
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.ExpandIntoPipe.getRowNode
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.ExpandIntoPipe.relationshipIterator
@@ -56,6 +57,8 @@ case class ExpandIntoPipe(source: Pipe,
                           (val id: Id = Id.INVALID_ID)
   extends PipeWithSource(source) {
   self =>
+  private lazy val fromSlot = executionContextFactory.slotFor(fromName)
+  private lazy val toSlot = executionContextFactory.slotFor(toName)
   private val kernelDirection = dir match {
     case SemanticDirection.OUTGOING => Direction.OUTGOING
     case SemanticDirection.INCOMING => Direction.INCOMING
@@ -68,10 +71,10 @@ case class ExpandIntoPipe(source: Pipe,
     val expandInto = new CachingExpandInto(query.transactionalContext.dataRead, kernelDirection, state.memoryTracker.memoryTrackerForOperator(id.x))
     input.flatMap {
       row =>
-        val fromNode = getRowNode(row, fromName)
+        val fromNode = getRowNode(row, fromSlot)
         fromNode match {
           case fromNode: NodeValue =>
-            val toNode = getRowNode(row, toName)
+            val toNode = getRowNode(row, toSlot)
             toNode match {
               case IsNoValue() => Iterator.empty
               case n: NodeValue =>
@@ -121,11 +124,11 @@ object ExpandIntoPipe {
   }
 
   @inline
-  def getRowNode(row: CypherRow, col: String): AnyValue = {
-    row.getByName(col) match {
+  def getRowNode(row: CypherRow, col: VariableSlot): AnyValue = {
+    col.getByName(row) match {
       case n: NodeValue => n
       case IsNoValue() => NO_VALUE
-      case value => throw new ParameterWrongTypeException(s"Expected to find a node at '$col' but found $value instead")
+      case value => throw new ParameterWrongTypeException(s"Expected to find a node at '${col.name}' but found $value instead")
     }
   }
 }
@@ -21,16 +21,30 @@ package org.neo4j.cypher.internal.runtime.interpreted.pipes
 
 import org.neo4j.cypher.internal.runtime.CypherRow
 import org.neo4j.cypher.internal.runtime.IsNoValue
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.spill.GraceHashJoin
 import org.neo4j.cypher.internal.util.attribution.Id
 import org.neo4j.exceptions.CypherTypeException
+import org.neo4j.kernel.impl.util.collection.LongProbeTable
+import org.neo4j.kernel.impl.util.collection.ProbeTable
+import org.neo4j.values.storable.LongArray
+import org.neo4j.values.storable.Values
 import org.neo4j.values.virtual.VirtualNodeValue
 
-import scala.collection.mutable
+import scala.collection.JavaConverters.asScalaIteratorConverter
 
-case class NodeHashJoinPipe(nodeVariables: Set[String], left: Pipe, right: Pipe)
+/**
+  * Joins on the ids of the nodes of one or more variables. A join on one node is keyed by the primitive node id, and a join on several nodes
+  * by the node ids packed into a long array.
+  *
+  * @param spillThreshold how many bytes of LHS rows to keep in memory before partitioning both sides to disk, or 0 to never spill
+  */
+case class NodeHashJoinPipe(nodeVariables: Set[String], left: Pipe, right: Pipe, spillThreshold: Long = 0)
                            (val id: Id = Id.INVALID_ID)
   extends PipeWithSource(left) {
 
+  private val cachedVariables = nodeVariables.toArray
+  private val NO_NODE = -1L
+
   protected def internalCreateResults(input: Iterator[CypherRow], state: QueryState): Iterator[CypherRow] = {
     if (input.isEmpty)
       return Iterator.empty
@@ -40,51 +54,97 @@ case class NodeHashJoinPipe(nodeVariables: Set[String], left: Pipe, right: Pipe)
     if (rhsIterator.isEmpty)
       return Iterator.empty
 
-    val table = buildProbeTable(state.memoryTracker.memoryTrackingIterator(input, id.x))
+    if (spillThreshold > 0)
+      new GraceHashJoin(spillThreshold, state, executionContextFactory, id.x).join(input, rhsIterator, hash, hash, join(_, _, state))
+    else
+      join(input, rhsIterator, state)
+  }
+
+  private def join(lhs: Iterator[CypherRow], rhs: Iterator[CypherRow], state: QueryState): Iterator[CypherRow] =
+    if (cachedVariables.length == 1)
+      joinOnNode(lhs, rhs, state)
+    else
+      joinOnNodes(lhs, rhs, state)
+
+  private def joinOnNode(lhs: Iterator[CypherRow], rhs: Iterator[CypherRow], state: QueryState): Iterator[CypherRow] = {
+    val variable = cachedVariables(0)
+    val table = LongProbeTable.createLongProbeTable[CypherRow](state.memoryTracker.memoryTrackerForOperator(id.x))
+
+    for (lhsRow <- lhs) {
+      val node = nodeId(lhsRow, variable)
+      if (node != NO_NODE)
+        table.put(node, lhsRow)
+    }
 
-    if (table.isEmpty)
+    if (table.isEmpty) {
+      table.close()
       return Iterator.empty
+    }
 
-    val result =
-      for {rhsRow <- rhsIterator
-           joinKey <- computeKey(rhsRow)}
-        yield {
-          val lhsRows = table.getOrElse(joinKey, mutable.MutableList.empty)
-          lhsRows.map { lhsRow =>
-            val output = lhsRow.createClone()
-            output.mergeWith(rhsRow, state.query)
-            output
-          }
-        }
-
-    result.flatten
+    rhs.flatMap { rhsRow =>
+      val node = nodeId(rhsRow, variable)
+      if (node == NO_NODE) Iterator.empty else merge(table.get(node), rhsRow, state)
+    } ++ {
+      table.close()
+      Iterator.empty
+    }
   }
 
-  private def buildProbeTable(input: Iterator[CypherRow]): mutable.HashMap[IndexedSeq[Long], mutable.MutableList[CypherRow]] = {
-    // TODO: Use heap tracking ProbeTable in community edition?
-    val table = new mutable.HashMap[IndexedSeq[Long], mutable.MutableList[CypherRow]]
+  private def joinOnNodes(lhs: Iterator[CypherRow], rhs: Iterator[CypherRow], state: QueryState): Iterator[CypherRow] = {
+    val table = ProbeTable.createProbeTable[LongArray, CypherRow](state.memoryTracker.memoryTrackerForOperator(id.x))
 
-    for {context <- input
-         joinKey <- computeKey(context)} {
-      val seq = table.getOrElseUpdate(joinKey, mutable.MutableList.empty)
-      seq += context
+    for (lhsRow <- lhs) {
+      val key = computeKey(lhsRow)
+      if (key != null)
+        table.put(key, lhsRow)
     }
 
-    table
+    if (table.isEmpty) {
+      table.close()
+      return Iterator.empty
+    }
+
+    rhs.flatMap { rhsRow =>
+      val key = computeKey(rhsRow)
+      if (key == null) Iterator.empty else merge(table.get(key), rhsRow, state)
+    } ++ {
+      table.close()
+      Iterator.empty
+    }
   }
 
-  private val cachedVariables = nodeVariables.toIndexedSeq
+  private def merge(lhsRows: java.util.Iterator[CypherRow], rhsRow: CypherRow, state: QueryState): Iterator[CypherRow] =
+    lhsRows.asScala.map { lhsRow =>
+      val output = lhsRow.createClone()
+      output.mergeWith(rhsRow, state.query)
+      output
+    }
+
+  private def nodeId(context: CypherRow, variable: String): Long =
+    context.getByName(variable) match {
+      case n: VirtualNodeValue => n.id()
+      case IsNoValue() => NO_NODE
+      case _ => throw new CypherTypeException("Created a plan that uses non-nodes when expecting a node")
+    }
 
-  private def computeKey(context: CypherRow): Option[IndexedSeq[Long]] = {
+  // The node ids of the join key, or null if one of the nodes is null
+  private def computeKey(context: CypherRow): LongArray = {
     val key = new Array[Long](cachedVariables.length)
 
     for (idx <- cachedVariables.indices) {
-      key(idx) = context.getByName(cachedVariables(idx)) match {
-        case n: VirtualNodeValue => n.id()
-        case IsNoValue() => return None
-        case _ => throw new CypherTypeException("Created a plan that uses non-nodes when expecting a node")
-      }
+      key(idx) = nodeId(context, cachedVariables(idx))
+      if (key(idx) == NO_NODE)
+        return null
+    }
+    Values.longArray(key)
+  }
+
+  // Rows with a null node hash like any other row, since they are filtered when their partition is joined
+  private def hash(context: CypherRow): Int = {
+    var hash = 1
+    for (idx <- cachedVariables.indices) {
+      hash = 31 * hash + java.lang.Long.hashCode(nodeId(context, cachedVariables(idx)))
     }
-    Some(key.toIndexedSeq)
+    hash
   }
 }
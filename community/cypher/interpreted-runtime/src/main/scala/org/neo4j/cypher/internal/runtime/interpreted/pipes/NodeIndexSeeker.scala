@@ -23,6 +23,7 @@ import org.neo4j.cypher.internal.frontend.helpers.SeqCombiner.combine
 import org.neo4j.cypher.internal.logical.plans.CompositeQueryExpression
 import org.neo4j.cypher.internal.logical.plans.ExistenceQueryExpression
 import org.neo4j.cypher.internal.logical.plans.IndexOrder
+import org.neo4j.cypher.internal.logical.plans.IndexOrderNone
 import org.neo4j.cypher.internal.logical.plans.InequalitySeekRange
 import org.neo4j.cypher.internal.logical.plans.ManyQueryExpression
 import org.neo4j.cypher.internal.logical.plans.MinMaxOrdering
@@ -80,7 +81,12 @@ trait NodeIndexSeeker {
       case _: ExactSeek |
            _: SeekByRange =>
         val indexQueries = computeIndexQueries(state, baseContext)
-        indexQueries.toIterator.map(query => state.query.indexSeek(index, needsValues, indexOrder, query))
+        if (!needsValues && indexOrder == IndexOrderNone && indexQueries.lengthCompare(1) > 0 && indexQueries.forall(_.forall(_.isInstanceOf[IndexQuery.ExactPredicate]))) {
+          // Many exact queries, like for a list of values, can be served by the index together rather than seeking them one by one
+          Iterator.single(state.query.indexSeekMany(index, indexQueries.map(_.map(_.asInstanceOf[IndexQuery.ExactPredicate]))))
+        } else {
+          indexQueries.toIterator.map(query => state.query.indexSeek(index, needsValues, indexOrder, query))
+        }
 
       case LockingUniqueIndexSeek =>
         val indexQueries = computeExactQueries(state, baseContext)
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.pipes
+
+import java.util.concurrent.atomic.AtomicBoolean
+
+import org.neo4j.cypher.internal.runtime.CypherRow
+import org.neo4j.cypher.internal.util.attribution.Id
+import org.neo4j.internal.kernel.api.Cursor
+import org.neo4j.internal.kernel.api.Scan
+import org.neo4j.kernel.api.AssertOpen
+
+/**
+ * Leaf of the pipes run by one worker of a [[ParallelEagerAggregationPipe]], producing the nodes of its [[NodeScanPartition]].
+ *
+ * Holds the cursor of its worker, and is therefore created per execution instead of being part of the cached pipe tree.
+ */
+case class NodeScanPartitionPipe(ident: String, partition: NodeScanPartition[_ <: Cursor])
+                                (val id: Id = Id.INVALID_ID) extends Pipe {
+
+  protected def internalCreateResults(state: QueryState): Iterator[CypherRow] = {
+    val baseContext = state.newExecutionContext(executionContextFactory)
+    new Iterator[CypherRow] {
+      private var hasNextNode = partition.next()
+
+      override def hasNext: Boolean = hasNextNode
+
+      override def next(): CypherRow = {
+        if (!hasNextNode) Iterator.empty.next()
+        val row = executionContextFactory.copyWith(baseContext, ident, state.query.nodeOps.getById(partition.nodeReference))
+        hasNextNode = partition.next()
+        row
+      }
+    }
+  }
+}
+
+/**
+ * The nodes of a scan shared by several workers which are read by one of them. The worker reserves one batch of the scan at a time,
+ * until the scan is exhausted or another worker has failed. Before each batch it checks that the transaction is still open, so that the
+ * workers of a terminated query stop within one batch.
+ *
+ * @param scan          the shared scan
+ * @param cursor        the cursor of this worker
+ * @param readNode      reads the current node of the cursor
+ * @param batchSize     number of nodes to reserve at a time
+ * @param cancelled     set when the other workers should stop reading
+ * @param transaction   the transaction of the query, which throws if it has been terminated
+ */
+class NodeScanPartition[C <: Cursor](scan: Scan[C],
+                                     val cursor: C,
+                                     readNode: C => Long,
+                                     batchSize: Int,
+                                     cancelled: AtomicBoolean,
+                                     transaction: AssertOpen) {
+  private var reserved = false
+  private var exhausted = false
+
+  def next(): Boolean = {
+    while (!exhausted) {
+      if (reserved && cursor.next()) {
+        return true
+      }
+      transaction.assertOpen()
+      reserved = !cancelled.get() && scan.reserveBatch(cursor, batchSize)
+      exhausted = !reserved
+    }
+    false
+  }
+
+  def nodeReference: Long = readNode(cursor)
+}
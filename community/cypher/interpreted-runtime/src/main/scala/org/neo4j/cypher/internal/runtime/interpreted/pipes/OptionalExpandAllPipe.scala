@@ -39,6 +39,10 @@ abstract class OptionalExpandAllPipe(source: Pipe,
                                      types: RelationshipTypes)
   extends PipeWithSource(source) {
 
+  private lazy val fromSlot = executionContextFactory.slotFor(fromName)
+  private lazy val relSlot = executionContextFactory.slotFor(relName)
+  private lazy val toSlot = executionContextFactory.slotFor(toName)
+
   protected def internalCreateResults(input: Iterator[CypherRow], state: QueryState): Iterator[CypherRow] = {
     input.flatMap {
       row =>
@@ -68,11 +72,12 @@ abstract class OptionalExpandAllPipe(source: Pipe,
                         n: NodeValue): Iterator[CypherRow]
 
   private def withNulls(row: CypherRow) = {
-    row.set(relName, Values.NO_VALUE, toName, Values.NO_VALUE)
+    relSlot.set(row, Values.NO_VALUE)
+    toSlot.set(row, Values.NO_VALUE)
     row
   }
 
-  def getFromNode(row: CypherRow): AnyValue = row.getByName(fromName)
+  def getFromNode(row: CypherRow): AnyValue = fromSlot.getByName(row)
 }
 
 object OptionalExpandAllPipe {
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.pipes
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.atomic.AtomicBoolean
+
+import org.neo4j.cypher.internal.runtime.CypherRow
+import org.neo4j.cypher.internal.runtime.ExpressionCursors
+import org.neo4j.cypher.internal.runtime.NoMemoryTracker
+import org.neo4j.cypher.internal.runtime.ThreadSafeResourceManager
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.AggregationExpression
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Count
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.CountStar
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Max
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Min
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Sum
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Variable
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.AggregationPipe.AggregatingCol
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.AggregationPipe.AggregationTableFactory
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.DistinctPipe.GroupingCol
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.aggregation.GroupingAggTable
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.aggregation.NonGroupingAggTable
+import org.neo4j.cypher.internal.util.attribution.Id
+import org.neo4j.internal.kernel.api.Cursor
+import org.neo4j.internal.kernel.api.NodeCursor
+import org.neo4j.internal.kernel.api.NodeLabelIndexCursor
+import org.neo4j.io.IOUtils
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer
+import org.neo4j.scheduler.CallableExecutor
+import org.neo4j.values.AnyValue
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * Eager aggregation over filters and projections of a node scan, which reads the scan with several workers.
+ *
+ * Each worker reserves batches of the scan, runs its own copy of the filters and projections over them and aggregates the rows into
+ * a partial table. The partial results are merged by `mergeTableFactory` on the calling thread, which also acts as one of the workers.
+ * The other workers run in `executor`, whose threads are shared by all queries. A worker which only gets a thread after the scan has been
+ * read by the others finds it exhausted, so a busy executor makes the aggregation less parallel but never blocks it. The workers stop
+ * reserving batches once the transaction has been terminated.
+ *
+ * Aggregates sequentially when profiling, since the profiler isn't thread safe, and when the query context doesn't use thread safe
+ * cursors and resources, see [[org.neo4j.cypher.internal.ExecutionPlan.threadSafeExecutionResources]].
+ *
+ * @param source            filters and projections of an [[AllNodesScanPipe]] or a [[NodeByLabelScanPipe]], see [[ParallelEagerAggregationPipe.canAggregate]]
+ * @param tableFactory      table of the aggregation, used by each worker
+ * @param mergeTableFactory table which merges the partial results of the workers, see [[ParallelEagerAggregationPipe.mergeTableFactory]]
+ * @param workers           number of workers
+ * @param batchSize         number of nodes a worker reserves from the scan at a time
+ * @param executor          runs the workers other than the calling thread
+ */
+case class ParallelEagerAggregationPipe(source: Pipe,
+                                        tableFactory: AggregationTableFactory,
+                                        mergeTableFactory: AggregationTableFactory,
+                                        workers: Int,
+                                        batchSize: Int,
+                                        executor: CallableExecutor)
+                                       (val id: Id = Id.INVALID_ID)
+  extends AggregationPipe(source, tableFactory) {
+
+  private val leaf = ParallelEagerAggregationPipe.leafOf(source)
+
+  override def createResults(state: QueryState): Iterator[CypherRow] =
+    if ((state.decorator eq NullPipeDecorator) && state.query.resources.isInstanceOf[ThreadSafeResourceManager]) {
+      state.setExecutionContextFactory(executionContextFactory)
+      aggregateInParallel(state)
+    } else {
+      super.createResults(state)
+    }
+
+  protected def internalCreateResults(input: Iterator[CypherRow], state: QueryState): Iterator[CypherRow] = {
+    val table = tableFactory.table(state, executionContextFactory, id)
+    table.clear()
+    while (input.hasNext) {
+      table.processRow(input.next())
+    }
+    table.result()
+  }
+
+  private def aggregateInParallel(state: QueryState): Iterator[CypherRow] = {
+    val cancelled = new AtomicBoolean(false)
+    val partitions = newPartitions(state, cancelled)
+    val workerStates = partitions.map(_ => workerState(state))
+    try {
+      val tasks = partitions.indices.map(i => new Callable[Array[CypherRow]] {
+        override def call(): Array[CypherRow] = aggregatePartition(partitions(i), workerStates(i))
+      })
+      val futures = tasks.drop(1).map(task => executor.submit(task))
+
+      val partialResults = new ArrayBuffer[Array[CypherRow]](tasks.size)
+      var failure: Throwable = null
+      try {
+        tasks.headOption.foreach(task => partialResults += task.call())
+      } catch {
+        case t: Throwable =>
+          cancelled.set(true)
+          failure = t
+      }
+      // the other workers have to be done with their cursors before we close them
+      futures.foreach { future =>
+        try {
+          partialResults += future.get()
+        } catch {
+          case e: ExecutionException if failure == null =>
+            cancelled.set(true)
+            failure = e.getCause
+          case _: ExecutionException =>
+        }
+      }
+      if (failure != null) {
+        throw failure
+      }
+
+      val table = mergeTableFactory.table(state, executionContextFactory, id)
+      table.clear()
+      partialResults.foreach(_.foreach(table.processRow))
+      table.result()
+    } finally {
+      IOUtils.closeAll[AutoCloseable](workerStates ++ partitions.map(_.cursor): _*)
+    }
+  }
+
+  /**
+   * Aggregates the rows of one partition into a partial result. A worker which didn't read any rows returns no partial result, since
+   * the result of an aggregation without rows (e.g. a `sum` of `0`) could fail to merge with the results of the other workers.
+   */
+  private def aggregatePartition(partition: NodeScanPartition[_ <: Cursor], state: QueryState): Array[CypherRow] = {
+    val input = ParallelEagerAggregationPipe.withLeaf(source, NodeScanPartitionPipe(leaf.ident, partition)(leaf.pipe.id)).createResults(state)
+    val table = tableFactory.table(state, executionContextFactory, id)
+    table.clear()
+    if (input.hasNext) {
+      while (input.hasNext) {
+        table.processRow(input.next())
+      }
+      table.result().toArray
+    } else {
+      Array.empty
+    }
+  }
+
+  // The page cursor tracer of the transaction isn't thread safe, so page accesses of the workers are not traced.
+  private def newPartitions(state: QueryState, cancelled: AtomicBoolean): IndexedSeq[NodeScanPartition[_ <: Cursor]] = {
+    val read = state.query.transactionalContext.dataRead
+    val cursors = state.query.transactionalContext.cursors
+    val transaction = state.query.transactionalContext.transaction
+    leaf.pipe match {
+      case _: AllNodesScanPipe =>
+        val scan = read.allNodesScan()
+        (0 until workers).map(_ =>
+          new NodeScanPartition[NodeCursor](scan, cursors.allocateNodeCursor(PageCursorTracer.NULL), _.nodeReference(), batchSize, cancelled, transaction))
+
+      case NodeByLabelScanPipe(_, label) =>
+        val labelId = label.getId(state.query)
+        if (labelId == LazyLabel.UNKNOWN) {
+          IndexedSeq.empty
+        } else {
+          val scan = read.nodeLabelScan(labelId)
+          (0 until workers).map(_ =>
+            new NodeScanPartition[NodeLabelIndexCursor](scan, cursors.allocateNodeLabelIndexCursor(PageCursorTracer.NULL), _.nodeReference(), batchSize,
+              cancelled, transaction))
+        }
+    }
+  }
+
+  /**
+   * State of one worker, with its own cursors and expression variables. Memory of the partial results is not tracked, only the memory of
+   * the merged result is.
+   */
+  private def workerState(state: QueryState): QueryState =
+    new QueryState(state.query,
+      state.resources,
+      state.params,
+      new ExpressionCursors(state.query.transactionalContext.cursors, PageCursorTracer.NULL),
+      state.queryIndexes,
+      new Array[AnyValue](state.expressionVariables.length),
+      state.subscriber,
+      NoMemoryTracker,
+      NullPipeDecorator,
+      state.initialContext,
+      lenientCreateRelationship = state.lenientCreateRelationship,
+      prePopulateResults = state.prePopulateResults,
+      input = state.input)
+}
+
+object ParallelEagerAggregationPipe {
+
+  /**
+   * @param workers   number of workers which read the node scan of an aggregation
+   * @param batchSize number of nodes a worker reserves from the scan at a time
+   * @param executor  bounded pool of the job scheduler of the DBMS, which runs the workers other than the calling thread
+   */
+  case class Parallelism(workers: Int, batchSize: Int, executor: CallableExecutor)
+
+  private case class Leaf(pipe: Pipe, ident: String)
+
+  /**
+   * @return if the aggregations can be read by several workers from `source`: a chain of filters and projections of a node scan,
+   *         aggregated by functions whose partial results can be merged.
+   */
+  def canAggregate(source: Pipe, aggregations: Array[AggregatingCol]): Boolean =
+    isScanChain(source) && aggregations.forall(aggregation => mergeAggregation(aggregation).isDefined)
+
+  /**
+   * The table which merges the partial results of `aggregations`, grouped by the columns `groupingKeys`.
+   */
+  def mergeTableFactory(groupingKeys: Array[String], aggregations: Array[AggregatingCol]): AggregationTableFactory = {
+    val mergeAggregations = aggregations.map(aggregation => AggregatingCol(aggregation.key, mergeAggregation(aggregation).get))
+    if (groupingKeys.isEmpty) {
+      NonGroupingAggTable.Factory(mergeAggregations)
+    } else {
+      val groupingColumns = groupingKeys.map(key => GroupingCol(key, Variable(key)))
+      GroupingAggTable.Factory(groupingColumns, AggregationPipe.computeGroupingFunction(groupingColumns), mergeAggregations)
+    }
+  }
+
+  private def mergeAggregation(aggregation: AggregatingCol): Option[AggregationExpression] = aggregation.expression match {
+    case _: CountStar | _: Count | _: Sum => Some(Sum(Variable(aggregation.key)))
+    case _: Min => Some(Min(Variable(aggregation.key)))
+    case _: Max => Some(Max(Variable(aggregation.key)))
+    case _ => None
+  }
+
+  private def isScanChain(pipe: Pipe): Boolean = pipe match {
+    case FilterPipe(source, _) => isScanChain(source)
+    case ProjectionPipe(source, _) => isScanChain(source)
+    case _: AllNodesScanPipe | _: NodeByLabelScanPipe => true
+    case _ => false
+  }
+
+  private def leafOf(pipe: Pipe): Leaf = pipe match {
+    case FilterPipe(source, _) => leafOf(source)
+    case ProjectionPipe(source, _) => leafOf(source)
+    case AllNodesScanPipe(ident) => Leaf(pipe, ident)
+    case NodeByLabelScanPipe(ident, _) => Leaf(pipe, ident)
+  }
+
+  /**
+   * Copies the filters and projections of `pipe`, reading from `leaf` instead of the scan.
+   */
+  private def withLeaf(pipe: Pipe, leaf: Pipe): Pipe = {
+    val copy = pipe match {
+      case p: FilterPipe => p.copy(source = withLeaf(p.source, leaf))(p.id)
+      case p: ProjectionPipe => p.copy(source = withLeaf(p.source, leaf))(p.id)
+      case _ => leaf
+    }
+    copy.executionContextFactory = pipe.executionContextFactory
+    copy
+  }
+}
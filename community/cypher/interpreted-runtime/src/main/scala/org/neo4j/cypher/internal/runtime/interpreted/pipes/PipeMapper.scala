@@ -21,6 +21,10 @@ package org.neo4j.cypher.internal.runtime.interpreted.pipes
 
 import org.neo4j.cypher.internal.logical.plans.LogicalPlan
 import org.neo4j.cypher.internal.logical.plans.LogicalPlans
+import org.neo4j.cypher.internal.runtime.SlotLayout
+import org.neo4j.cypher.internal.runtime.SlottedCypherRow
+import org.neo4j.cypher.internal.runtime.interpreted.commands.convert.InterpretedCommandProjection
+import org.neo4j.cypher.internal.runtime.interpreted.commands.convert.SlottedCommandProjection
 
 /**
   * Maps single logical plan operators to their respective pipes. Does not recurse.
@@ -36,3 +40,26 @@ case class PipeTreeBuilder(pipeMapper: PipeMapper) {
     LogicalPlans.map(logicalPlan, pipeMapper)
   }
 }
+
+/**
+  * Lets the pipes of the inner mapper pass [[SlottedCypherRow]]s of the given layout. The offsets of the variables which a pipe writes
+  * are looked up here, when the pipe is built, see [[SlottedExecutionContextFactory]].
+  */
+case class SlottedPipeMapper(inner: PipeMapper, layout: SlotLayout) extends PipeMapper {
+  override def onLeaf(plan: LogicalPlan): Pipe = slotted(plan, inner.onLeaf(plan))
+
+  override def onOneChildPlan(plan: LogicalPlan, source: Pipe): Pipe = slotted(plan, inner.onOneChildPlan(plan, source))
+
+  override def onTwoChildPlan(plan: LogicalPlan, lhs: Pipe, rhs: Pipe): Pipe = slotted(plan, inner.onTwoChildPlan(plan, lhs, rhs))
+
+  private def slotted(plan: LogicalPlan, pipe: Pipe): Pipe = {
+    val slottedPipe = pipe match {
+      case projection@ProjectionPipe(source, InterpretedCommandProjection(expressions)) =>
+        ProjectionPipe(source, SlottedCommandProjection(layout, expressions))(projection.id)
+      case _ => pipe
+    }
+    val introducedVariables = plan.availableSymbols -- plan.lhs.map(_.availableSymbols).getOrElse(Set.empty)
+    slottedPipe.executionContextFactory = SlottedExecutionContextFactory(layout, introducedVariables.toSeq)
+    slottedPipe
+  }
+}
@@ -26,6 +26,9 @@ import org.neo4j.kernel.impl.query.QuerySubscriber
 
 case class ProduceResultsPipe(source: Pipe, columns: Array[String])
                              (val id: Id = Id.INVALID_ID) extends PipeWithSource(source) {
+
+  private lazy val columnSlots = columns.map(executionContextFactory.slotFor)
+
   protected def internalCreateResults(input: Iterator[CypherRow], state: QueryState): Iterator[CypherRow] = {
     // do not register this pipe as parent as it does not do anything except filtering of already fetched
     // key-value pairs and thus should not have any stats
@@ -48,7 +51,7 @@ case class ProduceResultsPipe(source: Pipe, columns: Array[String])
     var i = 0
     subscriber.onRecord()
     while (i < columns.length) {
-      val value = original.getByName(columns(i))
+      val value = columnSlots(i).getByName(original)
       ValuePopulation.populate(value)
       subscriber.onField(i, value)
       i += 1
@@ -60,7 +63,7 @@ case class ProduceResultsPipe(source: Pipe, columns: Array[String])
     var i = 0
     subscriber.onRecord()
     while (i < columns.length) {
-      subscriber.onField(i, original.getByName(columns(i)))
+      subscriber.onField(i, columnSlots(i).getByName(original))
       i += 1
     }
     subscriber.onRecordCompleted()
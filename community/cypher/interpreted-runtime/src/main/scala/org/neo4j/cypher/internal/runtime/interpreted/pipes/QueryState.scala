@@ -28,6 +28,9 @@ import org.neo4j.cypher.internal.runtime.QueryContext
 import org.neo4j.cypher.internal.runtime.QueryMemoryTracker
 import org.neo4j.cypher.internal.runtime.QueryStatistics
 import org.neo4j.cypher.internal.runtime.ReadableRow
+import org.neo4j.cypher.internal.runtime.SlotLayout
+import org.neo4j.cypher.internal.runtime.SlottedCypherRow
+import org.neo4j.cypher.internal.runtime.VariableSlot
 import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.PathValueBuilder
 import org.neo4j.cypher.internal.runtime.interpreted.commands.predicates.InCheckContainer
 import org.neo4j.cypher.internal.runtime.interpreted.commands.predicates.SingleThreadedLRUCache
@@ -121,6 +124,11 @@ trait ExecutionContextFactory {
                key1: String, value1: AnyValue,
                key2: String, value2: AnyValue,
                key3: String, value3: AnyValue): CypherRow
+
+  /**
+    * @return the slot through which a pipe should access the variable in the rows of this factory, looked up once when the pipe is built
+    */
+  def slotFor(name: String): VariableSlot
 }
 
 case class CommunityExecutionContextFactory() extends ExecutionContextFactory {
@@ -180,4 +188,64 @@ case class CommunityExecutionContextFactory() extends ExecutionContextFactory {
       x.set(key1, value1, key2, value2, key3, value3)
       x
   }
+
+  override def slotFor(name: String): VariableSlot = VariableSlot.byName(name)
+}
+
+/**
+  * Creates [[SlottedCypherRow]]s of one layout for one pipe. Rows of that layout are copied with one array copy,
+  * other rows are converted by copying their variables by name.
+  *
+  * @param introducedVariables the variables the pipe adds to its rows, whose slots are looked up here, when the pipe is built
+  */
+case class SlottedExecutionContextFactory(layout: SlotLayout, introducedVariables: Seq[String] = Seq.empty) extends ExecutionContextFactory {
+
+  private val introducedSlots = introducedVariables.map(layout.slotFor).toArray
+
+  override def newExecutionContext(): CypherRow = SlottedCypherRow.empty(layout)
+
+  override def copyWith(init: ReadableRow): CypherRow = SlottedCypherRow.copyOf(layout, init)
+
+  override def copyWith(row: ReadableRow, newEntries: Seq[(String, AnyValue)]): CypherRow = {
+    val x = SlottedCypherRow.copyOf(layout, row)
+    newEntries.foreach(entry => set(x, entry._1, entry._2))
+    x
+  }
+
+  override def copyWith(row: ReadableRow, key: String, value: AnyValue): CypherRow = {
+    val x = SlottedCypherRow.copyOf(layout, row)
+    set(x, key, value)
+    x
+  }
+
+  override def copyWith(row: ReadableRow, key1: String, value1: AnyValue, key2: String, value2: AnyValue): CypherRow = {
+    val x = SlottedCypherRow.copyOf(layout, row)
+    set(x, key1, value1)
+    set(x, key2, value2)
+    x
+  }
+
+  override def copyWith(row: ReadableRow, key1: String, value1: AnyValue, key2: String, value2: AnyValue, key3: String, value3: AnyValue): CypherRow = {
+    val x = SlottedCypherRow.copyOf(layout, row)
+    set(x, key1, value1)
+    set(x, key2, value2)
+    set(x, key3, value3)
+    x
+  }
+
+  override def slotFor(name: String): VariableSlot = layout.slotFor(name)
+
+  // Pipes pass the names of the variables they introduce, so this is usually a reference comparison with one or two slots
+  private def set(row: SlottedCypherRow, key: String, value: AnyValue): Unit = {
+    var i = 0
+    while (i < introducedSlots.length) {
+      val slot = introducedSlots(i)
+      if (slot.name == key) {
+        slot.set(row, value)
+        return
+      }
+      i += 1
+    }
+    row.set(key, value)
+  }
 }
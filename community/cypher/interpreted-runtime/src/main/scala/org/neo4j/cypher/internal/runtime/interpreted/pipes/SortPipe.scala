@@ -22,17 +22,26 @@ package org.neo4j.cypher.internal.runtime.interpreted.pipes
 import java.util.Comparator
 
 import org.neo4j.cypher.internal.runtime.CypherRow
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.spill.ExternalSorter
 import org.neo4j.cypher.internal.util.attribution.Id
 import org.neo4j.memory.HeapEstimator
 
-case class SortPipe(source: Pipe, comparator: Comparator[CypherRow])
+/**
+  * @param spillThreshold how many bytes of rows to sort in memory before spilling them to disk, see [[ExternalSorter]], or 0 to sort all
+  *                       rows in memory
+  */
+case class SortPipe(source: Pipe, comparator: Comparator[CypherRow], spillThreshold: Long = 0)
                    (val id: Id = Id.INVALID_ID)
   extends PipeWithSource(source) {
 
   protected def internalCreateResults(input: Iterator[CypherRow], state: QueryState): Iterator[CypherRow] = {
-    val array = state.memoryTracker.memoryTrackingIterator(input, id.x).toArray
-    state.memoryTracker.memoryTrackerForOperator(id.x).allocateHeap(HeapEstimator.shallowSizeOfObjectArray(array.length))
-    java.util.Arrays.sort(array, comparator)
-    array.toIterator
+    if (spillThreshold > 0) {
+      new ExternalSorter(comparator, spillThreshold, Long.MaxValue, state, executionContextFactory, id.x).sort(input)
+    } else {
+      val array = state.memoryTracker.memoryTrackingIterator(input, id.x).toArray
+      state.memoryTracker.memoryTrackerForOperator(id.x).allocateHeap(HeapEstimator.shallowSizeOfObjectArray(array.length))
+      java.util.Arrays.sort(array, comparator)
+      array.toIterator
+    }
   }
 }
@@ -25,6 +25,7 @@ import org.neo4j.cypher.internal.DefaultComparatorTopTable
 import org.neo4j.cypher.internal.runtime.CypherRow
 import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Expression
 import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.NumericHelper
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.spill.ExternalSorter
 import org.neo4j.cypher.internal.util.attribution.Id
 import org.neo4j.exceptions.InvalidArgumentException
 import org.neo4j.values.storable.FloatingPointValue
@@ -34,9 +35,10 @@ import scala.collection.JavaConverters.asScalaIteratorConverter
 
 /*
  * TopPipe is used when a query does a ORDER BY ... LIMIT query. Instead of ordering the whole result set and then
- * returning the matching top results, we only keep the top results in heap, which allows us to release memory earlier
+ * returning the matching top results, we only keep the top results in heap, which allows us to release memory earlier.
+ * With a spill threshold, the top results are kept in heap only as long as they fit into it, see ExternalSorter.
  */
-case class TopNPipe(source: Pipe, countExpression: Expression, comparator: Comparator[CypherRow])
+case class TopNPipe(source: Pipe, countExpression: Expression, comparator: Comparator[CypherRow], spillThreshold: Long = 0)
                    (val id: Id = Id.INVALID_ID) extends PipeWithSource(source) {
 
   private val initialFallbackSortArraySize = Int.MaxValue / 8 // This should not be too big so as to risk out-of-memory on the first allocation
@@ -55,6 +57,10 @@ case class TopNPipe(source: Pipe, countExpression: Expression, comparator: Compa
 
     if (limit == 0 || input.isEmpty) return empty
 
+    if (spillThreshold > 0) {
+      return new ExternalSorter(comparator, spillThreshold, limit, state, executionContextFactory, id.x).sort(input)
+    }
+
     val topTable = new DefaultComparatorTopTable(comparator, limit, state.memoryTracker.memoryTrackerForOperator(id.x))
 
     var i = 1L
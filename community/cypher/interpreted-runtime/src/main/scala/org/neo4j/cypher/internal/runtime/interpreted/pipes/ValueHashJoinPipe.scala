@@ -21,6 +21,7 @@ package org.neo4j.cypher.internal.runtime.interpreted.pipes
 
 import org.neo4j.cypher.internal.runtime.CypherRow
 import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Expression
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.spill.GraceHashJoin
 import org.neo4j.cypher.internal.util.attribution.Id
 import org.neo4j.kernel.impl.util.collection
 import org.neo4j.values.AnyValue
@@ -28,7 +29,10 @@ import org.neo4j.values.storable.Values
 
 import scala.collection.JavaConverters.asScalaIteratorConverter
 
-case class ValueHashJoinPipe(lhsExpression: Expression, rhsExpression: Expression, left: Pipe, right: Pipe)
+/**
+  * @param spillThreshold how many bytes of LHS rows to keep in memory before partitioning both sides to disk, or 0 to never spill
+  */
+case class ValueHashJoinPipe(lhsExpression: Expression, rhsExpression: Expression, left: Pipe, right: Pipe, spillThreshold: Long = 0)
                             (val id: Id = Id.INVALID_ID)
   extends PipeWithSource(left) {
 
@@ -42,12 +46,22 @@ case class ValueHashJoinPipe(lhsExpression: Expression, rhsExpression: Expressio
     if (rhsIterator.isEmpty)
       return Iterator.empty
 
-    val table = buildProbeTable(input, state)
+    if (spillThreshold > 0)
+      new GraceHashJoin(spillThreshold, state, executionContextFactory, id.x)
+        .join(input, rhsIterator, hash(lhsExpression, state), hash(rhsExpression, state), join(_, _, state))
+    else
+      join(input, rhsIterator, state)
+  }
+
+  private def join(lhs: Iterator[CypherRow], rhs: Iterator[CypherRow], state: QueryState): Iterator[CypherRow] = {
+    val table = buildProbeTable(lhs, state)
 
-    if (table.isEmpty)
+    if (table.isEmpty) {
+      table.close()
       return Iterator.empty
+    }
 
-    val result = for {rhsRow <- rhsIterator
+    val result = for {rhsRow <- rhs
                       joinKey = rhsExpression(rhsRow, state) if !(joinKey eq Values.NO_VALUE) }
       yield {
         val lhsRows = table.get(joinKey)
@@ -58,17 +72,26 @@ case class ValueHashJoinPipe(lhsExpression: Expression, rhsExpression: Expressio
         }
       }
 
-    result.flatten
+    result.flatten ++ {
+      table.close()
+      Iterator.empty
+    }
   }
 
   private def buildProbeTable(input: Iterator[CypherRow], state: QueryState) = {
     val table = collection.ProbeTable.createProbeTable[AnyValue, CypherRow](state.memoryTracker.memoryTrackerForOperator(id.x))
 
     for (context <- input;
-         joinKey = lhsExpression(context, state) if joinKey != null) {
+         joinKey = lhsExpression(context, state) if joinKey != null && !(joinKey eq Values.NO_VALUE)) {
       table.put(joinKey, context)
     }
 
     table
   }
+
+  // Values which are equal have equal hash codes, also if they are of different types, like 1 and 1.0
+  private def hash(expression: Expression, state: QueryState)(context: CypherRow): Int = {
+    val key = expression(context, state)
+    if (key == null) 0 else key.hashCode()
+  }
 }
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.pipes.spill
+
+import java.util.Comparator
+import java.util.PriorityQueue
+
+import org.neo4j.cypher.internal.runtime.CypherRow
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.ExecutionContextFactory
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.QueryState
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+  * Sorts rows within a memory budget, by an external merge sort.
+  *
+  * Rows are buffered until their estimated heap usage reaches the budget. The buffer is then sorted and written to a temporary file as one
+  * sorted run. The sorted rows are read by merging the runs and the rows left in the buffer with a priority queue over the first row of
+  * each. If there are more runs than can be merged at once, runs are merged into longer runs first.
+  *
+  * With a limit, only the first rows up to the limit of each sorted buffer are kept. If they fit into half of the budget they stay in the
+  * buffer instead of being spilled, so that a small limit never spills.
+  *
+  * The buffered rows are tracked by the memory tracker of the query, and released when they are spilled.
+  */
+class ExternalSorter(comparator: Comparator[CypherRow],
+                     memoryBudget: Long,
+                     limit: Long,
+                     state: QueryState,
+                     executionContextFactory: ExecutionContextFactory,
+                     operatorId: Int) {
+
+  private val buffer = new ArrayBuffer[CypherRow]()
+  private var bufferedBytes = 0L
+  private var spillFiles: SpillFiles = _
+  private val runs = new ArrayBuffer[SpillFiles#SpilledRecords]()
+
+  def sort(input: Iterator[CypherRow]): Iterator[CypherRow] = {
+    while (input.hasNext) {
+      add(input.next())
+    }
+    sortBuffer()
+    if (runs.isEmpty) {
+      buffer.iterator
+    } else {
+      while (runs.size > ExternalSorter.MAX_MERGED_RUNS) {
+        mergeRuns()
+      }
+      val readers = runs.map(run => new RunIterator(run.reader()))
+      runs.clear()
+      new MergeIterator(readers :+ buffer.iterator, () => {
+        spillFiles.close()
+        release(bufferedBytes)
+      })
+    }
+  }
+
+  private def add(row: CypherRow): Unit = {
+    val bytes = row.estimatedHeapUsage
+    buffer += row
+    bufferedBytes += bytes
+    state.memoryTracker.allocated(bytes, operatorId)
+    if (bufferedBytes >= memoryBudget) {
+      sortBuffer()
+      if (bufferedBytes >= memoryBudget / 2) {
+        spillBuffer()
+      }
+    }
+  }
+
+  // Sorts the buffer, and drops the rows after the limit
+  private def sortBuffer(): Unit = {
+    val array = buffer.toArray
+    java.util.Arrays.sort(array, comparator)
+    buffer.clear()
+    var i = 0
+    while (i < array.length) {
+      if (i < limit) {
+        buffer += array(i)
+      } else {
+        release(array(i).estimatedHeapUsage)
+      }
+      i += 1
+    }
+  }
+
+  private def spillBuffer(): Unit = {
+    if (spillFiles == null) {
+      spillFiles = SpillFiles(state, executionContextFactory)
+    }
+    val writer = spillFiles.newFile()
+    buffer.foreach(writer.write)
+    runs += writer.finish()
+    buffer.clear()
+    release(bufferedBytes)
+  }
+
+  private def release(bytes: Long): Unit = {
+    bufferedBytes -= bytes
+    state.memoryTracker.deallocated(bytes, operatorId)
+  }
+
+  private def mergeRuns(): Unit = {
+    val merging = runs.take(ExternalSorter.MAX_MERGED_RUNS)
+    runs.remove(0, merging.size)
+    val merged = new MergeIterator(merging.map(run => new RunIterator(run.reader())), () => ())
+    val writer = spillFiles.newFile()
+    merged.foreach(writer.write)
+    // The merged run holds the oldest rows, so it goes first for equal rows to stay in input order
+    runs.insert(0, writer.finish())
+  }
+
+  private class RunIterator(reader: SpillFiles#SpillReader) extends Iterator[CypherRow] {
+    override def hasNext: Boolean = reader.hasNext
+
+    override def next(): CypherRow = reader.readRow()
+  }
+
+  /**
+    * Merges sorted iterators up to the limit, by keeping the iterators in a priority queue ordered by their next row. Rows which compare
+    * equal are returned in the order of their iterators, so that the sort is stable like the sort of the rows in memory.
+    */
+  private class MergeIterator(iterators: Seq[Iterator[CypherRow]], onExhausted: () => Unit) extends Iterator[CypherRow] {
+    private var remaining = limit
+    private val queue = new PriorityQueue[HeadIterator](math.max(iterators.size, 1), new Comparator[HeadIterator] {
+      override def compare(a: HeadIterator, b: HeadIterator): Int = {
+        val result = comparator.compare(a.head, b.head)
+        if (result != 0) result else Integer.compare(a.index, b.index)
+      }
+    })
+    iterators.indices.foreach(i => if (iterators(i).hasNext) queue.add(new HeadIterator(iterators(i), i)))
+    if (queue.isEmpty) {
+      onExhausted()
+    }
+
+    override def hasNext: Boolean = !queue.isEmpty
+
+    override def next(): CypherRow = {
+      val first = queue.poll()
+      val row = first.head
+      remaining -= 1
+      if (remaining == 0) {
+        queue.clear()
+      } else if (first.advance()) {
+        queue.add(first)
+      }
+      if (queue.isEmpty) {
+        onExhausted()
+      }
+      row
+    }
+  }
+
+  private class HeadIterator(iterator: Iterator[CypherRow], val index: Int) {
+    var head: CypherRow = iterator.next()
+
+    def advance(): Boolean =
+      if (iterator.hasNext) {
+        head = iterator.next()
+        true
+      } else {
+        false
+      }
+  }
+}
+
+object ExternalSorter {
+  /**
+    * How many runs are merged at once, which is also how many spill files are read at once
+    */
+  val MAX_MERGED_RUNS = 64
+}
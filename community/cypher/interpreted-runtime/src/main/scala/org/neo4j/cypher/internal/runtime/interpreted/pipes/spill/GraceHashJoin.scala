@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.pipes.spill
+
+import org.neo4j.cypher.internal.runtime.CypherRow
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.ExecutionContextFactory
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.QueryState
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.spill.GraceHashJoin.PARTITIONS
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.spill.GraceHashJoin.PARTITION_BITS
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+  * Joins rows within a memory budget, by a partitioned (grace) hash join.
+  *
+  * The build rows are buffered while their estimated heap usage is within the budget, and joined in memory if they all fit. Otherwise the
+  * build rows and then all probe rows are written to temporary files, one per partition of the hash of their join key. The partitions are
+  * then joined in memory one after the other. A partition needs roughly the memory of all build rows divided by the number of partitions.
+  * Partitions are not split further if they go over the budget.
+  *
+  * The joined rows keep the order of the probe rows, so that a join still provides the order of its probe side. Every spilled probe row is
+  * written with its position in the probe input, and so is every row joined with it. The joined rows of all partitions are then merged by
+  * that position.
+  *
+  * The buffered build rows are tracked by the memory tracker of the query until they are spilled or handed to the in-memory join.
+  */
+class GraceHashJoin(memoryBudget: Long,
+                    state: QueryState,
+                    executionContextFactory: ExecutionContextFactory,
+                    operatorId: Int) {
+
+  /**
+    * @param buildHash    the hash of the join key of a build row, which has to be equal to the probe hash of the probe rows it joins with
+    * @param probeHash    the hash of the join key of a probe row
+    * @param joinInMemory joins build rows with probe rows. It reads all build rows before the first probe row, and returns the rows
+    *                     joined with a probe row before it reads the next one
+    */
+  def join(build: Iterator[CypherRow],
+           probe: Iterator[CypherRow],
+           buildHash: CypherRow => Int,
+           probeHash: CypherRow => Int,
+           joinInMemory: (Iterator[CypherRow], Iterator[CypherRow]) => Iterator[CypherRow]): Iterator[CypherRow] = {
+    val buffer = new ArrayBuffer[CypherRow]()
+    var bufferedBytes = 0L
+    while (build.hasNext && bufferedBytes < memoryBudget) {
+      val row = build.next()
+      val bytes = row.estimatedHeapUsage
+      buffer += row
+      bufferedBytes += bytes
+      state.memoryTracker.allocated(bytes, operatorId)
+    }
+    state.memoryTracker.deallocated(bufferedBytes, operatorId)
+
+    if (!build.hasNext) {
+      joinInMemory(buffer.iterator, probe)
+    } else {
+      val files = SpillFiles(state, executionContextFactory)
+      val buildPartitions = spillBuild(files, buffer.iterator ++ build, buildHash)
+      buffer.clear()
+      val probePartitions = spillProbe(files, probe, probeHash)
+      val joinedPartitions = (0 until PARTITIONS).map { p =>
+        val joined = files.newFile()
+        // An empty partition is not opened, and its file is deleted with the others
+        if (buildPartitions(p).size > 0 && probePartitions(p).size > 0) {
+          val buildReader = buildPartitions(p).reader()
+          val probeReader = probePartitions(p).reader()
+          val buildRows = new Iterator[CypherRow] {
+            override def hasNext: Boolean = buildReader.hasNext
+
+            override def next(): CypherRow = buildReader.readRow()
+          }
+          val probeRows = new Iterator[CypherRow] {
+            override def hasNext: Boolean = probeReader.hasNext
+
+            override def next(): CypherRow = probeReader.readSequencedRow()
+          }
+          joinInMemory(buildRows, probeRows).foreach(row => joined.write(probeReader.sequence, row))
+        }
+        joined.finish()
+      }
+
+      files.mergeBySequence(joinedPartitions) ++ {
+        // runs once the last row is read
+        files.close()
+        Iterator.empty
+      }
+    }
+  }
+
+  private def spillBuild(files: SpillFiles, input: Iterator[CypherRow], hash: CypherRow => Int): Array[SpillFiles#SpilledRecords] = {
+    val writers = Array.fill(PARTITIONS)(files.newFile())
+    while (input.hasNext) {
+      val row = input.next()
+      writers(partition(hash(row))).write(row)
+    }
+    writers.map(_.finish())
+  }
+
+  private def spillProbe(files: SpillFiles, input: Iterator[CypherRow], hash: CypherRow => Int): Array[SpillFiles#SpilledRecords] = {
+    val writers = Array.fill(PARTITIONS)(files.newFile())
+    var sequence = 0L
+    while (input.hasNext) {
+      val row = input.next()
+      writers(partition(hash(row))).write(sequence, row)
+      sequence += 1
+    }
+    writers.map(_.finish())
+  }
+
+  // The top bits of a multiplicative hash, so that the rows of a partition still spread over the buckets of the in-memory join
+  private def partition(hash: Int): Int = (hash * 0x9E3779B9) >>> (32 - PARTITION_BITS)
+}
+
+object GraceHashJoin {
+  val PARTITION_BITS = 6
+
+  /**
+    * How many partitions the build and probe rows are spilled to, which is also how many spill files are written or merged at once
+    */
+  val PARTITIONS: Int = 1 << PARTITION_BITS
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.pipes.spill
+
+import org.neo4j.cypher.internal.runtime.CypherRow
+import org.neo4j.cypher.internal.runtime.PrefetchingIterator
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.ExecutionContextFactory
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.QueryState
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.spill.PartitionedDistinct.PARTITIONS
+import org.neo4j.values.AnyValue
+
+/**
+  * Removes the rows with duplicate keys within a memory budget.
+  *
+  * Rows are streamed like by an in-memory distinct, while the seen keys fit into the budget. After that the seen keys and all remaining
+  * rows are written to temporary files, one per partition of the hash of their key. The partitions are then read one after the other: the
+  * seen keys of a partition first, and then its rows, of which the ones with new keys are written to another file. A partition needs roughly
+  * the memory of all keys divided by the number of partitions. Partitions are not split further if they go over the budget.
+  *
+  * The rows keep their input order, so that a distinct over ordered input still provides that order. Every spilled row is written with
+  * its position in the input, by which the rows with new keys of all partitions are merged.
+  *
+  * The keys kept in memory are tracked by the memory tracker of the query, and released when they are spilled.
+  */
+class PartitionedDistinct(memoryBudget: Long,
+                          state: QueryState,
+                          executionContextFactory: ExecutionContextFactory,
+                          operatorId: Int) {
+
+  def distinct(input: Iterator[CypherRow], key: CypherRow => AnyValue): Iterator[CypherRow] = new PrefetchingIterator[CypherRow] {
+    private var seen = new java.util.HashSet[AnyValue]()
+    private var seenBytes = 0L
+    private var spilledRows: Iterator[CypherRow] = _
+
+    override def produceNext(): Option[CypherRow] = {
+      if (spilledRows == null) {
+        while (input.hasNext) {
+          val row = input.next()
+          if (add(key(row))) {
+            if (seenBytes >= memoryBudget) {
+              spilledRows = spill(input, key)
+            }
+            return Some(row)
+          }
+        }
+        release()
+        None
+      } else if (spilledRows.hasNext) {
+        Some(spilledRows.next())
+      } else {
+        None
+      }
+    }
+
+    private def add(value: AnyValue): Boolean = {
+      val added = seen.add(value)
+      if (added) {
+        val bytes = value.estimatedHeapUsage()
+        seenBytes += bytes
+        state.memoryTracker.allocated(bytes, operatorId)
+      }
+      added
+    }
+
+    private def release(): Unit = {
+      state.memoryTracker.deallocated(seenBytes, operatorId)
+      seen = new java.util.HashSet[AnyValue]()
+      seenBytes = 0
+    }
+
+    private def spill(input: Iterator[CypherRow], key: CypherRow => AnyValue): Iterator[CypherRow] = {
+      val files = SpillFiles(state, executionContextFactory)
+      val writers = Array.fill(PARTITIONS)(files.newFile())
+      val seenKeys = new Array[Long](PARTITIONS)
+      seen.forEach { value =>
+        val p = partition(value)
+        writers(p).write(value)
+        seenKeys(p) += 1
+      }
+      release()
+      var sequence = 0L
+      while (input.hasNext) {
+        val row = input.next()
+        writers(partition(key(row))).write(sequence, row)
+        sequence += 1
+      }
+
+      val spilled = writers.map(_.finish())
+      val distinctPartitions = spilled.indices.map { p =>
+        val distinctRows = files.newFile()
+        if (spilled(p).size > 0) {
+          val reader = spilled(p).reader()
+          var i = 0L
+          while (i < seenKeys(p)) {
+            add(reader.readValue())
+            i += 1
+          }
+          while (reader.hasNext) {
+            val row = reader.readSequencedRow()
+            if (add(key(row))) {
+              distinctRows.write(reader.sequence, row)
+            }
+          }
+          release()
+        }
+        distinctRows.finish()
+      }
+
+      files.mergeBySequence(distinctPartitions) ++ {
+        // runs once the last row is read
+        files.close()
+        Iterator.empty
+      }
+    }
+  }
+
+  private def partition(key: AnyValue): Int = (key.hashCode() & Int.MaxValue) % PARTITIONS
+}
+
+object PartitionedDistinct {
+  /**
+    * How many partitions the keys and rows are spilled to, which is also how many spill files are written at once
+    */
+  val PARTITIONS = 64
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.pipes.spill
+
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.Comparator
+import java.util.PriorityQueue
+
+import org.neo4j.cypher.internal.expressions.ASTCachedProperty
+import org.neo4j.cypher.internal.runtime.CypherRow
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.ExecutionContextFactory
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.QueryState
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.spill.SpillValueCodec.readString
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.spill.SpillValueCodec.readVarLong
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.spill.SpillValueCodec.writeString
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.spill.SpillValueCodec.writeVarLong
+import org.neo4j.internal.kernel.api.AutoCloseablePlus
+import org.neo4j.internal.kernel.api.DefaultCloseListenable
+import org.neo4j.io.IOUtils
+import org.neo4j.values.AnyValue
+import org.neo4j.values.storable.Value
+
+import scala.collection.mutable
+import scala.collection.mutable.ArrayBuffer
+
+/**
+  * Temporary files which one execution of a pipe spills rows to. The files are deleted when they are closed, which the pipe does when
+  * it has read them, and the resources of the query do if the query is closed before that.
+  *
+  * Rows are written as their variables, cached properties and line number. Variable names and cached property keys are written as
+  * numbers, which are mapped back to the names and keys on the heap.
+  */
+class SpillFiles private(state: QueryState, executionContextFactory: ExecutionContextFactory)
+  extends DefaultCloseListenable with AutoCloseablePlus {
+
+  private val names = new ArrayBuffer[String]()
+  private val nameIds = mutable.HashMap[String, Int]()
+  private val cachedPropertyKeys = new ArrayBuffer[ASTCachedProperty]()
+  private val cachedPropertyKeyIds = mutable.HashMap[ASTCachedProperty, Int]()
+  private val files = new ArrayBuffer[SpillFile]()
+  private var closed = false
+
+  /**
+    * Creates a new file to write records to. A record is either a row, a row with a sequence number or a value, and has to be read as it
+    * was written.
+    */
+  def newFile(): SpillWriter = {
+    val path = Files.createTempFile("cypher-spill-", ".tmp")
+    val file = new SpillFile(path)
+    files += file
+    file.writer()
+  }
+
+  /**
+    * Merges files of rows written with increasing sequence numbers into one iterator of the rows in sequence order. Rows with the same
+    * sequence number have to be in the same file.
+    */
+  def mergeBySequence(records: Seq[SpilledRecords]): Iterator[CypherRow] = new Iterator[CypherRow] {
+    private val queue = new PriorityQueue[SequencedHead](math.max(records.size, 1), new Comparator[SequencedHead] {
+      override def compare(a: SequencedHead, b: SequencedHead): Int = java.lang.Long.compare(a.reader.sequence, b.reader.sequence)
+    })
+    records.foreach(run => if (run.size > 0) queue.add(new SequencedHead(run.reader())))
+
+    override def hasNext: Boolean = !queue.isEmpty
+
+    override def next(): CypherRow = {
+      val first = queue.poll()
+      val row = first.row
+      if (first.advance()) {
+        queue.add(first)
+      }
+      row
+    }
+  }
+
+  private class SequencedHead(val reader: SpillReader) {
+    var row: CypherRow = reader.readSequencedRow()
+
+    def advance(): Boolean =
+      if (reader.hasNext) {
+        row = reader.readSequencedRow()
+        true
+      } else {
+        false
+      }
+  }
+
+  override def isClosed: Boolean = closed
+
+  override def close(): Unit = {
+    closeInternal()
+    val listener = closeListener
+    if (listener != null) listener.onClosed(this)
+  }
+
+  override def closeInternal(): Unit = {
+    if (!closed) {
+      closed = true
+      IOUtils.closeAll[AutoCloseable](files: _*)
+      files.clear()
+    }
+  }
+
+  private def nameId(name: String): Int = nameIds.getOrElseUpdate(name, {
+    names += name
+    names.size
+  })
+
+  private def cachedPropertyKeyId(key: ASTCachedProperty): Int = cachedPropertyKeyIds.getOrElseUpdate(key, {
+    cachedPropertyKeys += key
+    cachedPropertyKeys.size
+  })
+
+  /**
+    * A file of records. Can be read once, after it has been written.
+    */
+  class SpillFile(path: Path) extends AutoCloseable {
+    private var stream: AutoCloseable = _
+
+    def writer(): SpillWriter = {
+      val writer = new SpillWriter(this, new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), SpillFiles.BUFFER_SIZE)))
+      stream = writer
+      writer
+    }
+
+    def reader(records: Long): SpillReader = {
+      val reader = new SpillReader(this, records, new DataInputStream(new BufferedInputStream(Files.newInputStream(path), SpillFiles.BUFFER_SIZE)))
+      stream = reader
+      reader
+    }
+
+    override def close(): Unit = {
+      try {
+        if (stream != null) stream.close()
+      } finally {
+        stream = null
+        Files.deleteIfExists(path)
+      }
+    }
+  }
+
+  class SpillWriter(file: SpillFile, out: DataOutputStream) extends AutoCloseable {
+    private val values = new SpillValueWriter(out)
+    private var records = 0L
+
+    def write(row: CypherRow): Unit = {
+      writeRow(row)
+      records += 1
+    }
+
+    def write(value: AnyValue): Unit = {
+      values.write(value)
+      records += 1
+    }
+
+    /**
+      * Writes a row together with the sequence number that orders it, see [[SpillFiles#mergeBySequence]].
+      */
+    def write(sequence: Long, row: CypherRow): Unit = {
+      writeVarLong(out, sequence)
+      writeRow(row)
+      records += 1
+    }
+
+    /**
+      * Finishes writing the file.
+      *
+      * @return the written records, to be read once
+      */
+    def finish(): SpilledRecords = {
+      out.close()
+      new SpilledRecords(file, records)
+    }
+
+    override def close(): Unit = out.close()
+
+    // Variables and cached properties are written as their ids plus one, followed by a zero
+    private def writeRow(row: CypherRow): Unit = {
+      row.foreachVariable { (name, value) =>
+        writeVarLong(out, nameId(name))
+        values.write(value)
+      }
+      writeVarLong(out, 0)
+      row.foreachCachedProperty { (key, value) =>
+        if (value != null) {
+          writeVarLong(out, cachedPropertyKeyId(key))
+          values.write(value)
+        }
+      }
+      writeVarLong(out, 0)
+      row.getLinenumber match {
+        case Some(linenumber) =>
+          out.writeBoolean(true)
+          writeString(out, linenumber.filename)
+          writeVarLong(out, linenumber.linenumber)
+          out.writeBoolean(linenumber.last)
+        case None =>
+          out.writeBoolean(false)
+      }
+    }
+  }
+
+  class SpilledRecords(file: SpillFile, val size: Long) {
+    def reader(): SpillReader = file.reader(size)
+  }
+
+  class SpillReader(file: SpillFile, records: Long, in: DataInputStream) extends AutoCloseable {
+    private val values = new SpillValueReader(in, state.query)
+    private var remaining = records
+    private var lastSequence = 0L
+
+    def hasNext: Boolean = remaining > 0
+
+    /**
+      * The sequence number of the last row read by [[readSequencedRow]].
+      */
+    def sequence: Long = lastSequence
+
+    def readRow(): CypherRow = {
+      remaining -= 1
+      val row = readRowData()
+      closeIfDone()
+      row
+    }
+
+    def readSequencedRow(): CypherRow = {
+      remaining -= 1
+      lastSequence = readVarLong(in)
+      val row = readRowData()
+      closeIfDone()
+      row
+    }
+
+    def readValue(): AnyValue = {
+      remaining -= 1
+      val value = values.read()
+      closeIfDone()
+      value
+    }
+
+    override def close(): Unit = in.close()
+
+    // The file is not needed any more once all of its records are read
+    private def closeIfDone(): Unit =
+      if (remaining == 0) {
+        file.close()
+      }
+
+    private def readRowData(): CypherRow = {
+      val row = executionContextFactory.newExecutionContext()
+      var id = readVarLong(in).toInt
+      while (id != 0) {
+        row.set(names(id - 1), values.read())
+        id = readVarLong(in).toInt
+      }
+      id = readVarLong(in).toInt
+      while (id != 0) {
+        row.setCachedProperty(cachedPropertyKeys(id - 1), values.read().asInstanceOf[Value])
+        id = readVarLong(in).toInt
+      }
+      if (in.readBoolean()) {
+        row.setLinenumber(readString(in), readVarLong(in), in.readBoolean())
+      }
+      row
+    }
+  }
+}
+
+object SpillFiles {
+  private val BUFFER_SIZE = 64 * 1024
+
+  /**
+    * New spill files, which are closed together with the resources of the query.
+    */
+  def apply(state: QueryState, executionContextFactory: ExecutionContextFactory): SpillFiles = {
+    val files = new SpillFiles(state, executionContextFactory)
+    state.query.resources.trace(files)
+    files
+  }
+}
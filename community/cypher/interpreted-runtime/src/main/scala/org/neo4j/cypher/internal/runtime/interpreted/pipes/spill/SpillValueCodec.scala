@@ -0,0 +1,411 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.pipes.spill
+
+import java.io.DataInput
+import java.io.DataOutput
+import java.io.IOException
+import java.nio.charset.StandardCharsets.UTF_8
+import java.time.Instant
+import java.time.LocalDate
+import java.time.LocalDateTime
+import java.time.LocalTime
+import java.time.OffsetTime
+import java.time.ZoneId
+import java.time.ZoneOffset
+import java.time.ZonedDateTime
+
+import org.neo4j.cypher.internal.runtime.QueryContext
+import org.neo4j.exceptions.InternalException
+import org.neo4j.values.AnyValue
+import org.neo4j.values.AnyValueWriter
+import org.neo4j.values.AnyValueWriter.EntityMode
+import org.neo4j.values.storable.BooleanValue
+import org.neo4j.values.storable.ByteValue
+import org.neo4j.values.storable.CharValue
+import org.neo4j.values.storable.CoordinateReferenceSystem
+import org.neo4j.values.storable.DateTimeValue
+import org.neo4j.values.storable.DateValue
+import org.neo4j.values.storable.DoubleValue
+import org.neo4j.values.storable.DurationValue
+import org.neo4j.values.storable.FloatValue
+import org.neo4j.values.storable.IntValue
+import org.neo4j.values.storable.LocalDateTimeValue
+import org.neo4j.values.storable.LocalTimeValue
+import org.neo4j.values.storable.LongValue
+import org.neo4j.values.storable.PointValue
+import org.neo4j.values.storable.ShortValue
+import org.neo4j.values.storable.TextArray
+import org.neo4j.values.storable.TextValue
+import org.neo4j.values.storable.TimeValue
+import org.neo4j.values.storable.Value
+import org.neo4j.values.storable.ValueWriter.ArrayType
+import org.neo4j.values.storable.Values
+import org.neo4j.values.virtual.MapValue
+import org.neo4j.values.virtual.MapValueBuilder
+import org.neo4j.values.virtual.NodeValue
+import org.neo4j.values.virtual.RelationshipValue
+import org.neo4j.values.virtual.VirtualValues
+
+import scala.reflect.ClassTag
+
+/**
+  * Compact binary encoding of the values of spilled rows. Each value starts with a tag byte. Integers are written as variable length
+  * zig-zag longs. Nodes and relationships are written as their ids and read back through the query context, like the pipes reading them
+  * from the store would create them.
+  */
+object SpillValueCodec {
+  final val NULL: Byte = 0
+  final val TRUE: Byte = 1
+  final val FALSE: Byte = 2
+  final val BYTE: Byte = 3
+  final val SHORT: Byte = 4
+  final val INT: Byte = 5
+  final val LONG: Byte = 6
+  final val FLOAT: Byte = 7
+  final val DOUBLE: Byte = 8
+  final val STRING: Byte = 9
+  final val CHAR: Byte = 10
+  final val ARRAY: Byte = 11
+  final val BYTE_ARRAY: Byte = 12
+  final val POINT: Byte = 13
+  final val DURATION: Byte = 14
+  final val DATE: Byte = 15
+  final val LOCAL_TIME: Byte = 16
+  final val TIME: Byte = 17
+  final val LOCAL_DATE_TIME: Byte = 18
+  final val DATE_TIME: Byte = 19
+  final val NODE: Byte = 20
+  final val RELATIONSHIP: Byte = 21
+  final val LIST: Byte = 22
+  final val MAP: Byte = 23
+  final val PATH: Byte = 24
+
+  private final val ZONE_OFFSET: Byte = 0
+  private final val ZONE_ID: Byte = 1
+
+  def writeVarLong(out: DataOutput, value: Long): Unit = {
+    // zig-zag, so that small negative numbers take few bytes as well
+    var remaining = (value << 1) ^ (value >> 63)
+    while ((remaining & ~0x7FL) != 0) {
+      out.writeByte(((remaining & 0x7F) | 0x80).toInt)
+      remaining >>>= 7
+    }
+    out.writeByte(remaining.toInt)
+  }
+
+  def readVarLong(in: DataInput): Long = {
+    var value = 0L
+    var shift = 0
+    var b = 0
+    do {
+      b = in.readByte()
+      value |= (b & 0x7FL) << shift
+      shift += 7
+    } while ((b & 0x80) != 0)
+    (value >>> 1) ^ -(value & 1)
+  }
+
+  def writeString(out: DataOutput, value: String): Unit = {
+    val bytes = value.getBytes(UTF_8)
+    writeVarLong(out, bytes.length)
+    out.write(bytes)
+  }
+
+  def readString(in: DataInput): String = {
+    val bytes = new Array[Byte](readVarLong(in).toInt)
+    in.readFully(bytes)
+    new String(bytes, UTF_8)
+  }
+
+  private[spill] def writeZone(out: DataOutput, zone: ZoneId): Unit = zone match {
+    case offset: ZoneOffset =>
+      out.writeByte(ZONE_OFFSET)
+      writeVarLong(out, offset.getTotalSeconds)
+    case _ =>
+      out.writeByte(ZONE_ID)
+      writeString(out, zone.getId)
+  }
+
+  private[spill] def readZone(in: DataInput): ZoneId = in.readByte() match {
+    case ZONE_OFFSET => ZoneOffset.ofTotalSeconds(readVarLong(in).toInt)
+    case ZONE_ID => ZoneId.of(readString(in))
+    case tag => throw new InternalException(s"Unknown zone tag $tag in spilled value")
+  }
+}
+
+/**
+  * Writes values in the encoding of [[SpillValueCodec]].
+  */
+class SpillValueWriter(out: DataOutput) extends AnyValueWriter[IOException] {
+  import SpillValueCodec._
+
+  def write(value: AnyValue): Unit = value.writeTo(this)
+
+  override def entityMode(): EntityMode = EntityMode.REFERENCE
+
+  override def writeNodeReference(nodeId: Long): Unit = {
+    out.writeByte(NODE)
+    writeVarLong(out, nodeId)
+  }
+
+  override def writeNode(nodeId: Long, labels: TextArray, properties: MapValue): Unit = writeNodeReference(nodeId)
+
+  override def writeRelationshipReference(relId: Long): Unit = {
+    out.writeByte(RELATIONSHIP)
+    writeVarLong(out, relId)
+  }
+
+  override def writeRelationship(relId: Long, startNodeId: Long, endNodeId: Long, `type`: TextValue, properties: MapValue): Unit =
+    writeRelationshipReference(relId)
+
+  override def beginMap(size: Int): Unit = {
+    out.writeByte(MAP)
+    writeVarLong(out, size)
+  }
+
+  override def endMap(): Unit = {}
+
+  override def beginList(size: Int): Unit = {
+    out.writeByte(LIST)
+    writeVarLong(out, size)
+  }
+
+  override def endList(): Unit = {}
+
+  override def writePath(nodes: Array[NodeValue], relationships: Array[RelationshipValue]): Unit = {
+    out.writeByte(PATH)
+    writeVarLong(out, nodes.length)
+    nodes.foreach(node => writeVarLong(out, node.id()))
+    writeVarLong(out, relationships.length)
+    relationships.foreach(relationship => writeVarLong(out, relationship.id()))
+  }
+
+  override def writeNull(): Unit = out.writeByte(NULL)
+
+  override def writeBoolean(value: Boolean): Unit = out.writeByte(if (value) TRUE else FALSE)
+
+  override def writeInteger(value: Byte): Unit = {
+    out.writeByte(BYTE)
+    out.writeByte(value)
+  }
+
+  override def writeInteger(value: Short): Unit = {
+    out.writeByte(SHORT)
+    out.writeShort(value)
+  }
+
+  override def writeInteger(value: Int): Unit = {
+    out.writeByte(INT)
+    writeVarLong(out, value)
+  }
+
+  override def writeInteger(value: Long): Unit = {
+    out.writeByte(LONG)
+    writeVarLong(out, value)
+  }
+
+  override def writeFloatingPoint(value: Float): Unit = {
+    out.writeByte(FLOAT)
+    out.writeFloat(value)
+  }
+
+  override def writeFloatingPoint(value: Double): Unit = {
+    out.writeByte(DOUBLE)
+    out.writeDouble(value)
+  }
+
+  override def writeString(value: String): Unit = {
+    out.writeByte(STRING)
+    SpillValueCodec.writeString(out, value)
+  }
+
+  override def writeString(value: Char): Unit = {
+    out.writeByte(CHAR)
+    out.writeChar(value)
+  }
+
+  override def beginArray(size: Int, arrayType: ArrayType): Unit = {
+    out.writeByte(ARRAY)
+    writeVarLong(out, size)
+    out.writeByte(arrayType.ordinal())
+  }
+
+  override def endArray(): Unit = {}
+
+  override def writeByteArray(value: Array[Byte]): Unit = {
+    out.writeByte(BYTE_ARRAY)
+    writeVarLong(out, value.length)
+    out.write(value)
+  }
+
+  override def writePoint(crs: CoordinateReferenceSystem, coordinate: Array[Double]): Unit = {
+    out.writeByte(POINT)
+    writeVarLong(out, crs.getCode)
+    out.writeByte(coordinate.length)
+    coordinate.foreach(out.writeDouble)
+  }
+
+  override def writeDuration(months: Long, days: Long, seconds: Long, nanos: Int): Unit = {
+    out.writeByte(DURATION)
+    writeVarLong(out, months)
+    writeVarLong(out, days)
+    writeVarLong(out, seconds)
+    writeVarLong(out, nanos)
+  }
+
+  override def writeDate(localDate: LocalDate): Unit = {
+    out.writeByte(DATE)
+    writeVarLong(out, localDate.toEpochDay)
+  }
+
+  override def writeLocalTime(localTime: LocalTime): Unit = {
+    out.writeByte(LOCAL_TIME)
+    writeVarLong(out, localTime.toNanoOfDay)
+  }
+
+  override def writeTime(offsetTime: OffsetTime): Unit = {
+    out.writeByte(TIME)
+    writeVarLong(out, offsetTime.toLocalTime.toNanoOfDay)
+    writeVarLong(out, offsetTime.getOffset.getTotalSeconds)
+  }
+
+  override def writeLocalDateTime(localDateTime: LocalDateTime): Unit = {
+    out.writeByte(LOCAL_DATE_TIME)
+    writeVarLong(out, localDateTime.toEpochSecond(ZoneOffset.UTC))
+    writeVarLong(out, localDateTime.getNano)
+  }
+
+  override def writeDateTime(zonedDateTime: ZonedDateTime): Unit = {
+    out.writeByte(DATE_TIME)
+    writeVarLong(out, zonedDateTime.toEpochSecond)
+    writeVarLong(out, zonedDateTime.getNano)
+    writeZone(out, zonedDateTime.getZone)
+  }
+}
+
+/**
+  * Reads values written by a [[SpillValueWriter]].
+  */
+class SpillValueReader(in: DataInput, query: QueryContext) {
+  import SpillValueCodec._
+
+  def read(): AnyValue = in.readByte() match {
+    case NULL => Values.NO_VALUE
+    case TRUE => Values.TRUE
+    case FALSE => Values.FALSE
+    case BYTE => Values.byteValue(in.readByte())
+    case SHORT => Values.shortValue(in.readShort())
+    case INT => Values.intValue(readVarLong(in).toInt)
+    case LONG => Values.longValue(readVarLong(in))
+    case FLOAT => Values.floatValue(in.readFloat())
+    case DOUBLE => Values.doubleValue(in.readDouble())
+    case STRING => Values.stringValue(readString(in))
+    case CHAR => Values.charValue(in.readChar())
+    case ARRAY => readArray()
+    case BYTE_ARRAY =>
+      val bytes = new Array[Byte](readVarLong(in).toInt)
+      in.readFully(bytes)
+      Values.byteArray(bytes)
+    case POINT =>
+      val crs = CoordinateReferenceSystem.get(readVarLong(in).toInt)
+      val coordinate = new Array[Double](in.readByte())
+      var i = 0
+      while (i < coordinate.length) {
+        coordinate(i) = in.readDouble()
+        i += 1
+      }
+      Values.pointValue(crs, coordinate: _*)
+    case DURATION =>
+      DurationValue.duration(readVarLong(in), readVarLong(in), readVarLong(in), readVarLong(in))
+    case DATE =>
+      DateValue.date(LocalDate.ofEpochDay(readVarLong(in)))
+    case LOCAL_TIME =>
+      LocalTimeValue.localTime(readVarLong(in))
+    case TIME =>
+      val localTime = LocalTime.ofNanoOfDay(readVarLong(in))
+      TimeValue.time(OffsetTime.of(localTime, ZoneOffset.ofTotalSeconds(readVarLong(in).toInt)))
+    case LOCAL_DATE_TIME =>
+      LocalDateTimeValue.localDateTime(readVarLong(in), readVarLong(in))
+    case DATE_TIME =>
+      val instant = Instant.ofEpochSecond(readVarLong(in), readVarLong(in))
+      DateTimeValue.datetime(ZonedDateTime.ofInstant(instant, readZone(in)))
+    case NODE =>
+      query.nodeOps.getById(readVarLong(in))
+    case RELATIONSHIP =>
+      query.relationshipOps.getById(readVarLong(in))
+    case LIST =>
+      val values = new Array[AnyValue](readVarLong(in).toInt)
+      var i = 0
+      while (i < values.length) {
+        values(i) = read()
+        i += 1
+      }
+      VirtualValues.list(values: _*)
+    case MAP =>
+      val size = readVarLong(in).toInt
+      val builder = new MapValueBuilder(size)
+      var i = 0
+      while (i < size) {
+        val key = read().asInstanceOf[TextValue].stringValue()
+        builder.add(key, read())
+        i += 1
+      }
+      builder.build()
+    case PATH =>
+      val nodes = Array.fill[NodeValue](readVarLong(in).toInt)(query.nodeOps.getById(readVarLong(in)))
+      val relationships = Array.fill[RelationshipValue](readVarLong(in).toInt)(query.relationshipOps.getById(readVarLong(in)))
+      VirtualValues.path(nodes, relationships)
+    case tag =>
+      throw new InternalException(s"Unknown tag $tag in spilled value")
+  }
+
+  private def readArray(): Value = {
+    val size = readVarLong(in).toInt
+    ArrayType.values()(in.readByte()) match {
+      case ArrayType.BYTE => Values.byteArray(elements(size)(_.asInstanceOf[ByteValue].value()))
+      case ArrayType.SHORT => Values.shortArray(elements(size)(_.asInstanceOf[ShortValue].value()))
+      case ArrayType.INT => Values.intArray(elements(size)(_.asInstanceOf[IntValue].value()))
+      case ArrayType.LONG => Values.longArray(elements(size)(_.asInstanceOf[LongValue].value()))
+      case ArrayType.FLOAT => Values.floatArray(elements(size)(_.asInstanceOf[FloatValue].value()))
+      case ArrayType.DOUBLE => Values.doubleArray(elements(size)(_.asInstanceOf[DoubleValue].value()))
+      case ArrayType.BOOLEAN => Values.booleanArray(elements(size)(_.asInstanceOf[BooleanValue].booleanValue()))
+      case ArrayType.STRING => Values.stringArray(elements(size)(_.asInstanceOf[TextValue].stringValue()): _*)
+      case ArrayType.CHAR => Values.charArray(elements(size)(_.asInstanceOf[CharValue].value()))
+      case ArrayType.POINT => Values.pointArray(elements(size)(_.asInstanceOf[PointValue]))
+      case ArrayType.ZONED_DATE_TIME => Values.dateTimeArray(elements(size)(_.asInstanceOf[DateTimeValue].asObjectCopy()))
+      case ArrayType.LOCAL_DATE_TIME => Values.localDateTimeArray(elements(size)(_.asInstanceOf[LocalDateTimeValue].asObjectCopy()))
+      case ArrayType.DATE => Values.dateArray(elements(size)(_.asInstanceOf[DateValue].asObjectCopy()))
+      case ArrayType.ZONED_TIME => Values.timeArray(elements(size)(_.asInstanceOf[TimeValue].asObjectCopy()))
+      case ArrayType.LOCAL_TIME => Values.localTimeArray(elements(size)(_.asInstanceOf[LocalTimeValue].asObjectCopy()))
+      case ArrayType.DURATION => Values.durationArray(elements(size)(_.asInstanceOf[DurationValue]))
+    }
+  }
+
+  private def elements[T: ClassTag](size: Int)(f: AnyValue => T): Array[T] = {
+    val array = new Array[T](size)
+    var i = 0
+    while (i < size) {
+      array(i) = f(read())
+      i += 1
+    }
+    array
+  }
+}
@@ -27,6 +27,7 @@ import org.neo4j.cypher.internal.runtime.CypherRow
 import org.neo4j.cypher.internal.runtime.ExpressionCursors
 import org.neo4j.cypher.internal.runtime.NoMemoryTracker
 import org.neo4j.cypher.internal.runtime.QueryContext
+import org.neo4j.cypher.internal.runtime.ResourceManager
 import org.neo4j.cypher.internal.runtime.interpreted.TransactionBoundQueryContext.IndexSearchMonitor
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.ExternalCSVResource
 import org.neo4j.cypher.internal.runtime.interpreted.pipes.NullPipeDecorator
@@ -98,6 +99,12 @@ object QueryStateHelper extends MockitoSugar {
 
   def emptyWithValueSerialization: QueryState = emptyWith(query = context)
 
+  def emptyWithResourceManager(resourceManager: ResourceManager): QueryState = {
+    val query = mock[QueryContext]
+    Mockito.when(query.resources).thenReturn(resourceManager)
+    emptyWith(query = query)
+  }
+
   private val context = mock[QueryContext]
   Mockito.when(context.asObject(ArgumentMatchers.any())).thenAnswer(new Answer[Any] {
     override def answer(invocationOnMock: InvocationOnMock): AnyRef = toObject(invocationOnMock.getArgument(0))
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.commands.convert
+
+import org.neo4j.cypher.internal.expressions.Add
+import org.neo4j.cypher.internal.expressions.And
+import org.neo4j.cypher.internal.expressions.Divide
+import org.neo4j.cypher.internal.expressions.Equals
+import org.neo4j.cypher.internal.expressions.Expression
+import org.neo4j.cypher.internal.expressions.GreaterThan
+import org.neo4j.cypher.internal.expressions.IsNull
+import org.neo4j.cypher.internal.expressions.ListLiteral
+import org.neo4j.cypher.internal.expressions.Multiply
+import org.neo4j.cypher.internal.expressions.Not
+import org.neo4j.cypher.internal.expressions.Null
+import org.neo4j.cypher.internal.expressions.Ors
+import org.neo4j.cypher.internal.expressions.SignedDecimalIntegerLiteral
+import org.neo4j.cypher.internal.expressions.StringLiteral
+import org.neo4j.cypher.internal.expressions.True
+import org.neo4j.cypher.internal.expressions.Variable
+import org.neo4j.cypher.internal.planner.spi.TokenContext
+import org.neo4j.cypher.internal.runtime.CypherRow
+import org.neo4j.cypher.internal.runtime.ast.ParameterFromSlot
+import org.neo4j.cypher.internal.runtime.interpreted.ImplicitDummyPos
+import org.neo4j.cypher.internal.runtime.interpreted.QueryStateHelper
+import org.neo4j.cypher.internal.runtime.interpreted.commands
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.CompiledCommandExpression
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.CompiledCommandPredicate
+import org.neo4j.cypher.internal.util.attribution.Id
+import org.neo4j.cypher.internal.util.symbols.CTAny
+import org.neo4j.cypher.internal.util.test_helpers.CypherFunSuite
+import org.neo4j.exceptions.ArithmeticException
+import org.neo4j.values.AnyValue
+import org.neo4j.values.storable.Values.FALSE
+import org.neo4j.values.storable.Values.NO_VALUE
+import org.neo4j.values.storable.Values.TRUE
+import org.neo4j.values.storable.Values.intValue
+import org.neo4j.values.storable.Values.longValue
+import org.neo4j.values.storable.Values.stringValue
+
+class ExpressionCompilerTest extends CypherFunSuite with ImplicitDummyPos {
+
+  private val converters = new ExpressionConverters(CompiledExpressionConverter, CommunityExpressionConverter(TokenContext.EMPTY))
+  private val id = Id.INVALID_ID
+
+  private val a = Variable("a")(pos)
+  private val b = Variable("b")(pos)
+
+  test("should compile arithmetics of variables, literals and parameters") {
+    val expression = Add(Multiply(a, literal(2))(pos), ParameterFromSlot(0, "p", CTAny))(pos)
+
+    evaluate(expression, row("a" -> longValue(20)), longValue(2)) should equal(longValue(42))
+  }
+
+  test("should propagate null through arithmetics") {
+    val expression = Add(a, literal(1))(pos)
+
+    evaluate(expression, row("a" -> NO_VALUE)) should equal(NO_VALUE)
+  }
+
+  test("should fail on integer division by zero") {
+    val expression = Divide(a, literal(0))(pos)
+
+    an[ArithmeticException] should be thrownBy evaluate(expression, row("a" -> longValue(1)))
+  }
+
+  test("should compare values") {
+    evaluate(Equals(a, StringLiteral("x")(pos))(pos), row("a" -> stringValue("x"))) should equal(TRUE)
+    evaluate(Equals(a, Null()(pos))(pos), row("a" -> stringValue("x"))) should equal(NO_VALUE)
+    evaluate(GreaterThan(a, b)(pos), row("a" -> intValue(2), "b" -> intValue(1))) should equal(TRUE)
+    evaluate(IsNull(Add(a, b)(pos))(pos), row("a" -> intValue(2), "b" -> NO_VALUE)) should equal(TRUE)
+  }
+
+  test("should use three-valued logic for boolean operators") {
+    val aIsOne = Equals(a, literal(1))(pos)
+    val bIsOne = Equals(b, literal(1))(pos)
+    val and = And(aIsOne, bIsOne)(pos)
+    val or = Ors(Set(aIsOne, bIsOne))(pos)
+
+    evaluate(and, row("a" -> intValue(1), "b" -> intValue(1))) should equal(TRUE)
+    evaluate(and, row("a" -> intValue(2), "b" -> NO_VALUE)) should equal(FALSE)
+    evaluate(and, row("a" -> intValue(1), "b" -> NO_VALUE)) should equal(NO_VALUE)
+    evaluate(or, row("a" -> NO_VALUE, "b" -> intValue(1))) should equal(TRUE)
+    evaluate(or, row("a" -> NO_VALUE, "b" -> intValue(2))) should equal(NO_VALUE)
+    evaluate(Not(and)(pos), row("a" -> intValue(1), "b" -> intValue(2))) should equal(TRUE)
+  }
+
+  test("should convert predicates to compiled predicates") {
+    val predicate = converters.toCommandPredicate(id, And(Equals(a, literal(1))(pos), True()(pos))(pos))
+
+    predicate shouldBe a[CompiledCommandPredicate]
+    predicate.isMatch(row("a" -> intValue(1)), QueryStateHelper.empty) should equal(Some(true))
+    predicate.isMatch(row("a" -> NO_VALUE), QueryStateHelper.empty) should equal(None)
+  }
+
+  test("should not compile expressions which are cheap to interpret") {
+    ExpressionCompiler.compile(a) should be(None)
+    ExpressionCompiler.compile(literal(1)) should be(None)
+    ExpressionCompiler.compile(ParameterFromSlot(0, "p", CTAny)) should be(None)
+  }
+
+  test("should interpret unsupported expressions and compile their supported sub-expressions") {
+    val add = Add(a, literal(1))(pos)
+    ExpressionCompiler.compile(ListLiteral(Seq(add))(pos)) should be(None)
+
+    converters.toCommandExpression(id, ListLiteral(Seq(add))(pos)) match {
+      case commands.expressions.ListLiteral(element) => element shouldBe a[CompiledCommandExpression]
+      case other => fail(s"Expected an interpreted list literal, got $other")
+    }
+  }
+
+  test("should not use boolean operators on operands which aren't known to be booleans") {
+    ExpressionCompiler.compile(And(a, b)(pos)) should be(None)
+    ExpressionCompiler.compile(Not(a)(pos)) should be(None)
+  }
+
+  private def literal(value: Int) = SignedDecimalIntegerLiteral(value.toString)(pos)
+
+  private def row(values: (String, AnyValue)*): CypherRow = CypherRow.from(values: _*)
+
+  private def evaluate(expression: Expression, row: CypherRow, params: AnyValue*): AnyValue = {
+    val command = converters.toCommandExpression(id, expression)
+    command.getClass.getSimpleName should startWith("Compiled")
+    command(row, QueryStateHelper.emptyWith(params = params.toArray))
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.pipes
+
+import org.neo4j.cypher.internal.runtime.ResourceManager
+import org.neo4j.cypher.internal.runtime.interpreted.QueryStateHelper
+import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Variable
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.DistinctPipe.GroupingCol
+import org.neo4j.cypher.internal.util.test_helpers.CypherFunSuite
+import org.neo4j.values.storable.Values.intValue
+
+class DistinctPipeTest extends CypherFunSuite {
+
+  test("should return the first row of each key") {
+    val source = new FakePipe((0 until 100).map(i => Map("x" -> i % 10, "i" -> i)))
+    val pipe = DistinctPipe(source, Array(GroupingCol("y", Variable("x"))))()
+
+    val result = pipe.createResults(QueryStateHelper.empty).toList
+
+    result.map(_.getByName("y")) should equal((0 until 10).map(intValue))
+    result.map(_.getByName("i")) should equal((0 until 10).map(intValue))
+  }
+
+  test("should spill the keys and rows to disk when the keys do not fit into memory, and keep the input order") {
+    val source = new FakePipe((0 until 1000).map(i => Map("x" -> (99 - i % 100), "i" -> i)))
+    val pipe = DistinctPipe(source, Array(GroupingCol("y", Variable("x"))), spillThreshold = 256)()
+    val resources = new ResourceManager
+
+    val result = pipe.createResults(QueryStateHelper.emptyWithResourceManager(resources)).toList
+
+    result.map(_.getByName("y")) should equal((0 until 100).reverse.map(intValue))
+    result.map(_.getByName("i")) should equal((0 until 100).map(intValue))
+    resources.allResources shouldBe empty
+  }
+}
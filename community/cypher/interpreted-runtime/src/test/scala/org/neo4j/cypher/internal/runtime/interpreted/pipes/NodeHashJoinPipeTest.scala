@@ -20,16 +20,28 @@
 package org.neo4j.cypher.internal.runtime.interpreted.pipes
 
 import org.mockito.ArgumentMatchers.any
+import org.mockito.ArgumentMatchers.anyLong
 import org.mockito.Mockito.never
 import org.mockito.Mockito.verify
 import org.mockito.Mockito.when
+import org.mockito.invocation.InvocationOnMock
+import org.mockito.stubbing.Answer
 import org.neo4j.cypher.internal.runtime.CypherRow
+import org.neo4j.cypher.internal.runtime.NodeOperations
+import org.neo4j.cypher.internal.runtime.ResourceManager
 import org.neo4j.cypher.internal.runtime.interpreted.QueryStateHelper
 import org.neo4j.cypher.internal.runtime.ImplicitValueConversion.toNodeValue
 import org.neo4j.cypher.internal.runtime.interpreted.TestableIterator
 import org.neo4j.cypher.internal.util.test_helpers.CypherFunSuite
 import org.neo4j.graphdb.Node
 import org.neo4j.values.AnyValue
+import org.neo4j.values.storable.Values.EMPTY_TEXT_ARRAY
+import org.neo4j.values.storable.Values.NO_VALUE
+import org.neo4j.values.storable.Values.intValue
+import org.neo4j.values.virtual.NodeValue
+import org.neo4j.values.virtual.VirtualValues.EMPTY_MAP
+import org.neo4j.values.virtual.VirtualValues.node
+import org.neo4j.values.virtual.VirtualValues.nodeValue
 
 class NodeHashJoinPipeTest extends CypherFunSuite {
 
@@ -91,6 +103,79 @@ class NodeHashJoinPipeTest extends CypherFunSuite {
     lhsIterator.fetched should equal(0)
   }
 
+  test("should join on a single node") {
+    // given
+    val queryState = QueryStateHelper.empty
+
+    val left = mock[Pipe]
+    when(left.createResults(queryState)).thenReturn(Iterator(
+      row("a" -> node(1), "l" -> intValue(1)),
+      row("a" -> node(1), "l" -> intValue(2)),
+      row("a" -> node(2), "l" -> intValue(3)),
+      row("a" -> NO_VALUE, "l" -> intValue(4))))
+
+    val right = mock[Pipe]
+    when(right.createResults(queryState)).thenReturn(Iterator(
+      row("a" -> node(1), "r" -> intValue(1)),
+      row("a" -> node(3), "r" -> intValue(2)),
+      row("a" -> NO_VALUE, "r" -> intValue(3))))
+
+    // when
+    val result = NodeHashJoinPipe(Set("a"), left, right)().createResults(queryState)
+
+    // then
+    result.map(row => (row.getByName("l"), row.getByName("r"))).toSet should equal(Set(
+      (intValue(1), intValue(1)),
+      (intValue(2), intValue(1))))
+  }
+
+  test("should join on several nodes") {
+    // given
+    val queryState = QueryStateHelper.empty
+
+    val left = mock[Pipe]
+    when(left.createResults(queryState)).thenReturn(Iterator(
+      row("a" -> node(1), "b" -> node(2), "l" -> intValue(1)),
+      row("a" -> node(2), "b" -> node(1), "l" -> intValue(2)),
+      row("a" -> node(1), "b" -> NO_VALUE, "l" -> intValue(3))))
+
+    val right = mock[Pipe]
+    when(right.createResults(queryState)).thenReturn(Iterator(
+      row("a" -> node(1), "b" -> node(2), "r" -> intValue(1)),
+      row("a" -> node(1), "b" -> node(1), "r" -> intValue(2))))
+
+    // when
+    val result = NodeHashJoinPipe(Set("a", "b"), left, right)().createResults(queryState)
+
+    // then
+    result.map(row => (row.getByName("l"), row.getByName("r"))).toList should equal(List((intValue(1), intValue(1))))
+  }
+
+  test("should partition both sides to disk when the LHS does not fit into memory, and keep the RHS order") {
+    // given
+    val resources = new ResourceManager
+    val queryState = QueryStateHelper.emptyWithResourceManager(resources)
+    val nodeOps = mock[NodeOperations]
+    when(queryState.query.nodeOps).thenReturn(nodeOps)
+    when(nodeOps.getById(anyLong())).thenAnswer(new Answer[NodeValue] {
+      override def answer(invocation: InvocationOnMock): NodeValue = nodeValue(invocation.getArgument[Long](0), EMPTY_TEXT_ARRAY, EMPTY_MAP)
+    })
+
+    val left = mock[Pipe]
+    when(left.createResults(queryState)).thenReturn((0 until 1000).iterator.map(i => row("a" -> node(i % 500), "l" -> intValue(i))))
+
+    val right = mock[Pipe]
+    when(right.createResults(queryState)).thenReturn((0 until 1000).iterator.map(i => row("a" -> node(i), "r" -> intValue(i))))
+
+    // when
+    val result = NodeHashJoinPipe(Set("a"), left, right, spillThreshold = 1024)().createResults(queryState).toList
+
+    // then
+    result.map(row => (row.getByName("l"), row.getByName("r"))) should equal(
+      (0 until 500).flatMap(i => Seq((intValue(i), intValue(i)), (intValue(i + 500), intValue(i)))))
+    resources.allResources shouldBe empty
+  }
+
   private def row(values: (String, AnyValue)*) = CypherRow.from(values: _*)
 
   private def newMockedNode(id: Int) = {
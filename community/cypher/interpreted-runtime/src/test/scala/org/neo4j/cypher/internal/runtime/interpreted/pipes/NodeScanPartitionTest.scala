@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.pipes
+
+import java.util.concurrent.atomic.AtomicBoolean
+
+import org.mockito.ArgumentMatchers.any
+import org.mockito.ArgumentMatchers.anyInt
+import org.mockito.Mockito.doNothing
+import org.mockito.Mockito.never
+import org.mockito.Mockito.verify
+import org.mockito.Mockito.when
+import org.neo4j.cypher.internal.util.test_helpers.CypherFunSuite
+import org.neo4j.graphdb.TransactionTerminatedException
+import org.neo4j.internal.kernel.api.NodeCursor
+import org.neo4j.internal.kernel.api.Scan
+import org.neo4j.kernel.api.AssertOpen
+import org.neo4j.kernel.api.exceptions.Status
+
+class NodeScanPartitionTest extends CypherFunSuite {
+
+  test("should read the nodes of every reserved batch") {
+    val scan = mock[Scan[NodeCursor]]
+    val cursor = mock[NodeCursor]
+    when(scan.reserveBatch(any[NodeCursor], anyInt())).thenReturn(true, true, false)
+    when(cursor.next()).thenReturn(true, false, true, false)
+    when(cursor.nodeReference()).thenReturn(1L, 2L)
+    val partition = new NodeScanPartition[NodeCursor](scan, cursor, _.nodeReference(), 10, new AtomicBoolean(false), mock[AssertOpen])
+
+    partition.next() should be(true)
+    partition.nodeReference should be(1L)
+    partition.next() should be(true)
+    partition.nodeReference should be(2L)
+    partition.next() should be(false)
+  }
+
+  test("should stop reserving batches once the transaction has been terminated") {
+    val scan = mock[Scan[NodeCursor]]
+    val cursor = mock[NodeCursor]
+    val transaction = mock[AssertOpen]
+    when(scan.reserveBatch(any[NodeCursor], anyInt())).thenReturn(true)
+    when(cursor.next()).thenReturn(true, false)
+    doNothing().doThrow(new TransactionTerminatedException(Status.Transaction.Terminated)).when(transaction).assertOpen()
+    val partition = new NodeScanPartition[NodeCursor](scan, cursor, _.nodeReference(), 10, new AtomicBoolean(false), transaction)
+
+    partition.next() should be(true)
+    a[TransactionTerminatedException] should be thrownBy partition.next()
+    verify(scan).reserveBatch(cursor, 10)
+  }
+
+  test("should not reserve batches once another worker has failed") {
+    val scan = mock[Scan[NodeCursor]]
+    val partition = new NodeScanPartition[NodeCursor](scan, mock[NodeCursor], _.nodeReference(), 10, new AtomicBoolean(true), mock[AssertOpen])
+
+    partition.next() should be(false)
+    verify(scan, never()).reserveBatch(any[NodeCursor], anyInt())
+  }
+}
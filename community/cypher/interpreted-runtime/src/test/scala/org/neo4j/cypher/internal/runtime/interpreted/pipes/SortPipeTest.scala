@@ -20,17 +20,21 @@
 package org.neo4j.cypher.internal.runtime.interpreted.pipes
 
 import org.junit.Assert.assertEquals
+import org.neo4j.cypher.internal.runtime.ResourceManager
 import org.neo4j.cypher.internal.runtime.interpreted.Ascending
 import org.neo4j.cypher.internal.runtime.interpreted.Descending
 import org.neo4j.cypher.internal.runtime.interpreted.InterpretedExecutionContextOrdering
 import org.neo4j.cypher.internal.runtime.interpreted.QueryStateHelper
 import org.neo4j.cypher.internal.runtime.interpreted.ValueComparisonHelper.beEquivalentTo
+import org.neo4j.cypher.internal.runtime.interpreted.pipes.spill.ExternalSorter
 import org.neo4j.cypher.internal.util.test_helpers.CypherFunSuite
 import org.neo4j.values.storable.Values
 import org.neo4j.values.storable.Values.intValue
+import org.neo4j.values.storable.Values.stringValue
 import org.scalatest.mockito.MockitoSugar
 
 import scala.collection.mutable
+import scala.util.Random
 
 class SortPipeTest extends CypherFunSuite with MockitoSugar {
 
@@ -91,4 +95,29 @@ class SortPipeTest extends CypherFunSuite with MockitoSugar {
       Map("y" -> intValue(2)),
       Map("y" -> Values.NO_VALUE)))
   }
+
+  test("should spill sorted runs to disk and merge them") {
+    val source = new FakePipe(Random.shuffle((0 until 1000).toList).map(i => Map("x" -> i, "y" -> s"row $i")))
+    val sortPipe = SortPipe(source, InterpretedExecutionContextOrdering.asComparator(List(Ascending("x"))), spillThreshold = 1024)()
+    val resources = new ResourceManager
+
+    val result = sortPipe.createResults(QueryStateHelper.emptyWithResourceManager(resources)).toList
+
+    result.map(_.getByName("x")) should equal((0 until 1000).map(intValue))
+    result.map(_.getByName("y")) should equal((0 until 1000).map(i => stringValue(s"row $i")))
+    resources.allResources shouldBe empty
+  }
+
+  test("should keep equal rows in input order when merging more runs than can be merged at once") {
+    val rows = 4 * ExternalSorter.MAX_MERGED_RUNS
+    val source = new FakePipe((0 until rows).map(i => Map("x" -> i % 3, "y" -> i)))
+    // every row becomes a run of its own
+    val sortPipe = SortPipe(source, InterpretedExecutionContextOrdering.asComparator(List(Ascending("x"))), spillThreshold = 1)()
+    val resources = new ResourceManager
+
+    val result = sortPipe.createResults(QueryStateHelper.emptyWithResourceManager(resources)).toList
+
+    result.map(_.getByName("y")) should equal((0 until 3).flatMap(x => (x until rows by 3).map(intValue)))
+    resources.allResources shouldBe empty
+  }
 }
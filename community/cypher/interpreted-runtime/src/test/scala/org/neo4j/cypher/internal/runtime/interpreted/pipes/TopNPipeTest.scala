@@ -19,6 +19,7 @@
  */
 package org.neo4j.cypher.internal.runtime.interpreted.pipes
 
+import org.neo4j.cypher.internal.runtime.ResourceManager
 import org.neo4j.cypher.internal.runtime.interpreted.Ascending
 import org.neo4j.cypher.internal.runtime.interpreted.Descending
 import org.neo4j.cypher.internal.runtime.interpreted.InterpretedExecutionContextOrdering
@@ -111,6 +112,18 @@ class TopNPipeTest extends CypherFunSuite {
     result should equal(list(10,null))
   }
 
+  test("returning top 10 from 1000 possible should spill the top rows which do not fit into memory") {
+    val in = Random.shuffle((0 until 1000).toList).map(i => Map("a" -> i))
+    val input = new FakePipe(in)
+    val resources = new ResourceManager
+
+    val pipe = TopNPipe(input, Literal(10), InterpretedExecutionContextOrdering.asComparator(List(Ascending("a"))), spillThreshold = 256)()
+    val result = pipe.createResults(QueryStateHelper.emptyWithResourceManager(resources)).map(ctx => ctx.getByName("a")).toList
+
+    result should equal(list(0, 1, 2, 3, 4, 5, 6, 7, 8, 9))
+    resources.allResources shouldBe empty
+  }
+
   private def list(a: Any*) = a.map(ValueUtils.of).toList
 
   private def createFakePipeWith(count: Int): FakePipe = {
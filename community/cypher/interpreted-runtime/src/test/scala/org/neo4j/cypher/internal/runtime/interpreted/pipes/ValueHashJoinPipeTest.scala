@@ -24,6 +24,7 @@ import org.mockito.Mockito.verify
 import org.mockito.Mockito.when
 import org.mockito.Mockito.never
 import org.neo4j.cypher.internal.runtime.CypherRow
+import org.neo4j.cypher.internal.runtime.ResourceManager
 import org.neo4j.cypher.internal.runtime.ImplicitValueConversion.toIntValue
 import org.neo4j.cypher.internal.runtime.interpreted.ExecutionContextHelper.RichExecutionContext
 import org.neo4j.cypher.internal.runtime.interpreted.QueryStateHelper
@@ -33,6 +34,7 @@ import org.neo4j.cypher.internal.runtime.interpreted.commands.expressions.Variab
 import org.neo4j.cypher.internal.util.test_helpers.CypherFunSuite
 import org.neo4j.values.AnyValue
 import org.neo4j.values.storable.Values.doubleArray
+import org.neo4j.values.storable.Values.doubleValue
 import org.neo4j.values.storable.Values.intArray
 import org.neo4j.values.storable.Values.intValue
 
@@ -185,6 +187,25 @@ class ValueHashJoinPipeTest extends CypherFunSuite {
     result.toList should beEquivalentTo(List(Map("a" -> ints, "b" ->  doubles)))
   }
 
+  test("should partition both sides to disk when the LHS does not fit into memory, and keep the RHS order") {
+    // given
+    val resources = new ResourceManager
+    val queryState = QueryStateHelper.emptyWithResourceManager(resources)
+
+    val left = mock[Pipe]
+    when(left.createResults(queryState)).thenReturn((0 until 1000).iterator.map(i => row("a" -> intValue(i % 500), "a2" -> intValue(i))))
+
+    val right = mock[Pipe]
+    when(right.createResults(queryState)).thenReturn((0 until 1000).iterator.map(i => row("b" -> doubleValue(i))))
+
+    // when
+    val result = ValueHashJoinPipe(Variable("a"), Variable("b"), left, right, spillThreshold = 1024)().createResults(queryState).toList
+
+    // then
+    result.map(row => (row.getByName("a2"), row.getByName("b"))) should equal(
+      (0 until 500).flatMap(i => Seq((intValue(i), doubleValue(i)), (intValue(i + 500), doubleValue(i)))))
+    resources.allResources shouldBe empty
+  }
 
   private def row(values: (String, AnyValue)*) = CypherRow.from(values: _*)
 
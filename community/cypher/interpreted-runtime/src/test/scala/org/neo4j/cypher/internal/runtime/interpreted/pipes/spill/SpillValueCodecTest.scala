@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime.interpreted.pipes.spill
+
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.time.LocalDate
+import java.time.LocalDateTime
+import java.time.LocalTime
+import java.time.OffsetTime
+import java.time.ZoneId
+import java.time.ZoneOffset
+import java.time.ZonedDateTime
+
+import org.mockito.ArgumentMatchers.anyLong
+import org.mockito.Mockito.when
+import org.mockito.invocation.InvocationOnMock
+import org.mockito.stubbing.Answer
+import org.neo4j.cypher.internal.runtime.NodeOperations
+import org.neo4j.cypher.internal.runtime.QueryContext
+import org.neo4j.cypher.internal.runtime.RelationshipOperations
+import org.neo4j.cypher.internal.util.test_helpers.CypherFunSuite
+import org.neo4j.values.AnyValue
+import org.neo4j.values.storable.CoordinateReferenceSystem
+import org.neo4j.values.storable.DateTimeValue
+import org.neo4j.values.storable.DateValue
+import org.neo4j.values.storable.DurationValue
+import org.neo4j.values.storable.LocalDateTimeValue
+import org.neo4j.values.storable.LocalTimeValue
+import org.neo4j.values.storable.TimeValue
+import org.neo4j.values.storable.Values
+import org.neo4j.values.virtual.NodeValue
+import org.neo4j.values.virtual.RelationshipValue
+import org.neo4j.values.virtual.VirtualValues
+import org.scalatest.mockito.MockitoSugar
+
+class SpillValueCodecTest extends CypherFunSuite with MockitoSugar {
+
+  test("should read back scalar values") {
+    roundTrip(Values.NO_VALUE)
+    roundTrip(Values.TRUE)
+    roundTrip(Values.FALSE)
+    roundTrip(Values.byteValue(-7))
+    roundTrip(Values.shortValue(1234))
+    roundTrip(Values.intValue(Int.MinValue))
+    roundTrip(Values.longValue(Long.MaxValue))
+    roundTrip(Values.longValue(-1))
+    roundTrip(Values.floatValue(1.5f))
+    roundTrip(Values.doubleValue(Math.PI))
+    roundTrip(Values.stringValue("ünïcødé 🙂"))
+    roundTrip(Values.charValue('x'))
+  }
+
+  test("should read back spatial and temporal values") {
+    roundTrip(Values.pointValue(CoordinateReferenceSystem.WGS84, 12.5, 56.25))
+    roundTrip(Values.pointValue(CoordinateReferenceSystem.Cartesian_3D, 1, 2, 3))
+    roundTrip(DurationValue.duration(14, -3, 3600, 500))
+    roundTrip(DateValue.date(LocalDate.of(1969, 7, 20)))
+    roundTrip(LocalTimeValue.localTime(LocalTime.of(23, 59, 59, 999999999)))
+    roundTrip(TimeValue.time(OffsetTime.of(LocalTime.of(12, 0), ZoneOffset.ofHours(-5))))
+    roundTrip(LocalDateTimeValue.localDateTime(LocalDateTime.of(2020, 2, 29, 13, 37)))
+    roundTrip(DateTimeValue.datetime(ZonedDateTime.of(2020, 3, 29, 2, 30, 0, 0, ZoneId.of("Europe/Stockholm"))))
+    roundTrip(DateTimeValue.datetime(ZonedDateTime.of(1900, 1, 1, 0, 0, 0, 1, ZoneOffset.ofHoursMinutes(5, 30))))
+  }
+
+  test("should read back arrays") {
+    roundTrip(Values.byteArray(Array[Byte](1, 2, 3)))
+    roundTrip(Values.intArray(Array(1, -2, 3)))
+    roundTrip(Values.longArray(Array(Long.MinValue, 0L)))
+    roundTrip(Values.doubleArray(Array(0.5, 1e300)))
+    roundTrip(Values.booleanArray(Array(true, false)))
+    roundTrip(Values.stringArray("a", "", "c"))
+    roundTrip(Values.charArray(Array('a', 'b')))
+    roundTrip(Values.dateArray(Array(LocalDate.of(2000, 1, 1), LocalDate.of(1, 12, 31))))
+    roundTrip(Values.pointArray(Array(Values.pointValue(CoordinateReferenceSystem.Cartesian, 1, 2))))
+  }
+
+  test("should read back lists and maps") {
+    roundTrip(VirtualValues.EMPTY_LIST)
+    roundTrip(VirtualValues.list(Values.intValue(1), Values.NO_VALUE, VirtualValues.list(Values.stringValue("nested"))))
+    roundTrip(VirtualValues.map(Array("a", "b"), Array[AnyValue](Values.intValue(1), VirtualValues.list(Values.TRUE))))
+  }
+
+  test("should read back entities through the query context") {
+    val query = mock[QueryContext]
+    val nodeOps = mock[NodeOperations]
+    val relationshipOps = mock[RelationshipOperations]
+    when(query.nodeOps).thenReturn(nodeOps)
+    when(query.relationshipOps).thenReturn(relationshipOps)
+    when(nodeOps.getById(anyLong())).thenAnswer(new Answer[NodeValue] {
+      override def answer(invocation: InvocationOnMock): NodeValue = node(invocation.getArgument[Long](0))
+    })
+    when(relationshipOps.getById(anyLong())).thenAnswer(new Answer[RelationshipValue] {
+      override def answer(invocation: InvocationOnMock): RelationshipValue = relationship(invocation.getArgument[Long](0))
+    })
+
+    roundTrip(node(42), query)
+    roundTrip(relationship(3), query)
+    roundTrip(VirtualValues.path(Array(node(1), node(2)), Array(relationship(10))), query)
+  }
+
+  private def node(id: Long): NodeValue = VirtualValues.nodeValue(id, Values.stringArray("L"), VirtualValues.EMPTY_MAP)
+
+  private def relationship(id: Long): RelationshipValue =
+    VirtualValues.relationshipValue(id, node(1), node(2), Values.stringValue("R"), VirtualValues.EMPTY_MAP)
+
+  private def roundTrip(value: AnyValue, query: QueryContext = null): Unit = {
+    val bytes = new ByteArrayOutputStream()
+    val out = new DataOutputStream(bytes)
+    new SpillValueWriter(out).write(value)
+    out.flush()
+
+    val in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray))
+    val read = new SpillValueReader(in, query).read()
+    read should equal(value)
+    in.available() should equal(0)
+  }
+}
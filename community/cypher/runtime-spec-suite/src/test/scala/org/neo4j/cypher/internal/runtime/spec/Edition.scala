@@ -31,8 +31,11 @@ import org.neo4j.cypher.internal.RuntimeContext
 import org.neo4j.cypher.internal.RuntimeContextManager
 import org.neo4j.dbms.api.DatabaseManagementService
 import org.neo4j.graphdb.config.Setting
+import org.neo4j.kernel.api.Kernel
 import org.neo4j.kernel.lifecycle.LifeSupport
 import org.neo4j.logging.LogProvider
+import org.neo4j.scheduler.Group
+import org.neo4j.scheduler.JobScheduler
 import org.neo4j.test.TestDatabaseManagementServiceBuilder
 
 import scala.collection.JavaConverters.mapAsJavaMapConverter
@@ -75,6 +78,8 @@ class Edition[CONTEXT <: RuntimeContext](graphBuilderFactory: () => TestDatabase
 object COMMUNITY {
   val EDITION = new Edition(
     () => new TestDatabaseManagementServiceBuilder,
-    (runtimeConfig, _, _, logProvider) => CommunityRuntimeContextManager(logProvider.getLog("test"), runtimeConfig),
+    (runtimeConfig, resolver, _, logProvider) =>
+      CommunityRuntimeContextManager(logProvider.getLog("test"), runtimeConfig, Some(resolver.resolveDependency(classOf[Kernel]).cursors()),
+        Some(resolver.resolveDependency(classOf[JobScheduler]).executor(Group.CYPHER_WORKER))),
     GraphDatabaseSettings.cypher_hints_error -> TRUE)
 }
@@ -19,10 +19,15 @@
  */
 package org.neo4j.cypher.internal.runtime.spec.interpreted
 
+import org.neo4j.configuration.GraphDatabaseSettings
 import org.neo4j.cypher.internal.CommunityRuntimeContext
 import org.neo4j.cypher.internal.InterpretedRuntime
+import org.neo4j.cypher.internal.ParallelInterpretedRuntime
+import org.neo4j.cypher.internal.SlottedInterpretedRuntime
 import org.neo4j.cypher.internal.runtime.spec.COMMUNITY
+import org.neo4j.cypher.internal.runtime.spec.interpreted.InterpretedSpecSuite.PARALLEL_EDITION
 import org.neo4j.cypher.internal.runtime.spec.interpreted.InterpretedSpecSuite.SIZE_HINT
+import org.neo4j.cypher.internal.runtime.spec.interpreted.InterpretedSpecSuite.SPILLING_EDITION
 import org.neo4j.cypher.internal.runtime.spec.tests.AggregationTestBase
 import org.neo4j.cypher.internal.runtime.spec.tests.AllNodeScanTestBase
 import org.neo4j.cypher.internal.runtime.spec.tests.AllNodeScanWithOtherOperatorsTestBase
@@ -103,9 +108,20 @@ import org.neo4j.cypher.internal.runtime.spec.tests.VarLengthExpandTestBase
 
 object InterpretedSpecSuite {
   val SIZE_HINT = 200
+
+  // Batches small enough for all workers to read some of the nodes
+  val PARALLEL_EDITION = COMMUNITY.EDITION.copyWith(
+    GraphDatabaseSettings.cypher_worker_count -> Integer.valueOf(4),
+    GraphDatabaseSettings.cypher_pipelined_batch_size_small -> Integer.valueOf(4),
+    GraphDatabaseSettings.cypher_pipelined_batch_size_big -> Integer.valueOf(8))
+
+  // Small enough for sorts, distincts and hash joins to spill after a handful of rows
+  val SPILLING_EDITION = COMMUNITY.EDITION.copyWith(
+    GraphDatabaseSettings.cypher_spill_threshold -> java.lang.Long.valueOf(256))
 }
 
 class InterpretedAggregationTest extends AggregationTestBase(COMMUNITY.EDITION, InterpretedRuntime, SIZE_HINT)
+class ParallelInterpretedAggregationTest extends AggregationTestBase(PARALLEL_EDITION, ParallelInterpretedRuntime, SIZE_HINT)
 class InterpretedOrderedAggregationTest extends OrderedAggregationTestBase(COMMUNITY.EDITION, InterpretedRuntime, SIZE_HINT)
 class InterpretedAllNodeScanTest extends AllNodeScanTestBase(COMMUNITY.EDITION, InterpretedRuntime, SIZE_HINT)
                                  with AllNodeScanWithOtherOperatorsTestBase[CommunityRuntimeContext]
@@ -148,11 +164,14 @@ class InterpretedProjectionTest extends ProjectionTestBase(COMMUNITY.EDITION, In
 class InterpretedCachePropertiesTest extends CachePropertiesTestBase(COMMUNITY.EDITION, InterpretedRuntime, SIZE_HINT)
 class InterpretedUnwindTest extends UnwindTestBase(COMMUNITY.EDITION, InterpretedRuntime, SIZE_HINT)
 class InterpretedDistinctTest extends DistinctTestBase(COMMUNITY.EDITION, InterpretedRuntime, SIZE_HINT)
+class SpillingInterpretedDistinctTest extends DistinctTestBase(SPILLING_EDITION, InterpretedRuntime, SIZE_HINT)
 class InterpretedOrderedDistinctTest extends OrderedDistinctTestBase(COMMUNITY.EDITION, InterpretedRuntime, SIZE_HINT)
 class InterpretedLimitTest extends LimitTestBase(COMMUNITY.EDITION, InterpretedRuntime, SIZE_HINT)
 class InterpretedSkipTest extends SkipTestBase(COMMUNITY.EDITION, InterpretedRuntime, SIZE_HINT)
 class InterpretedNodeHashJoinTest extends NodeHashJoinTestBase(COMMUNITY.EDITION, InterpretedRuntime, SIZE_HINT)
+class SpillingInterpretedNodeHashJoinTest extends NodeHashJoinTestBase(SPILLING_EDITION, InterpretedRuntime, SIZE_HINT)
 class InterpretedValueHashJoinTest extends ValueHashJoinTestBase(COMMUNITY.EDITION, InterpretedRuntime, SIZE_HINT)
+class SpillingInterpretedValueHashJoinTest extends ValueHashJoinTestBase(SPILLING_EDITION, InterpretedRuntime, SIZE_HINT)
 class InterpretedRightOuterHashJoinTest extends RightOuterHashJoinTestBase(COMMUNITY.EDITION, InterpretedRuntime, SIZE_HINT)
 class InterpretedLeftOuterHashJoinTest extends LeftOuterHashJoinTestBase(COMMUNITY.EDITION, InterpretedRuntime, SIZE_HINT)
 class InterpretedReactiveResultsTest extends ReactiveResultTestBase(COMMUNITY.EDITION, InterpretedRuntime)
@@ -161,6 +180,7 @@ class InterpretedOptionalTest extends OptionalTestBase(COMMUNITY.EDITION, Interp
                               with OptionalFailureTestBase[CommunityRuntimeContext]
 class InterpretedProvidedOrderTest extends ProvidedOrderTestBase(COMMUNITY.EDITION, InterpretedRuntime, SIZE_HINT)
                                    with CartesianProductProvidedOrderTestBase[CommunityRuntimeContext]
+class SpillingInterpretedProvidedOrderTest extends ProvidedOrderTestBase(SPILLING_EDITION, InterpretedRuntime, SIZE_HINT)
 class InterpretedProfileDbHitsTest extends LegacyDbHitsTestBase(COMMUNITY.EDITION, InterpretedRuntime, SIZE_HINT)
                                    with ProcedureCallDbHitsTestBase[CommunityRuntimeContext]
                                    with NestedPlanDbHitsTestBase[CommunityRuntimeContext]
@@ -185,3 +205,40 @@ class InterpretedAntiSemiApplyTest extends AntiSemiApplyTestBase(COMMUNITY.EDITI
 
 class InterpretedNestedPlanExpressionTest extends NestedPlanExpressionTestBase(COMMUNITY.EDITION, InterpretedRuntime, SIZE_HINT)
 class InterpretedRollupApplyTest extends RollupApplyTestBase(COMMUNITY.EDITION, InterpretedRuntime, SIZE_HINT)
+
+// The interpreted pipes passing slotted rows
+class SlottedInterpretedAggregationTest extends AggregationTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedAllNodeScanTest extends AllNodeScanTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+                                        with AllNodeScanWithOtherOperatorsTestBase[CommunityRuntimeContext]
+class SlottedInterpretedCartesianProductTest extends CartesianProductTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedApplyTest extends ApplyTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedExpandAllTest extends ExpandAllTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+                                      with ExpandAllWithOtherOperatorsTestBase[CommunityRuntimeContext]
+class SlottedInterpretedExpandIntoTest extends ExpandIntoTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+                                       with ExpandIntoWithOtherOperatorsTestBase[CommunityRuntimeContext]
+class SlottedInterpretedOptionalExpandAllTest extends OptionalExpandAllTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedOptionalExpandIntoTest extends OptionalExpandIntoTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedVarExpandAllTest extends VarLengthExpandTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedLabelScanTest extends LabelScanTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedNodeIndexSeekTest extends NodeIndexSeekTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedInputTest extends InputTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedSortTest extends SortTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedTopTest extends TopTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedFilterTest extends FilterTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedArgumentTest extends ArgumentTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedProjectionTest extends ProjectionTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedCachePropertiesTest extends CachePropertiesTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedUnwindTest extends UnwindTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedDistinctTest extends DistinctTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedLimitTest extends LimitTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedNodeHashJoinTest extends NodeHashJoinTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedValueHashJoinTest extends ValueHashJoinTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedLeftOuterHashJoinTest extends LeftOuterHashJoinTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedMiscTest extends MiscTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime)
+class SlottedInterpretedOptionalTest extends OptionalTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedExpressionTest extends ExpressionTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime)
+                                       with ThreadUnsafeExpressionTests[CommunityRuntimeContext]
+class SlottedInterpretedUnionTest extends UnionTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedSemiApplyTest extends SemiApplyTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedNestedPlanExpressionTest extends NestedPlanExpressionTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
+class SlottedInterpretedRollupApplyTest extends RollupApplyTestBase(COMMUNITY.EDITION, SlottedInterpretedRuntime, SIZE_HINT)
@@ -118,6 +118,30 @@ abstract class ProvidedOrderTestBase[CONTEXT <: RuntimeContext](
       runtimeResult should beColumns("prop", "c").withRows(inOrder(expected))
     }
 
+    test(s"distinct keeps index provided $orderString order") {
+      // given
+      val n = sizeHint
+      given {
+        index("Honey", "prop")
+        nodePropertyGraph(n, {
+          case i => Map("prop" -> i % 100)
+        }, "Honey")
+      }
+
+      // when
+      val logicalQuery = new LogicalQueryBuilder(this)
+        .produceResults("prop").withLeveragedOrder()
+        .distinct("x.prop AS prop")
+        .nodeIndexOperator("x:Honey(prop >= 0)", indexOrder = indexOrder, getValue = DoNotGetValue).withProvidedOrder(providedOrderFactory("x.prop"))
+        .build()
+
+      val runtimeResult = execute(logicalQuery, runtime)
+
+      // then
+      val expected = expectedMutation(0 until 100)
+      runtimeResult should beColumns("prop").withRows(singleColumnInOrder(expected))
+    }
+
     test(s"node hash join keeps RHS index provided $orderString order") {
       // given
       val n = sizeHint / 2 // Expected to be a multiple of modulo
@@ -171,6 +195,34 @@ abstract class ProvidedOrderTestBase[CONTEXT <: RuntimeContext](
       runtimeResult should beColumns("prop").withRows(singleColumnInOrder(expected))
     }
 
+    test(s"value hash join keeps RHS index provided $orderString order") {
+      // given
+      val n = sizeHint
+      val modulo = 100
+      given {
+        index("Honey", "prop")
+        nodePropertyGraph(n, {
+          case i => Map("prop" -> i % modulo)
+        }, "Honey")
+      }
+
+      // when
+      val logicalQuery = new LogicalQueryBuilder(this)
+        .produceResults("prop").withLeveragedOrder()
+        .projection("y.prop AS prop")
+        .valueHashJoin("x.prop=y.prop")
+        .|.nodeIndexOperator("y:Honey(prop >= 0)", indexOrder = indexOrder, getValue = DoNotGetValue).withProvidedOrder(providedOrderFactory("y.prop"))
+        .nodeByLabelScan("x", "Honey")
+        .build()
+
+      val runtimeResult = execute(logicalQuery, runtime)
+
+      // then
+      val matchesPerProp = (n / modulo) * (n / modulo)
+      val expected = expectedMutation((0 until modulo).flatMap(prop => Seq.fill(matchesPerProp)(prop)))
+      runtimeResult should beColumns("prop").withRows(singleColumnInOrder(expected))
+    }
+
     test(s"apply keeps LHS index provided $orderString order") {
       // given
       val n = sizeHint
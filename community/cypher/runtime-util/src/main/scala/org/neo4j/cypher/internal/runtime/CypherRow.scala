@@ -62,6 +62,16 @@ trait CypherRow extends ReadWriteRow with Measurable {
 
   def isNull(key: String): Boolean
 
+  /**
+    * Calls the function with the name and value of each variable of this row.
+    */
+  def foreachVariable(f: (String, AnyValue) => Unit): Unit
+
+  /**
+    * Calls the function with the key and value of each cached property of this row. The value is null if the property was invalidated.
+    */
+  def foreachCachedProperty(f: (ASTCachedProperty, Value) => Unit): Unit
+
   private var linenumber: Option[ResourceLinenumber] = None
 
   override def setLinenumber(file: String, line: Long, last: Boolean = false): Unit = {
@@ -114,6 +124,10 @@ class MapCypherRow(private val m: mutable.Map[String, AnyValue], private var cac
         //otherMapCtx.cachedProperties is null so do nothing
       }
       setLinenumber(otherMapCtx.getLinenumber)
+    case slotted: SlottedCypherRow =>
+      slotted.foreachVariable((name, value) => m.put(name, value))
+      slotted.foreachCachedProperty((key, value) => setCachedProperty(key, value))
+      setLinenumber(slotted.getLinenumber)
     case _ => fail()
   }
 
@@ -165,6 +179,13 @@ class MapCypherRow(private val m: mutable.Map[String, AnyValue], private var cac
 
   override def createClone(): CypherRow = cloneFromMap(m.clone())
 
+  override def foreachVariable(f: (String, AnyValue) => Unit): Unit = m.foreach(entry => f(entry._1, entry._2))
+
+  override def foreachCachedProperty(f: (ASTCachedProperty, Value) => Unit): Unit =
+    if (cachedProperties != null) {
+      cachedProperties.foreach(entry => f(entry._1, entry._2))
+    }
+
   override def isNull(key: String): Boolean =
     m.get(key) match {
       case Some(v) if v eq Values.NO_VALUE => true
@@ -123,6 +123,12 @@ trait QueryContext extends TokenContext with DbAccess {
                                   indexOrder: IndexOrder,
                                   queries: Seq[IndexQuery]): NodeValueIndexCursor
 
+  /**
+    * Seek nodes matching any of the given combinations of exact predicates, in no particular order and without values, using a single cursor.
+    */
+  def indexSeekMany[RESULT <: AnyRef](index: IndexReadSession,
+                                      queries: Seq[Seq[IndexQuery.ExactPredicate]]): NodeValueIndexCursor
+
   def indexSeekByContains[RESULT <: AnyRef](index: IndexReadSession,
                                             needsValues: Boolean,
                                             indexOrder: IndexOrder,
@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime
+
+import org.neo4j.cypher.internal.expressions.ASTCachedProperty
+import org.neo4j.cypher.internal.logical.plans.LogicalPlan
+import org.neo4j.exceptions.InternalException
+import org.neo4j.graphdb.NotFoundException
+import org.neo4j.values.AnyValue
+import org.neo4j.values.storable.Value
+import org.neo4j.values.storable.Values
+import org.neo4j.values.virtual.VirtualNodeValue
+import org.neo4j.values.virtual.VirtualRelationshipValue
+
+import scala.collection.mutable
+
+/**
+  * Gives each variable of a query a fixed offset into the value array of a [[SlottedCypherRow]].
+  */
+class SlotLayout private(names: Array[String]) {
+  private val offsets = new java.util.HashMap[String, Integer](names.length * 2)
+  names.indices.foreach(i => offsets.put(names(i), i))
+
+  def size: Int = names.length
+
+  def nameAt(offset: Int): String = names(offset)
+
+  /**
+    * @return the offset of the variable, or -1 if the variable is not part of this layout
+    */
+  def offsetFor(name: String): Int = {
+    val offset = offsets.get(name)
+    if (offset == null) -1 else offset
+  }
+
+  /**
+    * Looks up the offset of the variable once, so that the pipe or expression asking for it can access it without a lookup per row.
+    */
+  def slotFor(name: String): VariableSlot = {
+    val offset = offsetFor(name)
+    if (offset >= 0) new VariableSlot(name, this, offset) else VariableSlot.byName(name)
+  }
+
+  override def toString: String = s"SlotLayout(${names.mkString(", ")})"
+}
+
+object SlotLayout {
+
+  def apply(names: String*): SlotLayout = new SlotLayout(names.distinct.toArray)
+
+  /**
+    * Layout for all variables available in any plan of the given plan tree, including the plans nested in expressions.
+    */
+  def from(plan: LogicalPlan): SlotLayout =
+    new SlotLayout(plan.findByAllClass[LogicalPlan].flatMap(_.availableSymbols).distinct.sorted.toArray)
+}
+
+object VariableSlot {
+
+  /**
+    * Slot of a variable which is not part of any layout, and is therefore always accessed by name.
+    */
+  def byName(name: String): VariableSlot = new VariableSlot(name, null, -1)
+}
+
+/**
+  * A variable whose offset into the rows of one [[SlotLayout]] was resolved when the pipe or expression using it was built.
+  * Rows of other layouts, and rows which are not slotted, are accessed by name.
+  */
+final class VariableSlot private[runtime](val name: String, layout: SlotLayout, offset: Int) {
+
+  def getByName(row: ReadableRow): AnyValue = row match {
+    case slotted: SlottedCypherRow if slotted.layout eq layout =>
+      val value = slotted.getRefAt(offset)
+      if (value == null) throw new NotFoundException(s"Unknown variable `$name`.")
+      value
+    case _ => row.getByName(name)
+  }
+
+  def set(row: WritableRow, value: AnyValue): Unit = row match {
+    case slotted: SlottedCypherRow if slotted.layout eq layout => slotted.setRefAt(offset, value)
+    case _ => row.set(name, value)
+  }
+
+  override def toString: String = s"VariableSlot($name, $offset)"
+}
+
+object SlottedCypherRow {
+
+  def empty(layout: SlotLayout): SlottedCypherRow = new SlottedCypherRow(layout, new Array[AnyValue](layout.size), null, null)
+
+  /**
+    * Copies the variables and cached properties of a row into a new row of the given layout.
+    */
+  def copyOf(layout: SlotLayout, row: ReadableRow): SlottedCypherRow = row match {
+    case slotted: SlottedCypherRow if slotted.layout eq layout =>
+      slotted.createClone()
+    case slotted: SlottedCypherRow =>
+      val copy = empty(layout)
+      slotted.foreachVariable((name, value) => copy.set(name, value))
+      slotted.foreachCachedProperty((key, value) => copy.setCachedProperty(key, value))
+      copy.setLinenumber(slotted.getLinenumber)
+      copy
+    case map: MapCypherRow =>
+      val copy = empty(layout)
+      map.foreachVariable((name, value) => copy.set(name, value))
+      map.foreachCachedProperty((key, value) => copy.setCachedProperty(key, value))
+      copy.setLinenumber(map.getLinenumber)
+      copy
+    case _ =>
+      throw new InternalException(s"Tried to copy a ${row.getClass.getSimpleName} into a slotted row")
+  }
+}
+
+/**
+  * Row which keeps the variables of the [[SlotLayout]] in a flat array, so that reading or writing a variable is one lookup of its offset
+  * and copying a row is one array copy. Variables which are not part of the layout, if any, are kept in a map.
+  */
+class SlottedCypherRow private(val layout: SlotLayout,
+                               private val refs: Array[AnyValue],
+                               private var overflow: mutable.Map[String, AnyValue],
+                               private var cachedProperties: mutable.Map[ASTCachedProperty, Value])
+  extends CypherRow {
+
+  override def getByName(name: String): AnyValue = {
+    val value = get(name)
+    if (value == null) throw new NotFoundException(s"Unknown variable `$name`.")
+    value
+  }
+
+  override def containsName(name: String): Boolean = get(name) != null
+
+  override def numberOfColumns: Int = {
+    var columns = if (overflow == null) 0 else overflow.size
+    var i = 0
+    while (i < refs.length) {
+      if (refs(i) != null) columns += 1
+      i += 1
+    }
+    columns
+  }
+
+  override def isNull(key: String): Boolean = get(key) eq Values.NO_VALUE
+
+  override def set(newEntries: Seq[(String, AnyValue)]): Unit = newEntries.foreach(entry => set(entry._1, entry._2))
+
+  override def set(key: String, value: AnyValue): Unit = {
+    val offset = layout.offsetFor(key)
+    if (offset >= 0) {
+      refs(offset) = value
+    } else {
+      if (overflow == null) {
+        overflow = MutableMaps.empty
+      }
+      overflow.put(key, value)
+    }
+  }
+
+  override def set(key1: String, value1: AnyValue, key2: String, value2: AnyValue): Unit = {
+    set(key1, value1)
+    set(key2, value2)
+  }
+
+  override def set(key1: String, value1: AnyValue, key2: String, value2: AnyValue, key3: String, value3: AnyValue): Unit = {
+    set(key1, value1)
+    set(key2, value2)
+    set(key3, value3)
+  }
+
+  override def createClone(): SlottedCypherRow = {
+    val clone = new SlottedCypherRow(layout, refs.clone(),
+      if (overflow == null) null else overflow.clone(),
+      if (cachedProperties == null) null else cachedProperties.clone())
+    clone.setLinenumber(getLinenumber)
+    clone
+  }
+
+  override def copyWith(key: String, value: AnyValue): CypherRow = {
+    val copy = createClone()
+    copy.set(key, value)
+    copy
+  }
+
+  override def copyWith(key1: String, value1: AnyValue, key2: String, value2: AnyValue): CypherRow = {
+    val copy = createClone()
+    copy.set(key1, value1, key2, value2)
+    copy
+  }
+
+  override def copyWith(key1: String, value1: AnyValue, key2: String, value2: AnyValue, key3: String, value3: AnyValue): CypherRow = {
+    val copy = createClone()
+    copy.set(key1, value1, key2, value2, key3, value3)
+    copy
+  }
+
+  override def copyWith(newEntries: Seq[(String, AnyValue)]): CypherRow = {
+    val copy = createClone()
+    copy.set(newEntries)
+    copy
+  }
+
+  override def mergeWith(other: ReadableRow, entityById: EntityById): Unit = other match {
+    case slotted: SlottedCypherRow =>
+      slotted.foreachVariable((name, value) => set(name, value))
+      slotted.foreachCachedProperty((key, value) => setCachedProperty(key, value))
+      setLinenumber(slotted.getLinenumber)
+    case map: MapCypherRow =>
+      map.foreachVariable((name, value) => set(name, value))
+      map.foreachCachedProperty((key, value) => setCachedProperty(key, value))
+      setLinenumber(map.getLinenumber)
+    case _ => fail()
+  }
+
+  /**
+    * Copies the variables of this row by name, which only makes sense for a target which isn't slotted itself.
+    */
+  override def copyTo(target: WritableRow, sourceLongOffset: Int = 0, sourceRefOffset: Int = 0, targetLongOffset: Int = 0, targetRefOffset: Int = 0): Unit = {
+    if (sourceLongOffset != 0 || sourceRefOffset != 0 || targetLongOffset != 0 || targetRefOffset != 0) {
+      fail()
+    }
+    foreachVariable((name, value) => target.set(name, value))
+    foreachCachedProperty((key, value) => target.setCachedProperty(key, value))
+    target.setLinenumber(getLinenumber)
+  }
+
+  override def copyFrom(input: ReadableRow, nLongs: Int, nRefs: Int): Unit = fail()
+
+  override def setLongAt(offset: Int, value: Long): Unit = fail()
+  override def getLongAt(offset: Int): Long = fail()
+
+  override def setRefAt(offset: Int, value: AnyValue): Unit = refs(offset) = value
+  override def getRefAt(offset: Int): AnyValue = refs(offset)
+
+  override def setCachedProperty(key: ASTCachedProperty, value: Value): Unit = {
+    if (cachedProperties == null) {
+      cachedProperties = mutable.Map.empty
+    }
+    cachedProperties.put(key, value)
+  }
+
+  override def setCachedPropertyAt(offset: Int, value: Value): Unit = fail()
+
+  override def getCachedProperty(key: ASTCachedProperty): Value = {
+    if (cachedProperties == null) {
+      null
+    } else {
+      cachedProperties.getOrElse(key, null)
+    }
+  }
+
+  override def getCachedPropertyAt(offset: Int): Value = fail()
+
+  override def invalidateCachedNodeProperties(node: Long): Unit = {
+    if (cachedProperties != null) {
+      cachedProperties.keys.filter(cnp => getByName(cnp.entityName) match {
+        case n: VirtualNodeValue => n.id() == node
+        case _ => false
+      }).foreach(cnp => setCachedProperty(cnp, null))
+    }
+  }
+
+  override def invalidateCachedRelationshipProperties(rel: Long): Unit = {
+    if (cachedProperties != null) {
+      cachedProperties.keys.filter(cnp => getByName(cnp.entityName) match {
+        case r: VirtualRelationshipValue => r.id() == rel
+        case _ => false
+      }).foreach(cnp => setCachedProperty(cnp, null))
+    }
+  }
+
+  override def estimatedHeapUsage: Long = {
+    var total = 0L
+    var i = 0
+    while (i < refs.length) {
+      if (refs(i) != null) total += refs(i).estimatedHeapUsage()
+      i += 1
+    }
+    if (overflow != null) {
+      val iterator = overflow.valuesIterator
+      while (iterator.hasNext) {
+        total += iterator.next().estimatedHeapUsage()
+      }
+    }
+    if (cachedProperties != null) {
+      val iterator = cachedProperties.valuesIterator
+      while (iterator.hasNext) {
+        total += iterator.next().estimatedHeapUsage()
+      }
+    }
+    total
+  }
+
+  override def foreachVariable(f: (String, AnyValue) => Unit): Unit = {
+    var i = 0
+    while (i < refs.length) {
+      if (refs(i) != null) f(layout.nameAt(i), refs(i))
+      i += 1
+    }
+    if (overflow != null) {
+      overflow.foreach(entry => f(entry._1, entry._2))
+    }
+  }
+
+  override def foreachCachedProperty(f: (ASTCachedProperty, Value) => Unit): Unit =
+    if (cachedProperties != null) {
+      cachedProperties.foreach(entry => f(entry._1, entry._2))
+    }
+
+  //used for testing
+  def toMap: Map[String, AnyValue] = {
+    val builder = Map.newBuilder[String, AnyValue]
+    foreachVariable((name, value) => builder += name -> value)
+    builder.result()
+  }
+
+  private def get(name: String): AnyValue = {
+    val offset = layout.offsetFor(name)
+    if (offset >= 0) {
+      refs(offset)
+    } else if (overflow != null) {
+      overflow.getOrElse(name, null)
+    } else {
+      null
+    }
+  }
+
+  private def fail(): Nothing = throw new InternalException("Tried using a slotted row with the offsets of another runtime")
+
+  def canEqual(other: Any): Boolean = other.isInstanceOf[SlottedCypherRow]
+
+  override def equals(other: Any): Boolean = other match {
+    case that: SlottedCypherRow =>
+      (that canEqual this) &&
+        toMap == that.toMap
+    case _ => false
+  }
+
+  override def hashCode(): Int = toMap.hashCode()
+
+  override def toString: String = s"SlottedCypherRow(m=$toMap, cached=$cachedProperties)"
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.runtime
+
+import org.neo4j.cypher.internal.util.test_helpers.CypherFunSuite
+import org.neo4j.graphdb.NotFoundException
+import org.neo4j.values.AnyValue
+import org.neo4j.values.storable.Values.NO_VALUE
+import org.neo4j.values.storable.Values.intValue
+import org.neo4j.values.storable.Values.stringValue
+
+class SlottedCypherRowTest extends CypherFunSuite {
+
+  private val layout = SlotLayout("a", "b", "c")
+
+  test("setting and getting variables of the layout") {
+    val row = SlottedCypherRow.empty(layout)
+    row.set("a", intValue(1), "c", NO_VALUE)
+
+    row.getByName("a") should equal(intValue(1))
+    row.containsName("a") should be(true)
+    row.containsName("b") should be(false)
+    row.isNull("c") should be(true)
+    row.numberOfColumns should equal(2)
+    a[NotFoundException] should be thrownBy row.getByName("b")
+  }
+
+  test("setting and getting variables outside of the layout") {
+    val row = SlottedCypherRow.empty(layout)
+    row.set("a", intValue(1), "x", stringValue("x"))
+
+    row.getByName("x") should equal(stringValue("x"))
+    row.numberOfColumns should equal(2)
+    row.toMap should equal(Map("a" -> intValue(1), "x" -> stringValue("x")))
+  }
+
+  test("copies should not affect the original row") {
+    val row = SlottedCypherRow.empty(layout)
+    row.set("a", intValue(1), "x", intValue(2))
+
+    val copy = row.copyWith("b", intValue(3), "y", intValue(4))
+    copy.set("a", intValue(5))
+
+    row.toMap should equal(Map("a" -> intValue(1), "x" -> intValue(2)))
+    copy.getByName("a") should equal(intValue(5))
+    copy.getByName("b") should equal(intValue(3))
+    copy.getByName("x") should equal(intValue(2))
+    copy.getByName("y") should equal(intValue(4))
+  }
+
+  test("converting between map rows and slotted rows") {
+    val mapRow = CypherRow(MutableMaps.create[String, AnyValue]("a" -> intValue(1), "x" -> intValue(2)))
+
+    val slotted = SlottedCypherRow.copyOf(layout, mapRow)
+    slotted.toMap should equal(mapRow.toMap)
+
+    val backToMap = CypherRow()
+    slotted.copyTo(backToMap)
+    backToMap.toMap should equal(mapRow.toMap)
+  }
+
+  test("merging rows") {
+    val row = SlottedCypherRow.empty(layout)
+    row.set("a", intValue(1))
+    val other = SlottedCypherRow.empty(layout)
+    other.set("b", intValue(2), "x", intValue(3))
+
+    row.mergeWith(other, null)
+    row.mergeWith(CypherRow.from("c" -> intValue(4)), null)
+
+    row.toMap should equal(Map("a" -> intValue(1), "b" -> intValue(2), "c" -> intValue(4), "x" -> intValue(3)))
+  }
+
+  test("accessing variables through their slots") {
+    val row = SlottedCypherRow.empty(layout)
+    val b = layout.slotFor("b")
+    val x = layout.slotFor("x")
+
+    b.set(row, intValue(1))
+    x.set(row, intValue(2))
+
+    b.getByName(row) should equal(intValue(1))
+    x.getByName(row) should equal(intValue(2))
+    row.toMap should equal(Map("b" -> intValue(1), "x" -> intValue(2)))
+    a[NotFoundException] should be thrownBy layout.slotFor("c").getByName(row)
+  }
+
+  test("accessing variables through the slots of another layout") {
+    val slot = SlotLayout("x", "b").slotFor("b")
+    val slotted = SlottedCypherRow.empty(layout)
+    val mapRow = CypherRow()
+
+    slot.set(slotted, intValue(1))
+    slot.set(mapRow, intValue(2))
+
+    slotted.getByName("b") should equal(intValue(1))
+    slot.getByName(slotted) should equal(intValue(1))
+    slot.getByName(mapRow) should equal(intValue(2))
+  }
+}
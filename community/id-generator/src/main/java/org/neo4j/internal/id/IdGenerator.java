@@ -68,6 +68,54 @@ public interface IdGenerator extends IdSequence, Closeable, ConsistencyCheckable
      */
     void clearCache( PageCursorTracer cursorTracer );
 
+    /**
+     * Gives back ids of a batch from {@link #nextIdBatch(int, PageCursorTracer)} which ended up not being used, so that they can be allocated
+     * again sooner. Ids that cannot be taken back right away will be picked up later, like other allocated ids that never got used.
+     *
+     * @param unusedIds the ids of a batch that were never used.
+     * @param cursorTracer underlying page cursor tracer
+     */
+    default void releaseIdBatch( IdRange unusedIds, PageCursorTracer cursorTracer )
+    {   // no-op by default
+    }
+
+    /**
+     * Lowers high id past free ids at the end of the id space, so that those ids are allocated again, off of high id, before any id above them.
+     * This lets a store shrink back after many of its highest records have been deleted. Ids which are allocated, deleted but not yet free,
+     * or reserved for reuse stop the trimming.
+     *
+     * @param cursorTracer underlying page cursor tracer
+     * @return the high id after trimming.
+     */
+    default long trimFreeTail( PageCursorTracer cursorTracer )
+    {
+        return getHighId();
+    }
+
+    /**
+     * @return number of ids that have been allocated from reused ids since this id generator was opened.
+     */
+    default long getNumberOfIdsAllocatedFromCache()
+    {
+        return 0;
+    }
+
+    /**
+     * @return number of ids that have been allocated from high id since this id generator was opened.
+     */
+    default long getNumberOfIdsAllocatedFromHigh()
+    {
+        return 0;
+    }
+
+    /**
+     * @return number of times this id generator has scanned for free ids to reuse since it was opened.
+     */
+    default long getNumberOfFreeIdScans()
+    {
+        return 0;
+    }
+
     interface Marker extends AutoCloseable
     {
         void markUsed( long id );
@@ -170,6 +218,36 @@ public interface IdGenerator extends IdSequence, Closeable, ConsistencyCheckable
             delegate.clearCache( cursorTracer );
         }
 
+        @Override
+        public void releaseIdBatch( IdRange unusedIds, PageCursorTracer cursorTracer )
+        {
+            delegate.releaseIdBatch( unusedIds, cursorTracer );
+        }
+
+        @Override
+        public long trimFreeTail( PageCursorTracer cursorTracer )
+        {
+            return delegate.trimFreeTail( cursorTracer );
+        }
+
+        @Override
+        public long getNumberOfIdsAllocatedFromCache()
+        {
+            return delegate.getNumberOfIdsAllocatedFromCache();
+        }
+
+        @Override
+        public long getNumberOfIdsAllocatedFromHigh()
+        {
+            return delegate.getNumberOfIdsAllocatedFromHigh();
+        }
+
+        @Override
+        public long getNumberOfFreeIdScans()
+        {
+            return delegate.getNumberOfFreeIdScans();
+        }
+
         @Override
         public boolean consistencyCheck( ReporterFactory reporterFactory, PageCursorTracer cursorTracer )
         {
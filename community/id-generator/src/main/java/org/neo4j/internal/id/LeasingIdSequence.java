@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.id;
+
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+
+import static java.lang.Math.min;
+import static org.neo4j.internal.id.IdRangeIterator.VALUE_REPRESENTING_NULL;
+
+/**
+ * {@link IdSequence} which leases batches of ids from an {@link IdGenerator} and hands them out one by one. Allocating from a leased batch
+ * doesn't touch any state shared with other allocators and ids allocated by the same owner end up close to each other.
+ * Ids of the current batch which haven't been handed out are given back to the {@link IdGenerator} in {@link #release(PageCursorTracer)}.
+ * <p>
+ * Batches start out with a single id and grow up to the max lease size as long as the batches are allocated off of high id. As soon as a batch
+ * contains reused ids the size goes back to a single id, so that reused ids aren't held on to by one owner while others need them,
+ * or lost until next restart if the database crashes.
+ * <p>
+ * Instances are not thread-safe and are meant to be owned by a single allocator, e.g. a transaction.
+ */
+public class LeasingIdSequence implements IdSequence
+{
+    private final IdGenerator source;
+    private final int maxLeaseSize;
+    private int leaseSize = 1;
+    private IdRangeIterator lease;
+
+    public LeasingIdSequence( IdGenerator source, int maxLeaseSize )
+    {
+        this.source = source;
+        this.maxLeaseSize = maxLeaseSize;
+    }
+
+    @Override
+    public long nextId( PageCursorTracer cursorTracer )
+    {
+        long id;
+        while ( lease == null || (id = lease.nextId( cursorTracer )) == VALUE_REPRESENTING_NULL )
+        {
+            IdRange batch = source.nextIdBatch( leaseSize, cursorTracer );
+            leaseSize = batch.getDefragIds().length > 0 ? 1 : min( maxLeaseSize, leaseSize * 2 );
+            lease = batch.iterator();
+        }
+        return id;
+    }
+
+    @Override
+    public IdRange nextIdBatch( int size, PageCursorTracer cursorTracer )
+    {
+        return source.nextIdBatch( size, cursorTracer );
+    }
+
+    /**
+     * Gives back the ids of the current lease which haven't been handed out by {@link #nextId(PageCursorTracer)}.
+     *
+     * @param cursorTracer underlying page cursor tracer
+     */
+    public void release( PageCursorTracer cursorTracer )
+    {
+        if ( lease != null )
+        {
+            IdRange unusedIds = lease.nextIdBatch( Integer.MAX_VALUE, cursorTracer );
+            lease = null;
+            if ( unusedIds.totalSize() > 0 )
+            {
+                source.releaseIdBatch( unusedIds, cursorTracer );
+            }
+        }
+    }
+}
@@ -40,6 +40,23 @@ interface ConcurrentLongQueue
      */
     long takeOrDefault( long defaultValue );
 
+    /**
+     * Takes as many values as are available from this queue, but at most {@code into.length}, and places them first in the given array.
+     *
+     * @param into array to place the taken values in.
+     * @return number of values taken and placed into the array.
+     */
+    default int takeInto( long[] into )
+    {
+        int count = 0;
+        long value;
+        while ( count < into.length && (value = takeOrDefault( -1 )) != -1 )
+        {
+            into[count++] = value;
+        }
+        return count;
+    }
+
     /**
      * @return max capacity of this queue.
      */
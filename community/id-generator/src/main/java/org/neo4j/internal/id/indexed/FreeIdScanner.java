@@ -23,6 +23,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
 
 import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.index.internal.gbptree.Seeker;
@@ -31,9 +32,6 @@ import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 
 import static java.lang.Integer.max;
 import static java.lang.Integer.min;
-import static org.neo4j.internal.id.indexed.IdRange.IdState;
-import static org.neo4j.internal.id.indexed.IdRange.IdState.DELETED;
-import static org.neo4j.internal.id.indexed.IdRange.IdState.FREE;
 
 /**
  * Responsible for starting and managing scans of a {@link GBPTree}, populating a cache with free ids that gets discovered in the scan.
@@ -64,6 +62,10 @@ class FreeIdScanner implements Closeable
      * full before scan completed, or set it to null of the scan ended. The actual {@link Seeker} itself is local to the scan method.
      */
     private Long ongoingScanRangeIndex;
+    /**
+     * Number of scans, or continuations of scans, that have been done. Only incremented while holding the {@link #lock}.
+     */
+    private volatile long numberOfScans;
 
     FreeIdScanner( int idsPerEntry, GBPTree<IdRangeKey,IdRange> tree, ConcurrentLongQueue cache, AtomicBoolean atLeastOneIdOnFreelist,
             MarkerProvider markerProvider, long generation, boolean strictlyPrioritizeFreelistOverHighId )
@@ -102,6 +104,7 @@ class FreeIdScanner implements Closeable
                 int maxItemsToCache = cache.capacity() - cache.size();
                 if ( maxItemsToCache > 0 )
                 {
+                    numberOfScans++;
                     // Find items to cache
                     LinkedChunkLongArray pendingItemsToCache = new LinkedChunkLongArray( min( maxItemsToCache, max( 256, cache.capacity() / 10 ) ) );
                     if ( findSomeIdsToCache( pendingItemsToCache, maxItemsToCache, cursorTracer ) )
@@ -157,6 +160,30 @@ class FreeIdScanner implements Closeable
         }
     }
 
+    long numberOfScans()
+    {
+        return numberOfScans;
+    }
+
+    /**
+     * Runs the given task while holding the scan lock, so that no free ids are found and reserved for the cache while it runs.
+     *
+     * @param task the task to run.
+     * @return the result of the task.
+     */
+    long whileNotScanning( LongSupplier task )
+    {
+        lock.lock();
+        try
+        {
+            return task.getAsLong();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
     private void placeIdsInCache( LinkedChunkLongArray pendingItemsToCache )
     {
         pendingItemsToCache.accept( id ->
@@ -213,12 +240,10 @@ class FreeIdScanner implements Closeable
     private void queueIdsFromTreeItem( IdRangeKey key, IdRange range, LinkedChunkLongArray pendingItemsToCache, int maxItemsToCache )
     {
         final long baseId = key.getIdRangeIdx() * idsPerEntry;
-        final boolean differentGeneration = generation != range.getGeneration();
 
         for ( int i = 0; i < idsPerEntry && pendingItemsToCache.size() < maxItemsToCache; i++ )
         {
-            final IdState state = range.getState( i );
-            if ( state == FREE || (differentGeneration && state == DELETED) )
+            if ( range.isReusable( i, generation ) )
             {
                 pendingItemsToCache.add( baseId + i );
             }
@@ -77,6 +77,17 @@ class IdRange
         return IdState.USED;
     }
 
+    /**
+     * @param n offset of the id in this range.
+     * @param currentGeneration generation of the id generator reading this range.
+     * @return whether or not the id can be reused. DELETED ids of a previous generation are as good as FREE, since they are normalized lazily.
+     */
+    boolean isReusable( int n, long currentGeneration )
+    {
+        IdState state = getState( n );
+        return state == IdState.FREE || (currentGeneration != generation && state == IdState.DELETED);
+    }
+
     private static long bitMask( int bitIndex )
     {
         return 1L << bitIndex;
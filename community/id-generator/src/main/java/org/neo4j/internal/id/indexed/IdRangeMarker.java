@@ -31,6 +31,7 @@ import org.neo4j.index.internal.gbptree.ValueMerger;
 import org.neo4j.index.internal.gbptree.Writer;
 import org.neo4j.internal.id.IdGenerator.Marker;
 
+import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 import static org.neo4j.internal.id.IdValidator.isReservedId;
 import static org.neo4j.internal.id.indexed.IdRange.BITSET_COMMIT;
@@ -206,6 +207,29 @@ class IdRangeMarker implements Marker, IndexedIdGenerator.ReservedMarker
         freeIdsNotifier.set( true );
     }
 
+    /**
+     * Clears all state of the ids in the given range, making them look like they have never been allocated.
+     * Used when lowering high id past ids at the end of the id space, which will then be allocated off of high id again.
+     *
+     * @param fromId first id to clear.
+     * @param toIdExclusive id after the last id to clear, i.e. the high id before it was lowered.
+     */
+    void markUnallocated( long fromId, long toIdExclusive )
+    {
+        long id = fromId;
+        while ( id < toIdExclusive )
+        {
+            prepareRange( id, false );
+            long endOfRange = min( toIdExclusive, (idRangeIndex( id ) + 1) * idsPerEntry );
+            for ( ; id < endOfRange; id++ )
+            {
+                value.setBitsForAllTypes( idOffset( id ) );
+            }
+            writer.mergeIfExists( key, value, merger );
+        }
+        highestWrittenId.set( fromId - 1 );
+    }
+
     private void prepareRange( long id, boolean addition )
     {
         key.setIdRangeIdx( idRangeIndex( id ) );
@@ -19,18 +19,18 @@
  */
 package org.neo4j.internal.id.indexed;
 
-import org.eclipse.collections.api.list.primitive.MutableLongList;
 import org.eclipse.collections.api.set.ImmutableSet;
-import org.eclipse.collections.impl.factory.primitive.LongLists;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.OpenOption;
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.LongSupplier;
@@ -41,6 +41,7 @@ import org.neo4j.index.internal.gbptree.GBPTreeConsistencyCheckVisitor;
 import org.neo4j.index.internal.gbptree.GBPTreeVisitor;
 import org.neo4j.index.internal.gbptree.Layout;
 import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.index.internal.gbptree.Seeker;
 import org.neo4j.index.internal.gbptree.TreeFileNotFoundException;
 import org.neo4j.internal.id.FreeIds;
 import org.neo4j.internal.id.IdGenerator;
@@ -51,8 +52,8 @@ import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 
+import static java.lang.Math.toIntExact;
 import static java.lang.String.format;
-import static org.apache.commons.lang3.ArrayUtils.EMPTY_LONG_ARRAY;
 import static org.eclipse.collections.impl.factory.Sets.immutable;
 import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_READER;
 import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_WRITER;
@@ -217,6 +218,12 @@ public class IndexedIdGenerator implements IdGenerator
      */
     static final int IDS_PER_ENTRY = 128;
 
+    /**
+     * Max number of tree entries to look at in one call to {@link #trimFreeTail(PageCursorTracer)}. This bounds the time that id updates
+     * from committing transactions are blocked, the remainder of a long free tail will be trimmed in later calls.
+     */
+    private static final int MAX_ENTRIES_TO_TRIM = 1024;
+
     /**
      * Used for id generators that generally has low activity.
      * 2^8 == 256 and one ID takes up 8B, which results in a memory usage of 256 * 8 = ~2k memory
@@ -326,6 +333,16 @@ public class IndexedIdGenerator implements IdGenerator
 
     private final Monitor monitor;
 
+    /**
+     * Number of ids handed out from the {@link #cache}, i.e. reused ids.
+     */
+    private final LongAdder numberOfIdsAllocatedFromCache = new LongAdder();
+
+    /**
+     * Number of ids handed out from {@link #highId}.
+     */
+    private final LongAdder numberOfIdsAllocatedFromHigh = new LongAdder();
+
     public IndexedIdGenerator( PageCache pageCache, File file, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, IdType idType,
             boolean allowLargeIdCaches, LongSupplier initialHighId, long maxId, boolean readOnly, PageCursorTracer cursorTracer )
     {
@@ -421,6 +438,7 @@ public class IndexedIdGenerator implements IdGenerator
         if ( id != NO_ID )
         {
             // We got an ID from the cache, all good
+            numberOfIdsAllocatedFromCache.increment();
             monitor.allocatedFromReused( id );
             return id;
         }
@@ -436,48 +454,134 @@ public class IndexedIdGenerator implements IdGenerator
             IdValidator.assertIdWithinMaxCapacity( idType, id, maxId );
         }
         while ( IdValidator.isReservedId( id ) );
+        numberOfIdsAllocatedFromHigh.increment();
         monitor.allocatedFromHigh( id );
         return id;
     }
 
+    /**
+     * Hands out a batch of ids, as many as are available in the cache as reused ids and the remainder as one contiguous range off of high id.
+     * This touches the shared state once per batch instead of once per id. The range may contain the {@link IdValidator#isReservedId(long) reserved id},
+     * which is skipped by {@link org.neo4j.internal.id.IdRangeIterator}.
+     */
     @Override
     public org.neo4j.internal.id.IdRange nextIdBatch( int size, PageCursorTracer cursorTracer )
     {
-        long prev = -1;
-        long startOfRange = -1;
-        int rangeLength = 0;
-        MutableLongList other = null;
-        for ( int i = 0; i < size; i++ )
+        assertNotReadOnly();
+        maintenance( cursorTracer );
+
+        long[] reusedIds = new long[size];
+        int numberOfReusedIds = cache.takeInto( reusedIds );
+        if ( numberOfReusedIds < size )
+        {
+            reusedIds = Arrays.copyOf( reusedIds, numberOfReusedIds );
+        }
+        numberOfIdsAllocatedFromCache.add( numberOfReusedIds );
+        for ( long id : reusedIds )
+        {
+            monitor.allocatedFromReused( id );
+        }
+
+        long startOfRange = 0;
+        int rangeLength = size - numberOfReusedIds;
+        if ( rangeLength > 0 )
         {
-            long id = nextId( cursorTracer );
-            if ( other != null )
+            startOfRange = highId.getAndAdd( rangeLength );
+            IdValidator.assertIdWithinMaxCapacity( idType, startOfRange + rangeLength - 1, maxId );
+            numberOfIdsAllocatedFromHigh.add( rangeLength );
+            for ( long id = startOfRange; id < startOfRange + rangeLength; id++ )
             {
-                other.add( id );
+                monitor.allocatedFromHigh( id );
             }
-            else
+        }
+        return new org.neo4j.internal.id.IdRange( reusedIds, startOfRange, rangeLength );
+    }
+
+    /**
+     * Reused ids are marked as reserved when placed in the cache, so they are simply made free again. Ids from the range can only be given
+     * back if no other ids have been allocated from high id after them. Otherwise they are left to be bridged as deleted when a higher id
+     * gets written, like any other id allocated from high id which never got used, and will be reused after next restart.
+     */
+    @Override
+    public void releaseIdBatch( org.neo4j.internal.id.IdRange unusedIds, PageCursorTracer cursorTracer )
+    {
+        assertNotReadOnly();
+        long[] reusedIds = unusedIds.getDefragIds();
+        if ( reusedIds.length > 0 )
+        {
+            try ( ReservedMarker marker = lockAndInstantiateMarker( true, cursorTracer ) )
             {
-                if ( i == 0 )
+                for ( long id : reusedIds )
                 {
-                    prev = id;
-                    startOfRange = id;
-                    rangeLength = 1;
+                    marker.markUnreserved( id );
                 }
-                else
+            }
+            atLeastOneIdOnFreelist.set( true );
+        }
+        if ( unusedIds.getRangeLength() > 0 )
+        {
+            highId.compareAndSet( unusedIds.getHighId(), unusedIds.getRangeStart() );
+        }
+    }
+
+    /**
+     * Both the scan lock and the commit lock are held while trimming, so that no free ids in the tail can be reserved for the cache and
+     * no id states can change. High id is only lowered if no id has been allocated off of it in the meantime. Ids allocated off of high id
+     * which haven't been written yet have no state in the tree and are therefore seen as used, which stops the trimming.
+     */
+    @Override
+    public long trimFreeTail( PageCursorTracer cursorTracer )
+    {
+        if ( readOnly || !started )
+        {
+            return highId.get();
+        }
+
+        return scanner.whileNotScanning( () ->
+        {
+            try ( IdRangeMarker marker = lockAndInstantiateMarker( false, cursorTracer ) )
+            {
+                long currentHighId = highId.get();
+                long startOfFreeTail = findStartOfFreeTail( currentHighId, cursorTracer );
+                if ( startOfFreeTail < currentHighId && highId.compareAndSet( currentHighId, startOfFreeTail ) )
                 {
-                    if ( id == prev + 1 )
-                    {
-                        prev = id;
-                        rangeLength++;
-                    }
-                    else
+                    marker.markUnallocated( startOfFreeTail, currentHighId );
+                }
+                return highId.get();
+            }
+        } );
+    }
+
+    private long findStartOfFreeTail( long currentHighId, PageCursorTracer cursorTracer )
+    {
+        long startOfFreeTail = currentHighId;
+        IdRangeKey from = new IdRangeKey( (currentHighId - 1) / idsPerEntry );
+        try ( Seeker<IdRangeKey,IdRange> seeker = tree.seek( from, new IdRangeKey( -1 ), cursorTracer ) )
+        {
+            for ( int entries = 0; currentHighId > 0 && entries < MAX_ENTRIES_TO_TRIM && seeker.next(); entries++ )
+            {
+                long baseId = seeker.key().getIdRangeIdx() * idsPerEntry;
+                if ( baseId + idsPerEntry < startOfFreeTail )
+                {
+                    // There's a gap between this entry and the free ids found so far. Ids without state are used
+                    break;
+                }
+                IdRange range = seeker.value();
+                for ( long id = startOfFreeTail - 1; id >= baseId; id-- )
+                {
+                    if ( !range.isReusable( toIntExact( id - baseId ), generation ) )
                     {
-                        other = LongLists.mutable.empty();
-                        other.add( id );
+                        return startOfFreeTail;
                     }
+                    startOfFreeTail = id;
                 }
             }
         }
-        return new org.neo4j.internal.id.IdRange( other != null ? other.toArray() : EMPTY_LONG_ARRAY, startOfRange, rangeLength );
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+        return startOfFreeTail;
     }
 
     @Override
@@ -632,6 +736,34 @@ public class IndexedIdGenerator implements IdGenerator
         return file;
     }
 
+    /**
+     * @return number of ids that have been allocated from the cache of reused ids since this id generator was opened.
+     * Together with {@link #getNumberOfIdsAllocatedFromHigh()} this gives the hit rate of the cache.
+     */
+    @Override
+    public long getNumberOfIdsAllocatedFromCache()
+    {
+        return numberOfIdsAllocatedFromCache.sum();
+    }
+
+    /**
+     * @return number of ids that have been allocated from high id since this id generator was opened.
+     */
+    @Override
+    public long getNumberOfIdsAllocatedFromHigh()
+    {
+        return numberOfIdsAllocatedFromHigh.sum();
+    }
+
+    /**
+     * @return number of times the {@link FreeIdScanner} has scanned for free ids to refill the cache since this id generator was opened.
+     */
+    @Override
+    public long getNumberOfFreeIdScans()
+    {
+        return readOnly ? 0 : scanner.numberOfScans();
+    }
+
     /**
      * Reads contents of a header in an existing {@link IndexedIdGenerator}.
      *
@@ -23,6 +23,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
 
 import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 import static org.neo4j.util.Preconditions.requirePowerOfTwo;
 
@@ -79,6 +80,28 @@ class SpmcLongQueue implements ConcurrentLongQueue
         return value;
     }
 
+    @Override
+    public int takeInto( long[] into )
+    {
+        long currentReadSeq;
+        int count;
+        do
+        {
+            currentReadSeq = readSeq.get();
+            count = (int) min( into.length, writeSeq.get() - currentReadSeq );
+            if ( count <= 0 )
+            {
+                return 0;
+            }
+            for ( int i = 0; i < count; i++ )
+            {
+                into[i] = array.get( idx( currentReadSeq + i ) );
+            }
+        }
+        while ( !readSeq.compareAndSet( currentReadSeq, currentReadSeq + count ) );
+        return count;
+    }
+
     @Override
     public int capacity()
     {
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.id;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.neo4j.collection.PrimitiveLongCollections.EMPTY_LONG_ARRAY;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+
+class LeasingIdSequenceTest
+{
+    @Test
+    void shouldGrowLeasesWhileAllocatingFromHighId()
+    {
+        // given
+        IdGenerator idGenerator = mock( IdGenerator.class );
+        when( idGenerator.nextIdBatch( 1, NULL ) ).thenReturn( new IdRange( EMPTY_LONG_ARRAY, 10, 1 ) );
+        when( idGenerator.nextIdBatch( 2, NULL ) ).thenReturn( new IdRange( EMPTY_LONG_ARRAY, 11, 2 ) );
+        when( idGenerator.nextIdBatch( 3, NULL ) ).thenReturn( new IdRange( EMPTY_LONG_ARRAY, 20, 3 ) );
+        LeasingIdSequence ids = new LeasingIdSequence( idGenerator, 3 );
+
+        // when/then
+        assertEquals( 10, ids.nextId( NULL ) );
+        assertEquals( 11, ids.nextId( NULL ) );
+        assertEquals( 12, ids.nextId( NULL ) );
+        assertEquals( 20, ids.nextId( NULL ) );
+        assertEquals( 21, ids.nextId( NULL ) );
+        assertEquals( 22, ids.nextId( NULL ) );
+        verify( idGenerator ).nextIdBatch( 3, NULL );
+    }
+
+    @Test
+    void shouldLeaseSingleIdsWhileGettingReusedIds()
+    {
+        // given
+        IdGenerator idGenerator = mock( IdGenerator.class );
+        when( idGenerator.nextIdBatch( 1, NULL ) ).thenReturn(
+                new IdRange( EMPTY_LONG_ARRAY, 10, 1 ), new IdRange( new long[]{5}, 0, 0 ), new IdRange( new long[]{6}, 0, 0 ) );
+        when( idGenerator.nextIdBatch( 2, NULL ) ).thenReturn( new IdRange( new long[]{3}, 11, 1 ) );
+        LeasingIdSequence ids = new LeasingIdSequence( idGenerator, 4 );
+
+        // when/then
+        assertEquals( 10, ids.nextId( NULL ) );
+        assertEquals( 3, ids.nextId( NULL ) );
+        assertEquals( 11, ids.nextId( NULL ) );
+        assertEquals( 5, ids.nextId( NULL ) );
+        assertEquals( 6, ids.nextId( NULL ) );
+        verify( idGenerator ).nextIdBatch( 2, NULL );
+        verify( idGenerator, times( 3 ) ).nextIdBatch( 1, NULL );
+    }
+
+    @Test
+    void shouldReleaseIdsNotHandedOut()
+    {
+        // given
+        IdGenerator idGenerator = mock( IdGenerator.class );
+        when( idGenerator.nextIdBatch( 1, NULL ) ).thenReturn( new IdRange( new long[]{7, 8}, 10, 2 ) );
+        LeasingIdSequence ids = new LeasingIdSequence( idGenerator, 4 );
+        ids.nextId( NULL );
+
+        // when
+        ids.release( NULL );
+
+        // then
+        verify( idGenerator ).releaseIdBatch( new IdRange( new long[]{8}, 10, 2 ), NULL );
+    }
+
+    @Test
+    void shouldNotReleaseAnythingIfAllIdsWereHandedOut()
+    {
+        // given
+        IdGenerator idGenerator = mock( IdGenerator.class );
+        when( idGenerator.nextIdBatch( 1, NULL ) ).thenReturn( new IdRange( EMPTY_LONG_ARRAY, 10, 1 ) );
+        LeasingIdSequence ids = new LeasingIdSequence( idGenerator, 2 );
+        ids.nextId( NULL );
+
+        // when
+        ids.release( NULL );
+
+        // then
+        verify( idGenerator, never() ).releaseIdBatch( any(), any() );
+    }
+
+    @Test
+    void shouldSkipReservedIdInLeasedRange()
+    {
+        // given
+        IdGenerator idGenerator = mock( IdGenerator.class );
+        when( idGenerator.nextIdBatch( anyInt(), any() ) ).thenReturn(
+                new IdRange( EMPTY_LONG_ARRAY, IdValidator.INTEGER_MINUS_ONE, 1 ), new IdRange( EMPTY_LONG_ARRAY, IdValidator.INTEGER_MINUS_ONE + 1, 1 ) );
+        LeasingIdSequence ids = new LeasingIdSequence( idGenerator, 1 );
+
+        // when/then
+        assertEquals( IdValidator.INTEGER_MINUS_ONE + 1, ids.nextId( NULL ) );
+    }
+}
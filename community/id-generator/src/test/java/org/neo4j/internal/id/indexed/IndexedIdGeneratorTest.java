@@ -61,6 +61,7 @@ import org.neo4j.test.rule.TestDirectory;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.eclipse.collections.impl.factory.Sets.immutable;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
@@ -381,6 +382,159 @@ class IndexedIdGeneratorTest
         assertEquals( droppedId, idGenerator.nextId( NULL ) );
     }
 
+    @Test
+    void shouldAllocateBatchFromReusedIdsAndContiguousRangeFromHighId() throws IOException
+    {
+        // given
+        idGenerator.start( NO_FREE_IDS, NULL );
+        long id = idGenerator.nextId( NULL );
+        long freedId = idGenerator.nextId( NULL );
+        markUsed( id );
+        markUsed( freedId );
+        markDeleted( freedId );
+        markFree( freedId );
+
+        // when
+        org.neo4j.internal.id.IdRange batch = idGenerator.nextIdBatch( 5, NULL );
+
+        // then
+        assertArrayEquals( new long[]{freedId}, batch.getDefragIds() );
+        assertEquals( freedId + 1, batch.getRangeStart() );
+        assertEquals( 4, batch.getRangeLength() );
+        assertEquals( freedId + 5, idGenerator.getHighId() );
+    }
+
+    @Test
+    void shouldReleaseUnusedIdsOfBatch() throws IOException
+    {
+        // given
+        idGenerator.start( NO_FREE_IDS, NULL );
+        long id = idGenerator.nextId( NULL );
+        long freedId = idGenerator.nextId( NULL );
+        markUsed( id );
+        markUsed( freedId );
+        markDeleted( freedId );
+        markFree( freedId );
+        org.neo4j.internal.id.IdRange batch = idGenerator.nextIdBatch( 5, NULL );
+        long highIdBeforeBatch = batch.getRangeStart();
+
+        // when
+        idGenerator.releaseIdBatch( batch, NULL );
+
+        // then
+        assertEquals( highIdBeforeBatch, idGenerator.getHighId() );
+        assertEquals( freedId, idGenerator.nextId( NULL ) );
+        assertEquals( highIdBeforeBatch, idGenerator.nextId( NULL ) );
+    }
+
+    @Test
+    void shouldNotLowerHighIdWhenReleasingBatchWithLaterAllocatedIds() throws IOException
+    {
+        // given
+        idGenerator.start( NO_FREE_IDS, NULL );
+        org.neo4j.internal.id.IdRange batch = idGenerator.nextIdBatch( 4, NULL );
+        long laterId = idGenerator.nextId( NULL );
+
+        // when
+        idGenerator.releaseIdBatch( batch, NULL );
+
+        // then
+        assertEquals( laterId + 1, idGenerator.getHighId() );
+    }
+
+    @Test
+    void shouldCountAllocationsAndFreeIdScans() throws IOException
+    {
+        // given
+        idGenerator.start( NO_FREE_IDS, NULL );
+        long scansAfterStart = idGenerator.getNumberOfFreeIdScans();
+        long id = idGenerator.nextId( NULL );
+        markUsed( id );
+        markDeleted( id );
+        markFree( id );
+
+        // when
+        idGenerator.nextId( NULL );
+        idGenerator.nextIdBatch( 3, NULL );
+
+        // then
+        assertEquals( 1, idGenerator.getNumberOfIdsAllocatedFromCache() );
+        assertEquals( 4, idGenerator.getNumberOfIdsAllocatedFromHigh() );
+        assertThat( idGenerator.getNumberOfFreeIdScans() ).isGreaterThan( scansAfterStart );
+    }
+
+    @Test
+    void shouldTrimFreeTail() throws IOException
+    {
+        // given
+        idGenerator.start( NO_FREE_IDS, NULL );
+        for ( int i = 0; i < 300; i++ )
+        {
+            markUsed( idGenerator.nextId( NULL ) );
+        }
+        for ( long id = 100; id < 300; id++ )
+        {
+            markDeleted( id );
+            markFree( id );
+        }
+
+        // when
+        long highId = idGenerator.trimFreeTail( NULL );
+
+        // then
+        assertEquals( 100, highId );
+        assertEquals( 100, idGenerator.getHighId() );
+        long id = idGenerator.nextId( NULL );
+        assertEquals( 100, id );
+        markUsed( id );
+        assertEquals( 101, idGenerator.nextId( NULL ) );
+    }
+
+    @Test
+    void shouldNotTrimPastUsedId() throws IOException
+    {
+        // given
+        idGenerator.start( NO_FREE_IDS, NULL );
+        for ( int i = 0; i < 100; i++ )
+        {
+            markUsed( idGenerator.nextId( NULL ) );
+        }
+        for ( long id = 50; id < 99; id++ )
+        {
+            markDeleted( id );
+            markFree( id );
+        }
+
+        // when
+        long highId = idGenerator.trimFreeTail( NULL );
+
+        // then
+        assertEquals( 100, highId );
+    }
+
+    @Test
+    void shouldNotTrimPastIdsReservedInCache() throws IOException
+    {
+        // given
+        idGenerator.start( NO_FREE_IDS, NULL );
+        for ( int i = 0; i < 100; i++ )
+        {
+            markUsed( idGenerator.nextId( NULL ) );
+        }
+        for ( long id = 50; id < 100; id++ )
+        {
+            markDeleted( id );
+            markFree( id );
+        }
+        idGenerator.maintenance( NULL );
+
+        // when
+        long highId = idGenerator.trimFreeTail( NULL );
+
+        // then
+        assertEquals( 100, highId );
+    }
+
     @Test
     void shouldConcurrentlyAllocateAllIdsAroundReservedIds() throws IOException
     {
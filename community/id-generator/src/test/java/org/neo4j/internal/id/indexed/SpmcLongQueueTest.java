@@ -93,6 +93,29 @@ class SpmcLongQueueTest
         assertEquals( NO_ID, queue.takeOrDefault( NO_ID ) );
     }
 
+    @Test
+    void takeIntoWrappingAround()
+    {
+        final SpmcLongQueue queue = new SpmcLongQueue( 8 );
+        long[] into = new long[5];
+        for ( int i = 0; i < 100; i++ )
+        {
+            for ( int j = 0; j < 7; j++ )
+            {
+                assertTrue( queue.offer( i * 10 + j ) );
+            }
+            assertEquals( 5, queue.takeInto( into ) );
+            for ( int j = 0; j < 5; j++ )
+            {
+                assertEquals( i * 10 + j, into[j] );
+            }
+            assertEquals( 2, queue.takeInto( into ) );
+            assertEquals( i * 10 + 5, into[0] );
+            assertEquals( i * 10 + 6, into[1] );
+            assertEquals( 0, queue.takeInto( into ) );
+        }
+    }
+
     @Test
     void randomizedConcurrent() throws Exception
     {
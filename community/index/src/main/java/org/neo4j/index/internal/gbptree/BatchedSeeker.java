@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * {@link Seeker} serving multiple sorted key ranges with a single {@link SeekCursor}, moving it to the next range
+ * using {@link SeekCursor#nextRange(Object, Object)} when the current range is exhausted.
+ */
+class BatchedSeeker<KEY,VALUE> implements Seeker<KEY,VALUE>
+{
+    private final SeekCursor<KEY,VALUE> seekCursor;
+    private final Iterator<Pair<KEY,KEY>> remainingRanges;
+
+    BatchedSeeker( SeekCursor<KEY,VALUE> seekCursor, Iterator<Pair<KEY,KEY>> remainingRanges )
+    {
+        this.seekCursor = seekCursor;
+        this.remainingRanges = remainingRanges;
+    }
+
+    @Override
+    public boolean next() throws IOException
+    {
+        while ( !seekCursor.next() )
+        {
+            if ( !remainingRanges.hasNext() )
+            {
+                return false;
+            }
+            Pair<KEY,KEY> range = remainingRanges.next();
+            seekCursor.nextRange( range.getLeft(), range.getRight() );
+        }
+        return true;
+    }
+
+    @Override
+    public KEY key()
+    {
+        return seekCursor.key();
+    }
+
+    @Override
+    public VALUE value()
+    {
+        return seekCursor.value();
+    }
+
+    @Override
+    public void close()
+    {
+        seekCursor.close();
+    }
+}
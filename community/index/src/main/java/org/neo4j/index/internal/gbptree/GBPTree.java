@@ -347,6 +347,11 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
     {
     };
 
+    /**
+     * Default fill factor for {@link #bulkLoader(double, PageCursorTracer)}, i.e. fill nodes as much as possible.
+     */
+    public static final double DEFAULT_BULK_LOAD_FILL_FACTOR = 1;
+
     /**
      * Paged file in a {@link PageCache} providing the means of storage.
      */
@@ -1033,8 +1038,33 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
         return seekInternal( fromInclusive, toExclusive, cursorTracer, SeekCursor.DEFAULT_MAX_READ_AHEAD, SeekCursor.NO_MONITOR );
     }
 
-    private Seeker<KEY,VALUE> seekInternal( KEY fromInclusive, KEY toExclusive, PageCursorTracer cursorTracer, int readAheadLength, SeekCursor.Monitor monitor )
-            throws IOException
+    /**
+     * Seeks hits for multiple key ranges in a single pass over the tree, returning the hits of all ranges, range by range,
+     * using one {@link Seeker}. Ranges must be forward, i.e. {@code fromInclusive <= toExclusive}, sorted ascending and not overlapping.
+     * <p>
+     * Compared to one {@link #seek(Object, Object, PageCursorTracer) seek} per range this avoids traversing from the root for every range.
+     * A range starting within the leaf where the previous range ended continues from that leaf, otherwise the next range traverses from the root.
+     * This makes a batch of ranges close to each other, like exact matches on a sorted set of keys, considerably cheaper to seek.
+     *
+     * @param ranges pairs of {@code fromInclusive} and {@code toExclusive}. The keys are not modified.
+     * @param cursorTracer underlying page cursor tracer
+     * @return a {@link Seeker} used to iterate over the hits within the specified key ranges.
+     * @throws IOException on error reading from index.
+     */
+    public Seeker<KEY,VALUE> batchedSeek( List<Pair<KEY,KEY>> ranges, PageCursorTracer cursorTracer ) throws IOException
+    {
+        Preconditions.checkArgument( !ranges.isEmpty(), "Expected at least one range to seek" );
+        Pair<KEY,KEY> firstRange = ranges.get( 0 );
+        Preconditions.checkArgument( layout.compare( firstRange.getLeft(), firstRange.getRight() ) <= 0, "Batched seek only supports forward seeking" );
+        // The seek cursor may write into its range keys, so give it keys of its own
+        KEY fromInclusive = layout.copyKey( firstRange.getLeft(), layout.newKey() );
+        KEY toExclusive = layout.copyKey( firstRange.getRight(), layout.newKey() );
+        SeekCursor<KEY,VALUE> seekCursor = seekInternal( fromInclusive, toExclusive, cursorTracer, SeekCursor.DEFAULT_MAX_READ_AHEAD, SeekCursor.NO_MONITOR );
+        return new BatchedSeeker<>( seekCursor, ranges.subList( 1, ranges.size() ).iterator() );
+    }
+
+    private SeekCursor<KEY,VALUE> seekInternal( KEY fromInclusive, KEY toExclusive, PageCursorTracer cursorTracer, int readAheadLength,
+            SeekCursor.Monitor monitor ) throws IOException
     {
         long generation = this.generation;
         long stableGeneration = stableGeneration( generation );
@@ -1381,6 +1411,43 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
         return writer;
     }
 
+    /**
+     * Use {@link #DEFAULT_BULK_LOAD_FILL_FACTOR}
+     * @param cursorTracer underlying page cursor tracer
+     * @see GBPTree#bulkLoader(double, PageCursorTracer)
+     */
+    public BulkLoader<KEY,VALUE> bulkLoader( PageCursorTracer cursorTracer ) throws IOException
+    {
+        return bulkLoader( DEFAULT_BULK_LOAD_FILL_FACTOR, cursorTracer );
+    }
+
+    /**
+     * Returns a {@link BulkLoader} able to build the contents of this tree bottom-up from entries added in sorted order.
+     * This is much cheaper than inserting the same entries using a {@link Writer} since every node is written only once,
+     * sequentially, without searching the tree and without splitting nodes. The tree must be empty.
+     * The built tree replaces the empty root when the returned loader is closed. If the loader fails before that
+     * the tree stays empty and the pages written so far are left unreachable, just like after a crash.
+     * <p>
+     * The bulk loader has the same exclusive access to the tree as {@link #writer(PageCursorTracer) the single writer}
+     * and must be closed after usage, typically by using try-with-resource clause.
+     *
+     * @param fillFactor how much of each node to fill, 0 &lt; fillFactor &lt;= 1. Nodes will get at least one entry each
+     * regardless of fill factor. A fill factor of less than 1 leaves space in the nodes for subsequent changes without splits.
+     * @param cursorTracer underlying page cursor tracer
+     * @return a {@link BulkLoader} for this tree.
+     * @throws IOException on error accessing the index.
+     * @throws IllegalStateException if this tree isn't empty.
+     */
+    public BulkLoader<KEY,VALUE> bulkLoader( double fillFactor, PageCursorTracer cursorTracer ) throws IOException
+    {
+        assertNotReadOnly( "Open tree bulk loader." );
+        Preconditions.checkArgument( fillFactor > 0 && fillFactor <= 1, "Fill factor must be in range (0,1], but was %s", fillFactor );
+        BulkLoad bulkLoad = new BulkLoad( fillFactor, cursorTracer );
+        bulkLoad.initialize();
+        changesSinceLastCheckpoint = true;
+        return bulkLoad;
+    }
+
     private void setRoot( long rootId, long rootGeneration )
     {
         this.root = new Root( rootId, rootGeneration );
@@ -1770,6 +1837,215 @@ public class GBPTree<KEY,VALUE> implements Closeable, Seeker.Factory<KEY,VALUE>
         }
     }
 
+    /**
+     * {@link BulkLoader} building the tree bottom-up, see {@link #bulkLoader(double, PageCursorTracer)}.
+     * Keeps one {@link PageCursor} for every level of the tree being built, placed at the rightmost node of that level,
+     * i.e. the node currently being filled. Level 0 is the leaves and the topmost level becomes the new root on close.
+     * When a node is filled a right sibling is created for it and the splitter between them is added to the level above.
+     */
+    private class BulkLoad implements BulkLoader<KEY,VALUE>
+    {
+        private final double fillFactor;
+        private final PageCursorTracer cursorTracer;
+        private final List<PageCursor> levels = new ArrayList<>();
+        private final KEY previousKey = layout.newKey();
+        private final KEY splitter = layout.newKey();
+        private long stableGeneration;
+        private long unstableGeneration;
+        private long emptyRootId;
+        private boolean hasEntries;
+        private boolean failed;
+        private boolean closed;
+
+        BulkLoad( double fillFactor, PageCursorTracer cursorTracer )
+        {
+            this.fillFactor = fillFactor;
+            this.cursorTracer = cursorTracer;
+        }
+
+        void initialize() throws IOException
+        {
+            boolean success = false;
+            lock.writerAndCleanerLock();
+            try
+            {
+                assertRecoveryCleanSuccessful();
+                stableGeneration = stableGeneration( generation );
+                unstableGeneration = unstableGeneration( generation );
+                try ( PageCursor cursor = openRootCursor( PagedFile.PF_SHARED_WRITE_LOCK, cursorTracer ) )
+                {
+                    if ( !TreeNode.isLeaf( cursor ) || TreeNode.keyCount( cursor ) != 0 )
+                    {
+                        throw new IllegalStateException( "Can only bulk load into an empty tree, but " + GBPTree.this + " isn't empty" );
+                    }
+                    emptyRootId = cursor.getCurrentPageId();
+                }
+                success = true;
+            }
+            catch ( Throwable e )
+            {
+                appendTreeInformation( e );
+                throw e;
+            }
+            finally
+            {
+                if ( !success )
+                {
+                    lock.writerAndCleanerUnlock();
+                }
+            }
+        }
+
+        @Override
+        public void add( KEY key, VALUE value )
+        {
+            if ( closed || failed )
+            {
+                throw new IllegalStateException( "Tried to add to bulk loader of " + GBPTree.this + ", but it's " + (closed ? "closed" : "failed") );
+            }
+            if ( hasEntries && layout.compare( previousKey, key ) >= 0 )
+            {
+                throw new IllegalArgumentException( format( "Bulk loaded keys must be added in strictly increasing order, but %s was added after %s",
+                        key, previousKey ) );
+            }
+            bTreeNode.validateKeyValueSize( key, value );
+
+            try
+            {
+                addToLeaf( key, value );
+            }
+            catch ( IOException e )
+            {
+                failed = true;
+                appendTreeInformation( e );
+                throw new UncheckedIOException( e );
+            }
+            catch ( Throwable t )
+            {
+                failed = true;
+                appendTreeInformation( t );
+                throw t;
+            }
+            layout.copyKey( key, previousKey );
+            hasEntries = true;
+        }
+
+        private void addToLeaf( KEY key, VALUE value ) throws IOException
+        {
+            if ( levels.isEmpty() )
+            {
+                newLevel( Type.LEAF );
+            }
+            PageCursor cursor = levels.get( 0 );
+            int keyCount = TreeNode.keyCount( cursor );
+            if ( bTreeNode.leafFilledBeyond( cursor, keyCount, key, value, fillFactor ) )
+            {
+                long leftId = cursor.getCurrentPageId();
+                long rightId = newRightSibling( cursor, Type.LEAF );
+                layout.minimalSplitter( previousKey, key, splitter );
+                addToInternal( 1, splitter, leftId, rightId );
+                keyCount = 0;
+            }
+            bTreeNode.insertKeyValueAt( cursor, key, value, keyCount, keyCount, stableGeneration, unstableGeneration, cursorTracer );
+            TreeNode.setKeyCount( cursor, keyCount + 1 );
+            checkOutOfBounds( cursor );
+        }
+
+        private void addToInternal( int level, KEY key, long leftChild, long rightChild ) throws IOException
+        {
+            if ( level == levels.size() )
+            {
+                PageCursor cursor = newLevel( Type.INTERNAL );
+                bTreeNode.setChildAt( cursor, leftChild, 0, stableGeneration, unstableGeneration );
+            }
+            PageCursor cursor = levels.get( level );
+            int keyCount = TreeNode.keyCount( cursor );
+            if ( bTreeNode.internalFilledBeyond( cursor, keyCount, key, fillFactor ) )
+            {
+                // The key goes up to the level above, separating this node from its new right sibling
+                long leftId = cursor.getCurrentPageId();
+                long rightId = newRightSibling( cursor, Type.INTERNAL );
+                bTreeNode.setChildAt( cursor, rightChild, 0, stableGeneration, unstableGeneration );
+                addToInternal( level + 1, key, leftId, rightId );
+            }
+            else
+            {
+                bTreeNode.insertKeyAndRightChildAt( cursor, key, rightChild, keyCount, keyCount, stableGeneration, unstableGeneration, cursorTracer );
+                TreeNode.setKeyCount( cursor, keyCount + 1 );
+            }
+            checkOutOfBounds( cursor );
+        }
+
+        private PageCursor newLevel( Type type ) throws IOException
+        {
+            PageCursor cursor = pagedFile.io( 0L /*Ignored*/, PagedFile.PF_SHARED_WRITE_LOCK, cursorTracer );
+            levels.add( cursor );
+            long id = freeList.acquireNewId( stableGeneration, unstableGeneration, cursorTracer );
+            PageCursorUtil.goTo( cursor, "new bulk loaded node", id );
+            initializeNode( cursor, type );
+            return cursor;
+        }
+
+        private long newRightSibling( PageCursor cursor, Type type ) throws IOException
+        {
+            long leftId = cursor.getCurrentPageId();
+            long rightId = freeList.acquireNewId( stableGeneration, unstableGeneration, cursorTracer );
+            TreeNode.setRightSibling( cursor, rightId, stableGeneration, unstableGeneration );
+            PageCursorUtil.goTo( cursor, "new bulk loaded sibling", rightId );
+            initializeNode( cursor, type );
+            TreeNode.setLeftSibling( cursor, leftId, stableGeneration, unstableGeneration );
+            return rightId;
+        }
+
+        private void initializeNode( PageCursor cursor, Type type )
+        {
+            if ( type == Type.LEAF )
+            {
+                bTreeNode.initializeLeaf( cursor, stableGeneration, unstableGeneration );
+            }
+            else
+            {
+                bTreeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            if ( closed )
+            {
+                throw new IllegalStateException( "Tried to close bulk loader of " + GBPTree.this + ", but it's already closed." );
+            }
+            closed = true;
+            try
+            {
+                long newRootId = levels.isEmpty() ? -1 : levels.get( levels.size() - 1 ).getCurrentPageId();
+                closeCursors();
+                if ( hasEntries && !failed )
+                {
+                    setRoot( newRootId, unstableGeneration );
+                    freeList.releaseId( stableGeneration, unstableGeneration, emptyRootId, cursorTracer );
+                }
+            }
+            catch ( IOException e )
+            {
+                appendTreeInformation( e );
+                throw new UncheckedIOException( e );
+            }
+            finally
+            {
+                closeCursors();
+                lock.writerAndCleanerUnlock();
+            }
+        }
+
+        private void closeCursors()
+        {
+            levels.forEach( PageCursor::close );
+            levels.clear();
+        }
+    }
+
     /**
      * Total size limit for key and value.
      * This limit includes storage overhead that is specific to key implementation for example entity id or meta data about type.
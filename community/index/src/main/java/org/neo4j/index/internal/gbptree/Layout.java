@@ -122,6 +122,30 @@ public interface Layout<KEY, VALUE> extends Comparator<KEY>
         copyKey( right, into );
     }
 
+    /**
+     * Whether or not a {@link GBPTree} created with this layout should store keys prefix compressed, i.e. only store the part of
+     * each key that follows what it shares with other keys in the same tree node. Only applicable to layouts that are not
+     * {@link #fixedSize() fixed size}. Trees created before this changed keep the format they were created with.
+     *
+     * @return {@code true} if keys should be stored prefix compressed, otherwise {@code false}.
+     */
+    default boolean compressKeyPrefixes()
+    {
+        return false;
+    }
+
+    /**
+     * Number of leading bytes of every key, as written by {@link #writeKey(PageCursor, Object)}, to leave out of prefix compression.
+     * Useful when keys start with data that is unique per key, like an entity id, and where shared prefixes only start after that.
+     *
+     * @return number of leading bytes to store as is in prefix compressed keys.
+     * @see #compressKeyPrefixes()
+     */
+    default int keyPrefixCompressionOffset()
+    {
+        return 0;
+    }
+
     /**
      * Used as verification when loading an index after creation, to verify that the same layout is used,
      * as the one it was initially created with.
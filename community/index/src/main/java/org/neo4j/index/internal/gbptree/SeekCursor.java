@@ -20,11 +20,13 @@
 package org.neo4j.index.internal.gbptree;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.function.Consumer;
 import java.util.function.LongSupplier;
 
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.util.Preconditions;
 
 import static org.neo4j.index.internal.gbptree.PageCursorUtil.checkOutOfBounds;
 import static org.neo4j.index.internal.gbptree.TreeNode.Type.INTERNAL;
@@ -184,12 +186,18 @@ class SeekCursor<KEY,VALUE> implements Seeker<KEY,VALUE>
     /**
      * Key instances to use for reading keys from current node.
      */
-    private final KEY[] mutableKeys;
+    private KEY[] mutableKeys;
 
     /**
      * Value instances to use for reading values from current node.
      */
-    private final VALUE[] mutableValues;
+    private VALUE[] mutableValues;
+
+    /**
+     * Max number of keys/values to read in one batch, used when {@link #nextRange(Object, Object) continuing with a range}
+     * which isn't an exact match after an exact match.
+     */
+    private final int maxReadAhead;
 
     /**
      * Index into {@link #mutableKeys}/{@link #mutableValues}, i.e. which key/value to consider as result next.
@@ -223,7 +231,7 @@ class SeekCursor<KEY,VALUE> implements Seeker<KEY,VALUE>
     /**
      * True if seeker is performing an exact match lookup, {@link #toExclusive} will then be treated as inclusive.
      */
-    private final boolean exactMatch;
+    private boolean exactMatch;
 
     /**
      * {@link Layout} instance used to perform some functions around keys, like copying and comparing.
@@ -451,6 +459,7 @@ class SeekCursor<KEY,VALUE> implements Seeker<KEY,VALUE>
         this.bTreeNode = bTreeNode;
         this.rootCatchup = rootCatchup;
         this.lastFollowedPointerGeneration = lastFollowedPointerGeneration;
+        this.maxReadAhead = maxReadAhead;
         int batchSize = exactMatch ? 1 : maxReadAhead;
         this.mutableKeys = (KEY[]) new Object[batchSize];
         this.mutableValues = (VALUE[]) new Object[batchSize];
@@ -643,6 +652,81 @@ class SeekCursor<KEY,VALUE> implements Seeker<KEY,VALUE>
         }
     }
 
+    /**
+     * Continues this seek with another key range, after {@link #next()} has returned {@code false} for the current range.
+     * The new range must be forward and start at or after the end of the current range, which must also be forward.
+     * Unlike starting a new seek this doesn't necessarily traverse from the root: if the new range starts within the leaf
+     * where the current range ended the seek continues from that leaf, following right siblings as usual.
+     * <p>
+     * Because keys are only ever moved to the right in the tree there can be no keys of the new range to the left of
+     * the current leaf, so continuing from it is safe also in the face of concurrent changes.
+     *
+     * @param fromInclusive lower bound of the next range to seek (inclusive), will be copied.
+     * @param toExclusive higher bound of the next range to seek (exclusive), will be copied.
+     * @throws IOException on {@link PageCursor} error.
+     */
+    void nextRange( KEY fromInclusive, KEY toExclusive ) throws IOException
+    {
+        Preconditions.checkState( seekForward, "Only forward seeks can continue with another range" );
+        Preconditions.checkArgument( layout.compare( fromInclusive, toExclusive ) <= 0, "Only forward ranges are supported" );
+        int order = layout.compare( fromInclusive, this.toExclusive );
+        Preconditions.checkArgument( order > 0 || (order == 0 && !exactMatch), "Ranges must be sorted and not overlapping" );
+        try
+        {
+            layout.copyKey( fromInclusive, this.fromInclusive );
+            layout.copyKey( toExclusive, this.toExclusive );
+            exactMatch = layout.compare( fromInclusive, toExclusive ) == 0;
+            if ( !exactMatch && mutableKeys.length < maxReadAhead )
+            {
+                mutableKeys = Arrays.copyOf( mutableKeys, maxReadAhead );
+                mutableValues = Arrays.copyOf( mutableValues, maxReadAhead );
+            }
+            first = true;
+            resultOnTrack = false;
+            cachedIndex = 0;
+            cachedLength = 0;
+
+            if ( rangeStartsInCurrentLeaf() )
+            {
+                // Search for the start of the new range in this leaf on next read
+                concurrentWriteHappened = true;
+            }
+            else
+            {
+                prepareToStartFromRoot();
+                traverseDownToFirstLeaf();
+            }
+        }
+        catch ( Throwable e )
+        {
+            exceptionDecorator.accept( e );
+            throw e;
+        }
+    }
+
+    /**
+     * @return {@code true} if {@link #fromInclusive} is not after the last key in the leaf the {@link PageCursor} is currently at,
+     * otherwise {@code false}, also if the node could not be read as the expected leaf.
+     */
+    private boolean rangeStartsInCurrentLeaf() throws IOException
+    {
+        boolean startsInLeaf;
+        do
+        {
+            startsInLeaf = false;
+            if ( !readHeader() || isInternal || keyCount == 0 )
+            {
+                continue;
+            }
+            bTreeNode.keyAt( cursor, mutableKeys[0], keyCount - 1, LEAF, cursorTracer );
+            startsInLeaf = layout.compare( fromInclusive, mutableKeys[0] ) <= 0;
+        }
+        while ( cursor.shouldRetry() );
+        checkOutOfBoundsAndClosed();
+        cursor.checkAndClearCursorException();
+        return startsInLeaf && endedUpOnExpectedNode();
+    }
+
     private boolean readAndValidateNextKeyValueBatch() throws IOException
     {
         do
@@ -345,6 +345,22 @@ abstract class TreeNode<KEY,VALUE>
      */
     abstract Overflow leafOverflow( PageCursor cursor, int currentKeyCount, KEY newKey, VALUE newValue );
 
+    /**
+     * Will leaf be filled beyond {@code fillFactor} of its space if adding new key and value at the end of it?
+     * Used when {@link GBPTree#bulkLoader(double, PageCursorTracer) bulk loading} where nodes are filled sequentially.
+     * An empty leaf will always accept one entry.
+     * @return true if leaf would be filled beyond fill factor, or would overflow, else false.
+     */
+    abstract boolean leafFilledBeyond( PageCursor cursor, int currentKeyCount, KEY newKey, VALUE newValue, double fillFactor );
+
+    /**
+     * Will internal node be filled beyond {@code fillFactor} of its space if adding new key at the end of it?
+     * Used when {@link GBPTree#bulkLoader(double, PageCursorTracer) bulk loading} where nodes are filled sequentially.
+     * An internal node without keys will always accept one key.
+     * @return true if internal node would be filled beyond fill factor, or would overflow, else false.
+     */
+    abstract boolean internalFilledBeyond( PageCursor cursor, int currentKeyCount, KEY newKey, double fillFactor );
+
     /**
      * Clean page with leaf node from garbage to make room for further insert without having to split.
      */
@@ -357,6 +373,12 @@ abstract class TreeNode<KEY,VALUE>
 
     abstract boolean leafUnderflow( PageCursor cursor, int keyCount );
 
+    /**
+     * Would leaf underflow if removing key and value at {@code pos}? Answers the same question as
+     * {@link #leafUnderflow(PageCursor, int)} would after the removal, but without modifying the leaf.
+     */
+    abstract boolean leafUnderflowAfterRemove( PageCursor cursor, int pos, int keyCount );
+
     /**
      * How do we best rebalance left and right leaf?
      * Can we move keys from underflowing left to right so that none of them underflow?
@@ -0,0 +1,617 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.util.Arrays;
+
+import org.neo4j.io.pagecache.ByteArrayPageCursor;
+import org.neo4j.io.pagecache.CursorException;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+
+import static java.lang.String.format;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.extractKeySize;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.extractOffload;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.extractValueSize;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.getOverhead;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.putKeyOffset;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.putKeyValueSize;
+import static org.neo4j.index.internal.gbptree.DynamicSizeUtil.readKeyValueSize;
+import static org.neo4j.index.internal.gbptree.TreeNode.Type.LEAF;
+
+/**
+ * {@link TreeNodeDynamicSize} storing inlined keys prefix compressed. Every node keeps an anchor, a byte sequence in its header, and
+ * inlined keys only store the part of their serialized form that follows what they share with the anchor. The first
+ * {@link Layout#keyPrefixCompressionOffset()} bytes of a key are always stored as is, they typically hold data, like entity id or length,
+ * which varies between keys with otherwise equal prefixes.
+ * <p>
+ * The anchor is set from the first key inserted into an empty node. On split the new right node inherits the anchor of the node being
+ * split, such that entries can be moved raw, after which both nodes are re-anchored on the longest prefix shared by all their keys,
+ * if that makes them smaller. Merging two nodes with different anchors re-encodes the receiving node against the anchor of the other.
+ * Offloaded entries are not compressed.
+ * <p>
+ * Separators in internal nodes are already kept as short as possible by {@link Layout#minimalSplitter(Object, Object, Object)},
+ * on top of that they are prefix compressed the same way as keys in leaves.
+ *
+ * <pre>
+ * [                    HEADER 86B                   ][ANCHORLENGTH][ANCHOR]|[KEY_OFFSETS]##########[KEYS_VALUES]
+ *  see TreeNodeDynamicSize                           86            87
+ *
+ * Inlined key
+ * [SHAREDLENGTH][HEAD][SUFFIX]
+ * </pre>
+ * Where SHAREDLENGTH is the number of bytes, following HEAD, the key shares with the anchor. A key with SHAREDLENGTH=0 is stored as is.
+ */
+class TreeNodeCompressedDynamicSize<KEY,VALUE> extends TreeNodeDynamicSize<KEY,VALUE>
+{
+    static final byte FORMAT_IDENTIFIER = 4;
+    static final byte FORMAT_VERSION = 0;
+
+    private static final int BYTE_POS_ANCHOR_LENGTH = HEADER_LENGTH_DYNAMIC;
+    private static final int BYTE_POS_ANCHOR = BYTE_POS_ANCHOR_LENGTH + Byte.BYTES;
+    private static final int SIZE_SHARED_LENGTH = Byte.BYTES;
+    private static final int MAX_ANCHOR_LENGTH = 0xFF;
+    private static final int ANCHOR_PAGE_SIZE_DIVISOR = 32;
+
+    private final int keyHead;
+    private final int maxAnchorLength;
+    // Readers share this instance, so the buffer used for decoding keys must not be shared between threads
+    private final ThreadLocal<KeyBuffer> keyBuffers;
+    // Only used by writer
+    private final byte[] anchor;
+    private final byte[] otherAnchor;
+    private Entries entries;
+
+    TreeNodeCompressedDynamicSize( int pageSize, Layout<KEY,VALUE> layout, OffloadStore<KEY,VALUE> offloadStore )
+    {
+        this( pageSize, layout, offloadStore, maxAnchorLength( pageSize ) );
+    }
+
+    private TreeNodeCompressedDynamicSize( int pageSize, Layout<KEY,VALUE> layout, OffloadStore<KEY,VALUE> offloadStore, int maxAnchorLength )
+    {
+        super( pageSize, layout, offloadStore, BYTE_POS_ANCHOR + maxAnchorLength, SIZE_SHARED_LENGTH );
+        this.keyHead = layout.keyPrefixCompressionOffset();
+        this.maxAnchorLength = maxAnchorLength;
+        this.keyBuffers = ThreadLocal.withInitial( () -> new KeyBuffer( pageSize ) );
+        this.anchor = new byte[maxAnchorLength];
+        this.otherAnchor = new byte[maxAnchorLength];
+        if ( keyHead < 0 )
+        {
+            throw new IllegalArgumentException( "Key prefix compression offset must not be negative, was " + keyHead );
+        }
+    }
+
+    private static int maxAnchorLength( int pageSize )
+    {
+        return Math.min( MAX_ANCHOR_LENGTH, pageSize / ANCHOR_PAGE_SIZE_DIVISOR );
+    }
+
+    @Override
+    void writeAdditionalHeader( PageCursor cursor )
+    {
+        super.writeAdditionalHeader( cursor );
+        setAnchor( cursor, anchor, 0 );
+    }
+
+    @Override
+    void insertKeyAndRightChildAt( PageCursor cursor, KEY key, long child, int pos, int keyCount, long stableGeneration,
+            long unstableGeneration, PageCursorTracer cursorTracer ) throws IOException
+    {
+        if ( keyCount == 0 )
+        {
+            anchorOnKey( cursor, key );
+        }
+        super.insertKeyAndRightChildAt( cursor, key, child, pos, keyCount, stableGeneration, unstableGeneration, cursorTracer );
+    }
+
+    @Override
+    void insertKeyValueAt( PageCursor cursor, KEY key, VALUE value, int pos, int keyCount, long stableGeneration, long unstableGeneration,
+            PageCursorTracer cursorTracer ) throws IOException
+    {
+        if ( keyCount == 0 )
+        {
+            anchorOnKey( cursor, key );
+        }
+        super.insertKeyValueAt( cursor, key, value, pos, keyCount, stableGeneration, unstableGeneration, cursorTracer );
+    }
+
+    @Override
+    int inlineKeySize( PageCursor cursor, KEY key, int keySize )
+    {
+        byte[] bytes = serialize( key, keySize );
+        return SIZE_SHARED_LENGTH + keySize - sharedLength( cursor, bytes, keySize );
+    }
+
+    @Override
+    void writeInlineKey( PageCursor cursor, KEY key, int inlineKeySize )
+    {
+        int keySize = layout.keySize( key );
+        byte[] bytes = serialize( key, keySize );
+        writeEncodedKey( cursor, bytes, 0, keySize, sharedLength( cursor, bytes, keySize ) );
+    }
+
+    @Override
+    void readInlineKey( PageCursor cursor, KEY into, int inlineKeySize )
+    {
+        if ( inlineKeySize < SIZE_SHARED_LENGTH )
+        {
+            cursor.setCursorException( format( "Read unreliable prefix compressed key, inlineKeySize=%d", inlineKeySize ) );
+            return;
+        }
+        int sharedLength = cursor.getByte() & 0xFF;
+        if ( sharedLength == 0 )
+        {
+            // Stored as is, no need to go through the key buffer
+            layout.readKey( cursor, into, inlineKeySize - SIZE_SHARED_LENGTH );
+            return;
+        }
+
+        KeyBuffer keyBuffer = keyBuffers.get();
+        int keySize = decodeKey( cursor, sharedLength, inlineKeySize, keyBuffer.bytes, 0 );
+        if ( keySize == -1 )
+        {
+            return;
+        }
+        PageCursor keyCursor = keyBuffer.cursor;
+        keyCursor.setOffset( 0 );
+        try
+        {
+            layout.readKey( keyCursor, into, keySize );
+            keyCursor.checkAndClearCursorException();
+        }
+        catch ( CursorException e )
+        {
+            cursor.setCursorException( e.getMessage() );
+        }
+        catch ( IndexOutOfBoundsException | BufferUnderflowException e )
+        {
+            // Can happen on inconsistent reads, those are retried like any other
+            cursor.setCursorException( "Failed to read prefix compressed key, cause: " + e );
+        }
+    }
+
+    @Override
+    void doSplitLeaf( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int insertPos, KEY newKey, VALUE newValue, KEY newSplitter,
+            double ratioToKeepInLeftOnSplit, long stableGeneration, long unstableGeneration, PageCursorTracer cursorTracer ) throws IOException
+    {
+        // Same anchor in both nodes lets entries be moved without re-encoding them
+        copyAnchor( leftCursor, rightCursor );
+        super.doSplitLeaf( leftCursor, leftKeyCount, rightCursor, insertPos, newKey, newValue, newSplitter, ratioToKeepInLeftOnSplit,
+                stableGeneration, unstableGeneration, cursorTracer );
+        compactAnchor( leftCursor, LEAF );
+        compactAnchor( rightCursor, LEAF );
+    }
+
+    @Override
+    void doSplitInternal( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int insertPos, KEY newKey, long newRightChild,
+            long stableGeneration, long unstableGeneration, KEY newSplitter, double ratioToKeepInLeftOnSplit, PageCursorTracer cursorTracer )
+            throws IOException
+    {
+        copyAnchor( leftCursor, rightCursor );
+        super.doSplitInternal( leftCursor, leftKeyCount, rightCursor, insertPos, newKey, newRightChild, stableGeneration, unstableGeneration,
+                newSplitter, ratioToKeepInLeftOnSplit, cursorTracer );
+        compactAnchor( leftCursor, Type.INTERNAL );
+        compactAnchor( rightCursor, Type.INTERNAL );
+    }
+
+    @Override
+    int canRebalanceLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        if ( leftKeyCount == 0 || sameAnchor( leftCursor, rightCursor ) )
+        {
+            return super.canRebalanceLeaves( leftCursor, leftKeyCount, rightCursor, rightKeyCount );
+        }
+        // Keys can only be moved raw between nodes with the same anchor, so merge or leave them be
+        return canMergeLeaves( leftCursor, leftKeyCount, rightCursor, rightKeyCount ) ? -1 : 0;
+    }
+
+    @Override
+    boolean canMergeLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        if ( leftKeyCount == 0 || sameAnchor( leftCursor, rightCursor ) )
+        {
+            return super.canMergeLeaves( leftCursor, leftKeyCount, rightCursor, rightKeyCount );
+        }
+        // Right node will be re-encoded using anchor of left node
+        int otherAnchorLength = readAnchor( leftCursor, otherAnchor );
+        Entries entries = readEntries( rightCursor, rightKeyCount, LEAF );
+        int leftActiveSpace = totalActiveSpace( leftCursor, leftKeyCount, LEAF );
+        int rightActiveSpace = totalActiveSpace( rightCursor, rightKeyCount, LEAF ) - entries.space( null, 0 ) +
+                entries.space( otherAnchor, otherAnchorLength );
+        return totalSpace() >= leftActiveSpace + rightActiveSpace;
+    }
+
+    @Override
+    void copyKeyValuesFromLeftToRight( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        if ( leftKeyCount > 0 && !sameAnchor( leftCursor, rightCursor ) )
+        {
+            int otherAnchorLength = readAnchor( leftCursor, otherAnchor );
+            readEntries( rightCursor, rightKeyCount, LEAF ).write( rightCursor, LEAF, otherAnchor, otherAnchorLength );
+        }
+        super.copyKeyValuesFromLeftToRight( leftCursor, leftKeyCount, rightCursor, rightKeyCount );
+    }
+
+    @Override
+    String checkMetaConsistency( PageCursor cursor, int keyCount, Type type, GBPTreeConsistencyCheckVisitor<KEY> visitor )
+    {
+        String inconsistency = super.checkMetaConsistency( cursor, keyCount, type, visitor );
+        int anchorLength = anchorLength( cursor );
+        if ( anchorLength > maxAnchorLength )
+        {
+            String anchorInconsistency = format( "Anchor is longer than allowed, anchorLength=%d, maxAnchorLength=%d", anchorLength, maxAnchorLength );
+            return inconsistency.isEmpty()
+                   ? "Meta data for tree node is inconsistent, id=" + cursor.getCurrentPageId() + ": " + anchorInconsistency
+                   : inconsistency + ", " + anchorInconsistency;
+        }
+        return inconsistency;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TreeNodeCompressedDynamicSize[pageSize:" + pageSize + ", keyValueSizeCap:" + keyValueSizeCap() + ", inlineKeyValueSizeCap:" +
+                inlineKeyValueSizeCap() + ", keyPrefixCompressionOffset:" + keyHead + ", maxAnchorLength:" + maxAnchorLength + "]";
+    }
+
+    /**
+     * Re-anchor node on the longest prefix shared by all its inlined keys, if that makes the node smaller.
+     */
+    private void compactAnchor( PageCursor cursor, Type type )
+    {
+        int keyCount = keyCount( cursor );
+        Entries entries = readEntries( cursor, keyCount, type );
+        int candidateLength = entries.longestSharedPrefix( anchor );
+        if ( candidateLength <= 0 )
+        {
+            return;
+        }
+        if ( entries.space( anchor, candidateLength ) < entries.space( null, 0 ) )
+        {
+            entries.write( cursor, type, anchor, candidateLength );
+        }
+    }
+
+    private Entries readEntries( PageCursor cursor, int keyCount, Type type )
+    {
+        if ( entries == null )
+        {
+            entries = new Entries( pageSize );
+        }
+        if ( !entries.read( cursor, keyCount, type ) )
+        {
+            throw new TreeInconsistencyException( "Failed to decode prefix compressed entries of node %d with keyCount %d",
+                    cursor.getCurrentPageId(), keyCount );
+        }
+        return entries;
+    }
+
+    private void anchorOnKey( PageCursor cursor, KEY key )
+    {
+        int keySize = layout.keySize( key );
+        byte[] bytes = serialize( key, keySize );
+        int anchorLength = Math.max( 0, Math.min( maxAnchorLength, keySize - keyHead ) );
+        System.arraycopy( bytes, keyHead, anchor, 0, anchorLength );
+        setAnchor( cursor, anchor, anchorLength );
+    }
+
+    private void copyAnchor( PageCursor fromCursor, PageCursor toCursor )
+    {
+        setAnchor( toCursor, anchor, readAnchor( fromCursor, anchor ) );
+    }
+
+    private boolean sameAnchor( PageCursor leftCursor, PageCursor rightCursor )
+    {
+        int anchorLength = anchorLength( leftCursor );
+        if ( anchorLength != anchorLength( rightCursor ) )
+        {
+            return false;
+        }
+        for ( int i = 0; i < anchorLength; i++ )
+        {
+            if ( leftCursor.getByte( BYTE_POS_ANCHOR + i ) != rightCursor.getByte( BYTE_POS_ANCHOR + i ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void setAnchor( PageCursor cursor, byte[] anchor, int anchorLength )
+    {
+        cursor.putByte( BYTE_POS_ANCHOR_LENGTH, (byte) anchorLength );
+        cursor.setOffset( BYTE_POS_ANCHOR );
+        cursor.putBytes( anchor, 0, anchorLength );
+        cursor.putBytes( maxAnchorLength - anchorLength, (byte) 0 );
+    }
+
+    private int readAnchor( PageCursor cursor, byte[] into )
+    {
+        int anchorLength = Math.min( anchorLength( cursor ), maxAnchorLength );
+        cursor.setOffset( BYTE_POS_ANCHOR );
+        cursor.getBytes( into, 0, anchorLength );
+        return anchorLength;
+    }
+
+    private static int anchorLength( PageCursor cursor )
+    {
+        return cursor.getByte( BYTE_POS_ANCHOR_LENGTH ) & 0xFF;
+    }
+
+    private byte[] serialize( KEY key, int keySize )
+    {
+        KeyBuffer keyBuffer = keyBuffers.get();
+        keyBuffer.cursor.setOffset( 0 );
+        layout.writeKey( keyBuffer.cursor, key );
+        assert keyBuffer.cursor.getOffset() == keySize;
+        return keyBuffer.bytes;
+    }
+
+    /**
+     * @return number of bytes following key head that serialized key shares with anchor of node {@code cursor} is placed at.
+     */
+    private int sharedLength( PageCursor cursor, byte[] keyBytes, int keySize )
+    {
+        int maxSharedLength = Math.min( anchorLength( cursor ), keySize - keyHead );
+        int sharedLength = 0;
+        while ( sharedLength < maxSharedLength && cursor.getByte( BYTE_POS_ANCHOR + sharedLength ) == keyBytes[keyHead + sharedLength] )
+        {
+            sharedLength++;
+        }
+        return sharedLength;
+    }
+
+    private int sharedLength( byte[] anchor, int anchorLength, byte[] keyBytes, int keyOffset, int keySize )
+    {
+        int maxSharedLength = Math.min( anchorLength, keySize - keyHead );
+        int sharedLength = 0;
+        while ( sharedLength < maxSharedLength && anchor[sharedLength] == keyBytes[keyOffset + keyHead + sharedLength] )
+        {
+            sharedLength++;
+        }
+        return sharedLength;
+    }
+
+    private void writeEncodedKey( PageCursor cursor, byte[] keyBytes, int keyOffset, int keySize, int sharedLength )
+    {
+        cursor.putByte( (byte) sharedLength );
+        if ( sharedLength == 0 )
+        {
+            cursor.putBytes( keyBytes, keyOffset, keySize );
+        }
+        else
+        {
+            cursor.putBytes( keyBytes, keyOffset, keyHead );
+            cursor.putBytes( keyBytes, keyOffset + keyHead + sharedLength, keySize - keyHead - sharedLength );
+        }
+    }
+
+    /**
+     * Decodes key at current offset of {@code cursor}, right after its shared length, into {@code into}.
+     *
+     * @return size of decoded key or -1 if key could not be decoded, in which case cursor exception is set.
+     */
+    private int decodeKey( PageCursor cursor, int sharedLength, int inlineKeySize, byte[] into, int intoOffset )
+    {
+        int storedSize = inlineKeySize - SIZE_SHARED_LENGTH;
+        int keySize = storedSize + sharedLength;
+        int anchorLength = anchorLength( cursor );
+        if ( (sharedLength > 0 && storedSize < keyHead) || sharedLength > anchorLength || anchorLength > maxAnchorLength ||
+             intoOffset + keySize > into.length )
+        {
+            cursor.setCursorException( format( "Read unreliable prefix compressed key, id=%d, inlineKeySize=%d, sharedLength=%d, anchorLength=%d",
+                    cursor.getCurrentPageId(), inlineKeySize, sharedLength, anchorLength ) );
+            return -1;
+        }
+        if ( sharedLength == 0 )
+        {
+            cursor.getBytes( into, intoOffset, storedSize );
+            return keySize;
+        }
+        cursor.getBytes( into, intoOffset, keyHead );
+        int suffixOffset = cursor.getOffset();
+        cursor.setOffset( BYTE_POS_ANCHOR );
+        cursor.getBytes( into, intoOffset + keyHead, sharedLength );
+        cursor.setOffset( suffixOffset );
+        cursor.getBytes( into, intoOffset + keyHead + sharedLength, storedSize - keyHead );
+        return keySize;
+    }
+
+    private static class KeyBuffer
+    {
+        private final byte[] bytes;
+        private final PageCursor cursor;
+
+        KeyBuffer( int size )
+        {
+            bytes = new byte[size];
+            cursor = ByteArrayPageCursor.wrap( bytes );
+        }
+    }
+
+    /**
+     * All entries of a node, with inlined keys decoded, used when re-encoding a node against a different anchor.
+     */
+    private class Entries
+    {
+        private final int[] dataOffset;
+        private final int[] keySize;
+        private final int[] valueSize;
+        private final int[] storedSize;
+        private final boolean[] offload;
+        private byte[] data;
+        private int count;
+
+        Entries( int pageSize )
+        {
+            int maxKeyCount = pageSize / DynamicSizeUtil.SIZE_OFFSET;
+            dataOffset = new int[maxKeyCount];
+            keySize = new int[maxKeyCount];
+            valueSize = new int[maxKeyCount];
+            storedSize = new int[maxKeyCount];
+            offload = new boolean[maxKeyCount];
+            data = new byte[pageSize];
+        }
+
+        boolean read( PageCursor cursor, int keyCount, Type type )
+        {
+            count = 0;
+            if ( keyCount > dataOffset.length )
+            {
+                return false;
+            }
+            int dataEnd = 0;
+            for ( int pos = 0; pos < keyCount; pos++ )
+            {
+                placeCursorAtActualKey( cursor, pos, type );
+                int entryOffset = cursor.getOffset();
+                long keyValueSize = readKeyValueSize( cursor, true );
+                int entryKeySize = extractKeySize( keyValueSize );
+                int entryValueSize = type == LEAF ? extractValueSize( keyValueSize ) : 0;
+                boolean entryOffload = extractOffload( keyValueSize );
+                dataOffset[pos] = dataEnd;
+                offload[pos] = entryOffload;
+                valueSize[pos] = entryValueSize;
+                if ( entryOffload )
+                {
+                    // Offloaded entries are kept raw, including their header
+                    int size = getOverhead( entryKeySize, entryValueSize, true );
+                    ensureCapacity( dataEnd + size );
+                    cursor.setOffset( entryOffset );
+                    cursor.getBytes( data, dataEnd, size );
+                    storedSize[pos] = size;
+                    dataEnd += size;
+                }
+                else
+                {
+                    if ( entryKeySize < SIZE_SHARED_LENGTH )
+                    {
+                        return false;
+                    }
+                    int sharedLength = cursor.getByte() & 0xFF;
+                    ensureCapacity( dataEnd + entryKeySize - SIZE_SHARED_LENGTH + sharedLength + entryValueSize );
+                    int decodedKeySize = decodeKey( cursor, sharedLength, entryKeySize, data, dataEnd );
+                    if ( decodedKeySize == -1 )
+                    {
+                        return false;
+                    }
+                    cursor.getBytes( data, dataEnd + decodedKeySize, entryValueSize );
+                    storedSize[pos] = entryKeySize;
+                    keySize[pos] = decodedKeySize;
+                    dataEnd += decodedKeySize + entryValueSize;
+                }
+            }
+            count = keyCount;
+            return true;
+        }
+
+        /**
+         * @return length of the longest prefix, following key head, shared by all inlined keys, written to {@code into}.
+         * -1 if there are no inlined keys.
+         */
+        int longestSharedPrefix( byte[] into )
+        {
+            int prefixLength = -1;
+            for ( int pos = 0; pos < count; pos++ )
+            {
+                if ( offload[pos] )
+                {
+                    continue;
+                }
+                if ( prefixLength == -1 )
+                {
+                    prefixLength = Math.max( 0, Math.min( maxAnchorLength, keySize[pos] - keyHead ) );
+                    System.arraycopy( data, dataOffset[pos] + keyHead, into, 0, prefixLength );
+                }
+                else
+                {
+                    prefixLength = sharedLength( into, prefixLength, data, dataOffset[pos], keySize[pos] );
+                }
+            }
+            return prefixLength;
+        }
+
+        /**
+         * @param anchor anchor to calculate space for, or {@code null} for space entries occupy as they are currently stored.
+         * @return total space of entries, excluding offset array.
+         */
+        int space( byte[] anchor, int anchorLength )
+        {
+            int space = 0;
+            for ( int pos = 0; pos < count; pos++ )
+            {
+                space += entrySize( pos, anchor, anchorLength );
+            }
+            return space;
+        }
+
+        void write( PageCursor cursor, Type type, byte[] anchor, int anchorLength )
+        {
+            int prevAllocOffset = getAllocOffset( cursor );
+            setAnchor( cursor, anchor, anchorLength );
+            int allocOffset = pageSize;
+            for ( int pos = 0; pos < count; pos++ )
+            {
+                allocOffset -= entrySize( pos, anchor, anchorLength );
+                cursor.setOffset( allocOffset );
+                if ( offload[pos] )
+                {
+                    cursor.putBytes( data, dataOffset[pos], storedSize[pos] );
+                }
+                else
+                {
+                    int sharedLength = sharedLength( anchor, anchorLength, data, dataOffset[pos], keySize[pos] );
+                    putKeyValueSize( cursor, SIZE_SHARED_LENGTH + keySize[pos] - sharedLength, valueSize[pos], false );
+                    writeEncodedKey( cursor, data, dataOffset[pos], keySize[pos], sharedLength );
+                    cursor.putBytes( data, dataOffset[pos] + keySize[pos], valueSize[pos] );
+                }
+                cursor.setOffset( keyPosOffset( pos, type ) );
+                putKeyOffset( cursor, allocOffset );
+            }
+            setAllocOffset( cursor, allocOffset );
+            setDeadSpace( cursor, 0 );
+            if ( allocOffset > prevAllocOffset )
+            {
+                zeroPad( cursor, prevAllocOffset, allocOffset - prevAllocOffset );
+            }
+        }
+
+        private int entrySize( int pos, byte[] anchor, int anchorLength )
+        {
+            if ( offload[pos] )
+            {
+                return storedSize[pos];
+            }
+            int inlineKeySize = anchor == null ? storedSize[pos]
+                                               : SIZE_SHARED_LENGTH + keySize[pos] - sharedLength( anchor, anchorLength, data, dataOffset[pos], keySize[pos] );
+            return getOverhead( inlineKeySize, valueSize[pos], false ) + inlineKeySize + valueSize[pos];
+        }
+
+        private void ensureCapacity( int capacity )
+        {
+            if ( capacity > data.length )
+            {
+                data = Arrays.copyOf( data, Math.max( capacity, data.length * 2 ) );
+            }
+        }
+    }
+}
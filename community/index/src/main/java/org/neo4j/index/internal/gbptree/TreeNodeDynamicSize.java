@@ -102,6 +102,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     private final int maxKeyCount = pageSize / (bytesKeyOffset() + SIZE_KEY_SIZE + SIZE_VALUE_SIZE);
     private final int[] oldOffset = new int[maxKeyCount];
     private final int[] newOffset = new int[maxKeyCount];
+    private final int headerLength;
     private final int totalSpace;
     private final int halfSpace;
     private final KEY tmpKeyLeft;
@@ -109,12 +110,22 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     private final OffloadStore<KEY,VALUE> offloadStore;
 
     TreeNodeDynamicSize( int pageSize, Layout<KEY,VALUE> layout, OffloadStore<KEY,VALUE> offloadStore )
+    {
+        this( pageSize, layout, offloadStore, HEADER_LENGTH_DYNAMIC, 0 );
+    }
+
+    /**
+     * @param headerLength total length of node header, must be at least {@link #HEADER_LENGTH_DYNAMIC}.
+     * @param inlineKeyOverhead number of bytes an inlined key may grow by when written through {@link #writeInlineKey(PageCursor, Object, int)}.
+     */
+    TreeNodeDynamicSize( int pageSize, Layout<KEY,VALUE> layout, OffloadStore<KEY,VALUE> offloadStore, int headerLength, int inlineKeyOverhead )
     {
         super( pageSize, layout );
         this.offloadStore = offloadStore;
-        totalSpace = pageSize - HEADER_LENGTH_DYNAMIC;
+        this.headerLength = headerLength;
+        totalSpace = pageSize - headerLength;
         halfSpace = totalSpace / 2;
-        inlineKeyValueSizeCap = inlineKeyValueSizeCap( pageSize );
+        inlineKeyValueSizeCap = inlineKeyValueSizeCap( pageSize, headerLength ) - inlineKeyOverhead;
         keyValueSizeCap = offloadStore.maxEntrySize();
 
         if ( inlineKeyValueSizeCap < MINIMUM_ENTRY_SIZE_CAP )
@@ -138,7 +149,12 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     @VisibleForTesting
     public static int inlineKeyValueSizeCap( int pageSize )
     {
-        return (pageSize - HEADER_LENGTH_DYNAMIC) / LEAST_NUMBER_OF_ENTRIES_PER_PAGE - SIZE_TOTAL_OVERHEAD;
+        return inlineKeyValueSizeCap( pageSize, HEADER_LENGTH_DYNAMIC );
+    }
+
+    private static int inlineKeyValueSizeCap( int pageSize, int headerLength )
+    {
+        return (pageSize - headerLength) / LEAST_NUMBER_OF_ENTRIES_PER_PAGE - SIZE_TOTAL_OVERHEAD;
     }
 
     @Override
@@ -193,7 +209,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
                 readUnreliableKeyValueSize( cursor, keySize, valueSize, keyValueSize, pos );
                 return into;
             }
-            layout.readKey( cursor, into, keySize );
+            readInlineKey( cursor, into, keySize );
         }
         return into;
     }
@@ -226,7 +242,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
                 readUnreliableKeyValueSize( cursor, keySize, valueSize, keyValueSize, pos );
                 return;
             }
-            layout.readKey( cursor, intoKey, keySize );
+            readInlineKey( cursor, intoKey, keySize );
             layout.readValue( cursor, intoValue, valueSize );
         }
     }
@@ -241,12 +257,13 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         int newKeyOffset;
         if ( canInline( keySize ) )
         {
-            newKeyOffset = currentKeyOffset - keySize - getOverhead( keySize, 0, false );
+            int inlineKeySize = inlineKeySize( cursor, key, keySize );
+            newKeyOffset = currentKeyOffset - inlineKeySize - getOverhead( inlineKeySize, 0, false );
 
             // Write key
             cursor.setOffset( newKeyOffset );
-            putKeySize( cursor, keySize, false );
-            layout.writeKey( cursor, key );
+            putKeySize( cursor, inlineKeySize, false );
+            writeInlineKey( cursor, key, inlineKeySize );
         }
         else
         {
@@ -279,12 +296,13 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         int newKeyValueOffset;
         if ( canInline( keySize + valueSize ) )
         {
-            newKeyValueOffset = currentKeyValueOffset - keySize - valueSize - getOverhead( keySize, valueSize, false );
+            int inlineKeySize = inlineKeySize( cursor, key, keySize );
+            newKeyValueOffset = currentKeyValueOffset - inlineKeySize - valueSize - getOverhead( inlineKeySize, valueSize, false );
 
             // Write key and value
             cursor.setOffset( newKeyValueOffset );
-            putKeyValueSize( cursor, keySize, valueSize, false );
-            layout.writeKey( cursor, key );
+            putKeyValueSize( cursor, inlineKeySize, valueSize, false );
+            writeInlineKey( cursor, key, inlineKeySize );
             layout.writeValue( cursor, value );
         }
         else
@@ -417,11 +435,11 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         {
             readUnreliableKeyValueSize( cursor, oldKeySize, oldValueSize, keyValueSize, pos );
         }
-        int newKeySize = layout.keySize( key );
+        int newKeySize = inlineKeySize( cursor, key, layout.keySize( key ) );
         if ( newKeySize == oldKeySize )
         {
             // Fine, we can just overwrite
-            layout.writeKey( cursor, key );
+            writeInlineKey( cursor, key, newKeySize );
             return true;
         }
         return false;
@@ -486,6 +504,39 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         cursor.setOffset( cursor.getOffset() + delta );
     }
 
+    /**
+     * Size of {@code key} when written inline into the node {@code cursor} is placed at. Offset of {@code cursor} is left unchanged.
+     *
+     * @param cursor {@link PageCursor} placed at the node which the key is to be written into.
+     * @param key key to measure.
+     * @param keySize size of key as given by {@link Layout#keySize(Object)}.
+     * @return number of bytes the key will occupy in this node.
+     */
+    int inlineKeySize( PageCursor cursor, KEY key, int keySize )
+    {
+        return keySize;
+    }
+
+    /**
+     * Writes {@code key} inline at current offset of {@code cursor}, leaving cursor at the end of the written key.
+     *
+     * @param inlineKeySize size of key as given by {@link #inlineKeySize(PageCursor, Object, int)}.
+     */
+    void writeInlineKey( PageCursor cursor, KEY key, int inlineKeySize )
+    {
+        layout.writeKey( cursor, key );
+    }
+
+    /**
+     * Reads inlined key at current offset of {@code cursor}, leaving cursor at the end of the read key.
+     *
+     * @param inlineKeySize size of key as stored in the key-value size header.
+     */
+    void readInlineKey( PageCursor cursor, KEY into, int inlineKeySize )
+    {
+        layout.readKey( cursor, into, inlineKeySize );
+    }
+
     @Override
     void setChildAt( PageCursor cursor, long child, int pos, long stableGeneration, long unstableGeneration )
     {
@@ -493,6 +544,11 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         writeChild( cursor, child, stableGeneration, unstableGeneration );
     }
 
+    int totalSpace()
+    {
+        return totalSpace;
+    }
+
     @Override
     public int keyValueSizeCap()
     {
@@ -543,7 +599,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         int deadSpace = getDeadSpace( cursor );
 
         // How much space do we need?
-        int neededSpace = totalSpaceOfKeyChild( newKey );
+        int neededSpace = totalSpaceOfKeyChild( cursor, newKey );
 
         // There is your answer!
         return neededSpace <= allocSpace ? Overflow.NO :
@@ -558,13 +614,35 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         int allocSpace = getAllocSpace( cursor, currentKeyCount, LEAF );
 
         // How much space do we need?
-        int neededSpace = totalSpaceOfKeyValue( newKey, newValue );
+        int neededSpace = totalSpaceOfKeyValue( cursor, newKey, newValue );
 
         // There is your answer!
         return neededSpace <= allocSpace ? Overflow.NO :
                neededSpace <= allocSpace + deadSpace ? Overflow.NO_NEED_DEFRAG : Overflow.YES;
     }
 
+    @Override
+    boolean leafFilledBeyond( PageCursor cursor, int currentKeyCount, KEY newKey, VALUE newValue, double fillFactor )
+    {
+        if ( leafOverflow( cursor, currentKeyCount, newKey, newValue ) == Overflow.YES )
+        {
+            return true;
+        }
+        return currentKeyCount > 0 &&
+                totalActiveSpace( cursor, currentKeyCount, LEAF ) + totalSpaceOfKeyValue( cursor, newKey, newValue ) > totalSpace * fillFactor;
+    }
+
+    @Override
+    boolean internalFilledBeyond( PageCursor cursor, int currentKeyCount, KEY newKey, double fillFactor )
+    {
+        if ( internalOverflow( cursor, currentKeyCount, newKey ) == Overflow.YES )
+        {
+            return true;
+        }
+        return currentKeyCount > 0 &&
+                totalActiveSpace( cursor, currentKeyCount, INTERNAL ) + totalSpaceOfKeyChild( cursor, newKey ) > totalSpace * fillFactor;
+    }
+
     @Override
     void defragmentLeaf( PageCursor cursor )
     {
@@ -736,6 +814,23 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         return availableSpace > halfSpace;
     }
 
+    @Override
+    boolean leafUnderflowAfterRemove( PageCursor cursor, int pos, int keyCount )
+    {
+        placeCursorAtActualKey( cursor, pos, LEAF );
+        long keyValueSize = readKeyValueSize( cursor, true );
+        boolean offload = extractOffload( keyValueSize );
+        int keySize = extractKeySize( keyValueSize );
+        int valueSize = extractValueSize( keyValueSize );
+
+        // Same accounting as removeKeyValueAt, the entry becomes dead space and its slot is removed from offset array
+        int allocSpace = getAllocSpace( cursor, keyCount - 1, LEAF );
+        int deadSpace = getDeadSpace( cursor ) + keySize + valueSize + getOverhead( keySize, valueSize, offload );
+        int availableSpace = allocSpace + deadSpace;
+
+        return availableSpace > halfSpace;
+    }
+
     @Override
     int canRebalanceLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
     {
@@ -1043,7 +1138,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         return newRightAllocSpace;
     }
 
-    private int getAllocSpace( PageCursor cursor, int keyCount, Type type )
+    int getAllocSpace( PageCursor cursor, int keyCount, Type type )
     {
         int allocOffset = getAllocOffset( cursor );
         int endOfOffsetArray = type == LEAF ? keyPosOffsetLeaf( keyCount ) : keyPosOffsetInternal( keyCount );
@@ -1136,7 +1231,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         zeroPad( fromCursor, childFromOffset, lengthInBytes );
     }
 
-    private void zeroPad( PageCursor fromCursor, int fromOffset, int lengthInBytes )
+    void zeroPad( PageCursor fromCursor, int fromOffset, int lengthInBytes )
     {
         fromCursor.setOffset( fromOffset );
         fromCursor.putBytes( lengthInBytes, (byte) 0 );
@@ -1173,7 +1268,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         int accumulatedLeftSpace = childSize(); // Leftmost child will always be included in left side
         int currentDelta = Math.abs( accumulatedLeftSpace - targetLeftSpace );
         int prevDelta;
-        int spaceOfNewKeyAndChild = totalSpaceOfKeyChild( newKey );
+        int spaceOfNewKeyAndChild = totalSpaceOfKeyChild( cursor, newKey );
         int totalSpaceIncludingNewKeyAndChild = totalActiveSpace( cursor, keyCountAfterInsert - 1, INTERNAL ) + spaceOfNewKeyAndChild;
         boolean includedNew = false;
         boolean prevPosPossible;
@@ -1187,7 +1282,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
             int space;
             if ( currentPos == insertPos && !includedNew )
             {
-                space = totalSpaceOfKeyChild( newKey );
+                space = spaceOfNewKeyAndChild;
                 includedNew = true;
                 currentPos--;
             }
@@ -1246,7 +1341,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         int accumulatedLeftSpace = 0;
         int currentDelta = targetLeftSpace;
         int prevDelta;
-        int spaceOfNewKey = totalSpaceOfKeyValue( newKey, newValue );
+        int spaceOfNewKey = totalSpaceOfKeyValue( cursor, newKey, newValue );
         int totalSpaceIncludingNewKey = totalActiveSpace( cursor, keyCountAfterInsert - 1, LEAF ) + spaceOfNewKey;
         boolean includedNew = false;
         boolean prevPosPossible;
@@ -1291,21 +1386,22 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         return splitPos;
     }
 
-    private int totalActiveSpace( PageCursor cursor, int keyCount, Type type )
+    int totalActiveSpace( PageCursor cursor, int keyCount, Type type )
     {
         int deadSpace = getDeadSpace( cursor );
         int allocSpace = getAllocSpace( cursor, keyCount, type );
         return totalSpace - deadSpace - allocSpace;
     }
 
-    private int totalSpaceOfKeyValue( KEY key, VALUE value )
+    private int totalSpaceOfKeyValue( PageCursor cursor, KEY key, VALUE value )
     {
         int keySize = layout.keySize( key );
         int valueSize = layout.valueSize( value );
         boolean canInline = canInline( keySize + valueSize );
         if ( canInline )
         {
-            return bytesKeyOffset() + getOverhead( keySize, valueSize, false ) + keySize + valueSize;
+            int inlineKeySize = inlineKeySize( cursor, key, keySize );
+            return bytesKeyOffset() + getOverhead( inlineKeySize, valueSize, false ) + inlineKeySize + valueSize;
         }
         else
         {
@@ -1313,13 +1409,14 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         }
     }
 
-    private int totalSpaceOfKeyChild( KEY key )
+    private int totalSpaceOfKeyChild( PageCursor cursor, KEY key )
     {
         int keySize = layout.keySize( key );
         boolean canInline = canInline( keySize);
         if ( canInline )
         {
-            return bytesKeyOffset() + getOverhead( keySize, 0, false) + childSize() + keySize;
+            int inlineKeySize = inlineKeySize( cursor, key, keySize );
+            return bytesKeyOffset() + getOverhead( inlineKeySize, 0, false) + childSize() + inlineKeySize;
         }
         else
         {
@@ -1369,7 +1466,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         return PageCursorUtil.getUnsignedShort( cursor, BYTE_POS_DEADSPACE );
     }
 
-    private void placeCursorAtActualKey( PageCursor cursor, int pos, Type type )
+    void placeCursorAtActualKey( PageCursor cursor, int pos, Type type )
     {
         // Set cursor to correct place in offset array
         int keyPosOffset = keyPosOffset( pos, type );
@@ -1379,10 +1476,10 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         int keyOffset = readKeyOffset( cursor );
 
         // Verify offset is reasonable
-        if ( keyOffset >= pageSize || keyOffset < HEADER_LENGTH_DYNAMIC )
+        if ( keyOffset >= pageSize || keyOffset < headerLength )
         {
             cursor.setCursorException( format( "Tried to read key on offset=%d, headerLength=%d, pageSize=%d, pos=%d",
-                    keyOffset, HEADER_LENGTH_DYNAMIC, pageSize, pos ) );
+                    keyOffset, headerLength, pageSize, pos ) );
             return;
         }
 
@@ -1401,7 +1498,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         return keySize + valueSize > keyValueSizeCap();
     }
 
-    private int keyPosOffset( int pos, Type type )
+    int keyPosOffset( int pos, Type type )
     {
         if ( type == LEAF )
         {
@@ -1415,13 +1512,13 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
 
     private int keyPosOffsetLeaf( int pos )
     {
-        return HEADER_LENGTH_DYNAMIC + pos * bytesKeyOffset();
+        return headerLength + pos * bytesKeyOffset();
     }
 
     private int keyPosOffsetInternal( int pos )
     {
         // header + childPointer + pos * (keyPosOffsetSize + childPointer)
-        return HEADER_LENGTH_DYNAMIC + childSize() + pos * keyChildSize();
+        return headerLength + childSize() + pos * keyChildSize();
     }
 
     private int keyChildSize()
@@ -1515,7 +1612,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
             }
             else
             {
-                layout.readKey( cursor, readKey, keySize );
+                readInlineKey( cursor, readKey, keySize );
                 if ( type == LEAF )
                 {
                     layout.readValue( cursor, readValue, valueSize );
@@ -1634,7 +1731,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
     private int totalActiveSpaceRaw( PageCursor cursor, int keyCount, Type type )
     {
         // Offset array
-        int offsetArrayStart = HEADER_LENGTH_DYNAMIC;
+        int offsetArrayStart = headerLength;
         int offsetArrayEnd = keyPosOffset( keyCount, type );
         int offsetArraySize = offsetArrayEnd - offsetArrayStart;
 
@@ -1698,7 +1795,7 @@ public class TreeNodeDynamicSize<KEY, VALUE> extends TreeNode<KEY,VALUE>
         return offsetArray.toString();
     }
 
-    private boolean canInline( int entrySize )
+    boolean canInline( int entrySize )
     {
         return entrySize <= inlineKeyValueSizeCap;
     }
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableInt;
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.apache.commons.lang3.tuple.Pair;
+import org.eclipse.collections.api.list.primitive.LongList;
+import org.eclipse.collections.api.list.primitive.MutableLongList;
+import org.eclipse.collections.impl.factory.primitive.LongLists;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.test.Race;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.RandomExtension;
+import org.neo4j.test.extension.pagecache.PageCacheExtension;
+import org.neo4j.test.rule.RandomRule;
+import org.neo4j.test.rule.TestDirectory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+import static org.neo4j.test.Race.throwing;
+
+@ExtendWith( RandomExtension.class )
+@PageCacheExtension
+class BatchedSeekTest
+{
+    private static final int STRIDE = 2;
+
+    @Inject
+    private TestDirectory testDirectory;
+    @Inject
+    private PageCache pageCache;
+    @Inject
+    private RandomRule random;
+
+    private final SimpleLongLayout layout = SimpleLongLayout.longLayout().build();
+
+    @Test
+    void shouldFindKeysOfSortedExactMatches() throws IOException
+    {
+        try ( GBPTree<MutableLong,MutableLong> tree = instantiateTree() )
+        {
+            // given
+            int count = 10_000;
+            insertEntries( tree, 0, count, STRIDE );
+
+            // when
+            List<Pair<MutableLong,MutableLong>> ranges = new ArrayList<>();
+            MutableLongList expected = LongLists.mutable.empty();
+            for ( long key = 0; key < count * STRIDE + 10; key += random.nextInt( 1, 50 ) )
+            {
+                ranges.add( Pair.of( layout.key( key ), layout.key( key ) ) );
+                if ( key % STRIDE == 0 && key < count * STRIDE )
+                {
+                    expected.add( key );
+                }
+            }
+
+            // then
+            try ( Seeker<MutableLong,MutableLong> seeker = tree.batchedSeek( ranges, NULL ) )
+            {
+                assertEquals( expected, keys( seeker ) );
+            }
+        }
+    }
+
+    @Test
+    void shouldFindKeysOfSortedRanges() throws IOException
+    {
+        try ( GBPTree<MutableLong,MutableLong> tree = instantiateTree() )
+        {
+            // given
+            int count = 10_000;
+            insertEntries( tree, 0, count, STRIDE );
+
+            // when
+            List<Pair<MutableLong,MutableLong>> ranges = new ArrayList<>();
+            MutableLongList expected = LongLists.mutable.empty();
+            long from = random.nextInt( 10 );
+            while ( from < count * STRIDE )
+            {
+                boolean exact = random.nextBoolean();
+                long to = exact ? from : from + random.nextInt( 1, 200 );
+                ranges.add( Pair.of( layout.key( from ), layout.key( to ) ) );
+                for ( long key = from; key < to || (exact && key == to); key++ )
+                {
+                    if ( key % STRIDE == 0 && key < count * STRIDE )
+                    {
+                        expected.add( key );
+                    }
+                }
+                // Next range may start exactly where a non-exact range ends
+                from = exact ? to + random.nextInt( 1, 500 ) : to + random.nextInt( 500 );
+            }
+
+            // then
+            try ( Seeker<MutableLong,MutableLong> seeker = tree.batchedSeek( ranges, NULL ) )
+            {
+                assertEquals( expected, keys( seeker ) );
+            }
+        }
+    }
+
+    @Test
+    void shouldPinFewerPagesThanSeekingEachRangeSeparately() throws IOException
+    {
+        try ( GBPTree<MutableLong,MutableLong> tree = instantiateTree() )
+        {
+            // given
+            int count = 10_000;
+            insertEntries( tree, 0, count, STRIDE );
+            assertTrue( depthOf( tree ) > 0 );
+            List<Pair<MutableLong,MutableLong>> ranges = new ArrayList<>();
+            for ( long key = 0; key < 1_000; key += STRIDE )
+            {
+                ranges.add( Pair.of( layout.key( key ), layout.key( key ) ) );
+            }
+
+            // when
+            PageCursorTracer separateTracer = new DefaultPageCacheTracer().createPageCursorTracer( "separate" );
+            for ( Pair<MutableLong,MutableLong> range : ranges )
+            {
+                try ( Seeker<MutableLong,MutableLong> seeker = tree.seek( range.getLeft(), range.getRight(), separateTracer ) )
+                {
+                    assertTrue( seeker.next() );
+                }
+            }
+            PageCursorTracer batchedTracer = new DefaultPageCacheTracer().createPageCursorTracer( "batched" );
+            try ( Seeker<MutableLong,MutableLong> seeker = tree.batchedSeek( ranges, batchedTracer ) )
+            {
+                assertEquals( ranges.size(), keys( seeker ).size() );
+            }
+
+            // then
+            assertTrue( batchedTracer.pins() * 10 < separateTracer.pins(),
+                    "Expected batched seek to pin considerably fewer pages, batched:" + batchedTracer.pins() + " separate:" + separateTracer.pins() );
+        }
+    }
+
+    @Test
+    void shouldFindKeysOfSortedExactMatchesDuringConcurrentInserts() throws Throwable
+    {
+        try ( GBPTree<MutableLong,MutableLong> tree = instantiateTree() )
+        {
+            // given
+            int count = 5_000;
+            insertEntries( tree, 0, count, STRIDE );
+            List<Pair<MutableLong,MutableLong>> ranges = new ArrayList<>();
+            for ( long key = 0; key < count * STRIDE; key += STRIDE * random.nextInt( 1, 4 ) )
+            {
+                ranges.add( Pair.of( layout.key( key ), layout.key( key ) ) );
+            }
+
+            // when inserting keys in between the keys to seek, causing splits
+            MutableInt found = new MutableInt();
+            Race race = new Race();
+            race.addContestant( throwing( () -> insertEntries( tree, 1, count, STRIDE ) ) );
+            race.addContestant( throwing( () ->
+            {
+                for ( int i = 0; i < 10; i++ )
+                {
+                    try ( Seeker<MutableLong,MutableLong> seeker = tree.batchedSeek( ranges, NULL ) )
+                    {
+                        found.add( keys( seeker ).size() );
+                    }
+                }
+            } ) );
+            race.go();
+
+            // then
+            assertEquals( ranges.size() * 10, found.intValue() );
+        }
+    }
+
+    @Test
+    void shouldThrowOnUnsortedRanges() throws IOException
+    {
+        try ( GBPTree<MutableLong,MutableLong> tree = instantiateTree() )
+        {
+            // given
+            insertEntries( tree, 0, 100, 1 );
+            List<Pair<MutableLong,MutableLong>> ranges = List.of( Pair.of( layout.key( 10 ), layout.key( 20 ) ), Pair.of( layout.key( 15 ), layout.key( 30 ) ) );
+
+            // when
+            try ( Seeker<MutableLong,MutableLong> seeker = tree.batchedSeek( ranges, NULL ) )
+            {
+                // then
+                assertThrows( IllegalArgumentException.class, () -> keys( seeker ) );
+            }
+        }
+    }
+
+    @Test
+    void shouldThrowOnBackwardRange() throws IOException
+    {
+        try ( GBPTree<MutableLong,MutableLong> tree = instantiateTree() )
+        {
+            List<Pair<MutableLong,MutableLong>> ranges = List.of( Pair.of( layout.key( 10 ), layout.key( 0 ) ) );
+            assertThrows( IllegalArgumentException.class, () -> tree.batchedSeek( ranges, NULL ) );
+        }
+    }
+
+    @Test
+    void shouldNotModifyProvidedKeys() throws IOException
+    {
+        try ( GBPTree<MutableLong,MutableLong> tree = instantiateTree() )
+        {
+            // given
+            insertEntries( tree, 0, 100, 1 );
+            MutableLong from = layout.key( 10 );
+            MutableLong to = layout.key( 20 );
+
+            // when
+            try ( Seeker<MutableLong,MutableLong> seeker = tree.batchedSeek( List.of( Pair.of( from, to ) ), NULL ) )
+            {
+                assertEquals( 10, keys( seeker ).size() );
+                assertFalse( seeker.next() );
+            }
+
+            // then
+            assertEquals( 10, from.longValue() );
+            assertEquals( 20, to.longValue() );
+        }
+    }
+
+    private GBPTree<MutableLong,MutableLong> instantiateTree()
+    {
+        return new GBPTreeBuilder<>( pageCache, testDirectory.file( "tree" ), layout ).build();
+    }
+
+    private static LongList keys( Seeker<MutableLong,MutableLong> seeker ) throws IOException
+    {
+        MutableLongList keys = LongLists.mutable.empty();
+        while ( seeker.next() )
+        {
+            keys.add( seeker.key().longValue() );
+        }
+        return keys;
+    }
+
+    private void insertEntries( GBPTree<MutableLong,MutableLong> tree, long startId, int count, int stride ) throws IOException
+    {
+        try ( Writer<MutableLong,MutableLong> writer = tree.writer( NULL ) )
+        {
+            MutableLong value = layout.value( 0 );
+            for ( long i = 0, id = startId; i < count; i++, id += stride )
+            {
+                writer.put( layout.key( id ), value );
+            }
+        }
+    }
+
+    private int depthOf( GBPTree<MutableLong,MutableLong> tree ) throws IOException
+    {
+        MutableInt highestLevel = new MutableInt();
+        tree.visit( new GBPTreeVisitor.Adaptor<>()
+        {
+            @Override
+            public void beginLevel( int level )
+            {
+                highestLevel.setValue( Integer.max( highestLevel.getValue(), level ) );
+            }
+        }, NULL );
+        return highestLevel.getValue();
+    }
+}
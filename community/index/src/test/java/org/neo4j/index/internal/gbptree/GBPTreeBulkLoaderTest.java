@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.io.fs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.pagecache.PageCacheSupportExtension;
+import org.neo4j.test.extension.testdirectory.EphemeralTestDirectoryExtension;
+import org.neo4j.test.rule.PageCacheConfig;
+import org.neo4j.test.rule.TestDirectory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+
+@EphemeralTestDirectoryExtension
+class GBPTreeBulkLoaderTest
+{
+    private static final int COUNT = 10_000;
+
+    @RegisterExtension
+    static PageCacheSupportExtension pageCacheExtension = new PageCacheSupportExtension( PageCacheConfig.config().withPageSize( 512 ) );
+    @Inject
+    private TestDirectory directory;
+    @Inject
+    private PageCache pageCache;
+    @Inject
+    private FileSystemAbstraction fs;
+
+    @Test
+    void shouldBulkLoadFixedSizeTree() throws IOException
+    {
+        shouldBulkLoad( SimpleLongLayout.longLayout().withFixedSize( true ).build(), 1 );
+        shouldBulkLoad( SimpleLongLayout.longLayout().withFixedSize( true ).build(), 0.7 );
+    }
+
+    @Test
+    void shouldBulkLoadDynamicSizeTree() throws IOException
+    {
+        shouldBulkLoad( SimpleLongLayout.longLayout().withFixedSize( false ).build(), 1 );
+        shouldBulkLoad( SimpleLongLayout.longLayout().withFixedSize( false ).build(), 0.7 );
+    }
+
+    @Test
+    void shouldBulkLoadLargeKeys() throws IOException
+    {
+        // Keys with large padding makes few keys fit in each node, making the tree deep
+        shouldBulkLoad( SimpleLongLayout.longLayout().withFixedSize( false ).withKeyPadding( 100 ).build(), 1 );
+    }
+
+    @Test
+    void shouldBulkLoadOffloadedEntries() throws IOException
+    {
+        // Keys too large to be inlined in the nodes
+        shouldBulkLoad( SimpleLongLayout.longLayout().withFixedSize( false ).withKeyPadding( 300 ).build(), 1 );
+    }
+
+    @Test
+    void shouldBulkLoadWithSmallestFillFactor() throws IOException
+    {
+        // One entry in each node
+        shouldBulkLoad( SimpleLongLayout.longLayout().withFixedSize( true ).build(), Double.MIN_VALUE );
+    }
+
+    @Test
+    void shouldUseMoreSpaceWithLowerFillFactor() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().withFixedSize( false ).build();
+        long denseSize = bulkLoadedFileSize( layout, 1 );
+        long sparseSize = bulkLoadedFileSize( layout, 0.5 );
+        assertThat( sparseSize ).isGreaterThan( denseSize * 3 / 2 );
+    }
+
+    @Test
+    void shouldLeaveTreeEmptyIfNothingAdded() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().build();
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            try ( BulkLoader<MutableLong,MutableLong> ignored = tree.bulkLoader( NULL ) )
+            {
+                // add nothing
+            }
+            assertTrue( tree.consistencyCheck( NULL ) );
+            assertContent( tree, layout, 0 );
+        }
+    }
+
+    @Test
+    void shouldAllowRegularWritesAfterBulkLoad() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().withFixedSize( false ).build();
+        File file = directory.file( "index" );
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+        {
+            bulkLoad( tree, layout, 1, 0, COUNT, 2 );
+
+            // when filling the gaps
+            try ( Writer<MutableLong,MutableLong> writer = tree.writer( NULL ) )
+            {
+                for ( int i = 1; i < COUNT; i += 2 )
+                {
+                    writer.put( layout.key( i ), layout.value( i ) );
+                }
+            }
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+        }
+
+        // then
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+        {
+            assertTrue( tree.consistencyCheck( NULL ) );
+            assertContent( tree, layout, COUNT );
+        }
+    }
+
+    @Test
+    void shouldNotAllowUnsortedKeys() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().build();
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            try ( BulkLoader<MutableLong,MutableLong> loader = tree.bulkLoader( NULL ) )
+            {
+                loader.add( layout.key( 0 ), layout.value( 0 ) );
+                loader.add( layout.key( 1 ), layout.value( 1 ) );
+                assertThrows( IllegalArgumentException.class, () -> loader.add( layout.key( 1 ), layout.value( 1 ) ) );
+                assertThrows( IllegalArgumentException.class, () -> loader.add( layout.key( 0 ), layout.value( 0 ) ) );
+                loader.add( layout.key( 2 ), layout.value( 2 ) );
+            }
+            assertTrue( tree.consistencyCheck( NULL ) );
+            assertContent( tree, layout, 3 );
+        }
+    }
+
+    @Test
+    void shouldNotAllowBulkLoadIntoNonEmptyTree() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().build();
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            try ( Writer<MutableLong,MutableLong> writer = tree.writer( NULL ) )
+            {
+                writer.put( layout.key( 0 ), layout.value( 0 ) );
+            }
+
+            assertThrows( IllegalStateException.class, () -> tree.bulkLoader( NULL ) );
+
+            // and the failed attempt should not keep the tree locked
+            try ( Writer<MutableLong,MutableLong> writer = tree.writer( NULL ) )
+            {
+                writer.put( layout.key( 1 ), layout.value( 1 ) );
+            }
+            assertContent( tree, layout, 2 );
+        }
+    }
+
+    @Test
+    void shouldNotAllowInvalidFillFactor() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().build();
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            assertThrows( IllegalArgumentException.class, () -> tree.bulkLoader( 0, NULL ) );
+            assertThrows( IllegalArgumentException.class, () -> tree.bulkLoader( 1.1, NULL ) );
+        }
+    }
+
+    @Test
+    void shouldNotSeeBulkLoadedEntriesAfterCrashBeforeCheckpoint() throws IOException
+    {
+        SimpleLongLayout layout = SimpleLongLayout.longLayout().build();
+        File file = directory.file( "index" );
+        try ( EphemeralFileSystemAbstraction ephemeralFs = new EphemeralFileSystemAbstraction() )
+        {
+            ephemeralFs.mkdirs( file.getParentFile() );
+            PageCache pageCache = pageCacheExtension.getPageCache( ephemeralFs );
+            EphemeralFileSystemAbstraction snapshot;
+            try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+            {
+                tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+                bulkLoad( tree, layout, 1, 0, COUNT, 1 );
+
+                // crash
+                pageCache.flushAndForce();
+                snapshot = ephemeralFs.snapshot();
+            }
+            pageCache.close();
+
+            pageCache = pageCacheExtension.getPageCache( snapshot );
+            try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+            {
+                assertContent( tree, layout, 0 );
+
+                // and the tree should still be possible to bulk load
+                bulkLoad( tree, layout, 1, 0, COUNT, 1 );
+                assertContent( tree, layout, COUNT );
+            }
+            finally
+            {
+                pageCache.close();
+                snapshot.close();
+            }
+        }
+    }
+
+    private void shouldBulkLoad( SimpleLongLayout layout, double fillFactor ) throws IOException
+    {
+        File file = directory.file( "index-" + fillFactor );
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+        {
+            bulkLoad( tree, layout, fillFactor, 0, COUNT, 1 );
+
+            assertTrue( tree.consistencyCheck( NULL ) );
+            assertContent( tree, layout, COUNT );
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+        }
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+        {
+            assertTrue( tree.consistencyCheck( NULL ) );
+            assertContent( tree, layout, COUNT );
+        }
+    }
+
+    private long bulkLoadedFileSize( SimpleLongLayout layout, double fillFactor ) throws IOException
+    {
+        File file = directory.file( "index-" + fillFactor );
+        try ( GBPTree<MutableLong,MutableLong> tree = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+        {
+            bulkLoad( tree, layout, fillFactor, 0, COUNT, 1 );
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+        }
+        return fs.getFileSize( file );
+    }
+
+    private static void bulkLoad( GBPTree<MutableLong,MutableLong> tree, SimpleLongLayout layout, double fillFactor, int from, int to, int step )
+            throws IOException
+    {
+        try ( BulkLoader<MutableLong,MutableLong> loader = tree.bulkLoader( fillFactor, NULL ) )
+        {
+            for ( int i = from; i < to; i += step )
+            {
+                loader.add( layout.key( i ), layout.value( i ) );
+            }
+        }
+    }
+
+    private static void assertContent( GBPTree<MutableLong,MutableLong> tree, SimpleLongLayout layout, int count ) throws IOException
+    {
+        try ( Seeker<MutableLong,MutableLong> seek = tree.seek( layout.key( Long.MIN_VALUE ), layout.key( Long.MAX_VALUE ), NULL ) )
+        {
+            for ( int i = 0; i < count; i++ )
+            {
+                assertTrue( seek.next() );
+                assertEquals( i, layout.keySeed( seek.key() ) );
+                assertEquals( i, layout.valueSeed( seek.value() ) );
+            }
+            assertFalse( seek.next() );
+        }
+    }
+}
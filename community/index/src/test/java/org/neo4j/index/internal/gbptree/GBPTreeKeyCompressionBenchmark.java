@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableInt;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.SplittableRandom;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.mem.MemoryAllocator;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
+import org.neo4j.memory.EmptyMemoryTracker;
+import org.neo4j.test.scheduler.ThreadPoolJobScheduler;
+import org.neo4j.time.Clocks;
+
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+
+/**
+ * Inserts URL-like keys, sharing long prefixes, in random order into a tree using the plain dynamic size node format and
+ * into a tree using the {@link Layout#compressKeyPrefixes() prefix compressed} node format. Reports tree height, number of
+ * tree nodes, size of those nodes, pinned pages per exact match seek and average exact match seek latency for both formats.
+ */
+public class GBPTreeKeyCompressionBenchmark
+{
+    private static final int DEFAULT_KEY_COUNT = 1_000_000;
+    private static final int SEEKS = 1_000_000;
+    private static final int WARMUP_SEEKS = 200_000;
+
+    private GBPTreeKeyCompressionBenchmark()
+    {
+    }
+
+    /**
+     * @param args optionally the number of keys to insert, defaults to 1M keys.
+     */
+    public static void main( String[] args ) throws Exception
+    {
+        int keyCount = args.length == 0 ? DEFAULT_KEY_COUNT : Integer.parseInt( args[0] );
+        SimpleByteArrayLayout plain = new SimpleByteArrayLayout( false );
+        SimpleByteArrayLayout compressed = new SimpleByteArrayLayout( false )
+        {
+            @Override
+            public boolean compressKeyPrefixes()
+            {
+                return true;
+            }
+        };
+        File directory = Files.createTempDirectory( "gbptree-benchmark" ).toFile();
+        try ( FileSystemAbstraction fs = new DefaultFileSystemAbstraction();
+              ThreadPoolJobScheduler jobScheduler = new ThreadPoolJobScheduler();
+              PageCache pageCache = new MuninnPageCache( new SingleFilePageSwapperFactory( fs ),
+                      MemoryAllocator.createAllocator( ByteUnit.mebiBytes( 512 ), EmptyMemoryTracker.INSTANCE ), PageCacheTracer.NULL,
+                      EmptyVersionContextSupplier.EMPTY, jobScheduler, Clocks.nanoClock() ) )
+        {
+            System.out.printf( "%-12s %8s %10s %12s %12s %12s%n", "format", "height", "nodes", "tree size", "pages/seek", "ns/seek" );
+            measure( fs, directory, pageCache, plain, "dynamic", keyCount );
+            measure( fs, directory, pageCache, compressed, "compressed", keyCount );
+            fs.deleteRecursively( directory );
+        }
+    }
+
+    private static void measure( FileSystemAbstraction fs, File directory, PageCache pageCache, SimpleByteArrayLayout layout, String name,
+            int keyCount ) throws IOException
+    {
+        File file = new File( directory, name );
+        try ( GBPTree<RawBytes,RawBytes> tree = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+        {
+            SplittableRandom random = new SplittableRandom( 42 );
+            int[] order = shuffled( keyCount, random );
+            try ( Writer<RawBytes,RawBytes> writer = tree.writer( NULL ) )
+            {
+                RawBytes value = new RawBytes( new byte[Long.BYTES] );
+                for ( int i : order )
+                {
+                    writer.put( key( i ), value );
+                }
+            }
+            tree.checkpoint( IOLimiter.UNLIMITED, NULL );
+
+            MutableInt height = new MutableInt();
+            MutableInt nodes = new MutableInt();
+            tree.visit( new GBPTreeVisitor.Adaptor<>()
+            {
+                @Override
+                public void beginLevel( int level )
+                {
+                    height.setValue( Math.max( height.intValue(), level + 1 ) );
+                }
+
+                @Override
+                public void beginNode( long pageId, boolean isLeaf, long generation, int keyCount )
+                {
+                    nodes.increment();
+                }
+            }, NULL );
+
+            seek( tree, keyCount, WARMUP_SEEKS, random, NULL );
+            DefaultPageCacheTracer pageCacheTracer = new DefaultPageCacheTracer();
+            PageCursorTracer cursorTracer = pageCacheTracer.createPageCursorTracer( "seek" );
+            long start = System.nanoTime();
+            seek( tree, keyCount, SEEKS, random, cursorTracer );
+            long elapsed = System.nanoTime() - start;
+
+            long treeSize = nodes.intValue() * (long) pageCache.pageSize();
+            System.out.printf( "%-12s %8d %10d %10dkB %12.2f %12.0f%n", name, height.intValue(), nodes.intValue(), treeSize / 1024,
+                    cursorTracer.pins() / (double) SEEKS, elapsed / (double) SEEKS );
+        }
+        finally
+        {
+            fs.deleteFile( file );
+        }
+    }
+
+    private static void seek( GBPTree<RawBytes,RawBytes> tree, int keyCount, int seeks, SplittableRandom random, PageCursorTracer cursorTracer )
+            throws IOException
+    {
+        for ( int i = 0; i < seeks; i++ )
+        {
+            RawBytes key = key( random.nextInt( keyCount ) );
+            try ( Seeker<RawBytes,RawBytes> seeker = tree.seek( key, key, cursorTracer ) )
+            {
+                if ( !seeker.next() )
+                {
+                    throw new IllegalStateException( "Expected to find " + new String( key.bytes, StandardCharsets.UTF_8 ) );
+                }
+            }
+        }
+    }
+
+    private static int[] shuffled( int count, SplittableRandom random )
+    {
+        int[] order = new int[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            order[i] = i;
+        }
+        for ( int i = count - 1; i > 0; i-- )
+        {
+            int j = random.nextInt( i + 1 );
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        return order;
+    }
+
+    private static RawBytes key( int i )
+    {
+        String url = String.format( "https://www.example.com/catalog/category-%03d/products/item-%010d", i % 100, i );
+        return new RawBytes( url.getBytes( StandardCharsets.UTF_8 ) );
+    }
+}
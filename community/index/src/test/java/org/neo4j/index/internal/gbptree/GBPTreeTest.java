@@ -233,6 +233,40 @@ class GBPTreeTest
         }
     }
 
+    @Test
+    void shouldOpenPrefixCompressedTreeWithLayoutNotCompressingKeys() throws Exception
+    {
+        // GIVEN
+        PageCache pageCache = createPageCache( defaultPageSize );
+        SimpleByteArrayLayout compressingLayout = new SimpleByteArrayLayout()
+        {
+            @Override
+            public boolean compressKeyPrefixes()
+            {
+                return true;
+            }
+        };
+        try ( GBPTree<RawBytes,RawBytes> index = new GBPTreeBuilder<>( pageCache, indexFile, compressingLayout ).build() )
+        {
+            try ( Writer<RawBytes,RawBytes> writer = index.writer( NULL ) )
+            {
+                writer.put( compressingLayout.key( 1 ), compressingLayout.value( 1 ) );
+            }
+            index.checkpoint( UNLIMITED, NULL );
+        }
+
+        // WHEN
+        SimpleByteArrayLayout layout = new SimpleByteArrayLayout();
+        try ( GBPTree<RawBytes,RawBytes> index = new GBPTreeBuilder<>( pageCache, indexFile, layout ).build();
+              Seeker<RawBytes,RawBytes> seek = index.seek( layout.key( 0 ), layout.key( 2 ), NULL ) )
+        {
+            // THEN
+            assertTrue( seek.next() );
+            assertEquals( 1, layout.keySeed( seek.key() ) );
+            assertFalse( seek.next() );
+        }
+    }
+
     @Test
     void shouldFailOnOpenWithDifferentPageSize() throws Exception
     {
@@ -601,7 +601,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         {
             insert( key( i ), value( i ) );
         }
-        insert( key( i ), value( i ) ); // And one more to avoid rebalance
+        insertUntilRightChildDoesNotUnderflowOnRemove( i ); // And more to avoid rebalance
 
         // when key to remove exists in internal
         KEY internalKey = structurePropagation.rightKey;
@@ -673,7 +673,7 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         {
             insert( key( i ), value( i ) );
         }
-        insert( key( i ), value( i ) ); // And an extra to not cause rebalance
+        insertUntilRightChildDoesNotUnderflowOnRemove( i ); // And more to not cause rebalance
 
         // when key to remove exists in internal
         long currentRightChild = structurePropagation.rightChild;
@@ -1801,6 +1801,23 @@ abstract class InternalTreeLogicTestBase<KEY, VALUE>
         return TreeNode.keyCount( readCursor );
     }
 
+    /**
+     * Inserts keys from the given seed and onwards until removing the first key in right child of root no longer makes it underflow.
+     * How many are needed depends on how compactly the tree node format stores the keys.
+     */
+    private void insertUntilRightChildDoesNotUnderflowOnRemove( int seed ) throws IOException
+    {
+        int keyCount;
+        do
+        {
+            insert( key( seed ), value( seed ) );
+            seed++;
+            goTo( readCursor, structurePropagation.rightChild );
+            keyCount = keyCount();
+        }
+        while ( node.leafUnderflowAfterRemove( readCursor, 0, keyCount ) );
+    }
+
     void initialize()
     {
         node.initializeLeaf( cursor, stableGeneration, unstableGeneration );
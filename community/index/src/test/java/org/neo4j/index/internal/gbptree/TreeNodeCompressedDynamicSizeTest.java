@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.neo4j.io.pagecache.PageCursor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.neo4j.index.internal.gbptree.TreeNode.Type.LEAF;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+
+public class TreeNodeCompressedDynamicSizeTest extends TreeNodeTestBase<RawBytes,RawBytes>
+{
+    private static final long STABLE_GENERATION = 3;
+    private static final long UNSTABLE_GENERATION = 4;
+
+    private SimpleByteArrayLayout layout = new SimpleByteArrayLayout();
+    private SimpleByteArrayLayout byteOrderLayout = new SimpleByteArrayLayout( false );
+
+    @Override
+    protected TestLayout<RawBytes,RawBytes> getLayout()
+    {
+        return layout;
+    }
+
+    @Override
+    protected TreeNodeCompressedDynamicSize<RawBytes,RawBytes> getNode( int pageSize, Layout<RawBytes,RawBytes> layout,
+            OffloadStore<RawBytes,RawBytes> offloadStore )
+    {
+        return new TreeNodeCompressedDynamicSize<>( pageSize, layout, offloadStore );
+    }
+
+    @Override
+    void assertAdditionalHeader( PageCursor cursor, TreeNode<RawBytes,RawBytes> node, int pageSize )
+    {
+        // When
+        int currentAllocSpace = ((TreeNodeDynamicSize) node).getAllocOffset( cursor );
+
+        // Then
+        assertEquals( pageSize, currentAllocSpace, "allocSpace point to end of page" );
+    }
+
+    @Test
+    void shouldOnlyStoreSuffixOfKeySharingPrefixWithAnchor() throws IOException
+    {
+        // given
+        TreeNodeCompressedDynamicSize<RawBytes,RawBytes> node = getNode( PAGE_SIZE, byteOrderLayout, createOffloadStore() );
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        RawBytes first = rawBytes( "example.com/0001" );
+        RawBytes second = rawBytes( "example.com/0002" );
+        RawBytes value = rawBytes( "" );
+        node.insertKeyValueAt( cursor, first, value, 0, 0, STABLE_GENERATION, UNSTABLE_GENERATION, NULL );
+
+        // when
+        int allocOffsetBefore = node.getAllocOffset( cursor );
+        node.insertKeyValueAt( cursor, second, value, 1, 1, STABLE_GENERATION, UNSTABLE_GENERATION, NULL );
+        int allocOffsetAfter = node.getAllocOffset( cursor );
+
+        // then shared length, one differing byte and key size header
+        assertEquals( 3, allocOffsetBefore - allocOffsetAfter );
+        assertArrayEquals( first.bytes, node.keyAt( cursor, byteOrderLayout.newKey(), 0, LEAF, NULL ).bytes );
+        assertArrayEquals( second.bytes, node.keyAt( cursor, byteOrderLayout.newKey(), 1, LEAF, NULL ).bytes );
+    }
+
+    @Test
+    void shouldReEncodeRightLeafWhenMergingLeavesWithDifferentAnchors() throws IOException
+    {
+        // given
+        TreeNodeCompressedDynamicSize<RawBytes,RawBytes> node = getNode( PAGE_SIZE, byteOrderLayout, createOffloadStore() );
+        PageAwareByteArrayCursor rightCursor = cursor.duplicate( cursor.getCurrentPageId() + 1 );
+        rightCursor.next();
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        node.initializeLeaf( rightCursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        RawBytes[] keys = {
+                rawBytes( "https://example.com/a/0001" ), rawBytes( "https://example.com/a/0002" ),
+                rawBytes( "https://example.org/b/0001" ), rawBytes( "https://example.org/b/0002" )};
+        for ( int i = 0; i < keys.length; i++ )
+        {
+            PageCursor target = i < 2 ? cursor : rightCursor;
+            node.insertKeyValueAt( target, keys[i], rawBytes( "v" + i ), i % 2, i % 2, STABLE_GENERATION, UNSTABLE_GENERATION, NULL );
+        }
+
+        // when
+        assertTrue( node.canMergeLeaves( cursor, 2, rightCursor, 2 ) );
+        node.copyKeyValuesFromLeftToRight( cursor, 2, rightCursor, 2 );
+
+        // then
+        assertEquals( keys.length, TreeNode.keyCount( rightCursor ) );
+        for ( int i = 0; i < keys.length; i++ )
+        {
+            RawBytes key = byteOrderLayout.newKey();
+            RawBytes value = byteOrderLayout.newValue();
+            node.keyValueAt( rightCursor, key, value, i, NULL );
+            assertArrayEquals( keys[i].bytes, key.bytes );
+            assertArrayEquals( rawBytes( "v" + i ).bytes, value.bytes );
+        }
+        assertEquals( "", node.checkMetaConsistency( rightCursor, keys.length, LEAF, new GBPTreeConsistencyCheckVisitor.Adaptor<>() ) );
+    }
+
+    private static RawBytes rawBytes( String string )
+    {
+        RawBytes rawBytes = new RawBytes();
+        rawBytes.bytes = string.getBytes( StandardCharsets.UTF_8 );
+        return rawBytes;
+    }
+}
@@ -232,6 +232,34 @@ public abstract class TreeNodeTestBase<KEY,VALUE>
         assertValueEquals( secondValue, node.valueAt( cursor, readValue, 1, NULL ) );
     }
 
+    @Test
+    void shouldFillLeafUpToFillFactor() throws IOException
+    {
+        int fullKeyCount = leafKeyCountFilledTo( 1 );
+        int halfKeyCount = leafKeyCountFilledTo( 0.5 );
+
+        assertTrue( halfKeyCount >= 1 && halfKeyCount < fullKeyCount );
+        assertEquals( 1, leafKeyCountFilledTo( Double.MIN_VALUE ) );
+    }
+
+    private int leafKeyCountFilledTo( double fillFactor ) throws IOException
+    {
+        node.initializeLeaf( cursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        int keyCount = 0;
+        while ( !node.leafFilledBeyond( cursor, keyCount, key( keyCount ), value( keyCount ), fillFactor ) )
+        {
+            assertEquals( TreeNode.Overflow.NO, node.leafOverflow( cursor, keyCount, key( keyCount ), value( keyCount ) ) );
+            node.insertKeyValueAt( cursor, key( keyCount ), value( keyCount ), keyCount, keyCount, STABLE_GENERATION, UNSTABLE_GENERATION, NULL );
+            keyCount++;
+            TreeNode.setKeyCount( cursor, keyCount );
+        }
+        if ( fillFactor == 1 )
+        {
+            assertEquals( YES, node.leafOverflow( cursor, keyCount, key( keyCount ), value( keyCount ) ) );
+        }
+        return keyCount;
+    }
+
     @Test
     void keyChildOperationsInInternal() throws IOException
     {
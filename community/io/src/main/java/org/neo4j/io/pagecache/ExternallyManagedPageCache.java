@@ -24,6 +24,7 @@ import org.eclipse.collections.api.set.ImmutableSet;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.OpenOption;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -86,6 +87,12 @@ public class ExternallyManagedPageCache implements PageCache
         delegate.flushAndForce( limiter );
     }
 
+    @Override
+    public void flushAndForce( Collection<PagedFile> files, IOLimiter limiter ) throws IOException
+    {
+        delegate.flushAndForce( files, limiter );
+    }
+
     @Override
     public int pageSize()
     {
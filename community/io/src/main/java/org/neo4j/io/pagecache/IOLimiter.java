@@ -67,6 +67,31 @@ public interface IOLimiter
      */
     long maybeLimitIO( long previousStamp, int recentlyCompletedIOs, Flushable flushable );
 
+    /**
+     * Invoked when the flush of the given file starts, before any of its pages are written. A file that is flushed by
+     * several threads at once reports the start of each of its ranges of pages, so this can be called more than once
+     * for the same file in a flush.
+     *
+     * @param flushable the file that is being flushed, which is the same {@link Flushable} that is given to
+     * {@link #maybeLimitIO(long, int, Flushable)} for its writes.
+     */
+    default void beginFileFlush( Flushable flushable )
+    {
+        // By default this method does nothing, since the timing of a flush is of no concern to most limiters.
+    }
+
+    /**
+     * Invoked when the flush of the given file is complete, after all of its pages have been written and the file
+     * has been forced.
+     *
+     * @param flushable the file that has been flushed.
+     * @see #beginFileFlush(Flushable)
+     */
+    default void endFileFlush( Flushable flushable )
+    {
+        // Same as for beginFileFlush(Flushable).
+    }
+
     /**
      * Temporarily disable the IOLimiter, to allow IO to proceed at full speed.
      * This call <strong>MUST</strong> be paired with a subsequent {@link #enableLimit()} call.
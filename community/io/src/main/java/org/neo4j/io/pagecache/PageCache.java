@@ -25,6 +25,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -161,6 +162,23 @@ public interface PageCache extends AutoCloseable
      */
     void flushAndForce( IOLimiter limiter ) throws IOException;
 
+    /**
+     * Flush the dirty pages of the given files, and limit the rate of IO as advised by the given IOPSLimiter.
+     * By default the files are flushed one after the other. Implementations may flush them together, in the same way
+     * as {@link #flushAndForce(IOLimiter)} flushes all files.
+     *
+     * @param files The {@link PagedFile}s to flush, as mapped through this page cache.
+     * @param limiter The {@link IOLimiter} that determines if pauses or sleeps should be injected into the flushing
+     * process to keep the IO rate down.
+     */
+    default void flushAndForce( Collection<PagedFile> files, IOLimiter limiter ) throws IOException
+    {
+        for ( PagedFile file : files )
+        {
+            file.flushAndForce( limiter );
+        }
+    }
+
     /**
      * Close the page cache to prevent any future mapping of files.
      * This also releases any internal resources, including the {@link PageSwapperFactory} through its
@@ -44,5 +44,13 @@ public enum PageCacheOpenOptions implements OpenOption
      * Please check that your platform is supported before providing this option.
      * @see ExtendedOpenOption for details.
      */
-    DIRECT
+    DIRECT,
+
+    /**
+     * Map the file for reading only. The file must exist, and it must not be modified by anyone while it is mapped.
+     * Attempting to open a write cursor on a file mapped with this option will fail.
+     * This allows the page cache to use a {@link PageSwapperFactory#createReadOnlyPageSwapper(File, int, PageEvictionCallback) read-only
+     * page swapper}, that can serve page faults more cheaply.
+     */
+    READ_ONLY
 }
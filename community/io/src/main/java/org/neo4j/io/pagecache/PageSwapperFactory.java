@@ -63,6 +63,23 @@ public interface PageSwapperFactory
             boolean createIfNotExist,
             boolean useDirectIO ) throws IOException;
 
+    /**
+     * Create a PageSwapper for a file that will only ever be read from, and that nobody else will modify, while it is mapped.
+     * <p>
+     * Implementations can use this knowledge to serve page faults more cheaply, for instance by memory mapping the file. By default, this
+     * creates a regular page swapper for the file.
+     *
+     * @param file The file that the PageSwapper will move file pages in from. The file must exist.
+     * @param filePageSize The size of the pages in the file.
+     * @param onEviction The PageSwapper will be told about evictions, and has the responsibility of informing the PagedFile via this callback.
+     * @return A working PageSwapper instance for the given file, that does not necessarily support writes.
+     * @throws IOException If the PageSwapper could not be created, for instance if the underlying file could not be opened.
+     */
+    default PageSwapper createReadOnlyPageSwapper( File file, int filePageSize, PageEvictionCallback onEviction ) throws IOException
+    {
+        return createPageSwapper( file, filePageSize, onEviction, false, false );
+    }
+
     /**
      * Close and release any resources associated with this PageSwapperFactory, that it may have opened or acquired
      * during its construction or use.
@@ -22,6 +22,7 @@ package org.neo4j.io.pagecache;
 import java.io.File;
 import java.io.IOException;
 
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 
 /**
@@ -75,13 +76,21 @@ public interface PagedFile extends AutoCloseable
      */
     int PF_NO_FAULT = 1 << 4;
     /**
-     * Do not update page access statistics.
+     * Do not update page access statistics. Pinning a page with this flag does not count as a use of the page by the
+     * eviction policy, nor as a hit in the {@link #counters() per-file counters}. This is useful for background
+     * inspections of the page cache, that should not make the pages they look at appear hot.
      */
-    int PF_TRANSIENT = 1 << 5; // TBD
+    int PF_TRANSIENT = 1 << 5;
     /**
      * Flush pages more aggressively, after they have been dirtied by a write cursor.
      */
     int PF_EAGER_FLUSH = 1 << 6;
+    /**
+     * Let a read cursor read ahead on its own, once it notices that it is faulting in consecutive pages. Unlike
+     * {@link #PF_READ_AHEAD}, this reads in a growing window of the following pages with vectored reads on every fault.
+     * Read-ahead pages are counted as bytes read, but not as faults, by the cursor tracer.
+     */
+    int PF_ADAPTIVE_READ_AHEAD = 1 << 7;
 
     /**
      * Initiate an IO interaction with the contents of the paged file.
@@ -154,6 +163,11 @@ public interface PagedFile extends AutoCloseable
      */
     File file();
 
+    /**
+     * Get the page cache counters of this file; its hits, faults, evictions, flushes, and bytes read or written.
+     */
+    PagedFileCounters counters();
+
     /**
      * Flush all dirty pages into the file channel, and force the file channel to disk.
      */
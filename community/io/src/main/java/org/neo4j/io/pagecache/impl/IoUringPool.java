@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.internal.nativeimpl.IoUring;
+import org.neo4j.internal.nativeimpl.NativeAccess;
+import org.neo4j.time.Clocks;
+import org.neo4j.time.SystemNanoClock;
+import org.neo4j.util.FeatureToggles;
+import org.neo4j.util.VisibleForTesting;
+
+/**
+ * A pool of io_uring instances, shared by the page swappers created by a {@link SingleFilePageSwapperFactory}.
+ * <p>
+ * An io_uring instance can only be used by one thread at a time, so every vectored read or write borrows an instance
+ * for the duration of the operation. The pool therefore grows to the number of threads that concurrently do vectored
+ * I/O, which are typically the threads that flush and the threads that read ahead, but never beyond a fixed number of
+ * instances. Operations that find the pool exhausted fall back to regular I/O.
+ * <p>
+ * Instances that have been idle for longer than the idle timeout are closed the next time an instance is given back,
+ * so the pool shrinks again after a burst of concurrent I/O. Everything is closed when the pool is closed, which
+ * happens when the page cache is closed.
+ */
+final class IoUringPool implements AutoCloseable
+{
+    private static final int ENTRIES = FeatureToggles.getInteger( IoUringPool.class, "entries", 8 );
+    private static final int PAGES_PER_SUBMISSION = FeatureToggles.getInteger( IoUringPool.class, "pagesPerSubmission", 8 );
+    private static final int MAX_INSTANCES = FeatureToggles.getInteger( IoUringPool.class, "maxInstances", 32 );
+    private static final long IDLE_TIMEOUT_NANOS =
+            TimeUnit.MILLISECONDS.toNanos( FeatureToggles.getLong( IoUringPool.class, "idleTimeoutMillis", TimeUnit.MINUTES.toMillis( 1 ) ) );
+
+    private final NativeAccess nativeAccess;
+    private final int maxInstances;
+    private final long idleTimeoutNanos;
+    private final SystemNanoClock clock;
+    // Most recently given back first, so the instances at the end are the ones that have been idle the longest.
+    private final ConcurrentLinkedDeque<IdleInstance> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger openInstances = new AtomicInteger();
+    private volatile boolean closed;
+
+    IoUringPool( NativeAccess nativeAccess )
+    {
+        this( nativeAccess, MAX_INSTANCES, IDLE_TIMEOUT_NANOS, Clocks.nanoClock() );
+    }
+
+    @VisibleForTesting
+    IoUringPool( NativeAccess nativeAccess, int maxInstances, long idleTimeoutNanos, SystemNanoClock clock )
+    {
+        this.nativeAccess = nativeAccess;
+        this.maxInstances = maxInstances;
+        this.idleTimeoutNanos = idleTimeoutNanos;
+        this.clock = clock;
+    }
+
+    /**
+     * Borrow an io_uring instance, which must be given back with {@link #release(IoUring)} or {@link #discard(IoUring)}.
+     * @return an io_uring instance, or {@code null} if the pool is closed, or a new one was needed but the pool is full or
+     * it could not be created, in which case the caller should fall back to regular I/O.
+     */
+    IoUring acquire()
+    {
+        if ( closed )
+        {
+            return null;
+        }
+        IdleInstance idleInstance = idle.pollFirst();
+        if ( idleInstance != null )
+        {
+            return idleInstance.ioUring;
+        }
+        if ( openInstances.incrementAndGet() > maxInstances )
+        {
+            openInstances.decrementAndGet();
+            return null;
+        }
+        try
+        {
+            return nativeAccess.createIoUring( ENTRIES, PAGES_PER_SUBMISSION );
+        }
+        catch ( IOException e )
+        {
+            openInstances.decrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Give back an io_uring instance after a successful operation, so it can be reused.
+     */
+    void release( IoUring ioUring )
+    {
+        long now = clock.nanos();
+        idle.offerFirst( new IdleInstance( ioUring, now ) );
+        if ( closed )
+        {
+            closeIdle();
+        }
+        else
+        {
+            closeExpired( now );
+        }
+    }
+
+    /**
+     * Give back an io_uring instance after a failed operation. The instance might still have operations in flight, so
+     * it is closed rather than reused.
+     */
+    void discard( IoUring ioUring )
+    {
+        closeInstance( ioUring );
+    }
+
+    @VisibleForTesting
+    int openInstances()
+    {
+        return openInstances.get();
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        closeIdle();
+    }
+
+    private void closeExpired( long now )
+    {
+        IdleInstance oldest;
+        while ( (oldest = idle.peekLast()) != null && now - oldest.idleSinceNanos > idleTimeoutNanos )
+        {
+            // Another thread can borrow or close the same instance in the meantime, and then it is not ours to close.
+            if ( idle.removeLastOccurrence( oldest ) )
+            {
+                closeInstance( oldest.ioUring );
+            }
+        }
+    }
+
+    private void closeIdle()
+    {
+        IdleInstance idleInstance;
+        while ( (idleInstance = idle.pollFirst()) != null )
+        {
+            closeInstance( idleInstance.ioUring );
+        }
+    }
+
+    private void closeInstance( IoUring ioUring )
+    {
+        openInstances.decrementAndGet();
+        ioUring.close();
+    }
+
+    private static final class IdleInstance
+    {
+        private final IoUring ioUring;
+        private final long idleSinceNanos;
+
+        IdleInstance( IoUring ioUring, long idleSinceNanos )
+        {
+            this.ioUring = ioUring;
+            this.idleSinceNanos = idleSinceNanos;
+        }
+    }
+}
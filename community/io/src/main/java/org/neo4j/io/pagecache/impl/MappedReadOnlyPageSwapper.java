@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.neo4j.internal.unsafe.UnsafeUtil;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+
+/**
+ * A PageSwapper for files that are never modified while they are mapped, such as the store files of read-only databases.
+ * <p>
+ * The whole file is memory mapped when the swapper is created, and page faults are served by copying straight out of the mapped memory, instead of
+ * going through a {@link FileChannel#read(java.nio.ByteBuffer, long) positioned read} system call for every page. The file size is fixed for the
+ * life time of the swapper, and all attempts to write to the file, or to change its size, will fail.
+ * <p>
+ * The file must not be truncated by anyone else while it is mapped by this swapper, since accessing mapped memory beyond the end of the file will
+ * crash the JVM.
+ * <p>
+ * The segments are unmapped when the swapper is closed. Reads hold a shared lock while they copy out of the mapped memory, and closing takes the
+ * lock exclusively, so a racing page fault either completes before the segments are unmapped, or fails because the swapper is closed.
+ */
+public class MappedReadOnlyPageSwapper implements PageSwapper
+{
+    // Mapped byte buffers cannot be larger than 2 GiB, so we map the file in segments of (slightly less than) 1 GiB.
+    private static final long MAX_SEGMENT_SIZE = 1L << 30;
+
+    private final File file;
+    private final int filePageSize;
+    private final long fileSize;
+    private final long segmentSize;
+    private final MappedByteBuffer[] segments;
+    private final long[] segmentAddresses;
+    private final Lock readLock;
+    private final Lock closeLock;
+    private volatile PageEvictionCallback onEviction;
+    // Guarded by the read and close locks.
+    private boolean closed;
+
+    MappedReadOnlyPageSwapper( File file, int filePageSize, PageEvictionCallback onEviction ) throws IOException
+    {
+        this.file = file;
+        this.filePageSize = filePageSize;
+        this.onEviction = onEviction;
+        this.segmentSize = (MAX_SEGMENT_SIZE / filePageSize) * filePageSize;
+        ReadWriteLock lock = new ReentrantReadWriteLock();
+        this.readLock = lock.readLock();
+        this.closeLock = lock.writeLock();
+        try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ ) )
+        {
+            fileSize = channel.size();
+            int segmentCount = Math.toIntExact( (fileSize + segmentSize - 1) / segmentSize );
+            segments = new MappedByteBuffer[segmentCount];
+            segmentAddresses = new long[segmentCount];
+            for ( int i = 0; i < segmentCount; i++ )
+            {
+                long position = i * segmentSize;
+                segments[i] = channel.map( FileChannel.MapMode.READ_ONLY, position, Math.min( segmentSize, fileSize - position ) );
+                segmentAddresses[i] = UnsafeUtil.getDirectByteBufferAddress( segments[i] );
+            }
+        }
+    }
+
+    @Override
+    public long read( long filePageId, long bufferAddress ) throws IOException
+    {
+        readLock.lock();
+        try
+        {
+            assertNotClosed();
+            return readPage( filePageId, bufferAddress );
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    private long readPage( long filePageId, long bufferAddress )
+    {
+        long fileOffset = filePageId * filePageSize;
+        if ( fileOffset >= fileSize )
+        {
+            UnsafeUtil.setMemory( bufferAddress, filePageSize, MuninnPageCache.ZERO_BYTE );
+            return 0;
+        }
+        int segment = (int) (fileOffset / segmentSize);
+        long sourceAddress = segmentAddresses[segment] + fileOffset % segmentSize;
+        int bytes = (int) Math.min( filePageSize, fileSize - fileOffset );
+        // The mapping is not a native allocation known to UnsafeUtil, so we use the unchecked copy variant.
+        UnsafeUtil.copyMemory( null, sourceAddress, null, bufferAddress, bytes );
+        if ( bytes < filePageSize )
+        {
+            UnsafeUtil.setMemory( bufferAddress + bytes, filePageSize - bytes, MuninnPageCache.ZERO_BYTE );
+        }
+        return bytes;
+    }
+
+    @Override
+    public long read( long startFilePageId, long[] bufferAddresses, int arrayOffset, int length ) throws IOException
+    {
+        readLock.lock();
+        try
+        {
+            assertNotClosed();
+            long bytesRead = 0;
+            for ( int i = 0; i < length; i++ )
+            {
+                bytesRead += readPage( startFilePageId + i, bufferAddresses[arrayOffset + i] );
+            }
+            return bytesRead;
+        }
+        finally
+        {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public long write( long filePageId, long bufferAddress ) throws IOException
+    {
+        throw readOnly();
+    }
+
+    @Override
+    public long write( long startFilePageId, long[] bufferAddresses, int arrayOffset, int length ) throws IOException
+    {
+        throw readOnly();
+    }
+
+    @Override
+    public void evicted( long filePageId )
+    {
+        PageEvictionCallback callback = this.onEviction;
+        if ( callback != null )
+        {
+            callback.onEvict( filePageId );
+        }
+    }
+
+    @Override
+    public File file()
+    {
+        return file;
+    }
+
+    @Override
+    public void close()
+    {
+        closeLock.lock();
+        try
+        {
+            if ( closed )
+            {
+                return;
+            }
+            closed = true;
+            for ( int i = 0; i < segments.length; i++ )
+            {
+                UnsafeUtil.invokeCleaner( segments[i] );
+                segments[i] = null;
+            }
+        }
+        finally
+        {
+            closeLock.unlock();
+        }
+        // See SingleFilePageSwapper#close() about the eviction callback.
+        onEviction = null;
+    }
+
+    @Override
+    public void closeAndDelete() throws IOException
+    {
+        throw readOnly();
+    }
+
+    @Override
+    public void force()
+    {
+        // Nothing is ever written through this swapper, so there is nothing to force.
+    }
+
+    @Override
+    public long getLastPageId()
+    {
+        if ( fileSize == 0 )
+        {
+            return PageCursor.UNBOUND_PAGE_ID;
+        }
+        long div = fileSize / filePageSize;
+        long mod = fileSize % filePageSize;
+        return mod == 0 ? div - 1 : div;
+    }
+
+    @Override
+    public void truncate() throws IOException
+    {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean canAllocate()
+    {
+        return false;
+    }
+
+    @Override
+    public void allocate( long newFileSize )
+    {
+        // Read-only files never grow.
+    }
+
+    private void assertNotClosed() throws IOException
+    {
+        if ( closed )
+        {
+            throw new IOException( "Cannot read from " + file + " because its read-only mapping has been closed." );
+        }
+    }
+
+    private IOException readOnly()
+    {
+        return new IOException( "The file " + file + " is mapped read-only." );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MappedReadOnlyPageSwapper{" +
+                "filePageSize=" + filePageSize +
+                ", file=" + file +
+                '}';
+    }
+}
@@ -32,6 +32,7 @@ import java.nio.file.OpenOption;
 import java.util.ArrayList;
 import java.util.Set;
 
+import org.neo4j.internal.nativeimpl.IoUring;
 import org.neo4j.internal.nativeimpl.NativeAccess;
 import org.neo4j.internal.nativeimpl.NativeAccessProvider;
 import org.neo4j.internal.nativeimpl.NativeCallResult;
@@ -53,6 +54,9 @@ import static org.neo4j.io.fs.DefaultFileSystemAbstraction.WRITE_OPTIONS;
  *
  * It additionally tracks the file size precisely, to avoid calling into the
  * file system whenever the size of the given file is queried.
+ *
+ * If it is given an {@link IoUringPool}, then vectored reads and writes are submitted through io_uring, where they
+ * don't need to hold the channel position lock, and are split into several operations the device can serve at once.
  */
 public class SingleFilePageSwapper implements PageSwapper
 {
@@ -94,6 +98,7 @@ public class SingleFilePageSwapper implements PageSwapper
     private StoreChannel channel;
     private FileLock fileLock;
     private final boolean hasPositionLock;
+    private final IoUringPool ioUrings;
 
     // Guarded by synchronized(this). See tryReopen() and close().
     private boolean closed;
@@ -102,8 +107,15 @@ public class SingleFilePageSwapper implements PageSwapper
     private volatile long fileSize;
 
     SingleFilePageSwapper( File file, FileSystemAbstraction fs, int filePageSize, PageEvictionCallback onEviction, boolean useDirectIO ) throws IOException
+    {
+        this( file, fs, filePageSize, onEviction, useDirectIO, null );
+    }
+
+    SingleFilePageSwapper( File file, FileSystemAbstraction fs, int filePageSize, PageEvictionCallback onEviction, boolean useDirectIO,
+            IoUringPool ioUrings ) throws IOException
     {
         this.fs = fs;
+        this.ioUrings = ioUrings;
         this.file = file;
 
         var options = new ArrayList<>( WRITE_OPTIONS );
@@ -305,6 +317,14 @@ public class SingleFilePageSwapper implements PageSwapper
             {
                 try
                 {
+                    if ( ioUrings != null )
+                    {
+                        long bytesRead = readPositionedVectoredWithIoUring( startFilePageId, bufferAddresses, arrayOffset, length );
+                        if ( bytesRead != -1 )
+                        {
+                            return bytesRead;
+                        }
+                    }
                     if ( hasPositionLock )
                     {
                         return readPositionedVectoredToFileChannel( startFilePageId, bufferAddresses, arrayOffset, length );
@@ -334,7 +354,13 @@ public class SingleFilePageSwapper implements PageSwapper
             }
             return 0;
         }
-        else if ( bytesRead < ((long) filePageSize) * length )
+        zeroFillUnreadBytes( bytesRead, bufferAddresses, arrayOffset, length );
+        return bytesRead;
+    }
+
+    private void zeroFillUnreadBytes( long bytesRead, long[] bufferAddresses, int arrayOffset, int length )
+    {
+        if ( bytesRead < ((long) filePageSize) * length )
         {
             int pagesRead = (int) (bytesRead / filePageSize);
             int bytesReadIntoLastReadPage = (int) (bytesRead % filePageSize);
@@ -351,6 +377,31 @@ public class SingleFilePageSwapper implements PageSwapper
                 UnsafeUtil.setMemory( address, bytesToZero, MuninnPageCache.ZERO_BYTE );
             }
         }
+    }
+
+    /**
+     * @return the number of bytes read, or -1 if no io_uring instance was available and the read should be done the regular way.
+     */
+    private long readPositionedVectoredWithIoUring( long startFilePageId, long[] bufferAddresses, int arrayOffset, int length ) throws IOException
+    {
+        IoUring ioUring = ioUrings.acquire();
+        if ( ioUring == null )
+        {
+            return -1;
+        }
+        long bytesRead;
+        try
+        {
+            bytesRead = ioUring.read( channel.getFileDescriptor(), pageIdToPosition( startFilePageId ), bufferAddresses, arrayOffset, length,
+                    filePageSize );
+        }
+        catch ( IOException e )
+        {
+            ioUrings.discard( ioUring );
+            throw asClosedChannelExceptionIfClosed( e );
+        }
+        ioUrings.release( ioUring );
+        zeroFillUnreadBytes( bytesRead, bufferAddresses, arrayOffset, length );
         return bytesRead;
     }
 
@@ -420,6 +471,14 @@ public class SingleFilePageSwapper implements PageSwapper
             {
                 try
                 {
+                    if ( ioUrings != null )
+                    {
+                        long bytesWritten = writePositionedVectoredWithIoUring( startFilePageId, bufferAddresses, arrayOffset, length );
+                        if ( bytesWritten != -1 )
+                        {
+                            return bytesWritten;
+                        }
+                    }
                     if ( hasPositionLock )
                     {
                         return writePositionedVectoredToFileChannel( startFilePageId, bufferAddresses, arrayOffset, length );
@@ -444,6 +503,47 @@ public class SingleFilePageSwapper implements PageSwapper
         return lockPositionWriteVector( fileOffset, srcs );
     }
 
+    /**
+     * @return the number of bytes written, or -1 if no io_uring instance was available and the write should be done the regular way.
+     */
+    private long writePositionedVectoredWithIoUring( long startFilePageId, long[] bufferAddresses, int arrayOffset, int length ) throws IOException
+    {
+        IoUring ioUring = ioUrings.acquire();
+        if ( ioUring == null )
+        {
+            return -1;
+        }
+        long fileOffset = pageIdToPosition( startFilePageId );
+        increaseFileSizeTo( fileOffset + (((long) filePageSize) * length) );
+        long bytesWritten;
+        try
+        {
+            bytesWritten = ioUring.write( channel.getFileDescriptor(), fileOffset, bufferAddresses, arrayOffset, length, filePageSize );
+        }
+        catch ( IOException e )
+        {
+            ioUrings.discard( ioUring );
+            throw asClosedChannelExceptionIfClosed( e );
+        }
+        ioUrings.release( ioUring );
+        return bytesWritten;
+    }
+
+    /**
+     * I/O through io_uring bypasses the channel, so if the channel was closed under our feet, we turn the failure into the exception the
+     * channel would have thrown, so that we retry the operation with a reopened channel.
+     */
+    private IOException asClosedChannelExceptionIfClosed( IOException e )
+    {
+        if ( !channel.isOpen() )
+        {
+            ClosedChannelException closedChannelException = new ClosedChannelException();
+            closedChannelException.addSuppressed( e );
+            return closedChannelException;
+        }
+        return e;
+    }
+
     private ByteBuffer[] convertToByteBuffers( long[] bufferAddresses, int arrayOffset, int length )
     {
         ByteBuffer[] buffers = new ByteBuffer[length];
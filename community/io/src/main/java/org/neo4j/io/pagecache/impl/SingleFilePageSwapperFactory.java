@@ -23,23 +23,56 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.NoSuchFileException;
 
+import org.neo4j.internal.nativeimpl.NativeAccess;
+import org.neo4j.internal.nativeimpl.NativeAccessProvider;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageEvictionCallback;
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.util.FeatureToggles;
 
 /**
  * A factory for SingleFilePageSwapper instances.
  *
+ * Files that are mapped read-only are memory mapped, if they are on the real file system.
+ * Vectored I/O can optionally go through io_uring, if it is available and the files are on the real file system.
+ *
  * @see org.neo4j.io.pagecache.impl.SingleFilePageSwapper
+ * @see org.neo4j.io.pagecache.impl.MappedReadOnlyPageSwapper
  */
 public class SingleFilePageSwapperFactory implements PageSwapperFactory
 {
+    private static final boolean MAP_READ_ONLY_FILES = FeatureToggles.flag( SingleFilePageSwapperFactory.class, "MAP_READ_ONLY_FILES", true );
+
     private final FileSystemAbstraction fs;
+    private final IoUringPool ioUrings;
 
     public SingleFilePageSwapperFactory( FileSystemAbstraction fs )
+    {
+        this( fs, false );
+    }
+
+    /**
+     * @param fs the file system to create page swappers for.
+     * @param useIoUring use io_uring for vectored reads and writes, if the platform supports it. Otherwise, and for other file systems than
+     * the real one, the page swappers use regular I/O.
+     */
+    public SingleFilePageSwapperFactory( FileSystemAbstraction fs, boolean useIoUring )
     {
         this.fs = fs;
+        NativeAccess nativeAccess = NativeAccessProvider.getNativeAccess();
+        // Probing for io_uring sets up a ring, so only do it when asked to use it
+        boolean canUseIoUring = useIoUring && fs.getClass() == DefaultFileSystemAbstraction.class && nativeAccess.isIoUringAvailable();
+        this.ioUrings = canUseIoUring ? new IoUringPool( nativeAccess ) : null;
+    }
+
+    /**
+     * @return {@code true} if the page swappers from this factory use io_uring for vectored I/O.
+     */
+    public boolean isUsingIoUring()
+    {
+        return ioUrings != null;
     }
 
     @Override
@@ -54,12 +87,30 @@ public class SingleFilePageSwapperFactory implements PageSwapperFactory
         {
             throw new NoSuchFileException( file.getPath(), null, "Cannot map non-existing file" );
         }
-        return new SingleFilePageSwapper( file, fs, filePageSize, onEviction, useDirectIO );
+        return new SingleFilePageSwapper( file, fs, filePageSize, onEviction, useDirectIO, ioUrings );
+    }
+
+    @Override
+    public PageSwapper createReadOnlyPageSwapper( File file, int filePageSize, PageEvictionCallback onEviction ) throws IOException
+    {
+        if ( !fs.fileExists( file ) )
+        {
+            throw new NoSuchFileException( file.getPath(), null, "Cannot map non-existing file" );
+        }
+        if ( MAP_READ_ONLY_FILES && fs.getClass() == DefaultFileSystemAbstraction.class )
+        {
+            // Only files on the real file system can be memory mapped.
+            return new MappedReadOnlyPageSwapper( file, filePageSize, onEviction );
+        }
+        return new SingleFilePageSwapper( file, fs, filePageSize, onEviction, false, ioUrings );
     }
 
     @Override
     public void close()
     {
-        // We have nothing to close
+        if ( ioUrings != null )
+        {
+            ioUrings.close();
+        }
     }
 }
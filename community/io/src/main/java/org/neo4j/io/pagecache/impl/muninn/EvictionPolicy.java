@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+/**
+ * The policy used by the {@link MuninnPageCache} for deciding which pages are candidates for eviction, when the clock arm of either the background
+ * eviction thread, or a cooperatively evicting page faulting thread, sweeps across them.
+ */
+public enum EvictionPolicy
+{
+    /**
+     * The classic clock sweep. Every page that the clock arm passes has its usage counter decremented, and the page becomes an eviction candidate when
+     * its usage counter reaches zero.
+     */
+    CLOCK
+            {
+                @Override
+                EvictionSelector createSelector( PageList pages )
+                {
+                    return new EvictionSelector.Clock( pages );
+                }
+            },
+    /**
+     * A scan resistant variant of the clock sweep, inspired by 2Q. Pages that have only been touched a few times since they were faulted in, are
+     * considered to be in a probationary segment, and are aged on every pass of the clock arm, so they are evicted after at most two passes. Pages that
+     * have been touched more than that have been promoted to the protected segment, and are only aged when the protected segment has grown past its
+     * share of the cache, or periodically every few revolutions of the clock. This way, a single large scan will mostly churn through the probationary pages, instead of pushing the hot
+     * pages out of the cache.
+     */
+    PROBATIONARY
+            {
+                @Override
+                EvictionSelector createSelector( PageList pages )
+                {
+                    return new EvictionSelector.Probationary( pages );
+                }
+            };
+
+    abstract EvictionSelector createSelector( PageList pages );
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import static org.neo4j.util.FeatureToggles.getInteger;
+
+/**
+ * Decides if a loaded page that the clock arm is passing over, is a candidate for eviction, as per the configured {@link EvictionPolicy}.
+ * <p>
+ * The selectors are shared by the background eviction thread, and any page faulting threads that are doing cooperative eviction. Any statistics kept
+ * by the selectors are intentionally left benignly racy for performance, since they are only used as heuristics.
+ */
+abstract class EvictionSelector
+{
+    final PageList pages;
+
+    EvictionSelector( PageList pages )
+    {
+        this.pages = pages;
+    }
+
+    /**
+     * Age the given loaded page, and decide if it should be evicted.
+     *
+     * @param pageRef the loaded page that the clock arm is currently pointing at.
+     * @return {@code true} if the page should be evicted, if possible.
+     */
+    abstract boolean ageAndCheckEvictable( long pageRef );
+
+    /**
+     * Called when a clock arm wraps around, after having completed a revolution over the page list.
+     */
+    abstract void revolutionCompleted();
+
+    static final class Clock extends EvictionSelector
+    {
+        Clock( PageList pages )
+        {
+            super( pages );
+        }
+
+        @Override
+        boolean ageAndCheckEvictable( long pageRef )
+        {
+            return pages.decrementUsage( pageRef );
+        }
+
+        @Override
+        void revolutionCompleted()
+        {
+        }
+    }
+
+    static final class Probationary extends EvictionSelector
+    {
+        // Pages with a usage counter at or above this value are considered to be in the protected segment.
+        // A single scan touches a page at most twice: once when the pre-fetcher faults it in, and once when the scanning cursor pins it.
+        private static final int protectedUsage = getInteger( EvictionSelector.class, "protectedUsage", 3 );
+
+        // The largest share of the pages, in percent, that the protected segment can occupy before it is aged on every clock revolution.
+        private static final int maxProtectedPercent = getInteger( EvictionSelector.class, "maxProtectedPercent", 75 );
+
+        // Regardless of the size of the protected segment, we age it every this many clock revolutions,
+        // so pages that used to be hot eventually make room for pages that are hot now.
+        private static final int protectedAgingInterval = getInteger( EvictionSelector.class, "protectedAgingInterval", 4 );
+
+        private volatile boolean ageProtected = true;
+        private long protectedPagesSeen;
+        private long probationaryPagesSeen;
+        private long revolutions;
+
+        Probationary( PageList pages )
+        {
+            super( pages );
+        }
+
+        @Override
+        boolean ageAndCheckEvictable( long pageRef )
+        {
+            if ( pages.getUsageCounter( pageRef ) < protectedUsage )
+            {
+                probationaryPagesSeen++;
+                return pages.decrementUsage( pageRef );
+            }
+            protectedPagesSeen++;
+            if ( ageProtected )
+            {
+                pages.decrementUsage( pageRef );
+            }
+            return false;
+        }
+
+        @Override
+        void revolutionCompleted()
+        {
+            long protectedSeen = protectedPagesSeen;
+            long seen = protectedSeen + probationaryPagesSeen;
+            boolean protectedSegmentTooLarge = seen == 0 || protectedSeen * 100 > seen * maxProtectedPercent;
+            revolutions++;
+            ageProtected = protectedSegmentTooLarge || revolutions % protectedAgingInterval == 0;
+            protectedPagesSeen = 0;
+            probationaryPagesSeen = 0;
+        }
+    }
+}
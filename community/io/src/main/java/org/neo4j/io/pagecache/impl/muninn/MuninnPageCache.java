@@ -28,8 +28,13 @@ import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
@@ -130,6 +135,16 @@ public class MuninnPageCache implements PageCache
     private static final int cooperativeEvictionLiveLockThreshold = getInteger(
             MuninnPageCache.class, "cooperativeEvictionLiveLockThreshold", 100 );
 
+    // The number of translation table chunks that make up a shard in a parallel flush. Files with more chunks than
+    // this are flushed by more than one thread.
+    private static final int flushShardChunks = Math.max( 1, getInteger( MuninnPageCache.class, "flushShardChunks", 4 ) );
+
+    /**
+     * The number of threads that {@link #flushAndForce(IOLimiter)} will use, unless otherwise specified.
+     * Flushing with more than one thread is opt-in.
+     */
+    public static final int DEFAULT_FLUSH_THREADS = 1;
+
     // This is a pre-allocated constant, so we can throw it without allocating any objects:
     @SuppressWarnings( "ThrowableInstanceNeverThrown" )
     private static final IOException oomException = new IOException(
@@ -165,6 +180,8 @@ public class MuninnPageCache implements PageCache
     private final PageCacheTracer pageCacheTracer;
     private final VersionContextSupplier versionContextSupplier;
     final PageList pages;
+    private final EvictionSelector evictionSelector;
+    private final int flushThreads;
     // All PageCursors are initialised with their pointers pointing to the victim page. This way, we don't have to throw
     // exceptions on bounds checking failures; we can instead return the victim page pointer, and permit the page
     // accesses to take place without fear of segfaulting newly allocated cursors.
@@ -241,7 +258,24 @@ public class MuninnPageCache implements PageCache
     public MuninnPageCache( PageSwapperFactory swapperFactory, MemoryAllocator memoryAllocator, PageCacheTracer pageCacheTracer,
             VersionContextSupplier versionContextSupplier, JobScheduler jobScheduler, SystemNanoClock clock )
     {
-        this( swapperFactory, memoryAllocator, PAGE_SIZE, pageCacheTracer, versionContextSupplier, jobScheduler, clock );
+        this( swapperFactory, memoryAllocator, pageCacheTracer, versionContextSupplier, jobScheduler, clock, EvictionPolicy.CLOCK,
+                DEFAULT_FLUSH_THREADS );
+    }
+
+    /**
+     * Create page cache.
+     * @param swapperFactory page cache swapper factory
+     * @param memoryAllocator the source of native memory the page cache should use
+     * @param pageCacheTracer global page cache tracer
+     * @param versionContextSupplier supplier of thread local (transaction local) version context that will provide access to thread local version context
+     * @param evictionPolicy the policy for choosing which pages to evict when the cache needs free pages
+     * @param flushThreads the maximum number of threads used for flushing the page cache in {@link #flushAndForce(IOLimiter)}
+     */
+    public MuninnPageCache( PageSwapperFactory swapperFactory, MemoryAllocator memoryAllocator, PageCacheTracer pageCacheTracer,
+            VersionContextSupplier versionContextSupplier, JobScheduler jobScheduler, SystemNanoClock clock, EvictionPolicy evictionPolicy,
+            int flushThreads )
+    {
+        this( swapperFactory, memoryAllocator, PAGE_SIZE, pageCacheTracer, versionContextSupplier, jobScheduler, clock, evictionPolicy, flushThreads );
     }
 
     /**
@@ -252,9 +286,24 @@ public class MuninnPageCache implements PageCache
     @Deprecated
     public MuninnPageCache( PageSwapperFactory swapperFactory, MemoryAllocator memoryAllocator, int cachePageSize, PageCacheTracer pageCacheTracer,
             VersionContextSupplier versionContextSupplier, JobScheduler jobScheduler, SystemNanoClock clock )
+    {
+        this( swapperFactory, memoryAllocator, cachePageSize, pageCacheTracer, versionContextSupplier, jobScheduler, clock, EvictionPolicy.CLOCK,
+                DEFAULT_FLUSH_THREADS );
+    }
+
+    /**
+     * Constructor variant that allows setting a non-standard cache page size.
+     * Only ever use this for testing.
+     */
+    @SuppressWarnings( "DeprecatedIsStillUsed" )
+    @Deprecated
+    public MuninnPageCache( PageSwapperFactory swapperFactory, MemoryAllocator memoryAllocator, int cachePageSize, PageCacheTracer pageCacheTracer,
+            VersionContextSupplier versionContextSupplier, JobScheduler jobScheduler, SystemNanoClock clock, EvictionPolicy evictionPolicy,
+            int flushThreads )
     {
         verifyHacks();
         verifyCachePageSizeIsPowerOfTwo( cachePageSize );
+        verifyFlushThreads( flushThreads );
         int maxPages = calculatePageCount( memoryAllocator, cachePageSize );
 
         // Expose the total number of pages
@@ -269,6 +318,8 @@ public class MuninnPageCache implements PageCache
         this.printExceptionsOnClose = true;
         this.victimPage = VictimPageReference.getVictimPage( cachePageSize );
         this.pages = new PageList( maxPages, cachePageSize, memoryAllocator, new SwapperSet(), victimPage, UnsafeUtil.pageSize() );
+        this.evictionSelector = evictionPolicy.createSelector( pages );
+        this.flushThreads = flushThreads;
         this.scheduler = jobScheduler;
         this.clock = clock;
 
@@ -290,6 +341,14 @@ public class MuninnPageCache implements PageCache
         }
     }
 
+    private static void verifyFlushThreads( int flushThreads )
+    {
+        if ( flushThreads < 1 )
+        {
+            throw new IllegalArgumentException( "Page cache must be flushed by at least 1 thread, but was given " + flushThreads + "." );
+        }
+    }
+
     private static int calculatePageCount( MemoryAllocator memoryAllocator, int cachePageSize )
     {
         long memoryPerPage = cachePageSize + PageList.META_DATA_BYTES_PER_PAGE;
@@ -323,6 +382,7 @@ public class MuninnPageCache implements PageCache
         boolean deleteOnClose = false;
         boolean anyPageSize = false;
         boolean useDirectIO = false;
+        boolean readOnly = false;
         for ( OpenOption option : openOptions )
         {
             if ( option.equals( StandardOpenOption.CREATE ) )
@@ -345,6 +405,10 @@ public class MuninnPageCache implements PageCache
             {
                 useDirectIO = true;
             }
+            else if ( option.equals( PageCacheOpenOptions.READ_ONLY ) )
+            {
+                readOnly = true;
+            }
             else if ( !ignoredOpenOptions.contains( option ) )
             {
                 throw new UnsupportedOperationException( "Unsupported OpenOption: " + option );
@@ -372,6 +436,10 @@ public class MuninnPageCache implements PageCache
                 {
                     throw new UnsupportedOperationException( "Cannot truncate a file that is already mapped" );
                 }
+                if ( pagedFile.isReadOnly() && !readOnly )
+                {
+                    throw new UnsupportedOperationException( "Cannot map file " + file + " for writing, because it is already mapped read-only" );
+                }
                 pagedFile.incrementRefCount();
                 pagedFile.setDeleteOnClose( deleteOnClose );
                 return pagedFile;
@@ -386,6 +454,11 @@ public class MuninnPageCache implements PageCache
                     Long.BYTES + " bytes" );
         }
 
+        if ( readOnly && (createIfNotExists || truncateExisting || deleteOnClose) )
+        {
+            throw new IllegalArgumentException( "Cannot create, truncate or delete a file that is mapped read-only: " + file );
+        }
+
         // there was no existing mapping
         MuninnPagedFile pagedFile = new MuninnPagedFile(
                 file,
@@ -394,7 +467,7 @@ public class MuninnPageCache implements PageCache
                 swapperFactory,
                 pageCacheTracer, versionContextSupplier,
                 createIfNotExists,
-                truncateExisting, useDirectIO );
+                truncateExisting, useDirectIO, readOnly );
         pagedFile.incrementRefCount();
         pagedFile.setDeleteOnClose( deleteOnClose );
         current = new FileMapping( file, pagedFile );
@@ -567,11 +640,37 @@ public class MuninnPageCache implements PageCache
         {
             throw new IllegalArgumentException( "IOLimiter cannot be null" );
         }
-        List<PagedFile> files = listExistingMappings();
+        flushFiles( listExistingMappings(), limiter );
+    }
 
+    @Override
+    public void flushAndForce( Collection<PagedFile> files, IOLimiter limiter ) throws IOException
+    {
+        if ( limiter == null )
+        {
+            throw new IllegalArgumentException( "IOLimiter cannot be null" );
+        }
+        // The given files can be wrapped by the page cache of a database, or by other decorators, so we look up our
+        // own mappings of them. A file is only ever mapped once, so its file identifies its mapping.
+        Set<File> flushedFiles = new HashSet<>();
+        for ( PagedFile file : files )
+        {
+            flushedFiles.add( file.file() );
+        }
+        List<PagedFile> mappings = listExistingMappings();
+        mappings.removeIf( pagedFile -> !flushedFiles.contains( pagedFile.file() ) );
+        flushFiles( mappings, limiter );
+    }
+
+    private void flushFiles( List<PagedFile> files, IOLimiter limiter ) throws IOException
+    {
         try ( MajorFlushEvent ignored = pageCacheTracer.beginCacheFlush() )
         {
-            if ( limiter.isLimited() )
+            if ( flushThreads > 1 )
+            {
+                flushAllPagesInShards( files, limiter );
+            }
+            else if ( limiter.isLimited() )
             {
                 flushAllPages( files, limiter );
             }
@@ -611,7 +710,68 @@ public class MuninnPageCache implements PageCache
             } ) );
         }
 
+        awaitFlushes( flushes );
+    }
+
+    /**
+     * Flush the given files with up to {@link #flushThreads} threads. Every file is cut into shards of whole
+     * translation table chunks, so large files are flushed by several threads at once, while small files are
+     * handed out whole. The file is forced by the thread that completes its last shard.
+     * <p>
+     * All threads share the same {@link IOLimiter} budget, so the configured IO rate holds for the flush as a
+     * whole, rather than for each thread individually.
+     */
+    private void flushAllPagesInShards( List<PagedFile> files, IOLimiter limiter ) throws IOException
+    {
+        Queue<FlushShard> shards = new ConcurrentLinkedQueue<>();
+        for ( PagedFile file : files )
+        {
+            MuninnPagedFile pagedFile = (MuninnPagedFile) file;
+            int chunks = pagedFile.translationTableChunks();
+            int shardCount = Math.max( 1, (chunks + flushShardChunks - 1) / flushShardChunks );
+            AtomicInteger remainingShards = new AtomicInteger( shardCount );
+            for ( int shard = 0; shard < shardCount; shard++ )
+            {
+                int fromChunk = shard * flushShardChunks;
+                // The last shard reaches to the end of the translation table, even if the file grows during the flush.
+                int toChunk = shard == shardCount - 1 ? Integer.MAX_VALUE : fromChunk + flushShardChunks;
+                shards.add( new FlushShard( pagedFile, fromChunk, toChunk, remainingShards ) );
+            }
+        }
+
+        IOLimiter sharedLimiter = new SharedIOLimiter( limiter );
+        int workers = Math.min( flushThreads, shards.size() );
+        List<JobHandle<?>> flushes = new ArrayList<>( workers );
+
+        // Submit all flushes to the background thread
+        for ( int i = 0; i < workers; i++ )
+        {
+            flushes.add( scheduler.schedule( Group.FILE_IO_HELPER, () ->
+            {
+                try
+                {
+                    FlushShard shard;
+                    while ( (shard = shards.poll()) != null )
+                    {
+                        flushShard( shard, sharedLimiter );
+                    }
+                }
+                catch ( IOException e )
+                {
+                    // Leave the remaining shards be; the flush as a whole has failed anyway.
+                    shards.clear();
+                    throw new UncheckedIOException( e );
+                }
+            } ) );
+        }
+
+        awaitFlushes( flushes );
+    }
+
+    private static void awaitFlushes( List<JobHandle<?>> flushes ) throws IOException
+    {
         // Wait for all to complete
+        IOException failure = null;
         for ( JobHandle<?> flush : flushes )
         {
             try
@@ -620,9 +780,37 @@ public class MuninnPageCache implements PageCache
             }
             catch ( InterruptedException | ExecutionException e )
             {
-                throw new IOException( e );
+                IOException exception = new IOException( e );
+                if ( failure == null )
+                {
+                    failure = exception;
+                }
+                else
+                {
+                    failure.addSuppressed( exception );
+                }
             }
         }
+        if ( failure != null )
+        {
+            throw failure;
+        }
+    }
+
+    private void flushShard( FlushShard shard, IOLimiter limiter ) throws IOException
+    {
+        MuninnPagedFile pagedFile = shard.pagedFile;
+        try ( MajorFlushEvent fileFlush = pageCacheTracer.beginFileFlush( pagedFile.swapper ) )
+        {
+            FlushEventOpportunity flushOpportunity = fileFlush.flushEventOpportunity();
+            limiter.beginFileFlush( pagedFile );
+            pagedFile.flushChunksInternal( flushOpportunity, limiter, shard.fromChunk, shard.toChunk );
+        }
+        if ( shard.remainingShards.decrementAndGet() == 0 )
+        {
+            pagedFile.forceInternal();
+            limiter.endFileFlush( pagedFile );
+        }
     }
 
     private void flushFile( MuninnPagedFile muninnPagedFile,  IOLimiter limiter ) throws IOException
@@ -634,6 +822,25 @@ public class MuninnPageCache implements PageCache
         }
     }
 
+    /**
+     * A range of translation table chunks of a file, that is flushed by one thread in a parallel flush.
+     */
+    private static class FlushShard
+    {
+        private final MuninnPagedFile pagedFile;
+        private final int fromChunk;
+        private final int toChunk;
+        private final AtomicInteger remainingShards;
+
+        FlushShard( MuninnPagedFile pagedFile, int fromChunk, int toChunk, AtomicInteger remainingShards )
+        {
+            this.pagedFile = pagedFile;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+            this.remainingShards = remainingShards;
+        }
+    }
+
     @Override
     public synchronized void close()
     {
@@ -700,6 +907,11 @@ public class MuninnPageCache implements PageCache
         return cachePageSize;
     }
 
+    SystemNanoClock clock()
+    {
+        return clock;
+    }
+
     @Override
     public long maxCachedPages()
     {
@@ -739,6 +951,29 @@ public class MuninnPageCache implements PageCache
         // to check and see if it is the shutdownSignal instance. If that's the
         // case, then the page cache has been shut down, and we should throw an
         // exception from our page fault routine.
+        for (;;)
+        {
+            long pageRef = tryGrabFreeAndExclusivelyLockedPage();
+            if ( pageRef != 0 )
+            {
+                return pageRef;
+            }
+            unparkEvictor();
+            pageRef = cooperativelyEvict( faultEvent );
+            if ( pageRef != 0 )
+            {
+                return pageRef;
+            }
+        }
+    }
+
+    /**
+     * Grab a page from the freelist, if there is one. Unlike {@link #grabFreeAndExclusivelyLockedPage(PageFaultEvent)}
+     * this never evicts anything, and instead returns 0 if the freelist is empty. This is used for speculative page
+     * faults, such as read-ahead, that should not compete with regular page faults for memory.
+     */
+    long tryGrabFreeAndExclusivelyLockedPage() throws IOException
+    {
         Object current;
         for (;;)
         {
@@ -746,12 +981,7 @@ public class MuninnPageCache implements PageCache
             current = getFreelistHead();
             if ( current == null )
             {
-                unparkEvictor();
-                long pageRef = cooperativelyEvict( faultEvent );
-                if ( pageRef != 0 )
-                {
-                    return pageRef;
-                }
+                return 0;
             }
             else if ( current instanceof AtomicInteger )
             {
@@ -806,10 +1036,11 @@ public class MuninnPageCache implements PageCache
                 }
                 iterations++;
                 clockArm = 0;
+                evictionSelector.revolutionCompleted();
             }
 
             pageRef = pages.deref( clockArm );
-            if ( pages.isLoaded( pageRef ) && pages.decrementUsage( pageRef ) )
+            if ( pages.isLoaded( pageRef ) && evictionSelector.ageAndCheckEvictable( pageRef ) )
             {
                 evicted = pages.tryEvict( pageRef, faultEvent );
             }
@@ -868,8 +1099,8 @@ public class MuninnPageCache implements PageCache
     }
 
     /**
-     * Scan through all the pages, one by one, and decrement their usage stamps.
-     * If a usage reaches zero, we try-write-locking it, and if we get that lock,
+     * Scan through all the pages, one by one, and age them according to the {@link EvictionPolicy}.
+     * If a page becomes evictable, we try-write-locking it, and if we get that lock,
      * we evict the page. If we don't, we move on to the next page.
      * Once we have enough free pages, we park our thread. Page-faulting will
      * unpark our thread as needed.
@@ -949,6 +1180,7 @@ public class MuninnPageCache implements PageCache
             if ( clockArm == pages.getPageCount() )
             {
                 clockArm = 0;
+                evictionSelector.revolutionCompleted();
             }
 
             if ( closed )
@@ -958,7 +1190,7 @@ public class MuninnPageCache implements PageCache
             }
 
             long pageRef = pages.deref( clockArm );
-            if ( pages.isLoaded( pageRef ) && pages.decrementUsage( pageRef ) )
+            if ( pages.isLoaded( pageRef ) && evictionSelector.ageAndCheckEvictable( pageRef ) )
             {
                 try
                 {
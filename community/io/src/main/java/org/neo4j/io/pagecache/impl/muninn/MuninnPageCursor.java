@@ -42,6 +42,7 @@ import org.neo4j.util.VisibleForTesting;
 import static org.neo4j.io.pagecache.PagedFile.PF_EAGER_FLUSH;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
 import static org.neo4j.io.pagecache.impl.muninn.MuninnPagedFile.UNMAPPED_TTE;
 import static org.neo4j.util.FeatureToggles.flag;
 
@@ -57,6 +58,9 @@ public abstract class MuninnPageCursor extends PageCursor
     private static final long CURRENT_PAGE_ID = UnsafeUtil.getFieldOffset( MuninnPageCursor.class, "currentPageId" );
 
     // Size of the respective primitive types in bytes.
+    // Hits are reported to the counters of the file in batches, since a pin is too cheap to pay for a shared update.
+    private static final int HIT_REPORT_INTERVAL = 64;
+
     private static final int SIZE_OF_BYTE = Byte.BYTES;
     private static final int SIZE_OF_SHORT = Short.BYTES;
     private static final int SIZE_OF_INT = Integer.BYTES;
@@ -73,6 +77,7 @@ public abstract class MuninnPageCursor extends PageCursor
     protected int pf_flags;
     protected boolean eagerFlush;
     protected boolean noFault;
+    protected boolean transientAccess;
     protected boolean noGrow;
     @SuppressWarnings( "unused" ) // This field is accessed via Unsafe.
     private long currentPageId;
@@ -86,6 +91,7 @@ public abstract class MuninnPageCursor extends PageCursor
     private int offset;
     private int mark;
     private boolean outOfBounds;
+    private int unreportedHits;
     // This is a String with the exception message if usePreciseCursorErrorStackTraces is false, otherwise it is a
     // CursorExceptionWithPreciseStackTrace with the message and stack trace pointing more or less directly at the
     // offending code.
@@ -109,9 +115,15 @@ public abstract class MuninnPageCursor extends PageCursor
         this.pf_flags = pf_flags;
         this.eagerFlush = isFlagRaised( pf_flags, PF_EAGER_FLUSH );
         this.noFault = isFlagRaised( pf_flags, PF_NO_FAULT );
+        this.transientAccess = isFlagRaised( pf_flags, PF_TRANSIENT );
         this.noGrow = noFault || isFlagRaised( pf_flags, PagedFile.PF_NO_GROW );
     }
 
+    boolean isFlagRaised( int flag )
+    {
+        return isFlagRaised( pf_flags, flag );
+    }
+
     private boolean isFlagRaised( int flagSet, int flag )
     {
         return (flagSet & flag) == flag;
@@ -205,6 +217,7 @@ public abstract class MuninnPageCursor extends PageCursor
         while ( cursor != null && cursor.pagedFile != null )
         {
             cursor.unpinCurrentPage();
+            cursor.reportHits();
             // We null out the pagedFile field to allow it and its (potentially big) translation table to be garbage
             // collected when the file is unmapped, since the cursors can stick around in thread local caches, etc.
             cursor.pagedFile = null;
@@ -219,6 +232,15 @@ public abstract class MuninnPageCursor extends PageCursor
         }
     }
 
+    private void reportHits()
+    {
+        if ( unreportedHits != 0 )
+        {
+            pagedFile.counters.hits( unreportedHits );
+            unreportedHits = 0;
+        }
+    }
+
     private void closeLinkedCursorIfAny()
     {
         if ( linkedCursor != null )
@@ -325,6 +347,10 @@ public abstract class MuninnPageCursor extends PageCursor
                 {
                     pinCursorToPage( pageRef, filePageId, swapper );
                     pinEvent.hit();
+                    if ( !transientAccess && ++unreportedHits == HIT_REPORT_INTERVAL )
+                    {
+                        reportHits();
+                    }
                     return;
                 }
                 if ( locked )
@@ -368,6 +394,7 @@ public abstract class MuninnPageCursor extends PageCursor
                 // Sweet, we didn't race with any other fault on this translation table entry.
                 long pageRef = pageFault( filePageId, swapper, chunkOffset, chunk, latch );
                 pinCursorToPage( pageRef, filePageId, swapper );
+                pageFaulted( filePageId );
                 return true;
             }
             // Oops, looks like we raced with another page fault on this file page.
@@ -417,7 +444,8 @@ public abstract class MuninnPageCursor extends PageCursor
             // the file channel.
             assertPagedFileStillMappedAndGetIdOfLastPage();
             pagedFile.initBuffer( pageRef );
-            pagedFile.fault( pageRef, swapper, pagedFile.swapperId, filePageId, faultEvent );
+            long bytesRead = pagedFile.fault( pageRef, swapper, pagedFile.swapperId, filePageId, faultEvent );
+            pagedFile.counters.faulted( bytesRead );
         }
         catch ( Throwable throwable )
         {
@@ -457,6 +485,11 @@ public abstract class MuninnPageCursor extends PageCursor
 
     protected abstract void convertPageFaultLock( long pageRef );
 
+    /**
+     * Called after this cursor has page faulted in, and pinned, the given file page.
+     */
+    protected abstract void pageFaulted( long filePageId );
+
     protected abstract void pinCursorToPage( long pageRef, long filePageId, PageSwapper swapper )
             throws FileIsNotMappedException;
 
@@ -33,6 +33,8 @@ import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.impl.FileIsNotMappedException;
+import org.neo4j.io.pagecache.monitoring.DefaultPagedFileCounters;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.io.pagecache.tracing.FlushEvent;
 import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
@@ -71,7 +73,9 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
 
     final PageSwapper swapper;
     final int swapperId;
+    private final boolean readOnly;
     private final CursorFactory cursorFactory;
+    final DefaultPagedFileCounters counters;
 
     private volatile boolean deleteOnClose;
 
@@ -111,10 +115,13 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
      * access to thread local version context
      * @param createIfNotExists should create file if it does not exists
      * @param truncateExisting should truncate file if it exists
+     * @param useDirectIo should use direct io for the underlying file
+     * @param readOnly map the file for reading only, which allows using a cheaper read-only page swapper
      * @throws IOException If the {@link PageSwapper} could not be created.
      */
     MuninnPagedFile( File file, MuninnPageCache pageCache, int filePageSize, PageSwapperFactory swapperFactory, PageCacheTracer pageCacheTracer,
-            VersionContextSupplier versionContextSupplier, boolean createIfNotExists, boolean truncateExisting, boolean useDirectIo )
+            VersionContextSupplier versionContextSupplier, boolean createIfNotExists, boolean truncateExisting, boolean useDirectIo,
+            boolean readOnly )
             throws IOException
     {
         super( pageCache.pages );
@@ -123,6 +130,8 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         this.cursorFactory = new CursorFactory( this, versionContextSupplier );
         this.pageCacheTracer = pageCacheTracer;
         this.pageFaultLatches = new LatchMap();
+        this.readOnly = readOnly;
+        this.counters = new DefaultPagedFileCounters( pageCache.clock() );
 
         // The translation table is an array of arrays of integers that are either UNMAPPED_TTE, or the id of a page in
         // the page list. The table only grows the outer array, and all the inner "chunks" all stay the same size. This
@@ -141,7 +150,8 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         // filled with UNMAPPED_TTE values, and then finally assigns the new outer array to the translationTable field
         // and releases the resize lock.
         PageEvictionCallback onEviction = this::evictPage;
-        swapper = swapperFactory.createPageSwapper( file, filePageSize, onEviction, createIfNotExists, useDirectIo );
+        swapper = readOnly ? swapperFactory.createReadOnlyPageSwapper( file, filePageSize, onEviction )
+                           : swapperFactory.createPageSwapper( file, filePageSize, onEviction, createIfNotExists, useDirectIo );
         if ( truncateExisting )
         {
             swapper.truncate();
@@ -157,7 +167,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         translationTable = tt;
 
         initialiseLastPageId( lastPageId );
-        this.swapperId = getSwappers().allocate( swapper );
+        this.swapperId = getSwappers().allocate( swapper, counters );
     }
 
     @Override
@@ -177,6 +187,10 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         }
         else if ( lockFlags == PF_SHARED_WRITE_LOCK )
         {
+            if ( readOnly )
+            {
+                throw new UnsupportedOperationException( "Cannot open a write cursor on " + file() + ", because it is mapped read-only" );
+            }
             cursor = cursorFactory.takeWriteCursor( pageId, pf_flags, tracer );
         }
         else
@@ -229,6 +243,12 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         return swapper.file();
     }
 
+    @Override
+    public PagedFileCounters counters()
+    {
+        return counters;
+    }
+
     @Override
     public void close()
     {
@@ -357,36 +377,85 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
     {
         try
         {
-            doFlushAndForceInternal( flushes, forClosing, limiter );
+            limiter.beginFileFlush( this );
+            flushChunks( flushes, forClosing, limiter, 0, Integer.MAX_VALUE );
+            // TODO it'd be awesome if, on Linux, we'd call sync_file_range(2) instead of fsync
+            swapper.force();
+            limiter.endFileFlush( this );
         }
         catch ( ClosedChannelException e )
         {
-            if ( getRefCount() > 0 )
-            {
-                // The file is not supposed to be closed, since we have a positive ref-count, yet we got a
-                // ClosedChannelException anyway? It's an odd situation, so let's tell the outside world about
-                // this failure.
-                e.addSuppressed( closeStackTrace );
-                throw e;
-            }
-            // Otherwise: The file was closed while we were trying to flush it. Since unmapping implies a flush
-            // anyway, we can safely assume that this is not a problem. The file was flushed, and it doesn't
-            // really matter how that happened. We'll ignore this exception.
+            handleClosedChannelDuringFlush( e );
+        }
+    }
+
+    /**
+     * Flush the dirty pages in the given range of translation table chunks, without forcing the file.
+     * This allows a single file to be flushed by several threads, each taking its own range of chunks.
+     * The last range should use {@link Integer#MAX_VALUE} as its {@code toChunk}, to also cover chunks that are
+     * added to the translation table while the flush is in progress.
+     */
+    void flushChunksInternal( FlushEventOpportunity flushes, IOLimiter limiter, int fromChunk, int toChunk ) throws IOException
+    {
+        try
+        {
+            flushChunks( flushes, false, limiter, fromChunk, toChunk );
+        }
+        catch ( ClosedChannelException e )
+        {
+            handleClosedChannelDuringFlush( e );
+        }
+    }
+
+    /**
+     * Force the underlying file, after its dirty pages have been flushed with {@link #flushChunksInternal}.
+     */
+    void forceInternal() throws IOException
+    {
+        try
+        {
+            swapper.force();
+        }
+        catch ( ClosedChannelException e )
+        {
+            handleClosedChannelDuringFlush( e );
+        }
+    }
+
+    int translationTableChunks()
+    {
+        return translationTable.length;
+    }
+
+    private void handleClosedChannelDuringFlush( ClosedChannelException e ) throws ClosedChannelException
+    {
+        if ( getRefCount() > 0 )
+        {
+            // The file is not supposed to be closed, since we have a positive ref-count, yet we got a
+            // ClosedChannelException anyway? It's an odd situation, so let's tell the outside world about
+            // this failure.
+            e.addSuppressed( closeStackTrace );
+            throw e;
         }
+        // Otherwise: The file was closed while we were trying to flush it. Since unmapping implies a flush
+        // anyway, we can safely assume that this is not a problem. The file was flushed, and it doesn't
+        // really matter how that happened. We'll ignore this exception.
     }
 
-    private void doFlushAndForceInternal( FlushEventOpportunity flushes, boolean forClosing, IOLimiter limiter )
+    private void flushChunks( FlushEventOpportunity flushes, boolean forClosing, IOLimiter limiter, int fromChunk, int toChunk )
             throws IOException
     {
-        // TODO it'd be awesome if, on Linux, we'd call sync_file_range(2) instead of fsync
         long[] pages = new long[translationTableChunkSize];
         long[] flushStamps = forClosing ? null : new long[translationTableChunkSize];
         long[] bufferAddresses = new long[translationTableChunkSize];
-        long filePageId = -1; // Start at -1 because we increment at the *start* of the chunk-loop iteration.
+        // Start one page before the range because we increment at the *start* of the chunk-loop iteration.
+        long filePageId = ((long) fromChunk << translationTableChunkSizePower) - 1;
         long limiterStamp = IOLimiter.INITIAL_STAMP;
         int[][] tt = this.translationTable;
-        for ( int[] chunk : tt )
+        int endChunk = Math.min( toChunk, tt.length );
+        for ( int chunkIndex = fromChunk; chunkIndex < endChunk; chunkIndex++ )
         {
+            int[] chunk = tt[chunkIndex];
             // TODO Look into if we can tolerate flushing a few clean pages if it means we can use larger vectors.
             // TODO The clean pages in question must still be loaded, though. Otherwise we'll end up writing
             // TODO garbage to the file.
@@ -454,8 +523,6 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
                 limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesGrabbed, this );
             }
         }
-
-        swapper.force();
     }
 
     private void vectoredFlush(
@@ -476,6 +543,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
             flush.addBytesWritten( bytesWritten );
             flush.addPagesFlushed( pagesGrabbed );
             flush.done();
+            counters.flushed( pagesGrabbed, bytesWritten );
             successful = true;
 
             // There are now 0 'grabbed' pages
@@ -526,6 +594,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
                 flush.addBytesWritten( bytesWritten );
                 flush.addPagesFlushed( 1 );
                 flush.done();
+                counters.flushed( 1, bytesWritten );
                 success = true;
             }
             catch ( IOException e )
@@ -660,6 +729,11 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         return (int) refCountOf( getHeaderState() );
     }
 
+    boolean isReadOnly()
+    {
+        return readOnly;
+    }
+
     @Override
     public void setDeleteOnClose( boolean deleteOnClose )
     {
@@ -682,6 +756,14 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         return pageCache.grabFreeAndExclusivelyLockedPage( faultEvent );
     }
 
+    /**
+     * Grab a free page for the purpose of a speculative page fault, or return 0 if none are immediately available.
+     */
+    long tryGrabFreeAndExclusivelyLockedPage() throws IOException
+    {
+        return pageCache.tryGrabFreeAndExclusivelyLockedPage();
+    }
+
     /**
      * Remove the mapping of the given filePageId from the translation table, and return the evicted page object.
      * @param filePageId The id of the file page to evict.
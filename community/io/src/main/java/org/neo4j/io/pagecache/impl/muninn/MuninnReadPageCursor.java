@@ -25,9 +25,12 @@ import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 
+import static org.neo4j.io.pagecache.PagedFile.PF_ADAPTIVE_READ_AHEAD;
+
 final class MuninnReadPageCursor extends MuninnPageCursor
 {
     private long lockStamp;
+    private ReadAhead readAhead;
 
     MuninnReadPageCursor( long victimPage, PageCursorTracer pageCursorTracer,
             VersionContextSupplier versionContextSupplier )
@@ -77,11 +80,27 @@ final class MuninnReadPageCursor extends MuninnPageCursor
     {
     }
 
+    @Override
+    protected void pageFaulted( long filePageId )
+    {
+        if ( ReadAhead.enabled && isFlagRaised( PF_ADAPTIVE_READ_AHEAD ) )
+        {
+            if ( readAhead == null )
+            {
+                readAhead = new ReadAhead();
+            }
+            readAhead.pageFaulted( pagedFile, filePageId, pinEvent );
+        }
+    }
+
     @Override
     protected void pinCursorToPage( long pageRef, long filePageId, PageSwapper swapper )
     {
         reset( pageRef );
-        pagedFile.incrementUsage( pageRef );
+        if ( !transientAccess )
+        {
+            pagedFile.incrementUsage( pageRef );
+        }
     }
 
     @Override
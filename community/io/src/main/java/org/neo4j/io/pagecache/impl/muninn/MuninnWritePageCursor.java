@@ -114,6 +114,11 @@ final class MuninnWritePageCursor extends MuninnPageCursor
         pagedFile.unlockWrite( pageRef );
     }
 
+    @Override
+    protected void pageFaulted( long filePageId )
+    {
+    }
+
     @Override
     protected void pinCursorToPage( long pageRef, long filePageId, PageSwapper swapper ) throws FileIsNotMappedException
     {
@@ -126,7 +131,10 @@ final class MuninnWritePageCursor extends MuninnPageCursor
         // after the reset() call, which means that if we throw, the cursor will
         // be closed and the page lock will be released.
         assertPagedFileStillMappedAndGetIdOfLastPage();
-        pagedFile.incrementUsage( pageRef );
+        if ( !transientAccess )
+        {
+            pagedFile.incrementUsage( pageRef );
+        }
         pagedFile.setLastModifiedTxId( pageRef, versionContextSupplier.getVersionContext().committingTransactionId() );
     }
 
@@ -25,6 +25,7 @@ import org.neo4j.internal.unsafe.UnsafeUtil;
 import org.neo4j.io.mem.MemoryAllocator;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.DefaultPagedFileCounters;
 import org.neo4j.io.pagecache.tracing.EvictionEvent;
 import org.neo4j.io.pagecache.tracing.EvictionEventOpportunity;
 import org.neo4j.io.pagecache.tracing.FlushEvent;
@@ -301,7 +302,7 @@ class PageList
         }
     }
 
-    private byte getUsageCounter( long pageRef )
+    byte getUsageCounter( long pageRef )
     {
         return (byte) (UnsafeUtil.getLongVolatile( offPageBinding( pageRef ) ) & MASK_USAGE_COUNT);
     }
@@ -409,7 +410,7 @@ class PageList
         return expectedBinding == actualBinding;
     }
 
-    void fault( long pageRef, PageSwapper swapper, int swapperId, long filePageId, PageFaultEvent event )
+    long fault( long pageRef, PageSwapper swapper, int swapperId, long filePageId, PageFaultEvent event )
             throws IOException
     {
         if ( swapper == null )
@@ -435,6 +436,49 @@ class PageList
         event.addBytesRead( bytesRead );
         event.setCachePageId( toId( pageRef ) );
         setSwapperId( pageRef, swapperId ); // Page now considered isBoundTo( swapper, filePageId )
+        return bytesRead;
+    }
+
+    /**
+     * Fault in a run of consecutive file pages with a single vectored read. The same rules apply as for
+     * {@link #fault(long, PageSwapper, int, long, PageFaultEvent)}: all of the given pages must be exclusively locked
+     * and unbound.
+     *
+     * @param pageRefs the pages to fault into, one for each file page starting with {@code startFilePageId}.
+     * @param bufferAddresses scratch space for the buffer addresses of the pages, at least {@code length} long.
+     * @param length the number of pages in the run.
+     * @return the number of bytes read.
+     */
+    long faultRun( long[] pageRefs, long[] bufferAddresses, int length, PageSwapper swapper, int swapperId,
+            long startFilePageId, PageFaultEvent event ) throws IOException
+    {
+        if ( swapper == null )
+        {
+            throw swapperCannotBeNull();
+        }
+        for ( int i = 0; i < length; i++ )
+        {
+            long pageRef = pageRefs[i];
+            long filePageId = startFilePageId + i;
+            int currentSwapper = getSwapperId( pageRef );
+            long currentFilePageId = getFilePageId( pageRef );
+            if ( !isExclusivelyLocked( pageRef ) || currentSwapper != 0
+                 || currentFilePageId != PageCursor.UNBOUND_PAGE_ID )
+            {
+                throw cannotFaultException( pageRef, swapper, swapperId, filePageId, currentSwapper, currentFilePageId );
+            }
+            // As in fault(), the file page id is assigned before the swapping, and the swapper id after.
+            setFilePageId( pageRef, filePageId );
+            bufferAddresses[i] = getAddress( pageRef );
+        }
+        long bytesRead = swapper.read( startFilePageId, bufferAddresses, 0, length );
+        event.addBytesRead( bytesRead );
+        event.setCachePageId( toId( pageRefs[0] ) );
+        for ( int i = 0; i < length; i++ )
+        {
+            setSwapperId( pageRefs[i], swapperId );
+        }
+        return bytesRead;
     }
 
     private static IllegalArgumentException swapperCannotBeNull()
@@ -486,20 +530,22 @@ class PageList
                 // The allocation can be null if the file has been unmapped, but there are still pages
                 // lingering in the cache that were bound to file page in that file.
                 PageSwapper swapper = swapperMapping.swapper;
+                DefaultPagedFileCounters counters = swapperMapping.counters;
                 evictionEvent.setSwapper( swapper );
 
                 if ( isModified( pageRef ) )
                 {
-                    flushModifiedPage( pageRef, evictionEvent, filePageId, swapper );
+                    flushModifiedPage( pageRef, evictionEvent, filePageId, swapper, counters );
                 }
                 swapper.evicted( filePageId );
+                counters.evicted();
             }
         }
         clearBinding( pageRef );
     }
 
-    private void flushModifiedPage( long pageRef, EvictionEvent evictionEvent, long filePageId, PageSwapper swapper )
-            throws IOException
+    private void flushModifiedPage( long pageRef, EvictionEvent evictionEvent, long filePageId, PageSwapper swapper,
+            DefaultPagedFileCounters counters ) throws IOException
     {
         FlushEvent flushEvent = evictionEvent.flushEventOpportunity().beginFlush( filePageId, pageRef, swapper );
         try
@@ -510,6 +556,7 @@ class PageList
             flushEvent.addBytesWritten( bytesWritten );
             flushEvent.addPagesFlushed( 1 );
             flushEvent.done();
+            counters.flushed( 1, bytesWritten );
         }
         catch ( IOException e )
         {
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.io.IOException;
+
+import org.neo4j.internal.unsafe.UnsafeUtil;
+import org.neo4j.io.pagecache.tracing.PageFaultEvent;
+import org.neo4j.io.pagecache.tracing.PinEvent;
+
+import static org.neo4j.io.pagecache.impl.muninn.MuninnPagedFile.UNMAPPED_TTE;
+import static org.neo4j.util.FeatureToggles.flag;
+import static org.neo4j.util.FeatureToggles.getInteger;
+
+/**
+ * Adaptive sequential read-ahead for a single read cursor.
+ * <p>
+ * The cursor reports every page fault it takes. Once a few faults in a row have been on consecutive file pages, the
+ * cursor is assumed to be scanning the file, and from then on every fault also brings in a window of the following
+ * file pages, using vectored reads. The window doubles every time the cursor faults on the page right after the
+ * previous window, because that means all of the window was used. The window is halved, and eventually read-ahead
+ * stops altogether, if the cursor faults on a page inside the previous window, because that means the pages we read
+ * ahead were evicted before the cursor got to them.
+ * <p>
+ * Read-ahead is strictly best-effort. It only uses pages that are immediately available on the freelist, never waits
+ * for page fault latches, skips pages that are already in memory, and ignores I/O errors; if a page could not be read
+ * ahead, then the regular page fault will take care of it, and report any errors.
+ * <p>
+ * Only read cursors opened with {@link org.neo4j.io.pagecache.PagedFile#PF_ADAPTIVE_READ_AHEAD} read ahead, since the
+ * pages read ahead take the place of other pages in the cache, and are not counted as faults. This complements the
+ * {@link PreFetcher}, which serves cursors opened with {@link org.neo4j.io.pagecache.PagedFile#PF_READ_AHEAD}.
+ */
+final class ReadAhead
+{
+    static final boolean enabled = flag( ReadAhead.class, "enabled", true );
+    static final int sequentialFaultsThreshold = getInteger( ReadAhead.class, "sequentialFaultsThreshold", 2 );
+    static final int minWindow = getInteger( ReadAhead.class, "minWindow", 4 );
+    static final int maxWindow = getInteger( ReadAhead.class, "maxWindow", 64 );
+
+    private long lastFaultPageId = -2;
+    private int sequentialFaults;
+    private int window = minWindow;
+    // The range of file pages that was covered by the last read-ahead, or 0 to 0 if we are not currently reading ahead.
+    private long windowStart;
+    private long windowEnd;
+    private long[] pageRefs;
+    private long[] bufferAddresses;
+    private LatchMap.Latch[] latches;
+
+    /**
+     * Called by the cursor after it has page faulted in the given file page.
+     */
+    void pageFaulted( MuninnPagedFile pagedFile, long filePageId, PinEvent pinEvent )
+    {
+        int pages = pagesToReadAhead( filePageId );
+        if ( pages > 0 )
+        {
+            long start = filePageId + 1;
+            windowCovered( start, readAhead( pagedFile, start, pages, pinEvent ) );
+        }
+    }
+
+    /**
+     * Record that a read-ahead, starting from the given file page, covered the given number of file pages.
+     */
+    void windowCovered( long startFilePageId, int pages )
+    {
+        windowStart = pages == 0 ? 0 : startFilePageId;
+        windowEnd = pages == 0 ? 0 : startFilePageId + pages;
+    }
+
+    /**
+     * Decide how many pages to read ahead after a page fault on the given file page, and adapt the window size based
+     * on how the cursor has been faulting so far.
+     */
+    int pagesToReadAhead( long filePageId )
+    {
+        boolean sequential = filePageId == lastFaultPageId + 1;
+        lastFaultPageId = filePageId;
+        if ( windowEnd != 0 )
+        {
+            if ( filePageId == windowEnd )
+            {
+                window = Math.min( maxWindow, window * 2 );
+                return window;
+            }
+            if ( filePageId >= windowStart && filePageId < windowEnd && window > minWindow )
+            {
+                window = Math.max( minWindow, window / 2 );
+                return window;
+            }
+            // Either the cursor jumped somewhere else, or it keeps missing pages we read ahead even with the smallest
+            // window. Either way, we stop reading ahead until we see a new sequential run.
+            windowStart = 0;
+            windowEnd = 0;
+            window = minWindow;
+            sequentialFaults = 0;
+            return 0;
+        }
+        sequentialFaults = sequential ? sequentialFaults + 1 : 0;
+        return sequentialFaults >= sequentialFaultsThreshold ? window : 0;
+    }
+
+    /**
+     * Fault in up to the given number of file pages, starting from the given file page.
+     * @return the number of file pages that were considered, including the ones that were skipped because they were
+     * already in memory.
+     */
+    private int readAhead( MuninnPagedFile pagedFile, long startFilePageId, int pages, PinEvent pinEvent )
+    {
+        if ( pageRefs == null )
+        {
+            pageRefs = new long[maxWindow];
+            bufferAddresses = new long[maxWindow];
+            latches = new LatchMap.Latch[maxWindow];
+        }
+        try
+        {
+            pages = (int) Math.min( pages, pagedFile.getLastPageId() - startFilePageId + 1 );
+            int runLength = 0;
+            int index = 0;
+            while ( index < pages )
+            {
+                long filePageId = startFilePageId + index;
+                int[] chunk = chunk( pagedFile, filePageId );
+                long chunkOffset = MuninnPagedFile.computeChunkOffset( filePageId );
+                if ( UnsafeUtil.getIntVolatile( chunk, chunkOffset ) != UNMAPPED_TTE )
+                {
+                    // Already in memory, or being faulted in by someone else.
+                    runLength = faultRun( pagedFile, filePageId - runLength, runLength, pinEvent );
+                    index++;
+                    continue;
+                }
+                LatchMap.Latch latch = pagedFile.pageFaultLatches.tryTakeLatch( filePageId );
+                if ( latch == null )
+                {
+                    if ( runLength == 0 )
+                    {
+                        // Someone else is faulting in this page, or a colliding one. We leave them to it.
+                        index++;
+                    }
+                    // Otherwise we might be colliding with one of our own latches, so we complete the run we have so
+                    // far, and then try this page again.
+                    runLength = faultRun( pagedFile, filePageId - runLength, runLength, pinEvent );
+                    continue;
+                }
+                if ( UnsafeUtil.getIntVolatile( chunk, chunkOffset ) != UNMAPPED_TTE )
+                {
+                    latch.release();
+                    runLength = faultRun( pagedFile, filePageId - runLength, runLength, pinEvent );
+                    index++;
+                    continue;
+                }
+                long pageRef = pagedFile.tryGrabFreeAndExclusivelyLockedPage();
+                if ( pageRef == 0 )
+                {
+                    // No free pages. Read-ahead must not cause evictions, so this is as far as we go.
+                    latch.release();
+                    break;
+                }
+                latches[runLength] = latch;
+                pageRefs[runLength] = pageRef;
+                runLength++;
+                index++;
+            }
+            faultRun( pagedFile, startFilePageId + index - runLength, runLength, pinEvent );
+            return index;
+        }
+        catch ( IOException e )
+        {
+            // Read-ahead is only an optimisation, so we leave it to the regular page faults to deal with any problems.
+            return 0;
+        }
+    }
+
+    private static int[] chunk( MuninnPagedFile pagedFile, long filePageId )
+    {
+        int chunkId = MuninnPagedFile.computeChunkId( filePageId );
+        int[][] tt = pagedFile.translationTable;
+        if ( tt.length <= chunkId )
+        {
+            tt = pagedFile.expandCapacity( chunkId );
+        }
+        return tt[chunkId];
+    }
+
+    /**
+     * Read the given run of file pages into the pages and latches we have collected for them, publish them in the
+     * translation table, and then unlock the pages and release the latches, no matter what happens.
+     * @return always 0, the length of the next run.
+     */
+    private int faultRun( MuninnPagedFile pagedFile, long startFilePageId, int runLength, PinEvent pinEvent )
+            throws IOException
+    {
+        if ( runLength == 0 )
+        {
+            return 0;
+        }
+        PageFaultEvent faultEvent = pinEvent.beginPageFault();
+        boolean success = false;
+        try
+        {
+            // Check if we're racing with unmapping, like a regular page fault does.
+            pagedFile.getLastPageId();
+            for ( int i = 0; i < runLength; i++ )
+            {
+                pagedFile.initBuffer( pageRefs[i] );
+            }
+            long bytesRead = pagedFile.faultRun( pageRefs, bufferAddresses, runLength, pagedFile.swapper, pagedFile.swapperId,
+                    startFilePageId, faultEvent );
+            pagedFile.counters.faulted( bytesRead );
+            success = true;
+        }
+        catch ( Throwable throwable )
+        {
+            faultEvent.done( throwable );
+            throw throwable;
+        }
+        finally
+        {
+            for ( int i = 0; i < runLength; i++ )
+            {
+                long pageRef = pageRefs[i];
+                if ( success )
+                {
+                    // Publish the page before unlocking it, since eviction expects to find it in the translation table.
+                    long filePageId = startFilePageId + i;
+                    UnsafeUtil.putIntVolatile( chunk( pagedFile, filePageId ),
+                            MuninnPagedFile.computeChunkOffset( filePageId ), pagedFile.toId( pageRef ) );
+                }
+                pagedFile.unlockExclusive( pageRef );
+                latches[i].release();
+                latches[i] = null;
+            }
+        }
+        faultEvent.done();
+        return 0;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.io.Flushable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.neo4j.io.pagecache.IOLimiter;
+
+/**
+ * An {@link IOLimiter} that lets several threads draw from the budget of a single delegate limiter.
+ * <p>
+ * Limiters keep the context of a flush in the stamp that is passed from one call to the next. When a flush is spread
+ * over several threads, each with their own stamp, every thread would get the full budget of the delegate. This
+ * limiter instead keeps one stamp for all threads, so the budget of the delegate applies to the flush as a whole.
+ * <p>
+ * The IOs of all threads are queued up, and whichever thread gets to report them hands them to the delegate, which
+ * may park that thread to keep the IO rate down. The other threads carry on with their next batch of writes in the
+ * mean time, rather than queueing up behind the parked thread. A thread only waits for the delegate when its IOs from
+ * the previous call have not been picked up by a report yet, so no thread gets more than one batch ahead of the budget.
+ */
+final class SharedIOLimiter implements IOLimiter
+{
+    private final IOLimiter delegate;
+    private final Queue<UnreportedIO> unreportedIOs = new ConcurrentLinkedQueue<>();
+    // The number of reports that have been started. The stamps handed out to the callers are this count plus one,
+    // which keeps them apart from the INITIAL_STAMP.
+    private final AtomicLong reports = new AtomicLong();
+    private final ReentrantLock reportLock = new ReentrantLock();
+    private long stamp = INITIAL_STAMP; // Guarded by reportLock.
+
+    SharedIOLimiter( IOLimiter delegate )
+    {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public long maybeLimitIO( long previousStamp, int recentlyCompletedIOs, Flushable flushable )
+    {
+        unreportedIOs.add( new UnreportedIO( recentlyCompletedIOs, flushable ) );
+        long reportStamp = reports.get() + 1;
+        if ( previousStamp == reportStamp )
+        {
+            // No report has started since our previous call, so our previous IOs are still waiting for the delegate.
+            // Wait for the report that is in progress, if any, before writing any more.
+            reportLock.lock();
+        }
+        else if ( !reportLock.tryLock() )
+        {
+            // Another thread is reporting to the delegate, and it, or the thread after it, will report our IOs.
+            return reportStamp;
+        }
+        try
+        {
+            report();
+            return reports.get() + 1;
+        }
+        finally
+        {
+            reportLock.unlock();
+        }
+    }
+
+    @Override
+    public void beginFileFlush( Flushable flushable )
+    {
+        delegate.beginFileFlush( flushable );
+    }
+
+    @Override
+    public void endFileFlush( Flushable flushable )
+    {
+        // The IOs of the file may still be waiting for a report, and they belong before the end of its flush.
+        reportLock.lock();
+        try
+        {
+            report();
+        }
+        finally
+        {
+            reportLock.unlock();
+        }
+        delegate.endFileFlush( flushable );
+    }
+
+    @Override
+    public void disableLimit()
+    {
+        delegate.disableLimit();
+    }
+
+    @Override
+    public void enableLimit()
+    {
+        delegate.enableLimit();
+    }
+
+    @Override
+    public boolean isLimited()
+    {
+        return delegate.isLimited();
+    }
+
+    /**
+     * Hand all queued IOs to the delegate. Must be called while holding the {@link #reportLock}.
+     */
+    private void report()
+    {
+        if ( unreportedIOs.isEmpty() )
+        {
+            return;
+        }
+        // Count the report before we drain the queue, so any IOs that were queued before the count was read are
+        // sure to be included in this report.
+        reports.incrementAndGet();
+        UnreportedIO io;
+        while ( (io = unreportedIOs.poll()) != null )
+        {
+            stamp = delegate.maybeLimitIO( stamp, io.completedIOs, io.flushable );
+        }
+    }
+
+    private static class UnreportedIO
+    {
+        private final int completedIOs;
+        private final Flushable flushable;
+
+        UnreportedIO( int completedIOs, Flushable flushable )
+        {
+            this.completedIOs = completedIOs;
+            this.flushable = flushable;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.monitoring;
+
+import org.neo4j.time.SystemNanoClock;
+
+/**
+ * The standard implementation of {@link PagedFileCounters}, built from {@link StripedWindowedCounter}s.
+ * The page cache updates it as it pins, faults, evicts and flushes the pages of the file.
+ * <p>
+ * Hits happen on every pin, so page cursors count them on their own and only report them here in batches, rather than
+ * updating the shared counter every time.
+ */
+public final class DefaultPagedFileCounters implements PagedFileCounters
+{
+    private final StripedWindowedCounter hits;
+    private final StripedWindowedCounter faults;
+    private final StripedWindowedCounter evictions;
+    private final StripedWindowedCounter flushes;
+    private final StripedWindowedCounter bytesRead;
+    private final StripedWindowedCounter bytesWritten;
+
+    public DefaultPagedFileCounters( SystemNanoClock clock )
+    {
+        hits = new StripedWindowedCounter( clock );
+        faults = new StripedWindowedCounter( clock );
+        evictions = new StripedWindowedCounter( clock );
+        flushes = new StripedWindowedCounter( clock );
+        bytesRead = new StripedWindowedCounter( clock );
+        bytesWritten = new StripedWindowedCounter( clock );
+    }
+
+    /**
+     * @param count the number of pins that found their page already in the cache.
+     */
+    public void hits( long count )
+    {
+        hits.add( count );
+    }
+
+    /**
+     * @param bytes the number of bytes read from the file to fault in a page.
+     */
+    public void faulted( long bytes )
+    {
+        faults.increment();
+        bytesRead.add( bytes );
+    }
+
+    /**
+     * A page of the file has been evicted from the cache.
+     */
+    public void evicted()
+    {
+        evictions.increment();
+    }
+
+    /**
+     * @param pages the number of pages written to the file by a single flush.
+     * @param bytes the number of bytes written by that flush.
+     */
+    public void flushed( int pages, long bytes )
+    {
+        flushes.add( pages );
+        bytesWritten.add( bytes );
+    }
+
+    @Override
+    public WindowedCounter hits()
+    {
+        return hits;
+    }
+
+    @Override
+    public WindowedCounter faults()
+    {
+        return faults;
+    }
+
+    @Override
+    public WindowedCounter evictions()
+    {
+        return evictions;
+    }
+
+    @Override
+    public WindowedCounter flushes()
+    {
+        return flushes;
+    }
+
+    @Override
+    public WindowedCounter bytesRead()
+    {
+        return bytesRead;
+    }
+
+    @Override
+    public WindowedCounter bytesWritten()
+    {
+        return bytesWritten;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.monitoring;
+
+/**
+ * The PagedFileCounters exposes the page cache counters for a single mapped file, so that page cache activity can be
+ * attributed to the store or index that caused it.
+ * <p>
+ * Unlike the {@link PageCacheCounters}, these counters are not sourced through the PageCacheTracer API, but are
+ * kept by the {@link org.neo4j.io.pagecache.PagedFile} itself.
+ */
+public interface PagedFileCounters
+{
+    /**
+     * @return The page pins that found the page already in memory.
+     */
+    WindowedCounter hits();
+
+    /**
+     * @return The page faults, where a vectored read of several pages counts as a single fault.
+     */
+    WindowedCounter faults();
+
+    /**
+     * @return The pages of this file that have been evicted.
+     */
+    WindowedCounter evictions();
+
+    /**
+     * @return The pages of this file that have been flushed.
+     */
+    WindowedCounter flushes();
+
+    /**
+     * @return The bytes read in through page faults.
+     */
+    WindowedCounter bytesRead();
+
+    /**
+     * @return The bytes written through flushes.
+     */
+    WindowedCounter bytesWritten();
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.monitoring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.neo4j.time.SystemNanoClock;
+
+/**
+ * A {@link WindowedCounter} that is cheap to update from many threads at once.
+ * <p>
+ * The count is kept in a {@link LongAdder}, and updating the counter does nothing else, not even read the clock.
+ * The moving averages are instead brought up to date when they are read, by looking at how much the count has changed
+ * since the last time. Everything that was counted between two reads is attributed to the first tick interval after
+ * the previous read, and the remaining intervals only decay the averages.
+ */
+public final class StripedWindowedCounter implements WindowedCounter
+{
+    private static final long TICK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos( 5 );
+    private static final double TICK_INTERVAL_SECONDS = 5.0;
+    private static final double ONE_MINUTE_ALPHA = alpha( 1 );
+    private static final double FIVE_MINUTE_ALPHA = alpha( 5 );
+    private static final double FIFTEEN_MINUTE_ALPHA = alpha( 15 );
+
+    private final LongAdder count = new LongAdder();
+    private final SystemNanoClock clock;
+
+    // Guarded by this
+    private long lastTickNanos;
+    private long lastTickCount;
+    private boolean initialised;
+    private double oneMinuteRate;
+    private double fiveMinuteRate;
+    private double fifteenMinuteRate;
+
+    /**
+     * @param clock the clock that the moving averages are ticked by.
+     */
+    public StripedWindowedCounter( SystemNanoClock clock )
+    {
+        this.clock = clock;
+        this.lastTickNanos = clock.nanos();
+    }
+
+    private static double alpha( int minutes )
+    {
+        return 1 - Math.exp( -TICK_INTERVAL_SECONDS / TimeUnit.MINUTES.toSeconds( minutes ) );
+    }
+
+    /**
+     * Count one more occurrence.
+     */
+    public void increment()
+    {
+        count.increment();
+    }
+
+    /**
+     * @param delta the number of occurrences to add to the count.
+     */
+    public void add( long delta )
+    {
+        count.add( delta );
+    }
+
+    @Override
+    public long count()
+    {
+        return count.sum();
+    }
+
+    @Override
+    public synchronized double oneMinuteRate()
+    {
+        tickIfNecessary();
+        return oneMinuteRate;
+    }
+
+    @Override
+    public synchronized double fiveMinuteRate()
+    {
+        tickIfNecessary();
+        return fiveMinuteRate;
+    }
+
+    @Override
+    public synchronized double fifteenMinuteRate()
+    {
+        tickIfNecessary();
+        return fifteenMinuteRate;
+    }
+
+    /**
+     * Move the averages forward by the number of whole tick intervals that have passed since the last tick, if any.
+     */
+    private void tickIfNecessary()
+    {
+        long ticks = (clock.nanos() - lastTickNanos) / TICK_INTERVAL_NANOS;
+        if ( ticks <= 0 )
+        {
+            return;
+        }
+        lastTickNanos += ticks * TICK_INTERVAL_NANOS;
+        long currentCount = count.sum();
+        double instantRate = (currentCount - lastTickCount) / TICK_INTERVAL_SECONDS;
+        lastTickCount = currentCount;
+        if ( initialised )
+        {
+            oneMinuteRate += ONE_MINUTE_ALPHA * (instantRate - oneMinuteRate);
+            fiveMinuteRate += FIVE_MINUTE_ALPHA * (instantRate - fiveMinuteRate);
+            fifteenMinuteRate += FIFTEEN_MINUTE_ALPHA * (instantRate - fifteenMinuteRate);
+        }
+        else
+        {
+            oneMinuteRate = instantRate;
+            fiveMinuteRate = instantRate;
+            fifteenMinuteRate = instantRate;
+            initialised = true;
+        }
+        if ( ticks > 1 )
+        {
+            // Nothing was counted in the remaining intervals, as far as we know.
+            oneMinuteRate *= Math.pow( 1 - ONE_MINUTE_ALPHA, ticks - 1 );
+            fiveMinuteRate *= Math.pow( 1 - FIVE_MINUTE_ALPHA, ticks - 1 );
+            fifteenMinuteRate *= Math.pow( 1 - FIFTEEN_MINUTE_ALPHA, ticks - 1 );
+        }
+    }
+}
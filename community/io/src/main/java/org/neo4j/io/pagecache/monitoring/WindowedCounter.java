@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.monitoring;
+
+/**
+ * A counter that, in addition to its total count, keeps track of how fast it has been counting recently.
+ * <p>
+ * The recent rates are exponentially weighted moving averages, like the load averages of Unix systems, so the
+ * one minute rate mostly reflects the last minute, but also has some memory of what happened before that.
+ */
+public interface WindowedCounter
+{
+    /**
+     * @return The total count thus far.
+     */
+    long count();
+
+    /**
+     * @return The average number of counts per second, over roughly the last minute.
+     */
+    double oneMinuteRate();
+
+    /**
+     * @return The average number of counts per second, over roughly the last five minutes.
+     */
+    double fiveMinuteRate();
+
+    /**
+     * @return The average number of counts per second, over roughly the last fifteen minutes.
+     */
+    double fifteenMinuteRate();
+}
@@ -100,6 +100,20 @@ public class DefaultPageCursorTracer implements PageCursorTracer
         reset();
     }
 
+    @Override
+    public void merge( PageCursorCounters cursorCounters )
+    {
+        pins += cursorCounters.pins();
+        unpins += cursorCounters.unpins();
+        hits += cursorCounters.hits();
+        faults += cursorCounters.faults();
+        bytesRead += cursorCounters.bytesRead();
+        bytesWritten += cursorCounters.bytesWritten();
+        evictions += cursorCounters.evictions();
+        evictionExceptions += cursorCounters.evictionExceptions();
+        flushes += cursorCounters.flushes();
+    }
+
     private void reset()
     {
         pins = 0;
@@ -127,6 +127,15 @@ public interface PageCursorTracer extends PageCursorCounters, Closeable
      */
     void reportEvents();
 
+    /**
+     * Add the counts of another page cursor tracer, which traced page accesses done on behalf of this one by another thread,
+     * to the counts of this tracer. The other tracer must not be in use while this is called.
+     * Tracers that don't keep counts of their own ignore this.
+     */
+    default void merge( PageCursorCounters cursorCounters )
+    {
+    }
+
     /**
      * @return page cursor tracer tag
      */
@@ -58,6 +58,20 @@ public interface Read
     void nodeIndexSeek( IndexReadSession index, NodeValueIndexCursor cursor, IndexQueryConstraints constraints, IndexQuery... query )
             throws KernelException;
 
+    /**
+     * Seek all nodes matching any of the provided exact index queries in an index. The result is the same as seeking each query with
+     * {@link #nodeIndexSeek(IndexReadSession, NodeValueIndexCursor, IndexQueryConstraints, IndexQuery...)} and concatenating the results,
+     * but the index can serve all queries together, e.g. in a single pass over a sorted index. Typically used for predicates
+     * matching a property against a list of values.
+     * @param index {@link IndexReadSession} referencing index to query.
+     * @param cursor the cursor to use for consuming the results.
+     * @param constraints The requested constraints on the query result, such as whether the index should fetch property values
+     * together with node ids for index queries. Results of different queries are not ordered so only {@link IndexOrder#NONE} is supported.
+     * @param queries distinct combinations of {@link IndexQuery.ExactPredicate exact index queries} to run against referenced index.
+     */
+    void nodeIndexSeekMany( IndexReadSession index, NodeValueIndexCursor cursor, IndexQueryConstraints constraints, IndexQuery.ExactPredicate[]... queries )
+            throws KernelException;
+
     /**
      * Seek all relationships matching the provided index query in an index.
      *
@@ -39,6 +39,7 @@ public class BridgingIndexProgressor implements IndexProgressor.EntityValueClien
     // of progressors and each progressor has many results each
     private final Queue<IndexProgressor> progressors = new ConcurrentLinkedQueue<>();
     private IndexProgressor current;
+    private IndexDescriptor descriptor;
 
     public BridgingIndexProgressor( EntityValueClient client, int[] keys )
     {
@@ -88,9 +89,18 @@ public class BridgingIndexProgressor implements IndexProgressor.EntityValueClien
                             boolean indexIncludesTransactionState )
     {
         assertKeysAlign( descriptor.schema().getPropertyIds() );
+        this.descriptor = descriptor;
         progressors.add( progressor );
     }
 
+    /**
+     * @return descriptor of the index the bridged progressors were initialized for, or {@code null} if none has been initialized.
+     */
+    public IndexDescriptor descriptor()
+    {
+        return descriptor;
+    }
+
     private void assertKeysAlign( int[] keys )
     {
         for ( int i = 0; i < this.keys.length; i++ )
@@ -54,6 +54,27 @@ public interface IndexReader extends Resource
     void query( QueryContext context, IndexProgressor.EntityValueClient client, IndexQueryConstraints constraints, PageCursorTracer cursorTracer,
             IndexQuery... query ) throws IndexNotApplicableKernelException;
 
+    /**
+     * Queries the index for entities matching any of the given exact queries. The client is initialized once, with a progressor
+     * over the results of all queries, in no particular order. This default implementation runs one
+     * {@link #query(QueryContext, IndexProgressor.EntityValueClient, IndexQueryConstraints, PageCursorTracer, IndexQuery...) query}
+     * per exact query, implementations able to serve all queries together, like sorted indexes, should override it.
+     * @param client the client which will control the progression though query results.
+     * @param constraints constraints upon the query result, whether the index should fetch property values alongside the entity ids.
+     * @param cursorTracer underlying page cursor tracer
+     * @param queries distinct exact queries to serve, at least one.
+     */
+    default void queryMany( QueryContext context, IndexProgressor.EntityValueClient client, IndexQueryConstraints constraints,
+            PageCursorTracer cursorTracer, IndexQuery.ExactPredicate[]... queries ) throws IndexNotApplicableKernelException
+    {
+        BridgingIndexProgressor multiProgressor = new BridgingIndexProgressor( client, propertyKeyIds( queries[0] ) );
+        for ( IndexQuery.ExactPredicate[] query : queries )
+        {
+            query( context, multiProgressor, constraints, cursorTracer, query );
+        }
+        client.initialize( multiProgressor.descriptor(), multiProgressor, queries[0], constraints, false );
+    }
+
     /**
      * @param predicates query to determine whether index has full value precision for.
      * @return whether or not this reader will only return 100% matching results from
@@ -64,6 +85,16 @@ public interface IndexReader extends Resource
      */
     boolean hasFullValuePrecision( IndexQuery... predicates );
 
+    private static int[] propertyKeyIds( IndexQuery[] query )
+    {
+        int[] propertyKeyIds = new int[query.length];
+        for ( int i = 0; i < query.length; i++ )
+        {
+            propertyKeyIds[i] = query[i].propertyKeyId();
+        }
+        return propertyKeyIds;
+    }
+
     IndexReader EMPTY = new IndexReader()
     {
         // Used for checking index correctness
@@ -86,6 +117,13 @@ public interface IndexReader extends Resource
             // do nothing
         }
 
+        @Override
+        public void queryMany( QueryContext context, IndexProgressor.EntityValueClient client, IndexQueryConstraints constraints,
+                PageCursorTracer cursorTracer, IndexQuery.ExactPredicate[]... queries )
+        {
+            // do nothing
+        }
+
         @Override
         public void close()
         {
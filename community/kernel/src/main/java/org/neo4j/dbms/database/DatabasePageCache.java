@@ -25,6 +25,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.OpenOption;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -34,6 +35,7 @@ import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 
@@ -95,10 +97,16 @@ public class DatabasePageCache implements PageCache
     @Override
     public void flushAndForce( IOLimiter limiter ) throws IOException
     {
-        for ( PagedFile pagedFile : databasePagedFiles )
-        {
-            pagedFile.flushAndForce( limiter );
-        }
+        // Let the global page cache flush the files of this database together, so they can be flushed in parallel.
+        globalPageCache.flushAndForce( databasePagedFiles, limiter );
+    }
+
+    @Override
+    public void flushAndForce( Collection<PagedFile> files, IOLimiter limiter ) throws IOException
+    {
+        List<PagedFile> pagedFiles = new ArrayList<>( files );
+        pagedFiles.retainAll( databasePagedFiles );
+        globalPageCache.flushAndForce( pagedFiles, limiter );
     }
 
     @Override
@@ -169,6 +177,12 @@ public class DatabasePageCache implements PageCache
             return delegate.file();
         }
 
+        @Override
+        public PagedFileCounters counters()
+        {
+            return delegate.counters();
+        }
+
         @Override
         public void flushAndForce() throws IOException
         {
@@ -21,9 +21,10 @@ package org.neo4j.kernel.impl.api;
 
 import org.neo4j.configuration.Config;
 import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
+import org.neo4j.monitoring.Health;
 import org.neo4j.storageengine.api.StorageEngine;
 
 public interface CommitProcessFactory
 {
-    TransactionCommitProcess create( TransactionAppender appender, StorageEngine storageEngine, Config config );
+    TransactionCommitProcess create( TransactionAppender appender, StorageEngine storageEngine, Health databaseHealth, Config config );
 }
@@ -994,6 +994,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
             statistics.reset();
             releaseStatementResources();
             operations.release();
+            commandCreationContext.release();
             pageCursorTracer.reportEvents();
             initializationTrace = null;
             memoryTracker.reset();
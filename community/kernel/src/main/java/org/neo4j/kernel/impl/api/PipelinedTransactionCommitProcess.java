@@ -0,0 +1,492 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.neo4j.internal.kernel.api.exceptions.TransactionFailureException;
+import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
+import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
+import org.neo4j.kernel.impl.transaction.tracing.StoreApplyEvent;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.monitoring.Health;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.StorageEngine;
+import org.neo4j.storageengine.api.TransactionApplicationMode;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.neo4j.kernel.api.exceptions.Status.Transaction.TransactionCommitFailed;
+import static org.neo4j.kernel.api.exceptions.Status.Transaction.TransactionLogError;
+import static org.neo4j.storageengine.api.TransactionApplicationMode.INTERNAL;
+
+/**
+ * Commits transactions in two pipelined stages, each run by its own thread and connected by bounded queues:
+ * <ol>
+ * <li>The append stage takes all batches that committers have queued up, in the order they were queued, appends them
+ * to the transaction log as one group, and forces the log once for the whole group.</li>
+ * <li>The apply stage applies each group to the store, in the order the groups were appended, and then marks the
+ * transactions as closed.</li>
+ * </ol>
+ * While one group is being applied, the next is being appended. A committer waits until its batch has gone through
+ * both stages, so when {@link #commit(TransactionToApply, CommitEvent, TransactionApplicationMode)} returns the
+ * transactions are durable and visible, just like with the {@link TransactionRepresentationCommitProcess}.
+ * <p>
+ * Only {@link TransactionApplicationMode#INTERNAL internal} commits go through the pipeline. Other modes, and commits made
+ * while the pipeline is not started, are committed directly by the committing thread.
+ * <p>
+ * Every queued commit is resolved, also when a stage exits because it was interrupted: batches that were not yet appended
+ * are failed, and groups that were appended are always applied and closed. A group that could not be applied or closed
+ * after it was appended leaves the store behind the log, so that panics the database, just like a failing append does.
+ */
+public class PipelinedTransactionCommitProcess extends LifecycleAdapter implements TransactionCommitProcess
+{
+    static final int APPEND_QUEUE_CAPACITY = 1024;
+    static final int APPLY_QUEUE_CAPACITY = 4;
+    private static final int MAX_GROUP_SIZE = 256;
+    private static final long POLL_MILLIS = 10;
+
+    private final TransactionAppender appender;
+    private final StorageEngine storageEngine;
+    private final JobScheduler scheduler;
+    private final Health databaseHealth;
+    private final TransactionRepresentationCommitProcess directCommitProcess;
+    private final BlockingQueue<PendingCommit> appendQueue = new ArrayBlockingQueue<>( APPEND_QUEUE_CAPACITY );
+    private final BlockingQueue<List<PendingCommit>> applyQueue = new ArrayBlockingQueue<>( APPLY_QUEUE_CAPACITY );
+
+    // Committers hold the read lock while they queue up, and start and stop hold the write lock while they open and close
+    // the pipeline, so a batch is never queued after the stages have been told to stop.
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+    private boolean accepting; // Guarded by acceptLock.
+    private volatile boolean appendStageRunning;
+    private volatile boolean applyStageRunning;
+    // Set when a stage has left its loop. Whoever queues something for a stage that has exited resolves it on its own,
+    // which for the apply stage is done under the exitLock, so the remaining groups are still applied in order.
+    private volatile boolean appendStageExited;
+    private volatile boolean applyStageExited;
+    private final Lock exitLock = new ReentrantLock();
+    private JobHandle<?> appendStage;
+    private JobHandle<?> applyStage;
+
+    public PipelinedTransactionCommitProcess( TransactionAppender appender, StorageEngine storageEngine, JobScheduler scheduler,
+            Health databaseHealth )
+    {
+        this.appender = appender;
+        this.storageEngine = storageEngine;
+        this.scheduler = scheduler;
+        this.databaseHealth = databaseHealth;
+        this.directCommitProcess = new TransactionRepresentationCommitProcess( appender, storageEngine );
+    }
+
+    @Override
+    public void start()
+    {
+        appendStageRunning = true;
+        applyStageRunning = true;
+        appendStageExited = false;
+        applyStageExited = false;
+        appendStage = scheduler.schedule( Group.TRANSACTION_COMMIT_PIPELINE, this::runAppendStage );
+        applyStage = scheduler.schedule( Group.TRANSACTION_COMMIT_PIPELINE, this::runApplyStage );
+        setAccepting( true );
+    }
+
+    @Override
+    public void stop() throws Exception
+    {
+        // Let the stages finish the commits already queued up, one stage at a time, before stopping them.
+        setAccepting( false );
+        appendStageRunning = false;
+        appendStage.waitTermination();
+        applyStageRunning = false;
+        applyStage.waitTermination();
+    }
+
+    @Override
+    public long commit( TransactionToApply batch, CommitEvent commitEvent, TransactionApplicationMode mode ) throws TransactionFailureException
+    {
+        PendingCommit pending = mode == INTERNAL ? enqueue( batch, commitEvent ) : null;
+        if ( pending == null )
+        {
+            return directCommitProcess.commit( batch, commitEvent, mode );
+        }
+        return pending.await();
+    }
+
+    private void setAccepting( boolean accepting )
+    {
+        acceptLock.writeLock().lock();
+        try
+        {
+            this.accepting = accepting;
+        }
+        finally
+        {
+            acceptLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Queue up the batch for the append stage, if the pipeline is accepting commits.
+     *
+     * @return the queued up commit, or {@code null} if the pipeline is not accepting commits.
+     */
+    private PendingCommit enqueue( TransactionToApply batch, CommitEvent commitEvent ) throws TransactionFailureException
+    {
+        acceptLock.readLock().lock();
+        try
+        {
+            if ( !accepting )
+            {
+                return null;
+            }
+            // The append stage keeps taking batches from the queue until it is stopped, and it can't be stopped while
+            // we hold the read lock. It can still exit if it is interrupted, so don't wait for room in the queue forever.
+            PendingCommit pending = new PendingCommit( batch, commitEvent );
+            while ( !appendQueue.offer( pending, POLL_MILLIS, MILLISECONDS ) )
+            {
+                if ( appendStageExited )
+                {
+                    throw pipelineExited();
+                }
+            }
+            if ( appendStageExited )
+            {
+                // The append stage may have exited before it could see our batch, and then no one else will fail it.
+                failQueuedCommits();
+            }
+            return pending;
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new TransactionFailureException( TransactionCommitFailed, e, "Interrupted while waiting to commit" );
+        }
+        finally
+        {
+            acceptLock.readLock().unlock();
+        }
+    }
+
+    private void runAppendStage()
+    {
+        try
+        {
+            while ( appendStageRunning || !appendQueue.isEmpty() )
+            {
+                PendingCommit first = appendQueue.poll( POLL_MILLIS, MILLISECONDS );
+                if ( first == null )
+                {
+                    continue;
+                }
+                List<PendingCommit> group = new ArrayList<>();
+                group.add( first );
+                appendQueue.drainTo( group, MAX_GROUP_SIZE - 1 );
+                if ( append( group ) )
+                {
+                    handOver( group );
+                }
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            appendStageExited = true;
+            failQueuedCommits();
+        }
+    }
+
+    private void runApplyStage()
+    {
+        boolean interrupted = false;
+        try
+        {
+            while ( applyStageRunning || !applyQueue.isEmpty() )
+            {
+                List<PendingCommit> group = applyQueue.poll( POLL_MILLIS, MILLISECONDS );
+                if ( group != null )
+                {
+                    apply( group );
+                }
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            interrupted = true;
+        }
+        finally
+        {
+            applyStageExited = true;
+            // The groups still queued up are appended already, so they must be applied no matter what. Don't let the
+            // interrupt get in the way of that, it is restored when we are done.
+            interrupted |= Thread.interrupted();
+            applyQueuedGroups();
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Hand over an appended group to the apply stage. This is not interruptible, since an appended group must be applied,
+     * and if the apply stage has exited the group is applied by this thread instead.
+     */
+    private void handOver( List<PendingCommit> group )
+    {
+        boolean interrupted = false;
+        try
+        {
+            while ( true )
+            {
+                try
+                {
+                    if ( applyQueue.offer( group, POLL_MILLIS, MILLISECONDS ) )
+                    {
+                        break;
+                    }
+                }
+                catch ( InterruptedException e )
+                {
+                    interrupted = true;
+                }
+                if ( applyStageExited )
+                {
+                    // Make room in the queue, and try again.
+                    applyQueuedGroups();
+                }
+            }
+            if ( applyStageExited )
+            {
+                // The apply stage may have exited before it could see our group, and then no one else will apply it.
+                applyQueuedGroups();
+            }
+        }
+        finally
+        {
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void applyQueuedGroups()
+    {
+        exitLock.lock();
+        try
+        {
+            List<PendingCommit> group;
+            while ( (group = applyQueue.poll()) != null )
+            {
+                apply( group );
+            }
+        }
+        finally
+        {
+            exitLock.unlock();
+        }
+    }
+
+    private void failQueuedCommits()
+    {
+        List<PendingCommit> group = new ArrayList<>();
+        appendQueue.drainTo( group );
+        fail( group, pipelineExited() );
+    }
+
+    private static TransactionFailureException pipelineExited()
+    {
+        return new TransactionFailureException( TransactionCommitFailed, "The commit pipeline has stopped before the transaction was committed" );
+    }
+
+    /**
+     * Append the batches of the group to the log as one chain of transactions, which also forces the log once for all of them.
+     *
+     * @return {@code true} if the group was appended, otherwise the committers have already been failed.
+     */
+    private boolean append( List<PendingCommit> group )
+    {
+        link( group );
+        List<LogAppendEvent> logAppendEvents = new ArrayList<>( group.size() );
+        Throwable failure = null;
+        try
+        {
+            for ( PendingCommit pending : group )
+            {
+                logAppendEvents.add( pending.commitEvent.beginLogAppend() );
+            }
+            // The group is appended, and the log is forced, once for all committers. The details of that are reported to
+            // the event of the first committer, so they are only counted once, while the events of every committer
+            // cover the time it took to append their transactions.
+            appender.append( group.get( 0 ).batch, logAppendEvents.get( 0 ) );
+        }
+        catch ( Throwable cause )
+        {
+            failure = cause;
+        }
+        for ( LogAppendEvent logAppendEvent : logAppendEvents )
+        {
+            logAppendEvent.close();
+        }
+
+        if ( failure != null )
+        {
+            unlink( group );
+            fail( group, new TransactionFailureException( TransactionLogError, failure, "Could not append transaction representation to log" ) );
+            return false;
+        }
+        return true;
+    }
+
+    private void apply( List<PendingCommit> group )
+    {
+        TransactionFailureException failure = null;
+        List<StoreApplyEvent> storeApplyEvents = new ArrayList<>( group.size() );
+        try
+        {
+            for ( PendingCommit pending : group )
+            {
+                storeApplyEvents.add( pending.commitEvent.beginStoreApply() );
+            }
+            storageEngine.apply( group.get( 0 ).batch, INTERNAL );
+        }
+        catch ( Throwable cause )
+        {
+            databaseHealth.panic( cause );
+            failure = new TransactionFailureException( TransactionCommitFailed, cause,
+                    "Could not apply the transaction to the store after written to log" );
+        }
+        finally
+        {
+            for ( StoreApplyEvent storeApplyEvent : storeApplyEvents )
+            {
+                storeApplyEvent.close();
+            }
+            unlink( group );
+        }
+
+        for ( PendingCommit pending : group )
+        {
+            TransactionToApply tx = pending.batch;
+            while ( tx != null )
+            {
+                try
+                {
+                    tx.publishAsClosed();
+                    tx.close();
+                }
+                catch ( Throwable cause )
+                {
+                    // Keep closing the others, so the last closed transaction id doesn't stall behind this one.
+                    databaseHealth.panic( cause );
+                    if ( failure == null )
+                    {
+                        failure = new TransactionFailureException( TransactionCommitFailed, cause, "Could not close the applied transactions" );
+                    }
+                }
+                tx = tx.next();
+            }
+            if ( failure == null )
+            {
+                pending.result.complete( pending.last.transactionId() );
+            }
+            else
+            {
+                pending.result.completeExceptionally( failure );
+            }
+        }
+    }
+
+    private static void link( List<PendingCommit> group )
+    {
+        for ( int i = 1; i < group.size(); i++ )
+        {
+            group.get( i - 1 ).last.next( group.get( i ).batch );
+        }
+    }
+
+    private static void unlink( List<PendingCommit> group )
+    {
+        for ( PendingCommit pending : group )
+        {
+            pending.last.next( null );
+        }
+    }
+
+    private static void fail( List<PendingCommit> group, TransactionFailureException failure )
+    {
+        for ( PendingCommit pending : group )
+        {
+            pending.result.completeExceptionally( failure );
+        }
+    }
+
+    private static class PendingCommit
+    {
+        private final TransactionToApply batch;
+        private final TransactionToApply last;
+        private final CommitEvent commitEvent;
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        PendingCommit( TransactionToApply batch, CommitEvent commitEvent )
+        {
+            this.batch = batch;
+            this.commitEvent = commitEvent;
+            TransactionToApply last = batch;
+            while ( last.next() != null )
+            {
+                last = last.next();
+            }
+            this.last = last;
+        }
+
+        long await() throws TransactionFailureException
+        {
+            try
+            {
+                // Not interruptible on purpose: once queued, the batch may get committed no matter what, and we must not
+                // return before we know the outcome. The stages resolve every queued commit, also when they exit.
+                return result.join();
+            }
+            catch ( CompletionException e )
+            {
+                if ( e.getCause() instanceof TransactionFailureException )
+                {
+                    throw (TransactionFailureException) e.getCause();
+                }
+                throw new TransactionFailureException( TransactionCommitFailed, e.getCause(), "Could not commit transaction" );
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.tracer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.neo4j.kernel.impl.transaction.tracing.LogForceEvent;
+
+/**
+ * Counts the forces of the transaction log, in buckets by the number of committers that shared each force.
+ */
+class CountingLogForceEvent implements LogForceEvent
+{
+    private static final int BUCKETS = Integer.SIZE;
+
+    private final AtomicLongArray batchSizeBuckets = new AtomicLongArray( BUCKETS );
+
+    @Override
+    public void setBatchSize( int committers )
+    {
+        batchSizeBuckets.incrementAndGet( bucket( committers ) );
+    }
+
+    @Override
+    public void close()
+    {
+
+    }
+
+    long numberOfLogForces()
+    {
+        long forces = 0;
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            forces += batchSizeBuckets.get( i );
+        }
+        return forces;
+    }
+
+    long[] logForceBatchSizeDistribution()
+    {
+        int buckets = BUCKETS;
+        while ( buckets > 0 && batchSizeBuckets.get( buckets - 1 ) == 0 )
+        {
+            buckets--;
+        }
+        long[] distribution = new long[buckets];
+        for ( int i = 0; i < buckets; i++ )
+        {
+            distribution[i] = batchSizeBuckets.get( i );
+        }
+        return distribution;
+    }
+
+    private static int bucket( int committers )
+    {
+        return Integer.SIZE - 1 - Integer.numberOfLeadingZeros( Math.max( committers, 1 ) );
+    }
+}
@@ -45,6 +45,7 @@ public class DefaultTracer implements DatabaseTracer
     private final AtomicLong appendedBytes = new AtomicLong();
 
     private final CountingLogRotateEvent countingLogRotateEvent = new CountingLogRotateEvent();
+    private final CountingLogForceEvent countingLogForceEvent = new CountingLogForceEvent();
     private final LogFileCreateEvent logFileCreateEvent = () -> appendedBytes.addAndGet( CURRENT_FORMAT_LOG_HEADER_SIZE );
     private final CountingLogCheckPointEvent logCheckPointEvent = new CountingLogCheckPointEvent( this::appendLogBytes );
     private final LogAppendEvent logAppendEvent = new DefaultLogAppendEvent();
@@ -86,6 +87,18 @@ public class DefaultTracer implements DatabaseTracer
         return countingLogRotateEvent.lastLogRotationTimeMillis();
     }
 
+    @Override
+    public long numberOfLogForces()
+    {
+        return countingLogForceEvent.numberOfLogForces();
+    }
+
+    @Override
+    public long[] logForceBatchSizeDistribution()
+    {
+        return countingLogForceEvent.logForceBatchSizeDistribution();
+    }
+
     @Override
     public long numberOfCheckPoints()
     {
@@ -220,7 +233,7 @@ public class DefaultTracer implements DatabaseTracer
         @Override
         public LogForceEvent beginLogForce()
         {
-            return LogForceEvent.NULL;
+            return countingLogForceEvent;
         }
     }
 }
@@ -22,21 +22,35 @@ package org.neo4j.kernel.impl.factory;
 import org.neo4j.configuration.Config;
 import org.neo4j.configuration.GraphDatabaseSettings;
 import org.neo4j.kernel.impl.api.CommitProcessFactory;
+import org.neo4j.kernel.impl.api.PipelinedTransactionCommitProcess;
 import org.neo4j.kernel.impl.api.ReadOnlyTransactionCommitProcess;
 import org.neo4j.kernel.impl.api.TransactionCommitProcess;
 import org.neo4j.kernel.impl.api.TransactionRepresentationCommitProcess;
 import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
+import org.neo4j.monitoring.Health;
+import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.StorageEngine;
 
 public class CommunityCommitProcessFactory implements CommitProcessFactory
 {
+    private final JobScheduler scheduler;
+
+    public CommunityCommitProcessFactory( JobScheduler scheduler )
+    {
+        this.scheduler = scheduler;
+    }
+
     @Override
-    public TransactionCommitProcess create( TransactionAppender appender, StorageEngine storageEngine, Config config )
+    public TransactionCommitProcess create( TransactionAppender appender, StorageEngine storageEngine, Health databaseHealth, Config config )
     {
         if ( config.get( GraphDatabaseSettings.read_only ) )
         {
             return new ReadOnlyTransactionCommitProcess();
         }
+        if ( config.get( GraphDatabaseSettings.pipelined_commit ) )
+        {
+            return new PipelinedTransactionCommitProcess( appender, storageEngine, scheduler, databaseHealth );
+        }
         return new TransactionRepresentationCommitProcess( appender, storageEngine );
     }
 }
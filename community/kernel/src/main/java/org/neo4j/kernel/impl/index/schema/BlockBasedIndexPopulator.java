@@ -33,6 +33,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
+import org.neo4j.index.internal.gbptree.BulkLoader;
 import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.index.internal.gbptree.Seeker;
 import org.neo4j.index.internal.gbptree.Writer;
@@ -84,6 +85,12 @@ import static org.neo4j.util.concurrent.Runnables.runAll;
 public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>,VALUE extends NativeIndexValue> extends NativeIndexPopulator<KEY,VALUE>
 {
     public static final String BLOCK_SIZE_NAME = "blockSize";
+    /**
+     * How much of each tree node to fill when bulk loading the sorted scan updates into the tree. Less than 1 leaves room
+     * for subsequent updates without splitting nodes, at the cost of a bigger index.
+     */
+    private static final double BULK_LOAD_FILL_FACTOR =
+            FeatureToggles.getDouble( BlockBasedIndexPopulator.class, "bulkLoadFillFactor", GBPTree.DEFAULT_BULK_LOAD_FILL_FACTOR );
 
     private final boolean archiveFailedIndex;
     /**
@@ -423,12 +430,19 @@ public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>,V
                 }
             }
 
-            int asMuchAsPossibleToTheLeft = 1;
-            try ( Writer<KEY,VALUE> writer = tree.writer( asMuchAsPossibleToTheLeft, cursorTracer ) )
+            // The tree is empty at this point and the merged scan updates are sorted, so build it bottom-up instead of inserting them one by one
+            try ( BulkLoader<KEY,VALUE> loader = tree.bulkLoader( BULK_LOAD_FILL_FACTOR, cursorTracer ) )
             {
+                KEY previousKey = layout.newKey();
+                boolean hasPrevious = false;
                 while ( allEntries.next() && !cancellation.cancelled() )
                 {
-                    writeToTree( writer, recordingConflictDetector, allEntries.key(), allEntries.value() );
+                    KEY key = allEntries.key();
+                    if ( bulkLoadToTree( loader, recordingConflictDetector, hasPrevious ? previousKey : null, key, allEntries.value() ) )
+                    {
+                        layout.copyKey( key, previousKey );
+                        hasPrevious = true;
+                    }
                     numberOfAppliedScanUpdates++;
                 }
             }
@@ -595,6 +609,35 @@ public abstract class BlockBasedIndexPopulator<KEY extends NativeIndexKey<KEY>,V
         return builder.build();
     }
 
+    /**
+     * Bulk load key and value to tree and record duplicates if any. Keys come in sorted order and so a key conflicts
+     * with the previously loaded key if they're equal, as seen by the recording conflict detector, but for different entities.
+     * Like {@link #handleMergeConflict(Writer, RecordingConflictDetector, NativeIndexKey, NativeIndexValue)} a conflict is recorded
+     * and the key is loaded with a relaxed uniqueness constraint, so that uniqueness can be verified later on.
+     *
+     * @return {@code true} if the key was loaded, or {@code false} if it was the exact same entry as the previously loaded one.
+     */
+    private boolean bulkLoadToTree( BulkLoader<KEY,VALUE> loader, RecordingConflictDetector<KEY,VALUE> recordingConflictDetector, KEY previousKey,
+            KEY key, VALUE value ) throws IndexEntryConflictException
+    {
+        recordingConflictDetector.controlConflictDetection( key );
+        if ( previousKey != null && layout.compare( previousKey, key ) == 0 )
+        {
+            recordingConflictDetector.merge( previousKey, key, value, value );
+            if ( !recordingConflictDetector.wasConflicting() )
+            {
+                return false;
+            }
+            KEY copy = layout.newKey();
+            layout.copyKey( key, copy );
+            recordingConflictDetector.reportConflict( copy );
+        }
+        // Loaded keys must be strictly increasing, which the sorted keys are when also comparing entity ids
+        recordingConflictDetector.relaxUniqueness( key );
+        loader.add( key, value );
+        return true;
+    }
+
     /**
      * Write key and value to tree and record duplicates if any.
      */
@@ -22,9 +22,18 @@ package org.neo4j.kernel.impl.index.schema;
 import org.neo4j.index.internal.gbptree.Layout;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.kernel.impl.index.schema.config.IndexSpecificSpaceFillingCurveSettings;
+import org.neo4j.util.FeatureToggles;
+
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.ENTITY_ID_SIZE;
 
 class GenericLayout extends IndexLayout<GenericKey,NativeIndexValue>
 {
+    /**
+     * Whether or not newly created indexes store their keys prefix compressed, see {@link Layout#compressKeyPrefixes()}.
+     * Existing indexes keep the format they were created with.
+     */
+    private static final boolean COMPRESS_KEY_PREFIXES = FeatureToggles.flag( GenericLayout.class, "compressKeyPrefixes", false );
+
     private final int numberOfSlots;
     private final IndexSpecificSpaceFillingCurveSettings spatialSettings;
 
@@ -76,6 +85,19 @@ class GenericLayout extends IndexLayout<GenericKey,NativeIndexValue>
         right.minimalSplitter( left, right, into );
     }
 
+    @Override
+    public boolean compressKeyPrefixes()
+    {
+        return COMPRESS_KEY_PREFIXES;
+    }
+
+    @Override
+    public int keyPrefixCompressionOffset()
+    {
+        // Entity id is unique per key and type and length of first slot are seldom shared, only compress what follows
+        return ENTITY_ID_SIZE + GenericKey.TYPE_ID_SIZE + GenericKey.SIZE_STRING_LENGTH;
+    }
+
     IndexSpecificSpaceFillingCurveSettings getSpaceFillingCurveSettings()
     {
         return spatialSettings;
@@ -19,8 +19,12 @@
  */
 package org.neo4j.kernel.impl.index.schema;
 
+import org.apache.commons.lang3.tuple.Pair;
+
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.index.internal.gbptree.Seeker;
@@ -134,6 +138,46 @@ abstract class NativeIndexReader<KEY extends NativeIndexKey<KEY>, VALUE extends
         startSeekForInitializedRange( cursor, treeKeyFrom, treeKeyTo, predicates, constraints, needFilter, cursorTracer );
     }
 
+    /**
+     * Serves all queries in a single {@link GBPTree#batchedSeek(List, PageCursorTracer) batched seek}, over the key ranges of the queries
+     * in sorted order, instead of one seek from the root of the tree per query.
+     */
+    @Override
+    public void queryMany( QueryContext context, IndexProgressor.EntityValueClient client, IndexQueryConstraints constraints,
+            PageCursorTracer cursorTracer, IndexQuery.ExactPredicate[]... queries )
+    {
+        List<Pair<KEY,KEY>> ranges = new ArrayList<>( queries.length );
+        for ( IndexQuery.ExactPredicate[] query : queries )
+        {
+            validateQuery( constraints, query );
+            KEY treeKeyFrom = layout.newKey();
+            KEY treeKeyTo = layout.newKey();
+            initializeFromToKeys( treeKeyFrom, treeKeyTo );
+            initializeRangeForQuery( treeKeyFrom, treeKeyTo, query );
+            ranges.add( Pair.of( treeKeyFrom, treeKeyTo ) );
+        }
+        ranges.sort( ( range1, range2 ) -> layout.compare( range1.getLeft(), range2.getLeft() ) );
+        // Different values can be equal as keys, like numbers of different types, such queries are served once
+        List<Pair<KEY,KEY>> distinctRanges = new ArrayList<>( ranges.size() );
+        for ( Pair<KEY,KEY> range : ranges )
+        {
+            if ( distinctRanges.isEmpty() || layout.compare( distinctRanges.get( distinctRanges.size() - 1 ).getLeft(), range.getLeft() ) != 0 )
+            {
+                distinctRanges.add( range );
+            }
+        }
+
+        try
+        {
+            Seeker<KEY,VALUE> seeker = tree.batchedSeek( distinctRanges, cursorTracer );
+            client.initialize( descriptor, new NativeHitIndexProgressor<>( seeker, client ), queries[0], constraints, false );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
     void initializeFromToKeys( KEY treeKeyFrom, KEY treeKeyTo )
     {
         treeKeyFrom.initialize( Long.MIN_VALUE );
@@ -110,6 +110,23 @@ class FusionIndexReader extends FusionIndexBase<IndexReader> implements IndexRea
         }
     }
 
+    @Override
+    public void queryMany( QueryContext context, IndexProgressor.EntityValueClient client, IndexQueryConstraints constraints,
+            PageCursorTracer cursorTracer, IndexQuery.ExactPredicate[]... queries ) throws IndexNotApplicableKernelException
+    {
+        IndexSlot slot = slotSelector.selectSlot( queries[0], IndexQuery::valueCategory );
+        for ( IndexQuery.ExactPredicate[] query : queries )
+        {
+            if ( slot == null || slot != slotSelector.selectSlot( query, IndexQuery::valueCategory ) )
+            {
+                // The queries span multiple parts of this index, let each query go to its own part
+                IndexReader.super.queryMany( context, client, constraints, cursorTracer, queries );
+                return;
+            }
+        }
+        instanceSelector.select( slot ).queryMany( context, client, constraints, cursorTracer, queries );
+    }
+
     private static final class InnerException extends RuntimeException
     {
         private InnerException( IndexNotApplicableKernelException e )
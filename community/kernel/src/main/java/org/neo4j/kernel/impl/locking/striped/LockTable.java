@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking.striped;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.neo4j.lock.ResourceType;
+import org.neo4j.util.FeatureToggles;
+
+import static org.neo4j.util.Preconditions.requirePowerOfTwo;
+
+/**
+ * The locks of all resources of one {@link ResourceType}. Resources are spread over a fixed number of stripes so that
+ * clients locking different resources rarely touch the same map. A lock only lives in its table for as long as it
+ * is held or waited for.
+ */
+final class LockTable
+{
+    private static final int STRIPES = (int) requirePowerOfTwo( FeatureToggles.getInteger( LockTable.class, "stripes", 64 ) );
+
+    private final ResourceType resourceType;
+    private final ConcurrentHashMap<Long,ResourceLock>[] stripes;
+    private final int stripeMask;
+
+    @SuppressWarnings( "unchecked" )
+    LockTable( ResourceType resourceType )
+    {
+        this.resourceType = resourceType;
+        this.stripes = new ConcurrentHashMap[STRIPES];
+        this.stripeMask = STRIPES - 1;
+        for ( int i = 0; i < STRIPES; i++ )
+        {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    ResourceType resourceType()
+    {
+        return resourceType;
+    }
+
+    ResourceLock getOrCreate( long resourceId )
+    {
+        ConcurrentHashMap<Long,ResourceLock> stripe = stripe( resourceId );
+        ResourceLock lock = stripe.get( resourceId );
+        return lock != null ? lock : stripe.computeIfAbsent( resourceId, id -> new ResourceLock( this, id ) );
+    }
+
+    void remove( ResourceLock lock )
+    {
+        stripe( lock.resourceId() ).remove( lock.resourceId(), lock );
+    }
+
+    void forEach( Consumer<ResourceLock> consumer )
+    {
+        for ( ConcurrentHashMap<Long,ResourceLock> stripe : stripes )
+        {
+            stripe.values().forEach( consumer );
+        }
+    }
+
+    private ConcurrentHashMap<Long,ResourceLock> stripe( long resourceId )
+    {
+        long hash = resourceId * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (hash >>> 32) & stripeMask];
+    }
+}
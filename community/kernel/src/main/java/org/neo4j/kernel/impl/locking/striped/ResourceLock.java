@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking.striped;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import org.neo4j.lock.ResourceType;
+
+/**
+ * The lock of a single resource in a {@link LockTable}.
+ * <p>
+ * All of the lock state lives in one {@code long} that is only ever changed with compare-and-set: the
+ * {@link #EXCLUSIVE} bit, the number of shared holders in the lower bits, and the {@link #DEAD} value which is
+ * assigned to a lock that has been released by everyone and is on its way out of its lock table. A client that
+ * finds a dead lock simply looks the resource up again, which will give it a fresh lock.
+ * <p>
+ * Clients that cannot get the lock enqueue themselves, retry once, and then park. Releasing the lock unparks the
+ * waiters that stand a chance of getting it, i.e. all shared waiters and clients that wait for upgrading their shared
+ * lock ahead of the first exclusive waiter, and that exclusive waiter itself. Since a waiter always retries after
+ * having been enqueued, and a releaser always looks at the queue after having changed the state, no wake-up is lost.
+ * <p>
+ * The holders of the lock are tracked on the side of the lock state, for deadlock detection only.
+ */
+final class ResourceLock
+{
+    static final int ACQUIRED = 0;
+    static final int BLOCKED = 1;
+    static final int RETIRED = 2;
+
+    private static final long DEAD = Long.MIN_VALUE;
+    private static final long EXCLUSIVE = 1L << 62;
+    private static final long SHARED_MASK = EXCLUSIVE - 1;
+    private static final AtomicLongFieldUpdater<ResourceLock> STATE = AtomicLongFieldUpdater.newUpdater( ResourceLock.class, "state" );
+
+    private final LockTable table;
+    private final long resourceId;
+    private final Set<StripedLockClient> sharedHolders = ConcurrentHashMap.newKeySet();
+    private final Queue<StripedLockClient> waiters = new ConcurrentLinkedQueue<>();
+    private volatile long state;
+    private volatile StripedLockClient exclusiveOwner;
+
+    ResourceLock( LockTable table, long resourceId )
+    {
+        this.table = table;
+        this.resourceId = resourceId;
+    }
+
+    ResourceType resourceType()
+    {
+        return table.resourceType();
+    }
+
+    long resourceId()
+    {
+        return resourceId;
+    }
+
+    /**
+     * @return {@link #ACQUIRED} if the client now holds a shared lock, {@link #BLOCKED} if another client holds the
+     * exclusive lock, or {@link #RETIRED} if this lock is no longer in use and the resource needs to be looked up again.
+     */
+    int tryAcquireShared( StripedLockClient client )
+    {
+        long current;
+        do
+        {
+            current = state;
+            if ( current == DEAD )
+            {
+                return RETIRED;
+            }
+            if ( (current & EXCLUSIVE) != 0 && exclusiveOwner != client )
+            {
+                return BLOCKED;
+            }
+        }
+        while ( !STATE.compareAndSet( this, current, current + 1 ) );
+        sharedHolders.add( client );
+        return ACQUIRED;
+    }
+
+    /**
+     * @param holdsShared whether the client already holds a shared lock on this resource, which it then upgrades.
+     * @return {@link #ACQUIRED} if the client now holds the exclusive lock, {@link #BLOCKED} if any other client
+     * holds the lock, or {@link #RETIRED} if this lock is no longer in use and the resource needs to be looked up again.
+     */
+    int tryAcquireExclusive( StripedLockClient client, boolean holdsShared )
+    {
+        long expected = holdsShared ? 1 : 0;
+        long current;
+        do
+        {
+            current = state;
+            if ( current == DEAD )
+            {
+                return RETIRED;
+            }
+            if ( current != expected )
+            {
+                return BLOCKED;
+            }
+        }
+        while ( !STATE.compareAndSet( this, current, current | EXCLUSIVE ) );
+        exclusiveOwner = client;
+        return ACQUIRED;
+    }
+
+    void releaseShared( StripedLockClient client )
+    {
+        sharedHolders.remove( client );
+        released( STATE.decrementAndGet( this ) );
+    }
+
+    void releaseExclusive()
+    {
+        exclusiveOwner = null;
+        long current;
+        do
+        {
+            current = state;
+        }
+        while ( !STATE.compareAndSet( this, current, current & ~EXCLUSIVE ) );
+        released( current & ~EXCLUSIVE );
+    }
+
+    void enqueue( StripedLockClient waiter )
+    {
+        waiters.offer( waiter );
+    }
+
+    /**
+     * Remove a waiter from the queue. A waiter that leaves without the lock may have been the one that was woken up to
+     * take it, so it passes that on, or retires the lock if nobody is interested in it anymore.
+     */
+    void dequeue( StripedLockClient waiter, boolean acquired )
+    {
+        waiters.remove( waiter );
+        if ( !acquired )
+        {
+            released( state );
+        }
+    }
+
+    private void released( long current )
+    {
+        if ( current == 0 && waiters.isEmpty() )
+        {
+            if ( STATE.compareAndSet( this, 0, DEAD ) )
+            {
+                table.remove( this );
+            }
+        }
+        else if ( current != DEAD && !waiters.isEmpty() )
+        {
+            wakeWaiters();
+        }
+    }
+
+    private void wakeWaiters()
+    {
+        for ( StripedLockClient waiter : waiters )
+        {
+            LockSupport.unpark( waiter.waitingThread() );
+            if ( waiter.isWaitingForExclusive() && !waiter.isWaitingForUpgrade() )
+            {
+                break;
+            }
+        }
+    }
+
+    boolean isHeld()
+    {
+        long current = state;
+        return current != DEAD && current != 0;
+    }
+
+    /**
+     * Add the clients that stand in the way of a lock of the given mode on this resource to the given collection.
+     */
+    void collectBlockers( boolean exclusive, Collection<StripedLockClient> blockers )
+    {
+        StripedLockClient owner = exclusiveOwner;
+        if ( owner != null )
+        {
+            blockers.add( owner );
+        }
+        if ( exclusive )
+        {
+            blockers.addAll( sharedHolders );
+        }
+    }
+
+    long maxWaitTime()
+    {
+        long now = System.nanoTime();
+        long max = 0;
+        for ( StripedLockClient waiter : waiters )
+        {
+            max = Math.max( max, now - waiter.waitingSince() );
+        }
+        return TimeUnit.NANOSECONDS.toMillis( max );
+    }
+
+    String describe()
+    {
+        long current = state;
+        StringBuilder description = new StringBuilder( toString() ).append( " exclusive=" ).append( exclusiveOwner )
+                .append( " shared=" ).append( current == DEAD ? 0 : current & SHARED_MASK ).append( " " ).append( sharedHolders )
+                .append( " waiting=[" );
+        Iterator<StripedLockClient> iterator = waiters.iterator();
+        while ( iterator.hasNext() )
+        {
+            StripedLockClient waiter = iterator.next();
+            description.append( waiter ).append( waiter.isWaitingForExclusive() ? "(EXCLUSIVE)" : "(SHARED)" );
+            if ( iterator.hasNext() )
+            {
+                description.append( ", " );
+            }
+        }
+        return description.append( "]" ).toString();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format( "%s(%d)", resourceType(), resourceId );
+    }
+}
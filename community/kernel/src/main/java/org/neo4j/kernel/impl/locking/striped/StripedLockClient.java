@@ -0,0 +1,634 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking.striped;
+
+import org.eclipse.collections.api.map.primitive.MutableLongIntMap;
+import org.eclipse.collections.api.map.primitive.MutableLongObjectMap;
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
+import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import org.neo4j.kernel.DeadlockDetectedException;
+import org.neo4j.kernel.impl.api.LeaseClient;
+import org.neo4j.kernel.impl.locking.ActiveLock;
+import org.neo4j.kernel.impl.locking.LockClientStateHolder;
+import org.neo4j.kernel.impl.locking.LockClientStoppedException;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.lock.LockTracer;
+import org.neo4j.lock.LockWaitEvent;
+import org.neo4j.lock.ResourceType;
+import org.neo4j.util.FeatureToggles;
+
+import static java.lang.String.format;
+import static org.neo4j.kernel.impl.locking.striped.ResourceLock.ACQUIRED;
+import static org.neo4j.kernel.impl.locking.striped.ResourceLock.BLOCKED;
+
+/**
+ * A client of the {@link StripedLockManager}. Locks that the client already holds are counted locally, so re-entering
+ * a lock never touches the shared lock tables.
+ * <p>
+ * A client that has to wait for a lock publishes what it waits for, which is what deadlock detection walks: when
+ * blocked, a client follows the clients that hold the lock it wants to the locks those clients wait for, and so on.
+ * Finding itself along the way means that waiting would never end. Only waiting clients are visited, and nothing is
+ * done at all for locks that are granted right away.
+ */
+public class StripedLockClient implements Locks.Client
+{
+    /**
+     * Waiting clients wake up at least this often to check for timeouts and deadlocks that formed while they slept.
+     */
+    private static final long WAIT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            FeatureToggles.getLong( StripedLockClient.class, "waitSliceMillis", 50 ) );
+    private static final AtomicInteger IDS = new AtomicInteger();
+
+    private final int id = IDS.getAndIncrement();
+    private final StripedLockManager manager;
+    private final HeldLocks[] sharedLocks;
+    private final HeldLocks[] exclusiveLocks;
+    private final LockClientStateHolder stateHolder = new LockClientStateHolder();
+
+    // What this client is waiting for, if anything. waitingFor is written last and cleared first.
+    private volatile ResourceLock waitingFor;
+    private volatile boolean waitingForExclusive;
+    private volatile boolean waitingForUpgrade;
+    private volatile Thread waitingThread;
+    private volatile long waitingSince;
+
+    StripedLockClient( StripedLockManager manager )
+    {
+        this.manager = manager;
+        this.sharedLocks = new HeldLocks[manager.resourceTypeSlots()];
+        this.exclusiveLocks = new HeldLocks[manager.resourceTypeSlots()];
+    }
+
+    @Override
+    public void initialize( LeaseClient leaseClient )
+    {
+        // we don't need lease here
+    }
+
+    @Override
+    public void acquireShared( LockTracer tracer, ResourceType resourceType, long... resourceIds )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            HeldLocks held = held( sharedLocks, resourceType );
+            for ( long resourceId : resourceIds )
+            {
+                if ( !held.reEnter( resourceId ) )
+                {
+                    held.add( resourceId, acquire( tracer, resourceType, resourceId, false ) );
+                }
+            }
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public void acquireExclusive( LockTracer tracer, ResourceType resourceType, long... resourceIds )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            HeldLocks held = held( exclusiveLocks, resourceType );
+            for ( long resourceId : resourceIds )
+            {
+                if ( !held.reEnter( resourceId ) )
+                {
+                    held.add( resourceId, acquire( tracer, resourceType, resourceId, true ) );
+                }
+            }
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public boolean tryExclusiveLock( ResourceType resourceType, long resourceId )
+    {
+        return tryLock( resourceType, resourceId, true );
+    }
+
+    @Override
+    public boolean trySharedLock( ResourceType resourceType, long resourceId )
+    {
+        return tryLock( resourceType, resourceId, false );
+    }
+
+    private boolean tryLock( ResourceType resourceType, long resourceId, boolean exclusive )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            HeldLocks held = held( exclusive ? exclusiveLocks : sharedLocks, resourceType );
+            if ( held.reEnter( resourceId ) )
+            {
+                return true;
+            }
+            boolean upgrade = exclusive && holdsShared( resourceType, resourceId );
+            LockTable table = manager.table( resourceType );
+            int result;
+            ResourceLock lock;
+            do
+            {
+                lock = table.getOrCreate( resourceId );
+                result = tryAcquire( lock, exclusive, upgrade );
+            }
+            while ( result != ACQUIRED && result != BLOCKED );
+
+            if ( result == ACQUIRED )
+            {
+                held.add( resourceId, lock );
+                return true;
+            }
+            return false;
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public boolean reEnterShared( ResourceType resourceType, long resourceId )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            return held( sharedLocks, resourceType ).reEnter( resourceId );
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public boolean reEnterExclusive( ResourceType resourceType, long resourceId )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            return held( exclusiveLocks, resourceType ).reEnter( resourceId );
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public void releaseShared( ResourceType resourceType, long... resourceIds )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            HeldLocks held = held( sharedLocks, resourceType );
+            for ( long resourceId : resourceIds )
+            {
+                ResourceLock lock = held.release( resourceId );
+                if ( lock != null )
+                {
+                    lock.releaseShared( this );
+                }
+            }
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public void releaseExclusive( ResourceType resourceType, long... resourceIds )
+    {
+        stateHolder.incrementActiveClients( this );
+        try
+        {
+            HeldLocks held = held( exclusiveLocks, resourceType );
+            for ( long resourceId : resourceIds )
+            {
+                ResourceLock lock = held.release( resourceId );
+                if ( lock != null )
+                {
+                    lock.releaseExclusive();
+                }
+            }
+        }
+        finally
+        {
+            stateHolder.decrementActiveClients();
+        }
+    }
+
+    @Override
+    public void prepare()
+    {
+        stateHolder.prepare( this );
+    }
+
+    @Override
+    public void stop()
+    {
+        // closing client to prevent any new client to come
+        if ( stateHolder.stopClient() )
+        {
+            // wake up and terminate waiters
+            wakeWaiterAndWaitForClientsToLeave();
+            releaseLocks();
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        stateHolder.closeClient();
+        wakeWaiterAndWaitForClientsToLeave();
+        releaseLocks();
+    }
+
+    private void wakeWaiterAndWaitForClientsToLeave()
+    {
+        while ( stateHolder.hasActiveClients() )
+        {
+            Thread thread = waitingThread;
+            if ( waitingFor != null && thread != null )
+            {
+                LockSupport.unpark( thread );
+            }
+            LockSupport.parkNanos( TimeUnit.MILLISECONDS.toNanos( 20 ) );
+        }
+    }
+
+    private synchronized void releaseLocks()
+    {
+        for ( HeldLocks held : exclusiveLocks )
+        {
+            if ( held != null )
+            {
+                held.locks.forEachValue( ResourceLock::releaseExclusive );
+                held.clear();
+            }
+        }
+        for ( HeldLocks held : sharedLocks )
+        {
+            if ( held != null )
+            {
+                held.locks.forEachValue( lock -> lock.releaseShared( this ) );
+                held.clear();
+            }
+        }
+    }
+
+    @Override
+    public int getLockSessionId()
+    {
+        return id;
+    }
+
+    @Override
+    public Stream<ActiveLock> activeLocks()
+    {
+        List<ActiveLock> locks = new ArrayList<>();
+        collectActiveLocks( exclusiveLocks, ActiveLock.Factory.EXCLUSIVE_LOCK, locks );
+        collectActiveLocks( sharedLocks, ActiveLock.Factory.SHARED_LOCK, locks );
+        return locks.stream();
+    }
+
+    private static void collectActiveLocks( HeldLocks[] heldLocks, ActiveLock.Factory activeLock, List<ActiveLock> locks )
+    {
+        for ( HeldLocks held : heldLocks )
+        {
+            if ( held != null )
+            {
+                held.counts.forEachKey( resourceId -> locks.add( activeLock.create( held.resourceType, resourceId ) ) );
+            }
+        }
+    }
+
+    @Override
+    public long activeLockCount()
+    {
+        long count = 0;
+        for ( HeldLocks held : exclusiveLocks )
+        {
+            count += held == null ? 0 : held.counts.size();
+        }
+        for ( HeldLocks held : sharedLocks )
+        {
+            count += held == null ? 0 : held.counts.size();
+        }
+        return count;
+    }
+
+    private ResourceLock acquire( LockTracer tracer, ResourceType resourceType, long resourceId, boolean exclusive )
+    {
+        boolean upgrade = exclusive && holdsShared( resourceType, resourceId );
+        LockTable table = manager.table( resourceType );
+        LockWaitEvent waitEvent = null;
+        long deadline = 0;
+        try
+        {
+            while ( true )
+            {
+                ResourceLock lock = table.getOrCreate( resourceId );
+                int result = tryAcquire( lock, exclusive, upgrade );
+                if ( result == ACQUIRED )
+                {
+                    return lock;
+                }
+                if ( result == BLOCKED )
+                {
+                    if ( waitEvent == null )
+                    {
+                        waitEvent = tracer.waitForLock( exclusive, resourceType, resourceId );
+                        deadline = manager.lockAcquisitionDeadline();
+                    }
+                    if ( awaitLock( lock, exclusive, upgrade, deadline ) )
+                    {
+                        return lock;
+                    }
+                }
+                // otherwise the lock was retired while we looked at it, look the resource up again
+            }
+        }
+        finally
+        {
+            if ( waitEvent != null )
+            {
+                waitEvent.close();
+            }
+        }
+    }
+
+    /**
+     * Wait in the queue of the given lock until it is granted.
+     *
+     * @return {@code true} if the lock was acquired, or {@code false} if it was retired and needs to be looked up again.
+     */
+    private boolean awaitLock( ResourceLock lock, boolean exclusive, boolean upgrade, long deadline )
+    {
+        waitingForExclusive = exclusive;
+        waitingForUpgrade = upgrade;
+        waitingThread = Thread.currentThread();
+        waitingSince = System.nanoTime();
+        waitingFor = lock;
+        lock.enqueue( this );
+
+        boolean acquired = false;
+        boolean interrupted = false;
+        boolean deadlockSuspected = false;
+        try
+        {
+            while ( true )
+            {
+                int result = tryAcquire( lock, exclusive, upgrade );
+                if ( result != BLOCKED )
+                {
+                    acquired = result == ACQUIRED;
+                    return acquired;
+                }
+                if ( stateHolder.isStopped() )
+                {
+                    throw new LockClientStoppedException( this );
+                }
+                manager.assertNotExpired( deadline, lock );
+                String deadlock = findDeadlock( lock, exclusive );
+                if ( deadlock != null )
+                {
+                    if ( deadlockSuspected )
+                    {
+                        throw new DeadlockDetectedException( this + " can't acquire " + (exclusive ? "exclusive" : "shared") +
+                                " lock on " + lock + " since => " + deadlock );
+                    }
+                    // The wait-for graph is read without any coordination, so look again before giving up
+                    deadlockSuspected = true;
+                    Thread.yield();
+                    continue;
+                }
+                deadlockSuspected = false;
+                park( deadline );
+                interrupted |= Thread.interrupted();
+            }
+        }
+        finally
+        {
+            waitingFor = null;
+            lock.dequeue( this, acquired );
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void park( long deadline )
+    {
+        long nanos = WAIT_SLICE_NANOS;
+        if ( deadline != Long.MAX_VALUE )
+        {
+            nanos = Math.min( nanos, TimeUnit.MILLISECONDS.toNanos( Math.max( deadline - manager.clock().millis(), 1 ) ) );
+        }
+        LockSupport.parkNanos( this, nanos );
+    }
+
+    /**
+     * Walk the wait-for graph from the clients that block this client on the given lock.
+     *
+     * @return a description of the cycle that leads back to this client, or {@code null} if there is none.
+     */
+    private String findDeadlock( ResourceLock lock, boolean exclusive )
+    {
+        // Maps each visited client to the client waiting for it, or itself for the clients blocking us directly
+        Map<StripedLockClient,StripedLockClient> waitedOnBy = new HashMap<>();
+        Deque<StripedLockClient> toVisit = new ArrayDeque<>();
+        List<StripedLockClient> blockers = new ArrayList<>();
+        lock.collectBlockers( exclusive, blockers );
+        for ( StripedLockClient blocker : blockers )
+        {
+            if ( blocker != this && waitedOnBy.putIfAbsent( blocker, blocker ) == null )
+            {
+                toVisit.add( blocker );
+            }
+        }
+
+        while ( !toVisit.isEmpty() )
+        {
+            StripedLockClient client = toVisit.poll();
+            ResourceLock clientWaitsFor = client.waitingFor;
+            if ( clientWaitsFor == null )
+            {
+                continue;
+            }
+            blockers.clear();
+            clientWaitsFor.collectBlockers( client.waitingForExclusive, blockers );
+            for ( StripedLockClient blocker : blockers )
+            {
+                if ( blocker == this )
+                {
+                    return describeCycle( lock, client, waitedOnBy );
+                }
+                if ( blocker != client && waitedOnBy.putIfAbsent( blocker, client ) == null )
+                {
+                    toVisit.add( blocker );
+                }
+            }
+        }
+        return null;
+    }
+
+    private String describeCycle( ResourceLock lock, StripedLockClient last, Map<StripedLockClient,StripedLockClient> waitedOnBy )
+    {
+        Deque<StripedLockClient> cycle = new ArrayDeque<>();
+        for ( StripedLockClient client = last; ; client = waitedOnBy.get( client ) )
+        {
+            cycle.addFirst( client );
+            if ( waitedOnBy.get( client ) == client )
+            {
+                break;
+            }
+        }
+        StringBuilder description = new StringBuilder().append( this ).append( " -[:WAITING_FOR]-> " ).append( lock );
+        for ( StripedLockClient client : cycle )
+        {
+            description.append( " -[:HELD_BY]-> " ).append( client ).append( " -[:WAITING_FOR]-> " ).append( client.waitingFor );
+        }
+        return description.append( " -[:HELD_BY]-> " ).append( this ).toString();
+    }
+
+    private int tryAcquire( ResourceLock lock, boolean exclusive, boolean upgrade )
+    {
+        return exclusive ? lock.tryAcquireExclusive( this, upgrade ) : lock.tryAcquireShared( this );
+    }
+
+    private boolean holdsShared( ResourceType resourceType, long resourceId )
+    {
+        HeldLocks held = sharedLocks[resourceType.typeId()];
+        return held != null && held.counts.containsKey( resourceId );
+    }
+
+    private HeldLocks held( HeldLocks[] heldLocks, ResourceType resourceType )
+    {
+        int slot = manager.slot( resourceType );
+        HeldLocks held = heldLocks[slot];
+        if ( held == null )
+        {
+            held = new HeldLocks( resourceType );
+            heldLocks[slot] = held;
+        }
+        return held;
+    }
+
+    boolean isWaitingForExclusive()
+    {
+        return waitingForExclusive;
+    }
+
+    boolean isWaitingForUpgrade()
+    {
+        return waitingForUpgrade;
+    }
+
+    Thread waitingThread()
+    {
+        return waitingThread;
+    }
+
+    long waitingSince()
+    {
+        return waitingSince;
+    }
+
+    @Override
+    public String toString()
+    {
+        return format( "%s[%d]", getClass().getSimpleName(), getLockSessionId() );
+    }
+
+    /**
+     * The locks of one resource type and mode held by this client, with the number of times each has been taken.
+     */
+    private static class HeldLocks
+    {
+        private final ResourceType resourceType;
+        private final MutableLongObjectMap<ResourceLock> locks = new LongObjectHashMap<>();
+        private final MutableLongIntMap counts = new LongIntHashMap();
+
+        HeldLocks( ResourceType resourceType )
+        {
+            this.resourceType = resourceType;
+        }
+
+        boolean reEnter( long resourceId )
+        {
+            if ( counts.containsKey( resourceId ) )
+            {
+                counts.addToValue( resourceId, 1 );
+                return true;
+            }
+            return false;
+        }
+
+        void add( long resourceId, ResourceLock lock )
+        {
+            locks.put( resourceId, lock );
+            counts.put( resourceId, 1 );
+        }
+
+        /**
+         * @return the lock if this was the last reference to it and it should be released, otherwise {@code null}.
+         */
+        ResourceLock release( long resourceId )
+        {
+            if ( !counts.containsKey( resourceId ) )
+            {
+                throw new IllegalStateException( "Cannot release lock on " + resourceType + "(" + resourceId + ") that is not held" );
+            }
+            if ( counts.addToValue( resourceId, -1 ) > 0 )
+            {
+                return null;
+            }
+            counts.remove( resourceId );
+            return locks.remove( resourceId );
+        }
+
+        void clear()
+        {
+            locks.clear();
+            counts.clear();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking.striped;
+
+import java.time.Clock;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.kernel.impl.locking.LockAcquisitionTimeoutException;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.lock.ResourceType;
+
+/**
+ * A lock manager that keeps the locks of each resource type in a striped {@link LockTable}, where each lock is a
+ * compare-and-set state word with a queue of parked waiters, see {@link ResourceLock}. Unlike the community lock
+ * manager there is no global monitor: neither for finding the lock of a resource, for granting it, nor for deadlock
+ * detection, which {@link StripedLockClient} does by walking the published waits of blocked clients.
+ */
+public class StripedLockManager implements Locks
+{
+    private final LockTable[] tables;
+    private final Clock clock;
+
+    /**
+     * Time within which any particular lock should be acquired.
+     * @see GraphDatabaseSettings#lock_acquisition_timeout
+     */
+    private final long lockAcquisitionTimeoutMillis;
+    private volatile boolean closed;
+
+    public StripedLockManager( Config config, Clock clock, ResourceType... resourceTypes )
+    {
+        this.clock = clock;
+        this.lockAcquisitionTimeoutMillis = config.get( GraphDatabaseSettings.lock_acquisition_timeout ).toMillis();
+        int maxTypeId = -1;
+        for ( ResourceType resourceType : resourceTypes )
+        {
+            maxTypeId = Math.max( maxTypeId, resourceType.typeId() );
+        }
+        this.tables = new LockTable[maxTypeId + 1];
+        for ( ResourceType resourceType : resourceTypes )
+        {
+            tables[resourceType.typeId()] = new LockTable( resourceType );
+        }
+    }
+
+    @Override
+    public Client newClient()
+    {
+        // Lock clients are pooled along with the transactions, so this volatile read is rare
+        if ( closed )
+        {
+            throw new IllegalStateException( this + " already closed" );
+        }
+        return new StripedLockClient( this );
+    }
+
+    @Override
+    public void accept( Visitor visitor )
+    {
+        for ( LockTable table : tables )
+        {
+            if ( table != null )
+            {
+                table.forEach( lock ->
+                {
+                    if ( lock.isHeld() )
+                    {
+                        visitor.visit( lock.resourceType(), lock.resourceId(), lock.describe(), lock.maxWaitTime(),
+                                System.identityHashCode( lock ) );
+                    }
+                } );
+            }
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+    }
+
+    int resourceTypeSlots()
+    {
+        return tables.length;
+    }
+
+    int slot( ResourceType resourceType )
+    {
+        int typeId = resourceType.typeId();
+        if ( typeId >= tables.length || tables[typeId] == null )
+        {
+            throw new IllegalArgumentException( "Unknown resource type " + resourceType );
+        }
+        return typeId;
+    }
+
+    LockTable table( ResourceType resourceType )
+    {
+        return tables[slot( resourceType )];
+    }
+
+    Clock clock()
+    {
+        return clock;
+    }
+
+    long lockAcquisitionDeadline()
+    {
+        return lockAcquisitionTimeoutMillis > 0 ? clock.millis() + lockAcquisitionTimeoutMillis : Long.MAX_VALUE;
+    }
+
+    void assertNotExpired( long deadline, ResourceLock lock )
+    {
+        if ( deadline != Long.MAX_VALUE && deadline < clock.millis() )
+        {
+            throw new LockAcquisitionTimeoutException( lock.resourceType(), lock.resourceId(), lockAcquisitionTimeoutMillis );
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.neo4j.kernel.impl.newapi;
 
 import org.eclipse.collections.api.iterator.LongIterator;
 import org.eclipse.collections.api.set.primitive.LongSet;
+import org.eclipse.collections.api.set.primitive.MutableLongSet;
 import org.eclipse.collections.impl.factory.primitive.LongSets;
 import org.eclipse.collections.impl.iterator.ImmutableEmptyLongIterator;
 
@@ -28,6 +29,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
 import org.neo4j.internal.kernel.api.IndexQuery;
 import org.neo4j.internal.kernel.api.IndexQueryConstraints;
@@ -176,6 +178,41 @@ class DefaultNodeValueIndexCursor extends IndexCursor<IndexProgressor>
         }
     }
 
+    /**
+     * @param queries exact queries of a {@link Read#nodeIndexSeekMany(org.neo4j.internal.kernel.api.IndexReadSession, NodeValueIndexCursor,
+     * IndexQueryConstraints, IndexQuery.ExactPredicate[]...) seek of many queries}.
+     * @return client for the index to initialize, which initializes this cursor with transaction state for all the {@code queries},
+     * rather than only for the query the index initializes it with.
+     */
+    IndexProgressor.EntityValueClient manyQueriesClient( IndexQuery.ExactPredicate[][] queries )
+    {
+        return new IndexProgressor.EntityValueClient()
+        {
+            @Override
+            public void initialize( IndexDescriptor descriptor, IndexProgressor progressor, IndexQuery[] query, IndexQueryConstraints constraints,
+                    boolean indexIncludesTransactionState )
+            {
+                DefaultNodeValueIndexCursor.this.initialize( descriptor, progressor, query, constraints, true );
+                if ( !indexIncludesTransactionState && read.hasTxStateWithChanges() )
+                {
+                    seekManyQuery( descriptor, queries );
+                }
+            }
+
+            @Override
+            public boolean acceptEntity( long reference, float score, Value[] values )
+            {
+                return DefaultNodeValueIndexCursor.this.acceptEntity( reference, score, values );
+            }
+
+            @Override
+            public boolean needsValues()
+            {
+                return DefaultNodeValueIndexCursor.this.needsValues();
+            }
+        };
+    }
+
     /**
      * If the current user is allowed to traverse all labels used in this index and read the properties no matter what label
      * the node has, we can skip checking on every node we get back.
@@ -518,6 +555,42 @@ class DefaultNodeValueIndexCursor extends IndexCursor<IndexProgressor>
         removed = removed( txState, changes.getRemoved() );
     }
 
+    private void seekManyQuery( IndexDescriptor descriptor, IndexQuery.ExactPredicate[][] queries )
+    {
+        TransactionState txState = read.txState();
+
+        // Results of separate queries are not ordered in relation to each other, so their changes can simply be added up
+        MutableLongSet addedNodes = LongSets.mutable.empty();
+        List<NodeWithPropertyValues> addedNodesWithValues = new ArrayList<>();
+        MutableLongSet removedFromIndex = LongSets.mutable.empty();
+        for ( IndexQuery.ExactPredicate[] query : queries )
+        {
+            Value[] values = new Value[query.length];
+            for ( int i = 0; i < query.length; i++ )
+            {
+                values[i] = query[i].value();
+            }
+            AddedAndRemoved changes = indexUpdatesForSeek( txState, descriptor, ValueTuple.of( values ) );
+            changes.getAdded().each( node ->
+            {
+                if ( addedNodes.add( node ) && needsValues )
+                {
+                    addedNodesWithValues.add( new NodeWithPropertyValues( node, values ) );
+                }
+            } );
+            removedFromIndex.addAll( changes.getRemoved() );
+        }
+        if ( needsValues )
+        {
+            addedWithValues = addedNodesWithValues.iterator();
+        }
+        else
+        {
+            added = addedNodes.longIterator();
+        }
+        removed = removed( txState, removedFromIndex );
+    }
+
     private LongSet removed( TransactionState txState, LongSet removedFromIndex )
     {
         return mergeToSet( txState.addedAndRemovedNodes().getRemoved(), removedFromIndex );
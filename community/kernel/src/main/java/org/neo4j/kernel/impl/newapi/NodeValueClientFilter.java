@@ -35,6 +35,7 @@ import static org.neo4j.values.storable.Values.NO_VALUE;
 /**
  * This class filters acceptEntity() calls from an index progressor, to assert that exact entries returned from the
  * progressor really match the exact property values. See also org.neo4j.kernel.impl.api.LookupFilter.
+ * Entries can also be filtered on several alternative sets of filters, where an entry is accepted if it matches any of them.
  * <p>
  * It works by acting as a man-in-the-middle between outer {@link EntityValueClient client} and inner {@link IndexProgressor}.
  * Interaction goes like:
@@ -74,16 +75,21 @@ class NodeValueClientFilter implements EntityValueClient, IndexProgressor
     private final EntityValueClient target;
     private final NodeCursor node;
     private final PropertyCursor property;
-    private final IndexQuery[] filters;
+    private final IndexQuery[][] alternatives;
     private final org.neo4j.internal.kernel.api.Read read;
     private IndexProgressor progressor;
 
     NodeValueClientFilter( EntityValueClient target, NodeCursor node, PropertyCursor property, Read read, IndexQuery... filters )
+    {
+        this( target, node, property, read, new IndexQuery[][]{filters} );
+    }
+
+    NodeValueClientFilter( EntityValueClient target, NodeCursor node, PropertyCursor property, Read read, IndexQuery[][] alternatives )
     {
         this.target = target;
         this.node = node;
         this.property = property;
-        this.filters = filters;
+        this.alternatives = alternatives;
         this.read = read;
     }
 
@@ -97,6 +103,18 @@ class NodeValueClientFilter implements EntityValueClient, IndexProgressor
 
     @Override
     public boolean acceptEntity( long reference, float score, Value[] values )
+    {
+        for ( IndexQuery[] filters : alternatives )
+        {
+            if ( accept( reference, values, filters ) )
+            {
+                return target.acceptEntity( reference, score, values );
+            }
+        }
+        return false;
+    }
+
+    private boolean accept( long reference, Value[] values, IndexQuery[] filters )
     {
         // First filter on these values, which come from the index. Some values will be NO_VALUE, because some indexed values cannot be read back.
         // Those values will have to be read from the store using the propertyCursor and is done in one pass after this loop, if needed.
@@ -134,14 +152,10 @@ class NodeValueClientFilter implements EntityValueClient, IndexProgressor
         // If there were one or more NO_VALUE values above then open store cursor and read those values from the store,
         // applying the same filtering as above, but with a loop designed to do only a single pass over the store values,
         // because it's the most expensive part.
-        if ( storeLookups > 0 && !acceptByStoreFiltering( reference, storeLookups, values ) )
-        {
-            return false;
-        }
-        return target.acceptEntity( reference, score, values );
+        return storeLookups == 0 || acceptByStoreFiltering( reference, storeLookups, values, filters );
     }
 
-    private boolean acceptByStoreFiltering( long reference, int storeLookups, Value[] values )
+    private boolean acceptByStoreFiltering( long reference, int storeLookups, Value[] values, IndexQuery[] filters )
     {
         // Initialize the property cursor scan
         read.singleNode( reference, node );
@@ -43,6 +43,7 @@ import org.neo4j.internal.kernel.api.Scan;
 import org.neo4j.internal.kernel.api.exceptions.schema.IndexNotApplicableKernelException;
 import org.neo4j.internal.kernel.api.exceptions.schema.IndexNotFoundKernelException;
 import org.neo4j.internal.schema.IndexDescriptor;
+import org.neo4j.internal.schema.IndexOrder;
 import org.neo4j.internal.schema.SchemaDescriptor;
 import org.neo4j.internal.schema.SchemaDescriptorSupplier;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
@@ -112,6 +113,34 @@ abstract class Read implements TxStateHolder,
         indexSession.reader.query( this, withFullPrecision, constraints, cursorTracer, query );
     }
 
+    @Override
+    public final void nodeIndexSeekMany( IndexReadSession index, NodeValueIndexCursor cursor, IndexQueryConstraints constraints,
+            IndexQuery.ExactPredicate[]... queries ) throws IndexNotApplicableKernelException
+    {
+        ktx.assertOpen();
+        DefaultIndexReadSession indexSession = (DefaultIndexReadSession) index;
+
+        if ( indexSession.reference.schema().entityType() != EntityType.NODE )
+        {
+            throw new IndexNotApplicableKernelException( "Node index seek can only be performed on node indexes: " + index );
+        }
+        if ( constraints.order() != IndexOrder.NONE )
+        {
+            throw new IndexNotApplicableKernelException( "Node index seek of many queries can not provide ordered results: " + index );
+        }
+        if ( queries.length == 1 )
+        {
+            nodeIndexSeek( index, cursor, constraints, queries[0] );
+            return;
+        }
+
+        DefaultNodeValueIndexCursor cursorImpl = (DefaultNodeValueIndexCursor) cursor;
+        cursorImpl.setRead( this );
+        IndexProgressor.EntityValueClient withFullPrecision = injectFullValuePrecision( cursorImpl.manyQueriesClient( queries ), queries,
+                indexSession.reader );
+        indexSession.reader.queryMany( this, withFullPrecision, constraints, cursorTracer, queries );
+    }
+
     @Override
     public final void relationshipIndexSeek( IndexDescriptor index, RelationshipIndexCursor cursor, IndexQueryConstraints constraints, IndexQuery... query )
             throws IndexNotApplicableKernelException, IndexNotFoundKernelException
@@ -176,6 +205,21 @@ abstract class Read implements TxStateHolder,
         return target;
     }
 
+    private IndexProgressor.EntityValueClient injectFullValuePrecision( IndexProgressor.EntityValueClient cursor,
+            IndexQuery.ExactPredicate[][] queries, IndexReader reader )
+    {
+        for ( IndexQuery.ExactPredicate[] query : queries )
+        {
+            if ( !reader.hasFullValuePrecision( query ) )
+            {
+                // Results don't tell which query they match, so all predicates of all queries need to be filtered on
+                return new NodeValueClientFilter( cursor, cursors.allocateNodeCursor( cursorTracer ),
+                        cursors.allocatePropertyCursor( cursorTracer ), this, queries );
+            }
+        }
+        return cursor;
+    }
+
     @Override
     public org.neo4j.internal.kernel.api.Read getRead()
     {
@@ -27,6 +27,7 @@ import org.neo4j.io.os.OsBeanUtil;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.impl.muninn.EvictionPolicy;
 import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
@@ -36,6 +37,9 @@ import org.neo4j.memory.ThreadSafeMemoryTracker;
 import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.time.SystemNanoClock;
 
+import static org.neo4j.configuration.GraphDatabaseSettings.check_point_flush_threads;
+import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_eviction_policy;
+import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_io_uring;
 import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_memory;
 import static org.neo4j.configuration.SettingValueParsers.BYTES;
 import static org.neo4j.io.mem.MemoryAllocator.createAllocator;
@@ -81,7 +85,7 @@ public class ConfiguringPageCacheFactory
     {
         if ( pageCache == null )
         {
-            this.swapperFactory = createAndConfigureSwapperFactory( fs );
+            this.swapperFactory = createAndConfigureSwapperFactory( fs, config, log );
             this.pageCache = createPageCache();
         }
         return pageCache;
@@ -90,7 +94,21 @@ public class ConfiguringPageCacheFactory
     protected PageCache createPageCache()
     {
         MemoryAllocator memoryAllocator = buildMemoryAllocator( config );
-        return new MuninnPageCache( swapperFactory, memoryAllocator, pageCacheTracer, versionContextSupplier, scheduler, clock );
+        return new MuninnPageCache( swapperFactory, memoryAllocator, pageCacheTracer, versionContextSupplier, scheduler, clock,
+                evictionPolicy( config ), config.get( check_point_flush_threads ) );
+    }
+
+    private static EvictionPolicy evictionPolicy( Config config )
+    {
+        switch ( config.get( pagecache_eviction_policy ) )
+        {
+        case PROBATIONARY:
+            return EvictionPolicy.PROBATIONARY;
+        case CLOCK:
+            return EvictionPolicy.CLOCK;
+        default:
+            throw new IllegalArgumentException( "Unknown page cache eviction policy: " + config.get( pagecache_eviction_policy ) );
+        }
     }
 
     private MemoryAllocator buildMemoryAllocator( Config config )
@@ -170,8 +188,14 @@ public class ConfiguringPageCacheFactory
         log.info( msg );
     }
 
-    private static PageSwapperFactory createAndConfigureSwapperFactory( FileSystemAbstraction fs )
+    private static PageSwapperFactory createAndConfigureSwapperFactory( FileSystemAbstraction fs, Config config, Log log )
     {
-        return new SingleFilePageSwapperFactory( fs );
+        boolean useIoUring = config.get( pagecache_io_uring );
+        SingleFilePageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory( fs, useIoUring );
+        if ( useIoUring && !swapperFactory.isUsingIoUring() )
+        {
+            log.warn( "io_uring is not available on this platform, so the page cache will use regular I/O instead." );
+        }
+        return swapperFactory;
     }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+
+/**
+ * Registers a {@link PageCacheFilesMXBean} for the given page cache, for as long as this component is started.
+ * The bean is registered under the name given by {@link #objectName(Path)} for the home directory of the DBMS, and
+ * can be read with the {@code dbms.queryJmx} procedure, for instance with the {@code org.neo4j:type=PageCacheFiles,*}
+ * name pattern.
+ */
+public class PageCacheFiles extends LifecycleAdapter implements PageCacheFilesMXBean
+{
+    private final PageCache pageCache;
+    private final MBeanServer mBeanServer;
+    private final Path home;
+    private final Log log;
+    private ObjectName objectName;
+
+    public PageCacheFiles( PageCache pageCache, MBeanServer mBeanServer, Path home, Log log )
+    {
+        this.pageCache = pageCache;
+        this.mBeanServer = mBeanServer;
+        this.home = home;
+        this.log = log;
+    }
+
+    /**
+     * @param home the home directory of the DBMS that owns the page cache.
+     * @return the name that the page cache file counters of that DBMS are registered under.
+     */
+    public static ObjectName objectName( Path home ) throws MalformedObjectNameException
+    {
+        return new ObjectName( "org.neo4j:type=PageCacheFiles,home=" + ObjectName.quote( home.toAbsolutePath().toString() ) );
+    }
+
+    @Override
+    public Map<String,FileCounters> getFiles()
+    {
+        Map<String,FileCounters> files = new TreeMap<>();
+        try
+        {
+            for ( PagedFile pagedFile : pageCache.listExistingMappings() )
+            {
+                files.put( pagedFile.file().getAbsolutePath(), new FileCounters( pagedFile.counters() ) );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+        return files;
+    }
+
+    @Override
+    public void start()
+    {
+        try
+        {
+            ObjectName name = objectName( home );
+            mBeanServer.registerMBean( this, name );
+            objectName = name;
+        }
+        catch ( JMException e )
+        {
+            log.warn( "Unable to register the page cache file counters with JMX.", e );
+        }
+    }
+
+    @Override
+    public void stop()
+    {
+        if ( objectName != null )
+        {
+            try
+            {
+                mBeanServer.unregisterMBean( objectName );
+            }
+            catch ( JMException e )
+            {
+                log.warn( "Unable to unregister the page cache file counters from JMX.", e );
+            }
+            objectName = null;
+        }
+    }
+}
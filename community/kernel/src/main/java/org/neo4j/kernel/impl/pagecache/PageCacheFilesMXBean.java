@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.util.Map;
+
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
+import org.neo4j.io.pagecache.monitoring.WindowedCounter;
+
+/**
+ * Exposes the {@link PagedFileCounters} of every file that is currently mapped by the page cache, over JMX.
+ */
+public interface PageCacheFilesMXBean
+{
+    /**
+     * @return The counters of every mapped file, keyed by the path of the file.
+     */
+    Map<String,FileCounters> getFiles();
+
+    /**
+     * The counters of a single mapped file.
+     */
+    final class FileCounters
+    {
+        private final PagedFileCounters counters;
+
+        public FileCounters( PagedFileCounters counters )
+        {
+            this.counters = counters;
+        }
+
+        public Counter getHits()
+        {
+            return new Counter( counters.hits() );
+        }
+
+        public Counter getFaults()
+        {
+            return new Counter( counters.faults() );
+        }
+
+        public Counter getEvictions()
+        {
+            return new Counter( counters.evictions() );
+        }
+
+        public Counter getFlushes()
+        {
+            return new Counter( counters.flushes() );
+        }
+
+        public Counter getBytesRead()
+        {
+            return new Counter( counters.bytesRead() );
+        }
+
+        public Counter getBytesWritten()
+        {
+            return new Counter( counters.bytesWritten() );
+        }
+    }
+
+    /**
+     * The total count of a single counter, and its rates per second over the last one, five and fifteen minutes.
+     */
+    final class Counter
+    {
+        private final WindowedCounter counter;
+
+        public Counter( WindowedCounter counter )
+        {
+            this.counter = counter;
+        }
+
+        public long getCount()
+        {
+            return counter.count();
+        }
+
+        public double getOneMinuteRate()
+        {
+            return counter.oneMinuteRate();
+        }
+
+        public double getFiveMinuteRate()
+        {
+            return counter.fiveMinuteRate();
+        }
+
+        public double getFifteenMinuteRate()
+        {
+            return counter.fifteenMinuteRate();
+        }
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.FileIsNotMappedException;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobHandle;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.time.SystemNanoClock;
+
+import static java.lang.Math.toIntExact;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_warmup_enabled;
+import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_warmup_prefetch;
+import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_warmup_prefetch_whitelist;
+import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_warmup_profiling_interval;
+import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_warmup_time_budget;
+import static org.neo4j.configuration.GraphDatabaseSettings.read_only;
+import static org.neo4j.internal.helpers.Format.duration;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
+
+/**
+ * Keeps the page cache warm across restarts of a database.
+ * <p>
+ * While the database is running, the warmer periodically records which pages of the database files are resident in
+ * the page cache. The profile of each mapped file is a compressed bitmap of page ids, kept in the {@value #PROFILES_DIRECTORY}
+ * directory of the database. When the database starts, and before it becomes available, the profiled pages are loaded
+ * back into the page cache. The files are warmed up in parallel, and the pages of each file are read in file offset
+ * order. The warmup is bounded by the {@link org.neo4j.configuration.GraphDatabaseSettings#pagecache_warmup_time_budget}.
+ * <p>
+ * When {@link org.neo4j.configuration.GraphDatabaseSettings#pagecache_warmup_prefetch} is enabled, the whole of every
+ * file that matches the {@link org.neo4j.configuration.GraphDatabaseSettings#pagecache_warmup_prefetch_whitelist} is
+ * loaded instead, and no profiles are used.
+ * <p>
+ * Both the profiling and the warmup use {@link PagedFile#PF_TRANSIENT} cursors, so they do not make the pages they
+ * touch appear any hotter to the eviction policy than they really are.
+ */
+public class PageCacheWarmer extends LifecycleAdapter
+{
+    static final String PROFILES_DIRECTORY = "profiles";
+    static final String SUFFIX_CACHEPROF = ".cacheprof";
+    private static final String SUFFIX_TEMPORARY = ".tmp";
+    private static final String TAG = "pageCacheWarmer";
+    private static final long PROGRESS_REPORT_INTERVAL_SECONDS = 10;
+
+    private final FileSystemAbstraction fs;
+    private final PageCache pageCache;
+    private final JobScheduler scheduler;
+    private final File databaseDirectory;
+    private final File profilesDirectory;
+    private final SystemNanoClock clock;
+    private final PageCacheTracer pageCacheTracer;
+    private final Log log;
+    private final boolean enabled;
+    private final boolean profiling;
+    private final boolean prefetch;
+    private final Pattern prefetchWhitelist;
+    private final long profilingIntervalMillis;
+    private final long timeBudgetNanos;
+    private volatile JobHandle<?> profileHandle;
+
+    public PageCacheWarmer( FileSystemAbstraction fs, PageCache pageCache, JobScheduler scheduler, File databaseDirectory, Config config,
+            SystemNanoClock clock, PageCacheTracer pageCacheTracer, Log log )
+    {
+        this.fs = fs;
+        this.pageCache = pageCache;
+        this.scheduler = scheduler;
+        this.databaseDirectory = databaseDirectory;
+        this.profilesDirectory = new File( databaseDirectory, PROFILES_DIRECTORY );
+        this.clock = clock;
+        this.pageCacheTracer = pageCacheTracer;
+        this.log = log;
+        this.enabled = config.get( pagecache_warmup_enabled );
+        this.prefetch = config.get( pagecache_warmup_prefetch );
+        this.profiling = !prefetch && !config.get( read_only );
+        this.prefetchWhitelist = Pattern.compile( config.get( pagecache_warmup_prefetch_whitelist ) );
+        this.profilingIntervalMillis = config.get( pagecache_warmup_profiling_interval ).toMillis();
+        this.timeBudgetNanos = config.get( pagecache_warmup_time_budget ).toNanos();
+    }
+
+    @Override
+    public void start() throws Exception
+    {
+        if ( !enabled )
+        {
+            return;
+        }
+        if ( timeBudgetNanos > 0 )
+        {
+            reheat();
+        }
+        if ( profiling )
+        {
+            profileHandle = scheduler.scheduleRecurring( Group.PAGE_CACHE_WARMER, this::profileQuietly,
+                    profilingIntervalMillis, profilingIntervalMillis, MILLISECONDS );
+        }
+    }
+
+    @Override
+    public void stop()
+    {
+        JobHandle<?> handle = profileHandle;
+        if ( handle != null )
+        {
+            profileHandle = null;
+            handle.cancel();
+            // Take one last profile, so the next start gets to warm up with the most recent set of hot pages.
+            profileQuietly();
+        }
+    }
+
+    /**
+     * Load the profiled pages of all mapped database files into the page cache, or all pages when prefetching.
+     *
+     * @return the number of pages that were loaded, or found to already be in memory.
+     */
+    long reheat() throws IOException, InterruptedException, ExecutionException
+    {
+        List<WarmupTask> tasks = new ArrayList<>();
+        for ( PagedFile pagedFile : pageCache.listExistingMappings() )
+        {
+            BitSet pages = pagesToLoad( pagedFile );
+            if ( pages != null && !pages.isEmpty() )
+            {
+                tasks.add( new WarmupTask( pagedFile, pages ) );
+            }
+        }
+        if ( tasks.isEmpty() )
+        {
+            return 0;
+        }
+
+        long totalPages = tasks.stream().mapToLong( task -> task.pages.cardinality() ).sum();
+        long startNanos = clock.nanos();
+        long deadlineNanos = startNanos + timeBudgetNanos;
+        AtomicLong pagesLoaded = new AtomicLong();
+        log.info( "Page cache warmup started, loading %d pages from %d files.", totalPages, tasks.size() );
+
+        List<JobHandle<?>> handles = new ArrayList<>( tasks.size() );
+        for ( WarmupTask task : tasks )
+        {
+            handles.add( scheduler.schedule( Group.PAGE_CACHE_WARMER, () -> task.run( deadlineNanos, pagesLoaded ) ) );
+        }
+        for ( JobHandle<?> handle : handles )
+        {
+            awaitWithProgressReports( handle, pagesLoaded, totalPages );
+        }
+
+        long loaded = pagesLoaded.get();
+        String elapsed = duration( NANOSECONDS.toMillis( clock.nanos() - startNanos ) );
+        if ( loaded < totalPages && clock.nanos() >= deadlineNanos )
+        {
+            log.warn( "Page cache warmup used up its time budget of %s, and was stopped after loading %d of %d pages.",
+                    duration( NANOSECONDS.toMillis( timeBudgetNanos ) ), loaded, totalPages );
+        }
+        else
+        {
+            log.info( "Page cache warmup completed. %d pages loaded in %s.", loaded, elapsed );
+        }
+        return loaded;
+    }
+
+    private void awaitWithProgressReports( JobHandle<?> handle, AtomicLong pagesLoaded, long totalPages ) throws InterruptedException, ExecutionException
+    {
+        for ( ;; )
+        {
+            try
+            {
+                handle.waitTermination( PROGRESS_REPORT_INTERVAL_SECONDS, SECONDS );
+                return;
+            }
+            catch ( TimeoutException e )
+            {
+                long loaded = pagesLoaded.get();
+                log.info( "Page cache warmup in progress, %d of %d pages loaded (%d%%).", loaded, totalPages, loaded * 100 / totalPages );
+            }
+        }
+    }
+
+    private BitSet pagesToLoad( PagedFile pagedFile ) throws IOException
+    {
+        if ( prefetch )
+        {
+            if ( !prefetchWhitelist.matcher( pagedFile.file().getName() ).matches() )
+            {
+                return null;
+            }
+            long lastPageId = pagedFile.getLastPageId();
+            BitSet pages = new BitSet();
+            if ( lastPageId >= 0 )
+            {
+                pages.set( 0, toIntExact( Math.min( lastPageId, Integer.MAX_VALUE - 1 ) + 1 ) );
+            }
+            return pages;
+        }
+
+        File profileFile = profileFile( pagedFile.file() );
+        if ( profileFile == null || !fs.fileExists( profileFile ) )
+        {
+            return null;
+        }
+        try ( InputStream in = new GZIPInputStream( fs.openAsInputStream( profileFile ) ) )
+        {
+            return BitSet.valueOf( in.readAllBytes() );
+        }
+        catch ( IOException e )
+        {
+            log.warn( "Ignoring unreadable page cache profile " + profileFile + ".", e );
+            return null;
+        }
+    }
+
+    private void profileQuietly()
+    {
+        try
+        {
+            profile();
+        }
+        catch ( IOException e )
+        {
+            log.warn( "Unable to write page cache profiles.", e );
+        }
+    }
+
+    /**
+     * Write a profile of the pages that are currently in memory, for every mapped database file.
+     * Profiles of files that are no longer mapped are removed.
+     *
+     * @return the number of pages that were found to be in memory.
+     */
+    synchronized long profile() throws IOException
+    {
+        fs.mkdirs( profilesDirectory );
+        Set<File> profileFiles = new HashSet<>();
+        long pagesInMemory = 0;
+        try ( PageCursorTracer cursorTracer = pageCacheTracer.createPageCursorTracer( TAG ) )
+        {
+            for ( PagedFile pagedFile : pageCache.listExistingMappings() )
+            {
+                File profileFile = profileFile( pagedFile.file() );
+                if ( profileFile == null )
+                {
+                    continue;
+                }
+                try
+                {
+                    BitSet pages = residentPages( pagedFile, cursorTracer );
+                    writeProfile( profileFile, pages );
+                    profileFiles.add( profileFile );
+                    pagesInMemory += pages.cardinality();
+                }
+                catch ( FileIsNotMappedException e )
+                {
+                    // The file was unmapped while we profiled it, so there is nothing to keep warm.
+                }
+            }
+        }
+
+        File[] existingProfiles = fs.listFiles( profilesDirectory, ( dir, name ) -> name.endsWith( SUFFIX_CACHEPROF ) );
+        if ( existingProfiles != null )
+        {
+            for ( File existingProfile : existingProfiles )
+            {
+                if ( !profileFiles.contains( existingProfile ) )
+                {
+                    fs.deleteFile( existingProfile );
+                }
+            }
+        }
+        return pagesInMemory;
+    }
+
+    private static BitSet residentPages( PagedFile pagedFile, PageCursorTracer cursorTracer ) throws IOException
+    {
+        BitSet pages = new BitSet();
+        long lastPageId = Math.min( pagedFile.getLastPageId(), Integer.MAX_VALUE - 1 );
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT | PF_TRANSIENT, cursorTracer ) )
+        {
+            for ( long pageId = 0; pageId <= lastPageId && cursor.next( pageId ); pageId++ )
+            {
+                if ( cursor.getCurrentPageId() != PageCursor.UNBOUND_PAGE_ID )
+                {
+                    pages.set( toIntExact( pageId ) );
+                }
+            }
+        }
+        return pages;
+    }
+
+    private void writeProfile( File profileFile, BitSet pages ) throws IOException
+    {
+        File temporaryFile = new File( profileFile.getParentFile(), profileFile.getName() + SUFFIX_TEMPORARY );
+        try ( OutputStream out = new GZIPOutputStream( fs.openAsOutputStream( temporaryFile, false ) ) )
+        {
+            out.write( pages.toByteArray() );
+        }
+        fs.renameFile( temporaryFile, profileFile, ATOMIC_MOVE, REPLACE_EXISTING );
+    }
+
+    /**
+     * @return the profile file for the given mapped file, or {@code null} if the mapped file is not part of this database.
+     */
+    private File profileFile( File mappedFile )
+    {
+        String databasePath = databaseDirectory.getAbsoluteFile().toPath().normalize().toString();
+        String mappedPath = mappedFile.getAbsoluteFile().toPath().normalize().toString();
+        if ( !mappedPath.startsWith( databasePath + File.separator ) )
+        {
+            return null;
+        }
+        String relativePath = mappedPath.substring( databasePath.length() + 1 );
+        return new File( profilesDirectory, relativePath.replace( File.separatorChar, '.' ) + SUFFIX_CACHEPROF );
+    }
+
+    private class WarmupTask
+    {
+        private final PagedFile pagedFile;
+        private final BitSet pages;
+
+        WarmupTask( PagedFile pagedFile, BitSet pages )
+        {
+            this.pagedFile = pagedFile;
+            this.pages = pages;
+        }
+
+        void run( long deadlineNanos, AtomicLong pagesLoaded )
+        {
+            try ( PageCursorTracer cursorTracer = pageCacheTracer.createPageCursorTracer( TAG );
+                  PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_TRANSIENT, cursorTracer ) )
+            {
+                for ( int pageId = pages.nextSetBit( 0 ); pageId >= 0; pageId = pages.nextSetBit( pageId + 1 ) )
+                {
+                    if ( clock.nanos() >= deadlineNanos || !cursor.next( pageId ) )
+                    {
+                        return;
+                    }
+                    pagesLoaded.incrementAndGet();
+                }
+            }
+            catch ( IOException e )
+            {
+                log.warn( "Page cache warmup of " + pagedFile.file() + " failed.", e );
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.transaction.log;
 import java.io.Flushable;
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
@@ -30,6 +31,7 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import org.neo4j.kernel.impl.api.TransactionToApply;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.entry.CompressingLogEntryWriter;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
 import org.neo4j.kernel.impl.transaction.log.files.LogFile;
 import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
@@ -53,6 +55,8 @@ import static org.neo4j.kernel.impl.api.TransactionToApply.TRANSACTION_ID_NOT_SP
  */
 public class BatchingTransactionAppender extends LifecycleAdapter implements TransactionAppender
 {
+    private static final long MIN_HOLD_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos( 10 );
+
     private final AtomicReference<ThreadLink> threadLinkHead = new AtomicReference<>( ThreadLink.END );
     private final TransactionMetadataCache transactionMetadataCache;
     private final LogFile logFile;
@@ -61,6 +65,8 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     private final LogPositionMarker positionMarker = new LogPositionMarker();
     private final Health databaseHealth;
     private final Lock forceLock = new ReentrantLock();
+    private final GroupCommitWindow groupCommitWindow;
+    private final boolean compressCommands;
 
     private FlushablePositionAwareChecksumChannel writer;
     private TransactionLogWriter transactionLogWriter;
@@ -69,17 +75,32 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     public BatchingTransactionAppender( LogFiles logFiles, LogRotation logRotation, TransactionMetadataCache transactionMetadataCache,
             TransactionIdStore transactionIdStore, Health databaseHealth )
     {
-        this.logFile = logFiles.getLogFile();
-        this.logRotation = logRotation;
-        this.transactionIdStore = transactionIdStore;
-        this.databaseHealth = databaseHealth;
-        this.transactionMetadataCache = transactionMetadataCache;
-        this.previousChecksum = transactionIdStore.getLastCommittedTransaction().checksum();
+        this( logFiles, logRotation, transactionMetadataCache, transactionIdStore, databaseHealth, Duration.ZERO, false );
+    }
+
+    /**
+     * @param groupCommitMaxDelay the longest time a force of the log may be held back to let more committers join it,
+     * see {@link GroupCommitWindow}. Zero means forces are never held back.
+     * @param compressCommands whether to write the commands of each transaction compressed, see {@link CompressingLogEntryWriter}.
+     */
+    public BatchingTransactionAppender( LogFiles logFiles, LogRotation logRotation, TransactionMetadataCache transactionMetadataCache,
+            TransactionIdStore transactionIdStore, Health databaseHealth, Duration groupCommitMaxDelay, boolean compressCommands )
+    {
+        this( logFiles, logRotation, transactionMetadataCache, transactionIdStore, databaseHealth,
+                transactionIdStore.getLastCommittedTransaction().checksum(), groupCommitMaxDelay, compressCommands );
     }
 
     @VisibleForTesting
     public BatchingTransactionAppender( LogFiles logFiles, LogRotation logRotation, TransactionMetadataCache transactionMetadataCache,
             TransactionIdStore transactionIdStore, Health databaseHealth, int previousChecksum )
+    {
+        this( logFiles, logRotation, transactionMetadataCache, transactionIdStore, databaseHealth, previousChecksum, Duration.ZERO, false );
+    }
+
+    @VisibleForTesting
+    public BatchingTransactionAppender( LogFiles logFiles, LogRotation logRotation, TransactionMetadataCache transactionMetadataCache,
+            TransactionIdStore transactionIdStore, Health databaseHealth, int previousChecksum, Duration groupCommitMaxDelay,
+            boolean compressCommands )
     {
         this.logFile = logFiles.getLogFile();
         this.logRotation = logRotation;
@@ -87,13 +108,15 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         this.databaseHealth = databaseHealth;
         this.transactionMetadataCache = transactionMetadataCache;
         this.previousChecksum = previousChecksum;
+        this.groupCommitWindow = groupCommitMaxDelay.isZero() ? GroupCommitWindow.DISABLED : new GroupCommitWindow( groupCommitMaxDelay.toNanos() );
+        this.compressCommands = compressCommands;
     }
 
     @Override
     public void start()
     {
         this.writer = logFile.getWriter();
-        this.transactionLogWriter = new TransactionLogWriter( new LogEntryWriter( writer ) );
+        this.transactionLogWriter = new TransactionLogWriter( compressCommands ? new CompressingLogEntryWriter( writer ) : new LogEntryWriter( writer ) );
     }
 
     @Override
@@ -240,6 +263,10 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         // This is okay, however, because unparkAll() spins when it sees a null next pointer.
         ThreadLink threadLink = new ThreadLink( Thread.currentThread() );
         threadLink.next = threadLinkHead.getAndSet( threadLink );
+        if ( groupCommitWindow.isEnabled() )
+        {
+            groupCommitWindow.arrived( System.nanoTime() );
+        }
         boolean attemptedForce = false;
 
         try ( LogForceWaitEvent logForceWaitEvent = logForceEvents.beginLogForceWait() )
@@ -286,26 +313,64 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
 
     private void forceLog( LogForceEvents logForceEvents ) throws IOException
     {
+        holdForMoreCommitters();
         ThreadLink links = threadLinkHead.getAndSet( ThreadLink.END );
         try ( LogForceEvent logForceEvent = logForceEvents.beginLogForce() )
         {
-            force();
+            try
+            {
+                long startNanos = System.nanoTime();
+                force();
+                groupCommitWindow.forced( System.nanoTime() - startNanos );
+            }
+            catch ( final Throwable panic )
+            {
+                databaseHealth.panic( panic );
+                throw panic;
+            }
+            finally
+            {
+                // The batch is counted while it is unparked, which only happens after a failed force has raised its panic
+                logForceEvent.setBatchSize( unparkAll( links ) );
+            }
         }
-        catch ( final Throwable panic )
+    }
+
+    /**
+     * Hold back the force, while holding the force lock, for as long as the {@link GroupCommitWindow} suggests. The committers
+     * that arrive in the meantime park, and will be released by the force that follows. Stops early if no new committer
+     * arrived within twice the average arrival interval.
+     */
+    private void holdForMoreCommitters()
+    {
+        long windowNanos = groupCommitWindow.windowNanos();
+        if ( windowNanos == 0 )
         {
-            databaseHealth.panic( panic );
-            throw panic;
+            return;
         }
-        finally
+        long quietNanos = Math.max( groupCommitWindow.arrivalIntervalNanos() << 1, MIN_HOLD_PARK_NANOS );
+        long now = System.nanoTime();
+        long deadline = now + windowNanos;
+        ThreadLink head = threadLinkHead.get();
+        while ( now < deadline )
         {
-            unparkAll( links );
+            LockSupport.parkNanos( this, Math.min( quietNanos, deadline - now ) );
+            ThreadLink newHead = threadLinkHead.get();
+            if ( newHead == head )
+            {
+                return;
+            }
+            head = newHead;
+            now = System.nanoTime();
         }
     }
 
-    private static void unparkAll( ThreadLink links )
+    private static int unparkAll( ThreadLink links )
     {
+        int count = 0;
         do
         {
+            count++;
             links.done = true;
             links.unpark();
             ThreadLink tmp;
@@ -318,6 +383,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             links = tmp;
         }
         while ( links != ThreadLink.END );
+        return count;
     }
 
     private void waitForLogForce()
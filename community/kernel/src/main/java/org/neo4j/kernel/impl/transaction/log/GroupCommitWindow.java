@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides for how long the thread that forces the transaction log should hold back the force, to let more committers
+ * join it. The decision is based on moving averages of the force latency, and of the time between committers arriving
+ * at the force.
+ * <p>
+ * Holding back the force is only worthwhile when committers arrive faster than the log can be forced, because only then
+ * can more than one of them be expected to join during the wait. The window is then half the average force latency, which
+ * bounds the added commit latency to a fraction of what every committer already pays for the force itself, and it is
+ * never longer than the configured maximum.
+ * <p>
+ * The averages are updated without synchronization. Concurrent updates may lose samples, which is fine for a heuristic.
+ */
+class GroupCommitWindow
+{
+    static final GroupCommitWindow DISABLED = new GroupCommitWindow( 0 );
+
+    // Each new sample contributes 1/8th to the moving averages.
+    private static final int SAMPLE_WEIGHT_SHIFT = 3;
+    private static final long UNKNOWN = -1;
+
+    private final long maxWindowNanos;
+    private final AtomicLong lastArrivalNanos = new AtomicLong( UNKNOWN );
+    private volatile long arrivalIntervalNanos = UNKNOWN;
+    private volatile long forceLatencyNanos = UNKNOWN;
+
+    GroupCommitWindow( long maxWindowNanos )
+    {
+        this.maxWindowNanos = maxWindowNanos;
+    }
+
+    boolean isEnabled()
+    {
+        return maxWindowNanos > 0;
+    }
+
+    /**
+     * A committer has appended its transactions, and is about to wait for them to be forced.
+     */
+    void arrived( long nowNanos )
+    {
+        long previousArrival = lastArrivalNanos.getAndSet( nowNanos );
+        if ( previousArrival != UNKNOWN )
+        {
+            arrivalIntervalNanos = movingAverage( arrivalIntervalNanos, Math.max( 0, nowNanos - previousArrival ) );
+        }
+    }
+
+    /**
+     * The transaction log was forced, which took the given amount of time.
+     */
+    void forced( long latencyNanos )
+    {
+        forceLatencyNanos = movingAverage( forceLatencyNanos, latencyNanos );
+    }
+
+    /**
+     * @return the average time between committers arriving, or {@code -1} if not yet known.
+     */
+    long arrivalIntervalNanos()
+    {
+        return arrivalIntervalNanos;
+    }
+
+    /**
+     * @return for how long the next force should be held back, possibly zero.
+     */
+    long windowNanos()
+    {
+        long interval = arrivalIntervalNanos;
+        long latency = forceLatencyNanos;
+        if ( maxWindowNanos == 0 || interval == UNKNOWN || latency == UNKNOWN || interval >= latency )
+        {
+            return 0;
+        }
+        return Math.min( maxWindowNanos, latency >>> 1 );
+    }
+
+    private static long movingAverage( long average, long sample )
+    {
+        if ( average == UNKNOWN )
+        {
+            return sample;
+        }
+        return average + ((sample - average) >> SAMPLE_WEIGHT_SHIFT);
+    }
+}
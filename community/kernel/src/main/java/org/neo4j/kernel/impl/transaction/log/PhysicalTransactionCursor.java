@@ -28,6 +28,7 @@ import org.neo4j.kernel.impl.transaction.log.entry.CheckPoint;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommand;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompressedCommands;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
 import org.neo4j.storageengine.api.StorageCommand;
@@ -94,6 +95,12 @@ public class PhysicalTransactionCursor implements TransactionCursor
                     break;
                 }
 
+                if ( entry instanceof LogEntryCompressedCommands )
+                {
+                    entries.addAll( ((LogEntryCompressedCommands) entry).getCommands() );
+                    continue;
+                }
+
                 LogEntryCommand command = (LogEntryCommand) entry;
                 entries.add( command.getCommand() );
             }
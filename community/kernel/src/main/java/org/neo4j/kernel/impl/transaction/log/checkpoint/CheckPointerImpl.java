@@ -187,7 +187,13 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
              */
             msgLog.info( prefix + " checkpoint started..." );
             Stopwatch startTime = Stopwatch.start();
-            forceOperation.flushAndForce( ioLimiter, cursorTracer );
+            FileFlushRecordingIOLimiter flushLimiter = new FileFlushRecordingIOLimiter( ioLimiter );
+            forceOperation.flushAndForce( flushLimiter, cursorTracer );
+            String flushedFiles = flushLimiter.describeFlushedFiles();
+            if ( !flushedFiles.isEmpty() )
+            {
+                msgLog.info( prefix + " checkpoint flushed " + flushedFiles );
+            }
             /*
              * Check kernel health before going to write the next check point.  In case of a panic this check point
              * will be aborted, which is the safest alternative so that the next recovery will have a chance to
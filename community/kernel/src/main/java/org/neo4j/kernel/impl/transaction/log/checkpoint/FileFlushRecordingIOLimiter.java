@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import java.io.Flushable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PagedFile;
+
+import static java.util.Comparator.comparing;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.neo4j.internal.helpers.Format.duration;
+import static org.neo4j.io.ByteUnit.bytesToString;
+
+/**
+ * An {@link IOLimiter} that records how much each file wrote during a checkpoint, and otherwise leaves the limiting
+ * to its delegate. The page cache reports the start and end of the flush of every file to the limiter, as well as
+ * every run of flushed pages, which makes the limiter a convenient place to observe the flush from.
+ * <p>
+ * The flush time of a file is the time from the start of its flush until it has been forced, so it also covers any
+ * time spent waiting for the limiter, or for other files that were flushed at the same time.
+ */
+class FileFlushRecordingIOLimiter implements IOLimiter
+{
+    private final IOLimiter delegate;
+    private final Map<Flushable,FileFlush> flushes = new ConcurrentHashMap<>();
+
+    FileFlushRecordingIOLimiter( IOLimiter delegate )
+    {
+        this.delegate = delegate;
+    }
+
+    IOLimiter delegate()
+    {
+        return delegate;
+    }
+
+    @Override
+    public long maybeLimitIO( long previousStamp, int recentlyCompletedIOs, Flushable flushable )
+    {
+        fileFlush( flushable ).record( recentlyCompletedIOs );
+        return delegate.maybeLimitIO( previousStamp, recentlyCompletedIOs, flushable );
+    }
+
+    @Override
+    public void beginFileFlush( Flushable flushable )
+    {
+        fileFlush( flushable ).begin( System.nanoTime() );
+        delegate.beginFileFlush( flushable );
+    }
+
+    @Override
+    public void endFileFlush( Flushable flushable )
+    {
+        delegate.endFileFlush( flushable );
+        fileFlush( flushable ).end( System.nanoTime() );
+    }
+
+    @Override
+    public void disableLimit()
+    {
+        delegate.disableLimit();
+    }
+
+    @Override
+    public void enableLimit()
+    {
+        delegate.enableLimit();
+    }
+
+    @Override
+    public boolean isLimited()
+    {
+        return delegate.isLimited();
+    }
+
+    private FileFlush fileFlush( Flushable flushable )
+    {
+        return flushes.computeIfAbsent( flushable, FileFlush::new );
+    }
+
+    /**
+     * @return a description of the files that have been flushed through this limiter, with the largest flush first,
+     * or an empty string if nothing has been flushed.
+     */
+    String describeFlushedFiles()
+    {
+        List<FileFlush> files = new ArrayList<>( flushes.values() );
+        // Every mapped file is flushed, but only the ones that had dirty pages are of interest.
+        files.removeIf( file -> file.pages() == 0 );
+        if ( files.isEmpty() )
+        {
+            return "";
+        }
+        files.sort( comparing( FileFlush::pages ).reversed() );
+        StringBuilder description = new StringBuilder();
+        for ( FileFlush file : files )
+        {
+            if ( description.length() > 0 )
+            {
+                description.append( ", " );
+            }
+            file.describeTo( description );
+        }
+        return description.toString();
+    }
+
+    private static class FileFlush
+    {
+        private final Flushable file;
+        private long startNanos = Long.MAX_VALUE;
+        private long endNanos = Long.MIN_VALUE;
+        private long pages;
+
+        FileFlush( Flushable file )
+        {
+            this.file = file;
+        }
+
+        synchronized void begin( long nanos )
+        {
+            // A file that is flushed by several threads reports the start of each of its ranges of pages.
+            startNanos = Math.min( startNanos, nanos );
+        }
+
+        synchronized void end( long nanos )
+        {
+            endNanos = Math.max( endNanos, nanos );
+        }
+
+        synchronized void record( int completedIOs )
+        {
+            pages += completedIOs;
+        }
+
+        synchronized long pages()
+        {
+            return pages;
+        }
+
+        synchronized void describeTo( StringBuilder description )
+        {
+            // A flush that failed, or that was not reported by the page cache, has no known duration.
+            long durationMillis = endNanos >= startNanos ? NANOSECONDS.toMillis( endNanos - startNanos ) : 0;
+            if ( file instanceof PagedFile )
+            {
+                PagedFile pagedFile = (PagedFile) file;
+                description.append( pagedFile.file().getName() ).append( " (" )
+                        .append( bytesToString( pages * pagedFile.pageSize() ) );
+            }
+            else
+            {
+                description.append( file ).append( " (" ).append( pages ).append( " pages" );
+            }
+            description.append( " in " ).append( duration( durationMillis ) ).append( ')' );
+        }
+    }
+}
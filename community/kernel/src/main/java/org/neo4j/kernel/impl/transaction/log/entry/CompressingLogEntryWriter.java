@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.github.luben.zstd.ZstdException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.io.fs.WritableChannel;
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.FlushablePositionAwareChecksumChannel;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.util.FeatureToggles;
+
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompressedCommands.NO_DICTIONARY;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryTypeCodes.COMPRESSED_COMMANDS;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryTypeCodes.COMPRESSION_DICTIONARY;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.CURRENT_FORMAT_LOG_HEADER_SIZE;
+
+/**
+ * A {@link LogEntryWriter} that writes the commands of each transaction as a single zstd compressed
+ * {@link LogEntryCompressedCommands} entry, instead of one {@link LogEntryCommand} per command.
+ * <p>
+ * The first transactions written are also used as samples to train a zstd dictionary. Once trained, the dictionary is
+ * written as a {@link LogEntryCompressionDictionary} entry at the start of the next log file, directly after the header,
+ * and from then on used for all compressed commands in that file. Each log file carries the dictionary it needs, so files
+ * can be read, shipped and pruned independently of each other. Transactions written to a file that did not start with a
+ * dictionary are compressed without one.
+ * <p>
+ * Transactions that are too small to gain from compression, or that do not shrink, are written the ordinary way.
+ */
+public class CompressingLogEntryWriter extends LogEntryWriter
+{
+    private static final int COMPRESSION_LEVEL = FeatureToggles.getInteger( CompressingLogEntryWriter.class, "compressionLevel", 3 );
+    private static final int MIN_COMPRESSED_SIZE = FeatureToggles.getInteger( CompressingLogEntryWriter.class, "minCompressedSize", 128 );
+    private static final int DICTIONARY_SIZE = FeatureToggles.getInteger( CompressingLogEntryWriter.class, "dictionarySize",
+            (int) ByteUnit.kibiBytes( 16 ) );
+    private static final int DICTIONARY_SAMPLES_SIZE = FeatureToggles.getInteger( CompressingLogEntryWriter.class, "dictionarySamplesSize",
+            (int) ByteUnit.mebiBytes( 1 ) );
+
+    private final FlushablePositionAwareChecksumChannel positionAwareChannel;
+    private final LogPositionMarker positionMarker = new LogPositionMarker();
+    private final CommandBuffer commands = new CommandBuffer();
+    private byte[] compressed = new byte[0];
+    // Compression contexts are reused since setting one up costs more than compressing a typical transaction
+    private final ZstdCompressCtx withoutDictionary = new ZstdCompressCtx().setLevel( COMPRESSION_LEVEL );
+    private ZstdCompressCtx withDictionary;
+
+    private ZstdDictTrainer trainer;
+    private byte[] trainedDictionary;
+    private int trainedDictionaryId;
+    private ZstdCompressCtx context = withoutDictionary;
+    private int dictionaryId = NO_DICTIONARY;
+    private long logVersion = -1;
+
+    public CompressingLogEntryWriter( FlushablePositionAwareChecksumChannel channel )
+    {
+        this( channel, true );
+    }
+
+    /**
+     * @param trainDictionary whether to train a dictionary for compressing commands, or always compress without one.
+     */
+    public CompressingLogEntryWriter( FlushablePositionAwareChecksumChannel channel, boolean trainDictionary )
+    {
+        super( channel );
+        this.positionAwareChannel = channel;
+        this.trainer = trainDictionary ? new ZstdDictTrainer( DICTIONARY_SAMPLES_SIZE, DICTIONARY_SIZE ) : null;
+    }
+
+    @Override
+    public void writeStartEntry( long timeWritten, long latestCommittedTxWhenStarted, int previousChecksum, byte[] additionalHeaderData )
+            throws IOException
+    {
+        writeDictionaryIfNewLogFile();
+        super.writeStartEntry( timeWritten, latestCommittedTxWhenStarted, previousChecksum, additionalHeaderData );
+    }
+
+    @Override
+    public void writeCheckPointEntry( LogPosition logPosition ) throws IOException
+    {
+        writeDictionaryIfNewLogFile();
+        super.writeCheckPointEntry( logPosition );
+    }
+
+    @Override
+    public void serialize( TransactionRepresentation tx ) throws IOException
+    {
+        commands.clear();
+        tx.accept( command ->
+        {
+            command.serialize( commands );
+            return false;
+        } );
+
+        int uncompressedLength = commands.size();
+        if ( uncompressedLength < MIN_COMPRESSED_SIZE )
+        {
+            super.serialize( tx );
+            return;
+        }
+        sample();
+
+        int compressedLength = compress( uncompressedLength );
+        if ( compressedLength >= uncompressedLength )
+        {
+            super.serialize( tx );
+            return;
+        }
+        writeLogEntryHeader( COMPRESSED_COMMANDS, channel );
+        channel.putInt( dictionaryId )
+                .putInt( uncompressedLength )
+                .putInt( compressedLength )
+                .put( compressed, compressedLength );
+    }
+
+    private int compress( int uncompressedLength )
+    {
+        int bound = (int) Zstd.compressBound( uncompressedLength );
+        if ( compressed.length < bound )
+        {
+            compressed = new byte[bound];
+        }
+        return context.compressByteArray( compressed, 0, bound, commands.array(), 0, uncompressedLength );
+    }
+
+    private void sample()
+    {
+        if ( trainer != null && trainedDictionary == null && !trainer.addSample( Arrays.copyOf( commands.array(), commands.size() ) ) )
+        {
+            // The sample buffer is full, which is what we train on. This happens once, on the committing thread.
+            try
+            {
+                byte[] candidate = trainer.trainSamples();
+                trainedDictionaryId = (int) Zstd.getDictIdFromDict( candidate );
+                if ( trainedDictionaryId != NO_DICTIONARY )
+                {
+                    withDictionary = new ZstdCompressCtx().setLevel( COMPRESSION_LEVEL ).loadDict( new ZstdDictCompress( candidate, COMPRESSION_LEVEL ) );
+                    trainedDictionary = candidate;
+                }
+            }
+            catch ( ZstdException e )
+            {
+                // Too little or too uniform data to train on, keep compressing without a dictionary
+            }
+            trainer = null;
+        }
+    }
+
+    /**
+     * A dictionary can only be put first in a log file, so when a new log file has been started and nothing has been written to it
+     * yet, that is where the trained dictionary goes. In any other file the commands are compressed without a dictionary.
+     */
+    private void writeDictionaryIfNewLogFile() throws IOException
+    {
+        positionAwareChannel.getCurrentPosition( positionMarker );
+        if ( positionMarker.getLogVersion() == logVersion )
+        {
+            return;
+        }
+        logVersion = positionMarker.getLogVersion();
+        if ( trainedDictionary != null && positionMarker.getByteOffset() == CURRENT_FORMAT_LOG_HEADER_SIZE )
+        {
+            channel.beginChecksum();
+            writeLogEntryHeader( COMPRESSION_DICTIONARY, channel );
+            channel.putInt( trainedDictionaryId )
+                    .putInt( trainedDictionary.length )
+                    .put( trainedDictionary, trainedDictionary.length );
+            channel.putChecksum();
+            context = withDictionary;
+            dictionaryId = trainedDictionaryId;
+        }
+        else
+        {
+            context = withoutDictionary;
+            dictionaryId = NO_DICTIONARY;
+        }
+    }
+
+    private static class CommandBuffer implements WritableChannel
+    {
+        private ByteBuffer buffer = ByteBuffer.allocate( (int) ByteUnit.kibiBytes( 8 ) );
+
+        void clear()
+        {
+            buffer.clear();
+        }
+
+        int size()
+        {
+            return buffer.position();
+        }
+
+        byte[] array()
+        {
+            return buffer.array();
+        }
+
+        @Override
+        public WritableChannel put( byte value )
+        {
+            ensureCapacity( Byte.BYTES ).put( value );
+            return this;
+        }
+
+        @Override
+        public WritableChannel putShort( short value )
+        {
+            ensureCapacity( Short.BYTES ).putShort( value );
+            return this;
+        }
+
+        @Override
+        public WritableChannel putInt( int value )
+        {
+            ensureCapacity( Integer.BYTES ).putInt( value );
+            return this;
+        }
+
+        @Override
+        public WritableChannel putLong( long value )
+        {
+            ensureCapacity( Long.BYTES ).putLong( value );
+            return this;
+        }
+
+        @Override
+        public WritableChannel putFloat( float value )
+        {
+            ensureCapacity( Float.BYTES ).putFloat( value );
+            return this;
+        }
+
+        @Override
+        public WritableChannel putDouble( double value )
+        {
+            ensureCapacity( Double.BYTES ).putDouble( value );
+            return this;
+        }
+
+        @Override
+        public WritableChannel put( byte[] value, int length )
+        {
+            ensureCapacity( length ).put( value, 0, length );
+            return this;
+        }
+
+        private ByteBuffer ensureCapacity( int bytes )
+        {
+            if ( buffer.remaining() < bytes )
+            {
+                ByteBuffer grown = ByteBuffer.allocate( Math.max( buffer.capacity() * 2, buffer.position() + bytes ) );
+                buffer.flip();
+                grown.put( buffer );
+                buffer = grown;
+            }
+            return buffer;
+        }
+    }
+}
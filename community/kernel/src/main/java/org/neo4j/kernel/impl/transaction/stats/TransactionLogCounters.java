@@ -44,4 +44,17 @@ public interface TransactionLogCounters
      * @return last log rotation time in milliseconds
      */
     long lastLogRotationTimeMillis();
+
+    /**
+     * Total number of forces of the transaction log made on behalf of committing transactions
+     * @return number of transaction log forces
+     */
+    long numberOfLogForces();
+
+    /**
+     * Distribution of the number of committers that shared each force of the transaction log. The element at index {@code i}
+     * counts the forces that were shared by at least {@code 2^i}, but less than {@code 2^(i+1)} committers.
+     * @return the number of log forces per batch size bucket
+     */
+    long[] logForceBatchSizeDistribution();
 }
@@ -84,6 +84,18 @@ public interface DatabaseTracer extends TransactionTracer, CheckPointTracer
         {
             return 0;
         }
+
+        @Override
+        public long numberOfLogForces()
+        {
+            return 0;
+        }
+
+        @Override
+        public long[] logForceBatchSizeDistribution()
+        {
+            return new long[0];
+        }
     };
 
     LogFileCreateEvent createLogFile();
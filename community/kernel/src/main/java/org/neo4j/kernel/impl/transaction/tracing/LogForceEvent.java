@@ -26,10 +26,24 @@ package org.neo4j.kernel.impl.transaction.tracing;
  */
 public interface LogForceEvent extends AutoCloseable
 {
-    LogForceEvent NULL = () ->
+    LogForceEvent NULL = new LogForceEvent()
     {
+        @Override
+        public void setBatchSize( int committers )
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
     };
 
+    /**
+     * Sets the number of committers that are waiting for this force, and will be released by it.
+     */
+    void setBatchSize( int committers );
+
     /**
      * Marks the end of the force call on the transaction log file.
      */
@@ -66,6 +66,18 @@ public interface TransactionTracer extends TransactionLogCounters
         {
             return 0;
         }
+
+        @Override
+        public long numberOfLogForces()
+        {
+            return 0;
+        }
+
+        @Override
+        public long[] logForceBatchSizeDistribution()
+        {
+            return new long[0];
+        }
     };
 
     /**
@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.collection;
+
+import org.eclipse.collections.api.list.primitive.MutableLongList;
+import org.eclipse.collections.api.map.primitive.MutableLongObjectMap;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.graphdb.TransactionFailureException;
+import org.neo4j.internal.unsafe.UnsafeUtil;
+import org.neo4j.memory.MemoryTracker;
+import org.neo4j.util.VisibleForTesting;
+
+import static java.lang.Math.toIntExact;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+import static org.neo4j.io.ByteUnit.mebiBytes;
+import static org.neo4j.util.Preconditions.requireNonNegative;
+import static org.neo4j.util.Preconditions.requirePositive;
+
+/**
+ * Block allocator which, instead of failing an allocation when the off-heap memory limit of the decorated allocator is reached, hands out blocks
+ * from a memory mapped swap file. This lets transaction state grow beyond the configured off-heap memory, with the resident part of the spilled
+ * blocks being left to the paging of the operating system.
+ * <p>
+ * The swap file is created lazily on first spill and mapped in chunks. Freed spilled blocks are kept and reused for later spilled allocations of
+ * the same size. The swap file doesn't shrink while any of its blocks are in use, but it is unmapped and deleted as soon as the last one is freed,
+ * and on {@link #release()}. Swap files left behind by a crash are removed with {@link #deleteStaleSwapFiles(Path)}. Spilled blocks are not
+ * reported to the {@link MemoryTracker} as native memory, but the total amount of spilled memory is capped.
+ * <p>
+ * Every chunk is written out with zeros before it is mapped, so that running out of disk space fails the allocation with an
+ * {@link IOException}, rather than with a {@code SIGBUS} on first access to the mapped memory.
+ */
+public class SpillingBlockAllocatorDecorator implements OffHeapBlockAllocator
+{
+    private static final long DEFAULT_CHUNK_SIZE = mebiBytes( 64 );
+    private static final long ALIGNMENT = Long.BYTES;
+    private static final int ZEROS_SIZE = toIntExact( mebiBytes( 1 ) );
+    private static final String SWAP_FILE_PREFIX = "tx-state-";
+    private static final String SWAP_FILE_SUFFIX = ".swap";
+
+    private final OffHeapBlockAllocator impl;
+    private final Path directory;
+    private final long maxSpilledMemory;
+    private final long chunkSize;
+
+    private final List<MappedByteBuffer> mappings = new ArrayList<>();
+    private final MutableLongObjectMap<MutableLongList> freeBlocks = new LongObjectHashMap<>();
+    private Path swapFile;
+    private FileChannel channel;
+    private long swapFileSize;
+    private long chunkAddress;
+    private long chunkRemaining;
+    private long spilledMemory;
+
+    /**
+     * @param impl the allocator to decorate.
+     * @param directory the directory to create the swap file in.
+     * @param maxSpilledMemory the maximum number of bytes that can be spilled at the same time, or zero for no limit.
+     */
+    public SpillingBlockAllocatorDecorator( OffHeapBlockAllocator impl, Path directory, long maxSpilledMemory )
+    {
+        this( impl, directory, maxSpilledMemory, DEFAULT_CHUNK_SIZE );
+    }
+
+    @VisibleForTesting
+    SpillingBlockAllocatorDecorator( OffHeapBlockAllocator impl, Path directory, long maxSpilledMemory, long chunkSize )
+    {
+        this.impl = requireNonNull( impl );
+        this.directory = requireNonNull( directory );
+        this.maxSpilledMemory = requireNonNegative( maxSpilledMemory );
+        this.chunkSize = requirePositive( chunkSize );
+    }
+
+    /**
+     * Deletes the swap files in the given directory. Swap files are deleted when the allocator that created them is released, so this is meant
+     * to be called on startup, before any allocator spills, to clean up after a database that didn't shut down cleanly.
+     *
+     * @param directory the directory that swap files are created in.
+     */
+    public static void deleteStaleSwapFiles( Path directory )
+    {
+        if ( !Files.isDirectory( directory ) )
+        {
+            return;
+        }
+        try ( DirectoryStream<Path> swapFiles = Files.newDirectoryStream( directory, SWAP_FILE_PREFIX + "*" + SWAP_FILE_SUFFIX ) )
+        {
+            for ( Path swapFile : swapFiles )
+            {
+                Files.deleteIfExists( swapFile );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( "Failed to delete stale transaction state swap files in " + directory, e );
+        }
+    }
+
+    @Override
+    public MemoryBlock allocate( long size, MemoryTracker tracker )
+    {
+        try
+        {
+            return impl.allocate( size, tracker );
+        }
+        catch ( MemoryAllocationLimitException e )
+        {
+            if ( size > Integer.MAX_VALUE )
+            {
+                throw e;
+            }
+            return allocateSpilled( size );
+        }
+    }
+
+    @Override
+    public void free( MemoryBlock block, MemoryTracker tracker )
+    {
+        if ( block instanceof SpilledMemoryBlock )
+        {
+            freeSpilled( (SpilledMemoryBlock) block );
+        }
+        else
+        {
+            impl.free( block, tracker );
+        }
+    }
+
+    @Override
+    public void release()
+    {
+        try
+        {
+            impl.release();
+        }
+        finally
+        {
+            releaseSwapFile();
+        }
+    }
+
+    @VisibleForTesting
+    synchronized long spilledMemory()
+    {
+        return spilledMemory;
+    }
+
+    @VisibleForTesting
+    synchronized Path swapFile()
+    {
+        return swapFile;
+    }
+
+    private synchronized MemoryBlock allocateSpilled( long size )
+    {
+        if ( maxSpilledMemory > 0 && spilledMemory + size > maxSpilledMemory )
+        {
+            throw new MemoryAllocationLimitException( size, spilledMemory, maxSpilledMemory );
+        }
+        final MutableLongList freeOfSize = freeBlocks.get( size );
+        final long addr;
+        if ( freeOfSize != null && !freeOfSize.isEmpty() )
+        {
+            addr = freeOfSize.removeAtIndex( freeOfSize.size() - 1 );
+        }
+        else
+        {
+            final long alignedSize = align( size );
+            if ( alignedSize > chunkSize )
+            {
+                addr = map( alignedSize );
+            }
+            else
+            {
+                if ( alignedSize > chunkRemaining )
+                {
+                    chunkAddress = map( chunkSize );
+                    chunkRemaining = chunkSize;
+                }
+                addr = chunkAddress;
+                chunkAddress += alignedSize;
+                chunkRemaining -= alignedSize;
+            }
+        }
+        spilledMemory += size;
+        return new SpilledMemoryBlock( addr, size, channel );
+    }
+
+    private synchronized void freeSpilled( SpilledMemoryBlock block )
+    {
+        if ( block.channel != channel )
+        {
+            // the swap file of this block has already been released
+            return;
+        }
+        freeBlocks.getIfAbsentPut( block.size, LongArrayList::new ).add( block.addr );
+        spilledMemory -= block.size;
+        if ( spilledMemory == 0 )
+        {
+            // Nothing lives in the swap file any more, so give the disk space and the mappings back instead of holding on to them
+            // until shutdown, since the allocator is shared by all transactions.
+            releaseSwapFile();
+        }
+    }
+
+    private long map( long size )
+    {
+        try
+        {
+            if ( channel == null )
+            {
+                swapFile = Files.createTempFile( directory, SWAP_FILE_PREFIX, SWAP_FILE_SUFFIX );
+                channel = FileChannel.open( swapFile, READ, WRITE );
+            }
+            preallocate( swapFileSize, size );
+            final MappedByteBuffer buffer = channel.map( FileChannel.MapMode.READ_WRITE, swapFileSize, toIntExact( size ) );
+            mappings.add( buffer );
+            swapFileSize += size;
+            return UnsafeUtil.getDirectByteBufferAddress( buffer );
+        }
+        catch ( IOException e )
+        {
+            throw new TransactionFailureException( "Failed to spill transaction state to " + directory, e );
+        }
+    }
+
+    private void preallocate( long position, long size ) throws IOException
+    {
+        final ByteBuffer zeros = ByteBuffer.allocate( (int) Math.min( size, ZEROS_SIZE ) );
+        final long end = position + size;
+        while ( position < end )
+        {
+            zeros.clear().limit( (int) Math.min( end - position, zeros.capacity() ) );
+            while ( zeros.hasRemaining() )
+            {
+                position += channel.write( zeros, position );
+            }
+        }
+    }
+
+    private synchronized void releaseSwapFile()
+    {
+        if ( channel == null )
+        {
+            return;
+        }
+        mappings.forEach( UnsafeUtil::invokeCleaner );
+        mappings.clear();
+        freeBlocks.clear();
+        chunkAddress = 0;
+        chunkRemaining = 0;
+        swapFileSize = 0;
+        spilledMemory = 0;
+        try
+        {
+            channel.close();
+            Files.deleteIfExists( swapFile );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+        finally
+        {
+            channel = null;
+            swapFile = null;
+        }
+    }
+
+    private static long align( long size )
+    {
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    private static class SpilledMemoryBlock extends MemoryBlock
+    {
+        private final FileChannel channel;
+
+        SpilledMemoryBlock( long addr, long size, FileChannel channel )
+        {
+            super( addr, size );
+            this.channel = channel;
+        }
+    }
+}
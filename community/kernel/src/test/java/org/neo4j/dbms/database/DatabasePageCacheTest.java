@@ -26,18 +26,28 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import java.io.File;
+import java.io.Flushable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.muninn.StandalonePageCacheFactory;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.test.extension.Inject;
 import org.neo4j.test.extension.testdirectory.TestDirectoryExtension;
 import org.neo4j.test.rule.TestDirectory;
 
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.eclipse.collections.impl.factory.Sets.immutable;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -46,13 +56,16 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.neo4j.io.pagecache.PageCache.PAGE_SIZE;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
 import static org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier.EMPTY;
+import static org.neo4j.kernel.impl.scheduler.JobSchedulerFactory.createInitialisedScheduler;
 
 @TestDirectoryExtension
 class DatabasePageCacheTest
@@ -201,23 +214,68 @@ class DatabasePageCacheTest
             File mapFile2 = testDirectory.createFile( "mapFile2" );
             File mapFile3 = testDirectory.createFile( "mapFile3" );
             File mapFile4 = testDirectory.createFile( "mapFile4" );
-            databasePageCache.map( mapFile1, PAGE_SIZE );
-            databasePageCache.map( mapFile2, PAGE_SIZE );
+            PagedFile pagedFile1 = databasePageCache.map( mapFile1, PAGE_SIZE );
+            PagedFile pagedFile2 = databasePageCache.map( mapFile2, PAGE_SIZE );
             anotherDatabaseCache.map( mapFile3, PAGE_SIZE );
             anotherDatabaseCache.map( mapFile4, PAGE_SIZE );
 
             databasePageCache.flushAndForce( IOLimiter.UNLIMITED);
 
-            List<PagedFile> pagedFiles = pagedFileMapper.getPagedFiles();
-            PagedFile originalPagedFile1 = findPagedFile( pagedFiles, mapFile1 );
-            PagedFile originalPagedFile2 = findPagedFile( pagedFiles, mapFile2 );
-            PagedFile originalPagedFile3 = findPagedFile( pagedFiles, mapFile3 );
-            PagedFile originalPagedFile4 = findPagedFile( pagedFiles, mapFile4 );
+            verify( globalPageCache ).flushAndForce( argThat( files -> files.size() == 2 && files.containsAll( List.of( pagedFile1, pagedFile2 ) ) ),
+                    eq( IOLimiter.UNLIMITED ) );
+            verify( globalPageCache, never() ).flushAndForce( any( IOLimiter.class ) );
+        }
+    }
 
-            verify( originalPagedFile1 ).flushAndForce( IOLimiter.UNLIMITED );
-            verify( originalPagedFile2 ).flushAndForce( IOLimiter.UNLIMITED );
-            verify( originalPagedFile3, never() ).flushAndForce( IOLimiter.UNLIMITED );
-            verify( originalPagedFile4, never() ).flushAndForce( IOLimiter.UNLIMITED );
+    @Test
+    void flushWithLimiterFlushesDatabaseFilesWithSeveralThreads() throws Exception
+    {
+        try ( JobScheduler jobScheduler = createInitialisedScheduler();
+              PageCache pageCache = StandalonePageCacheFactory.createPageCache( testDirectory.getFileSystem(), jobScheduler, PageCacheTracer.NULL );
+              DatabasePageCache databaseCache = new DatabasePageCache( pageCache, EMPTY ) )
+        {
+            List<PagedFile> pagedFiles = new ArrayList<>();
+            pagedFiles.add( databaseCache.map( testDirectory.createFile( "mapFile1" ), PAGE_SIZE ) );
+            pagedFiles.add( databaseCache.map( testDirectory.createFile( "mapFile2" ), PAGE_SIZE ) );
+            for ( PagedFile pagedFile : pagedFiles )
+            {
+                try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK, PageCursorTracer.NULL ) )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putInt( 1 );
+                }
+            }
+
+            // Each file is small enough to be flushed by a single thread, so the flushes of the files only meet here
+            // if they are flushed by different threads.
+            CountDownLatch flushesStarted = new CountDownLatch( pagedFiles.size() );
+            Set<Thread> flushingThreads = ConcurrentHashMap.newKeySet();
+            IOLimiter limiter = new IOLimiter()
+            {
+                @Override
+                public long maybeLimitIO( long previousStamp, int recentlyCompletedIOs, Flushable flushable )
+                {
+                    return previousStamp;
+                }
+
+                @Override
+                public void beginFileFlush( Flushable flushable )
+                {
+                    flushingThreads.add( Thread.currentThread() );
+                    flushesStarted.countDown();
+                    try
+                    {
+                        flushesStarted.await( 1, MINUTES );
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            databaseCache.flushAndForce( limiter );
+
+            assertThat( flushingThreads.size() ).isGreaterThan( 1 );
         }
     }
 
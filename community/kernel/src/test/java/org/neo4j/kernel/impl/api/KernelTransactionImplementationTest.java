@@ -682,6 +682,19 @@ class KernelTransactionImplementationTest extends KernelTransactionTestBase
         assertEquals( 0, transaction.getStatistics().getWaitingTimeNanos( 0 ) );
     }
 
+    @Test
+    void releaseCommandCreationContextOnRelease() throws TransactionFailureException
+    {
+        KernelTransactionImplementation transaction = newTransaction( 1000 );
+        verify( commandCreationContext, never() ).release();
+
+        transaction.close();
+
+        // The context is kept for the next transaction, so it is released rather than closed
+        verify( commandCreationContext ).release();
+        verify( commandCreationContext, never() ).close();
+    }
+
     @Test
     void reportTransactionStatistics()
     {
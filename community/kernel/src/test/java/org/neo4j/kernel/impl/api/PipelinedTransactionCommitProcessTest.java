@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.internal.kernel.api.exceptions.TransactionFailureException;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.impl.scheduler.JobSchedulerFactory;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.TestableTransactionAppender;
+import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
+import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
+import org.neo4j.monitoring.Health;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.StorageEngine;
+import org.neo4j.storageengine.api.TransactionApplicationMode;
+import org.neo4j.storageengine.api.TransactionIdStore;
+import org.neo4j.test.Race;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_MOCKS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+import static org.neo4j.storageengine.api.TransactionApplicationMode.INTERNAL;
+import static org.neo4j.test.Race.throwing;
+
+class PipelinedTransactionCommitProcessTest
+{
+    private final CommitEvent commitEvent = CommitEvent.NULL;
+    private final TransactionIdStore transactionIdStore = mock( TransactionIdStore.class );
+    private final StorageEngine storageEngine = mock( StorageEngine.class );
+    private final Health databaseHealth = mock( Health.class );
+    private JobScheduler scheduler;
+    private PipelinedTransactionCommitProcess commitProcess;
+
+    @BeforeEach
+    void setUp()
+    {
+        scheduler = JobSchedulerFactory.createInitialisedScheduler();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception
+    {
+        if ( commitProcess != null )
+        {
+            commitProcess.stop();
+        }
+        scheduler.close();
+    }
+
+    @Test
+    void shouldCommitConcurrentTransactionsInOrder() throws Throwable
+    {
+        // GIVEN
+        AtomicLong lastTxId = new AtomicLong( TransactionIdStore.BASE_TX_ID );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenAnswer( invocation -> lastTxId.incrementAndGet() );
+        List<Long> appliedTxIds = Collections.synchronizedList( new ArrayList<>() );
+        doAnswer( invocation ->
+        {
+            TransactionToApply tx = invocation.getArgument( 0 );
+            while ( tx != null )
+            {
+                appliedTxIds.add( tx.transactionId() );
+                tx = tx.next();
+            }
+            return null;
+        } ).when( storageEngine ).apply( any( TransactionToApply.class ), any( TransactionApplicationMode.class ) );
+        startCommitProcess( new TestableTransactionAppender( transactionIdStore ) );
+        Set<Long> committedTxIds = ConcurrentHashMap.newKeySet();
+
+        // WHEN
+        Race race = new Race();
+        race.addContestants( 8, () ->
+        {
+            for ( int i = 0; i < 100; i++ )
+            {
+                try
+                {
+                    committedTxIds.add( commitProcess.commit( transaction(), commitEvent, INTERNAL ) );
+                }
+                catch ( TransactionFailureException e )
+                {
+                    throw new AssertionError( e );
+                }
+            }
+        } );
+        race.go();
+
+        // THEN
+        assertThat( committedTxIds ).hasSize( 800 );
+        assertThat( appliedTxIds ).hasSize( 800 ).isSorted();
+        assertThat( appliedTxIds ).containsExactlyInAnyOrderElementsOf( committedTxIds );
+    }
+
+    @Test
+    void shouldCommitAllTransactionsWhenStoppedWhileCommitting() throws Throwable
+    {
+        // GIVEN
+        AtomicLong lastTxId = new AtomicLong( TransactionIdStore.BASE_TX_ID );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenAnswer( invocation -> lastTxId.incrementAndGet() );
+        startCommitProcess( new TestableTransactionAppender( transactionIdStore ) );
+        Set<Long> committedTxIds = ConcurrentHashMap.newKeySet();
+
+        // WHEN
+        Race race = new Race().withRandomStartDelays();
+        race.addContestants( 8, throwing( () ->
+        {
+            for ( int i = 0; i < 100; i++ )
+            {
+                committedTxIds.add( commitProcess.commit( transaction(), commitEvent, INTERNAL ) );
+            }
+        } ) );
+        race.addContestant( throwing( () -> commitProcess.stop() ) );
+        race.go( 1, MINUTES );
+
+        // THEN the commits that raced with stop were not left behind in the pipeline
+        assertThat( committedTxIds ).hasSize( 800 );
+    }
+
+    @Test
+    void shouldTraceAppendAndApplyOfEveryTransaction() throws Throwable
+    {
+        // GIVEN
+        AtomicLong lastTxId = new AtomicLong( TransactionIdStore.BASE_TX_ID );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenAnswer( invocation -> lastTxId.incrementAndGet() );
+        startCommitProcess( new TestableTransactionAppender( transactionIdStore ) );
+        List<CommitEvent> commitEvents = Collections.synchronizedList( new ArrayList<>() );
+
+        // WHEN
+        Race race = new Race();
+        race.addContestants( 8, throwing( () ->
+        {
+            for ( int i = 0; i < 10; i++ )
+            {
+                CommitEvent tracedCommitEvent = mock( CommitEvent.class, RETURNS_MOCKS );
+                commitEvents.add( tracedCommitEvent );
+                commitProcess.commit( transaction(), tracedCommitEvent, INTERNAL );
+            }
+        } ) );
+        race.go();
+
+        // THEN every committer saw its transaction being appended and applied, also when it was committed as part of a group
+        assertThat( commitEvents ).hasSize( 80 );
+        for ( CommitEvent tracedCommitEvent : commitEvents )
+        {
+            verify( tracedCommitEvent ).beginLogAppend();
+            verify( tracedCommitEvent ).beginStoreApply();
+        }
+    }
+
+    @Test
+    void shouldFailWithProperMessageOnAppendException() throws Exception
+    {
+        // GIVEN
+        TransactionAppender appender = mock( TransactionAppender.class );
+        IOException rootCause = new IOException( "Mock exception" );
+        doThrow( rootCause ).when( appender ).append( any( TransactionToApply.class ), any( LogAppendEvent.class ) );
+        startCommitProcess( appender );
+
+        // WHEN
+        TransactionFailureException exception =
+                assertThrows( TransactionFailureException.class, () -> commitProcess.commit( transaction(), commitEvent, INTERNAL ) );
+
+        // THEN
+        assertThat( exception.getMessage() ).contains( "Could not append transaction representation to log" );
+        assertThat( exception.getCause() ).isSameAs( rootCause );
+        verify( databaseHealth, never() ).panic( any( Throwable.class ) );
+    }
+
+    @Test
+    void shouldCloseTransactionRegardlessOfWhetherOrNotItAppliedCorrectly() throws Exception
+    {
+        // GIVEN
+        long txId = 11;
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( txId );
+        IOException rootCause = new IOException( "Mock exception" );
+        doThrow( rootCause ).when( storageEngine ).apply( any( TransactionToApply.class ), any( TransactionApplicationMode.class ) );
+        startCommitProcess( new TestableTransactionAppender( transactionIdStore ) );
+
+        // WHEN
+        TransactionFailureException exception =
+                assertThrows( TransactionFailureException.class, () -> commitProcess.commit( transaction(), commitEvent, INTERNAL ) );
+
+        // THEN
+        assertThat( exception.getMessage() ).contains( "Could not apply the transaction to the store" );
+        verify( transactionIdStore ).transactionClosed( eq( txId ), anyLong(), anyLong(), any( PageCursorTracer.class ) );
+        verify( databaseHealth ).panic( rootCause );
+    }
+
+    @Test
+    void shouldResolveEveryCommitWhenStagesAreInterrupted() throws Throwable
+    {
+        // GIVEN
+        AtomicLong lastTxId = new AtomicLong( TransactionIdStore.BASE_TX_ID );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenAnswer( invocation -> lastTxId.incrementAndGet() );
+        startCommitProcess( new TestableTransactionAppender( transactionIdStore ) );
+        commitProcess.commit( transaction(), commitEvent, INTERNAL );
+        AtomicInteger committed = new AtomicInteger( 1 );
+        AtomicInteger failed = new AtomicInteger();
+
+        // WHEN the scheduler is shut down, which interrupts both stages, while transactions are committing
+        Race race = new Race().withRandomStartDelays();
+        race.addContestants( 8, () ->
+        {
+            for ( int i = 0; i < 100; i++ )
+            {
+                try
+                {
+                    commitProcess.commit( transaction(), commitEvent, INTERNAL );
+                    committed.incrementAndGet();
+                }
+                catch ( TransactionFailureException e )
+                {
+                    failed.incrementAndGet();
+                }
+            }
+        } );
+        race.addContestant( () -> scheduler.close() );
+        race.go( 1, MINUTES );
+
+        // THEN no committer was left waiting, and every transaction that was appended was also closed
+        assertThat( committed.get() + failed.get() ).isEqualTo( 801 );
+        verify( transactionIdStore, times( committed.get() ) ).transactionClosed( anyLong(), anyLong(), anyLong(), any( PageCursorTracer.class ) );
+        verify( databaseHealth, never() ).panic( any( Throwable.class ) );
+
+        // The stages were cancelled along with the scheduler, so there is nothing left to stop.
+        commitProcess = null;
+        scheduler = JobSchedulerFactory.createInitialisedScheduler();
+    }
+
+    private void startCommitProcess( TransactionAppender appender )
+    {
+        commitProcess = new PipelinedTransactionCommitProcess( appender, storageEngine, scheduler, databaseHealth );
+        commitProcess.start();
+    }
+
+    private static TransactionToApply transaction()
+    {
+        PhysicalTransactionRepresentation tx = new PhysicalTransactionRepresentation( Collections.emptyList() );
+        tx.setHeader( new byte[0], -1, -1, -1, -1 );
+        return new TransactionToApply( tx, NULL );
+    }
+}
@@ -23,8 +23,8 @@ import org.eclipse.collections.api.iterator.LongIterator;
 import org.junit.jupiter.api.Test;
 
 import org.neo4j.graphdb.Direction;
-
 import org.neo4j.memory.EmptyMemoryTracker;
+import org.neo4j.memory.LocalMemoryTracker;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.neo4j.collection.PrimitiveLongCollections.asArray;
@@ -79,4 +79,22 @@ class RelationshipChangesForNodeTest
         LongIterator rawOutgoing = changes.getRelationships( Direction.OUTGOING, TYPE );
         assertThat( asArray( rawOutgoing ) ).containsExactly( 2, 3, 4, 5, 6 );
     }
+
+    @Test
+    void shouldTrackHeapOfRelationshipSets()
+    {
+        LocalMemoryTracker memoryTracker = new LocalMemoryTracker();
+        RelationshipChangesForNode changes = RelationshipChangesForNode.createRelationshipChangesForNode(
+                RelationshipChangesForNode.DiffStrategy.ADD, memoryTracker );
+        changes.addRelationship( 1, 2, INCOMING );
+        long trackedForOneSet = memoryTracker.estimatedHeapMemory();
+
+        for ( int type = 3; type < 10; type++ )
+        {
+            changes.addRelationship( type, type, OUTGOING );
+        }
+
+        assertThat( memoryTracker.estimatedHeapMemory() ).isGreaterThan( trackedForOneSet );
+        assertThat( memoryTracker.usedNativeMemory() ).isZero();
+    }
 }
@@ -23,10 +23,13 @@ import org.junit.jupiter.api.Test;
 
 import org.neo4j.configuration.Config;
 import org.neo4j.configuration.GraphDatabaseSettings;
+import org.neo4j.kernel.impl.api.PipelinedTransactionCommitProcess;
 import org.neo4j.kernel.impl.api.ReadOnlyTransactionCommitProcess;
 import org.neo4j.kernel.impl.api.TransactionCommitProcess;
 import org.neo4j.kernel.impl.api.TransactionRepresentationCommitProcess;
 import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
+import org.neo4j.monitoring.Health;
+import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.StorageEngine;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -37,12 +40,12 @@ class CommunityCommitProcessFactoryTest
     @Test
     void createReadOnlyCommitProcess()
     {
-        CommunityCommitProcessFactory factory = new CommunityCommitProcessFactory();
+        CommunityCommitProcessFactory factory = new CommunityCommitProcessFactory( mock( JobScheduler.class ) );
 
         Config config = Config.defaults( GraphDatabaseSettings.read_only, true );
 
         TransactionCommitProcess commitProcess = factory.create( mock( TransactionAppender.class ),
-                mock( StorageEngine.class ), config );
+                mock( StorageEngine.class ), mock( Health.class ), config );
 
         assertThat( commitProcess ).isInstanceOf( ReadOnlyTransactionCommitProcess.class );
     }
@@ -50,11 +53,22 @@ class CommunityCommitProcessFactoryTest
     @Test
     void createRegularCommitProcess()
     {
-        CommunityCommitProcessFactory factory = new CommunityCommitProcessFactory();
+        CommunityCommitProcessFactory factory = new CommunityCommitProcessFactory( mock( JobScheduler.class ) );
 
         TransactionCommitProcess commitProcess = factory.create( mock( TransactionAppender.class ),
-                mock( StorageEngine.class ), Config.defaults() );
+                mock( StorageEngine.class ), mock( Health.class ), Config.defaults() );
 
         assertThat( commitProcess ).isInstanceOf( TransactionRepresentationCommitProcess.class );
     }
+
+    @Test
+    void createPipelinedCommitProcess()
+    {
+        CommunityCommitProcessFactory factory = new CommunityCommitProcessFactory( mock( JobScheduler.class ) );
+
+        TransactionCommitProcess commitProcess = factory.create( mock( TransactionAppender.class ),
+                mock( StorageEngine.class ), mock( Health.class ), Config.defaults( GraphDatabaseSettings.pipelined_commit, true ) );
+
+        assertThat( commitProcess ).isInstanceOf( PipelinedTransactionCommitProcess.class );
+    }
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.kernel.impl.locking.community.CommunityLockManger;
+import org.neo4j.kernel.impl.locking.striped.StripedLockManager;
+import org.neo4j.lock.ResourceTypes;
+import org.neo4j.time.Clocks;
+
+import static org.neo4j.lock.LockTracer.NONE;
+import static org.neo4j.lock.ResourceTypes.NODE;
+
+/**
+ * Runs lock-heavy transactions against the community and the striped lock manager with an increasing number of threads.
+ * Each transaction takes a new lock client, as a kernel transaction does, share locks a handful of random nodes out of a large set,
+ * exclusively locks one of a few hot "supernodes", and closes the client. Locks are taken in node id order so that transactions never
+ * deadlock. Reports the number of transactions per second for each lock manager and thread count.
+ */
+public class LockManagerContentionBenchmark
+{
+    private static final int NODES = 100_000;
+    private static final int SUPERNODES = 8;
+    private static final int SHARED_LOCKS_PER_TRANSACTION = 4;
+    private static final long WARMUP_MILLIS = 2_000;
+    private static final long MEASURE_MILLIS = 5_000;
+
+    private LockManagerContentionBenchmark()
+    {
+    }
+
+    private static double transactionsPerSecond( Supplier<Locks> lockManager, int threads ) throws InterruptedException
+    {
+        Locks locks = lockManager.get();
+        try
+        {
+            run( locks, threads, WARMUP_MILLIS );
+            return run( locks, threads, MEASURE_MILLIS ) * 1000.0 / MEASURE_MILLIS;
+        }
+        finally
+        {
+            locks.close();
+        }
+    }
+
+    private static long run( Locks locks, int threadCount, long millis ) throws InterruptedException
+    {
+        AtomicBoolean end = new AtomicBoolean();
+        LongAdder transactions = new LongAdder();
+        CountDownLatch start = new CountDownLatch( 1 );
+        List<Thread> threads = new ArrayList<>();
+        for ( int i = 0; i < threadCount; i++ )
+        {
+            SplittableRandom random = new SplittableRandom( i );
+            Thread thread = new Thread( () ->
+            {
+                long[] nodes = new long[SHARED_LOCKS_PER_TRANSACTION];
+                try
+                {
+                    start.await();
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                while ( !end.get() )
+                {
+                    transaction( locks, random, nodes );
+                    transactions.increment();
+                }
+            } );
+            thread.start();
+            threads.add( thread );
+        }
+        start.countDown();
+        TimeUnit.MILLISECONDS.sleep( millis );
+        end.set( true );
+        for ( Thread thread : threads )
+        {
+            thread.join();
+        }
+        return transactions.sum();
+    }
+
+    private static void transaction( Locks locks, SplittableRandom random, long[] nodes )
+    {
+        // Supernodes get the lowest ids, so they are locked first
+        long supernode = random.nextInt( SUPERNODES );
+        for ( int i = 0; i < nodes.length; i++ )
+        {
+            nodes[i] = SUPERNODES + random.nextInt( NODES - SUPERNODES );
+        }
+        try ( Locks.Client client = locks.newClient() )
+        {
+            client.acquireExclusive( NONE, NODE, supernode );
+            for ( long node : sortedDistinct( nodes ) )
+            {
+                client.acquireShared( NONE, NODE, node );
+            }
+        }
+    }
+
+    private static long[] sortedDistinct( long[] nodes )
+    {
+        Arrays.sort( nodes );
+        int distinct = 0;
+        for ( int i = 0; i < nodes.length; i++ )
+        {
+            if ( i == 0 || nodes[i] != nodes[i - 1] )
+            {
+                nodes[distinct++] = nodes[i];
+            }
+        }
+        return distinct == nodes.length ? nodes : Arrays.copyOf( nodes, distinct );
+    }
+
+    public static void main( String[] args ) throws Exception
+    {
+        int[] threadCounts = {1, 8, 32, 200};
+        Config config = Config.defaults();
+        for ( int threads : threadCounts )
+        {
+            double community = transactionsPerSecond( () -> new CommunityLockManger( config, Clocks.systemClock() ), threads );
+            double striped = transactionsPerSecond( () -> new StripedLockManager( config, Clocks.systemClock(), ResourceTypes.values() ), threads );
+            System.out.printf( "%3d threads: community %,10.0f tx/s, striped %,10.0f tx/s (%.2fx)%n", threads, community, striped, striped / community );
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking.striped;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.lock.ResourceType;
+import org.neo4j.lock.ResourceTypes;
+import org.neo4j.test.Race;
+import org.neo4j.time.Clocks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.neo4j.lock.LockTracer.NONE;
+import static org.neo4j.lock.ResourceTypes.NODE;
+import static org.neo4j.lock.ResourceTypes.RELATIONSHIP;
+
+class StripedLockManagerTest
+{
+    private final StripedLockManager locks = new StripedLockManager( Config.defaults(), Clocks.systemClock(), ResourceTypes.values() );
+
+    @AfterEach
+    void tearDown()
+    {
+        locks.close();
+    }
+
+    @Test
+    void shouldRetireLocksFromTheLockTableWhenReleased()
+    {
+        try ( Locks.Client client = locks.newClient() )
+        {
+            client.acquireShared( NONE, NODE, 1, 2, 3 );
+            client.acquireExclusive( NONE, RELATIONSHIP, 1 );
+            client.acquireExclusive( NONE, NODE, 1 );
+            assertEquals( 3, lockTableSize( NODE ) );
+            assertEquals( 1, lockTableSize( RELATIONSHIP ) );
+
+            client.releaseShared( NODE, 1, 2 );
+            client.releaseExclusive( NODE, 1 );
+            assertEquals( 1, lockTableSize( NODE ) );
+        }
+        assertEquals( 0, lockTableSize( NODE ) );
+        assertEquals( 0, lockTableSize( RELATIONSHIP ) );
+    }
+
+    @Test
+    void shouldNotReleaseReEnteredLockUntilLastRelease()
+    {
+        try ( Locks.Client client = locks.newClient();
+              Locks.Client other = locks.newClient() )
+        {
+            client.acquireExclusive( NONE, NODE, 1 );
+            assertTrue( client.reEnterExclusive( NODE, 1 ) );
+
+            client.releaseExclusive( NODE, 1 );
+            assertFalse( other.trySharedLock( NODE, 1 ) );
+            client.releaseExclusive( NODE, 1 );
+            assertTrue( other.trySharedLock( NODE, 1 ) );
+        }
+    }
+
+    @Test
+    void shouldFailReleasingLockThatIsNotHeld()
+    {
+        try ( Locks.Client client = locks.newClient() )
+        {
+            assertThrows( IllegalStateException.class, () -> client.releaseExclusive( NODE, 1 ) );
+        }
+    }
+
+    @Test
+    void shouldFailOnUnknownResourceType()
+    {
+        StripedLockManager nodeLocks = new StripedLockManager( Config.defaults(), Clocks.systemClock(), NODE );
+        try ( Locks.Client client = nodeLocks.newClient() )
+        {
+            assertThrows( IllegalArgumentException.class, () -> client.acquireShared( NONE, RELATIONSHIP, 1 ) );
+        }
+    }
+
+    @Test
+    void shouldKeepExclusiveLocksExclusiveUnderContention() throws Throwable
+    {
+        int resources = 4;
+        AtomicInteger[] holders = new AtomicInteger[resources];
+        for ( int i = 0; i < resources; i++ )
+        {
+            holders[i] = new AtomicInteger();
+        }
+        AtomicInteger violations = new AtomicInteger();
+
+        Race race = new Race();
+        race.addContestants( 8, () ->
+        {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int resource = random.nextInt( resources );
+            boolean exclusive = random.nextInt( 4 ) == 0;
+            try ( Locks.Client client = locks.newClient() )
+            {
+                if ( exclusive )
+                {
+                    client.acquireExclusive( NONE, NODE, resource );
+                    if ( holders[resource].getAndSet( -1 ) != 0 )
+                    {
+                        violations.incrementAndGet();
+                    }
+                    Thread.yield();
+                    holders[resource].set( 0 );
+                }
+                else
+                {
+                    client.acquireShared( NONE, NODE, resource );
+                    if ( holders[resource].getAndIncrement() < 0 )
+                    {
+                        violations.incrementAndGet();
+                    }
+                    Thread.yield();
+                    holders[resource].decrementAndGet();
+                }
+            }
+        }, 2_000 );
+        race.go();
+
+        assertEquals( 0, violations.get() );
+        assertEquals( 0, lockTableSize( NODE ) );
+    }
+
+    private int lockTableSize( ResourceType resourceType )
+    {
+        AtomicInteger size = new AtomicInteger();
+        locks.table( resourceType ).forEach( lock -> size.incrementAndGet() );
+        return size.get();
+    }
+}
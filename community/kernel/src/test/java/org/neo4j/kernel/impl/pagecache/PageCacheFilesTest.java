@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.List;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.StubPagedFile;
+import org.neo4j.io.pagecache.monitoring.DefaultPagedFileCounters;
+import org.neo4j.logging.NullLog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PageCacheFilesTest
+{
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    @Test
+    void mustExposeCountersOfMappedFilesOverJmx() throws Exception
+    {
+        StubPagedFile pagedFile = new StubPagedFile( 8192 );
+        DefaultPagedFileCounters counters = (DefaultPagedFileCounters) pagedFile.counters();
+        counters.hits( 2 );
+        counters.faulted( 8192 );
+        PageCache pageCache = mock( PageCache.class );
+        when( pageCache.listExistingMappings() ).thenReturn( List.of( pagedFile ) );
+
+        Path home = Path.of( "neo4j-home" ).toAbsolutePath();
+        ObjectName name = PageCacheFiles.objectName( home );
+        PageCacheFiles pageCacheFiles = new PageCacheFiles( pageCache, mBeanServer, home, NullLog.getInstance() );
+        pageCacheFiles.start();
+        try
+        {
+            assertThat( mBeanServer.queryNames( new ObjectName( "org.neo4j:type=PageCacheFiles,*" ), null ) ).contains( name );
+
+            TabularData files = (TabularData) mBeanServer.getAttribute( name, "Files" );
+            assertThat( files.size() ).isEqualTo( 1 );
+            CompositeData file = files.get( new Object[]{pagedFile.file().getAbsolutePath()} );
+            CompositeData fileCounters = (CompositeData) file.get( "value" );
+            assertThat( ((CompositeData) fileCounters.get( "hits" )).get( "count" ) ).isEqualTo( 2L );
+            assertThat( ((CompositeData) fileCounters.get( "faults" )).get( "count" ) ).isEqualTo( 1L );
+            assertThat( ((CompositeData) fileCounters.get( "bytesRead" )).get( "count" ) ).isEqualTo( 8192L );
+            assertThat( ((CompositeData) fileCounters.get( "evictions" )).get( "count" ) ).isEqualTo( 0L );
+        }
+        finally
+        {
+            pageCacheFiles.stop();
+        }
+        assertThat( mBeanServer.isRegistered( name ) ).isFalse();
+    }
+}
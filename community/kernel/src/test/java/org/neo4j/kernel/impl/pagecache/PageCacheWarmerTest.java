@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.configuration.Config;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.kernel.impl.scheduler.JobSchedulerFactory;
+import org.neo4j.logging.NullLog;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.pagecache.EphemeralPageCacheExtension;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.time.Clocks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_warmup_enabled;
+import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_warmup_prefetch;
+import static org.neo4j.configuration.GraphDatabaseSettings.pagecache_warmup_prefetch_whitelist;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
+import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+
+@EphemeralPageCacheExtension
+class PageCacheWarmerTest
+{
+    private static final int PAGES = 100;
+
+    @Inject
+    private FileSystemAbstraction fs;
+    @Inject
+    private PageCache pageCache;
+    @Inject
+    private TestDirectory testDirectory;
+
+    private JobScheduler scheduler;
+    private File file;
+
+    @BeforeEach
+    void setUp() throws IOException
+    {
+        scheduler = JobSchedulerFactory.createInitialisedScheduler();
+        file = testDirectory.createFile( "store" );
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK, NULL ) )
+        {
+            for ( int i = 0; i < PAGES; i++ )
+            {
+                assertThat( cursor.next() ).isTrue();
+                cursor.putLong( i );
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception
+    {
+        scheduler.close();
+    }
+
+    @Test
+    void mustNotProfileUnlessEnabled() throws Exception
+    {
+        PageCacheWarmer warmer = warmer( Config.defaults() );
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            touch( pagedFile, 1 );
+            warmer.start();
+            warmer.stop();
+        }
+        assertThat( fs.fileExists( new File( testDirectory.homeDir(), PageCacheWarmer.PROFILES_DIRECTORY ) ) ).isFalse();
+
+        warmer = warmer( Config.defaults( pagecache_warmup_enabled, true ) );
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            touch( pagedFile, 1 );
+            warmer.start();
+            warmer.stop();
+        }
+        assertThat( fs.listFiles( new File( testDirectory.homeDir(), PageCacheWarmer.PROFILES_DIRECTORY ) ) ).hasSize( 1 );
+    }
+
+    @Test
+    void mustReloadProfiledPages() throws Exception
+    {
+        PageCacheWarmer warmer = warmer( Config.defaults() );
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            touch( pagedFile, 3, 10, 50 );
+            assertThat( warmer.profile() ).isEqualTo( 3 );
+        }
+        assertThat( fs.listFiles( new File( testDirectory.homeDir(), PageCacheWarmer.PROFILES_DIRECTORY ) ) ).hasSize( 1 );
+
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            assertThat( residentPages( pagedFile ) ).isZero();
+            assertThat( warmer.reheat() ).isEqualTo( 3 );
+            assertThat( residentPages( pagedFile ) ).isEqualTo( 3 );
+            assertThat( warmer.profile() ).isEqualTo( 3 );
+        }
+    }
+
+    @Test
+    void mustRemoveProfilesOfFilesThatAreNoLongerMapped() throws Exception
+    {
+        PageCacheWarmer warmer = warmer( Config.defaults() );
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            touch( pagedFile, 1 );
+            warmer.profile();
+        }
+        File profiles = new File( testDirectory.homeDir(), PageCacheWarmer.PROFILES_DIRECTORY );
+        assertThat( fs.listFiles( profiles ) ).hasSize( 1 );
+
+        assertThat( warmer.profile() ).isZero();
+        assertThat( fs.listFiles( profiles ) ).isEmpty();
+    }
+
+    @Test
+    void mustPrefetchWholeWhitelistedFiles() throws Exception
+    {
+        File other = testDirectory.createFile( "other" );
+        Config config = Config.newBuilder()
+                .set( pagecache_warmup_prefetch, true )
+                .set( pagecache_warmup_prefetch_whitelist, "store" )
+                .build();
+        PageCacheWarmer warmer = warmer( config );
+        try ( PagedFile pagedFile = pageCache.map( file, pageCache.pageSize() );
+              PagedFile otherFile = pageCache.map( other, pageCache.pageSize() ) )
+        {
+            assertThat( warmer.reheat() ).isEqualTo( PAGES );
+            assertThat( residentPages( pagedFile ) ).isEqualTo( PAGES );
+        }
+    }
+
+    private PageCacheWarmer warmer( Config config )
+    {
+        return new PageCacheWarmer( fs, pageCache, scheduler, testDirectory.homeDir(), config, Clocks.nanoClock(), PageCacheTracer.NULL,
+                NullLog.getInstance() );
+    }
+
+    private static void touch( PagedFile pagedFile, long... pageIds ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK, NULL ) )
+        {
+            for ( long pageId : pageIds )
+            {
+                assertThat( cursor.next( pageId ) ).isTrue();
+            }
+        }
+    }
+
+    private static long residentPages( PagedFile pagedFile ) throws IOException
+    {
+        long resident = 0;
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT | PF_TRANSIENT, NULL ) )
+        {
+            while ( cursor.next() )
+            {
+                if ( cursor.getCurrentPageId() != PageCursor.UNBOUND_PAGE_ID )
+                {
+                    resident++;
+                }
+            }
+        }
+        return resident;
+    }
+}
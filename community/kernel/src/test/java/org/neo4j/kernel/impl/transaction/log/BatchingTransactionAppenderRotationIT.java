@@ -157,7 +157,7 @@ class BatchingTransactionAppenderRotationIT
         @Override
         public LogForceEvent beginLogForce()
         {
-            return null;
+            return LogForceEvent.NULL;
         }
 
         @Override
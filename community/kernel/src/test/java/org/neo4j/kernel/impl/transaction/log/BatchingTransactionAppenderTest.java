@@ -26,6 +26,7 @@ import org.mockito.Mockito;
 
 import java.io.Flushable;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Collections;
 
@@ -33,6 +34,7 @@ import org.neo4j.io.memory.ByteBuffers;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.kernel.impl.api.TestCommand;
 import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.api.tracer.DefaultTracer;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
@@ -125,6 +127,28 @@ class BatchingTransactionAppenderTest
         }
     }
 
+    @Test
+    void shouldCountLogForcesByBatchSize() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( channel );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 2L, 3L, 4L );
+        DefaultTracer tracer = new DefaultTracer();
+        LogAppendEvent countingAppendEvent = tracer.beginTransaction( NULL ).beginCommitEvent().beginLogAppend();
+        TransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, NO_ROTATION, positionCache, transactionIdStore,
+                databaseHealth, BASE_TX_CHECKSUM, Duration.ofMillis( 1 ), false ) );
+
+        // WHEN
+        for ( int i = 0; i < 3; i++ )
+        {
+            appender.append( new TransactionToApply( transaction( singleTestCommand(), new byte[0], 0, 1, 0 ), NULL ), countingAppendEvent );
+        }
+
+        // THEN
+        assertEquals( 3, tracer.numberOfLogForces() );
+        assertArrayEquals( new long[]{3}, tracer.logForceBatchSizeDistribution() );
+    }
+
     @Test
     void shouldAppendBatchOfTransactions() throws Exception
     {
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.layout.DatabaseLayout;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.impl.api.TestCommand;
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.SimpleLogVersionRepository;
+import org.neo4j.kernel.impl.transaction.SimpleTransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompressedCommands;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
+import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
+import org.neo4j.kernel.impl.transaction.log.files.LogFilesBuilder;
+import org.neo4j.kernel.impl.transaction.log.rotation.LogRotation;
+import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
+import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.logging.NullLog;
+import org.neo4j.monitoring.DatabaseHealth;
+import org.neo4j.monitoring.DatabasePanicEventGenerator;
+import org.neo4j.monitoring.Monitors;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.storageengine.api.StoreId;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.LifeExtension;
+import org.neo4j.test.extension.Neo4jLayoutExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.neo4j.kernel.impl.transaction.log.TestLogEntryReader.logEntryReader;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompressedCommands.NO_DICTIONARY;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.CURRENT_FORMAT_LOG_HEADER_SIZE;
+
+@Neo4jLayoutExtension
+@ExtendWith( LifeExtension.class )
+class CompressedTransactionLogIT
+{
+    private static final int TRANSACTIONS_BEFORE_ROTATION = 300;
+    private static final int TRANSACTIONS_AFTER_ROTATION = 200;
+
+    @Inject
+    private FileSystemAbstraction fileSystem;
+    @Inject
+    private LifeSupport life;
+    @Inject
+    private DatabaseLayout databaseLayout;
+
+    private final List<List<StorageCommand>> written = new ArrayList<>();
+    private final TransactionMetadataCache metadataCache = new TransactionMetadataCache();
+    private LogFiles logFiles;
+
+    @BeforeEach
+    void writeTransactions() throws Exception
+    {
+        SimpleTransactionIdStore transactionIdStore = new SimpleTransactionIdStore();
+        logFiles = LogFilesBuilder.builder( databaseLayout, fileSystem )
+                .withLogVersionRepository( new SimpleLogVersionRepository() )
+                .withTransactionIdStore( transactionIdStore )
+                .withLogEntryReader( logEntryReader() )
+                .withStoreId( StoreId.UNKNOWN )
+                .build();
+        life.add( logFiles );
+        DatabaseHealth health = new DatabaseHealth( mock( DatabasePanicEventGenerator.class ), NullLog.getInstance() );
+        TransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, LogRotation.NO_ROTATION, metadataCache,
+                transactionIdStore, health, Duration.ZERO, true ) );
+
+        // Enough transactions to train a dictionary, which is then written at the start of the next log file
+        SplittableRandom random = new SplittableRandom( 42 );
+        for ( int i = 0; i < TRANSACTIONS_BEFORE_ROTATION; i++ )
+        {
+            append( appender, random );
+        }
+        logFiles.getLogFile().rotate();
+        for ( int i = 0; i < TRANSACTIONS_AFTER_ROTATION; i++ )
+        {
+            append( appender, random );
+        }
+    }
+
+    @Test
+    void shouldCompressWithDictionaryOnlyAfterItHasBeenWrittenFirstInLogFile() throws IOException
+    {
+        List<Integer> withoutDictionary = dictionaryIdsIn( 0 );
+        assertEquals( TRANSACTIONS_BEFORE_ROTATION, withoutDictionary.size() );
+        assertEquals( Set.of( NO_DICTIONARY ), Set.copyOf( withoutDictionary ) );
+
+        List<Integer> withDictionary = dictionaryIdsIn( 1 );
+        assertEquals( TRANSACTIONS_AFTER_ROTATION, withDictionary.size() );
+        assertEquals( 1, Set.copyOf( withDictionary ).size() );
+        assertNotEquals( NO_DICTIONARY, withDictionary.get( 0 ) );
+    }
+
+    @Test
+    void shouldReadAllTransactionsFromTheStart() throws IOException
+    {
+        assertEquals( written, readTransactions( newTransactionStore().getTransactions( new LogPosition( 0, CURRENT_FORMAT_LOG_HEADER_SIZE ) ) ) );
+    }
+
+    @Test
+    void shouldReadTransactionsStartingInTheMiddleOfLogFileWithDictionary() throws IOException
+    {
+        int firstTransaction = TRANSACTIONS_BEFORE_ROTATION + TRANSACTIONS_AFTER_ROTATION / 2;
+        LogPosition position = metadataCache.getTransactionMetadata( firstTransaction + 2 ).getStartPosition();
+        assertEquals( 1, position.getLogVersion() );
+
+        assertEquals( written.subList( firstTransaction, written.size() ), readTransactions( newTransactionStore().getTransactions( position ) ) );
+    }
+
+    @Test
+    void shouldReadTransactionsInReverseOrder() throws IOException
+    {
+        List<List<StorageCommand>> reversed = new ArrayList<>( written );
+        Collections.reverse( reversed );
+
+        assertEquals( reversed, readTransactions(
+                newTransactionStore().getTransactionsInReverseOrder( new LogPosition( 0, CURRENT_FORMAT_LOG_HEADER_SIZE ) ) ) );
+    }
+
+    @Test
+    void shouldReadLogFileWithDictionaryAfterEarlierLogFilesHaveBeenPruned() throws IOException
+    {
+        fileSystem.deleteFileOrThrow( logFiles.getLogFileForVersion( 0 ) );
+        LogPosition position = metadataCache.getTransactionMetadata( TRANSACTIONS_BEFORE_ROTATION + 10 ).getStartPosition();
+
+        assertEquals( written.subList( TRANSACTIONS_BEFORE_ROTATION + 8, written.size() ),
+                readTransactions( newTransactionStore().getTransactions( position ) ) );
+    }
+
+    private void append( TransactionAppender appender, SplittableRandom random ) throws IOException
+    {
+        List<StorageCommand> commands = new ArrayList<>();
+        int count = 20 + random.nextInt( 100 );
+        for ( int i = 0; i < count; i++ )
+        {
+            commands.add( recordLikeCommand( random ) );
+        }
+        PhysicalTransactionRepresentation tx = new PhysicalTransactionRepresentation( commands );
+        tx.setHeader( new byte[0], 1, 1, 2, -1 );
+        appender.append( new TransactionToApply( tx, PageCursorTracer.NULL ), LogAppendEvent.NULL );
+        written.add( commands );
+    }
+
+    private static TestCommand recordLikeCommand( SplittableRandom random )
+    {
+        // A few ids and a value in an otherwise fixed layout, a bit like the before and after states of a record
+        byte[] bytes = new byte[48];
+        bytes[0] = (byte) (1 + random.nextInt( 4 ));
+        long id = random.nextLong( 1_000_000 );
+        for ( int i = 0; i < 4; i++ )
+        {
+            bytes[2 + i] = (byte) (id >>> (8 * i));
+            bytes[26 + i] = (byte) (id >>> (8 * i));
+        }
+        bytes[12] = (byte) random.nextInt( 16 );
+        bytes[36] = (byte) random.nextInt( 16 );
+        bytes[40] = (byte) random.nextInt();
+        return new TestCommand( bytes );
+    }
+
+    private List<Integer> dictionaryIdsIn( long logVersion ) throws IOException
+    {
+        List<Integer> dictionaryIds = new ArrayList<>();
+        LogEntryReader reader = logEntryReader();
+        try ( ReadableLogChannel channel = logFiles.getLogFile().getReader( new LogPosition( logVersion, CURRENT_FORMAT_LOG_HEADER_SIZE ),
+                LogVersionBridge.NO_MORE_CHANNELS ) )
+        {
+            LogEntry entry;
+            while ( (entry = reader.readLogEntry( channel )) != null )
+            {
+                if ( entry instanceof LogEntryCompressedCommands )
+                {
+                    dictionaryIds.add( ((LogEntryCompressedCommands) entry).getDictionaryId() );
+                }
+            }
+        }
+        return dictionaryIds;
+    }
+
+    private PhysicalLogicalTransactionStore newTransactionStore()
+    {
+        // A new reader every time, to not benefit from dictionaries seen by earlier reads
+        return new PhysicalLogicalTransactionStore( logFiles, new TransactionMetadataCache(), logEntryReader(), new Monitors(), true );
+    }
+
+    private static List<List<StorageCommand>> readTransactions( TransactionCursor cursor ) throws IOException
+    {
+        List<List<StorageCommand>> transactions = new ArrayList<>();
+        try ( cursor )
+        {
+            while ( cursor.next() )
+            {
+                CommittedTransactionRepresentation tx = cursor.get();
+                List<StorageCommand> commands = new ArrayList<>();
+                tx.getTransactionRepresentation().forEach( commands::add );
+                transactions.add( commands );
+            }
+        }
+        assertTrue( transactions.size() > 0 );
+        return transactions;
+    }
+}
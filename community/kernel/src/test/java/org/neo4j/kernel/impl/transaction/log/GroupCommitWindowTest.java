@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.jupiter.api.Test;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GroupCommitWindowTest
+{
+    @Test
+    void mustNotHoldForcesWhenDisabled()
+    {
+        GroupCommitWindow window = GroupCommitWindow.DISABLED;
+        arriveEvery( window, MICROSECONDS.toNanos( 10 ), 100 );
+        window.forced( MILLISECONDS.toNanos( 1 ) );
+
+        assertThat( window.isEnabled() ).isFalse();
+        assertThat( window.windowNanos() ).isZero();
+    }
+
+    @Test
+    void mustNotHoldForcesBeforeAnythingIsObserved()
+    {
+        GroupCommitWindow window = new GroupCommitWindow( MILLISECONDS.toNanos( 1 ) );
+        assertThat( window.windowNanos() ).isZero();
+
+        window.forced( MILLISECONDS.toNanos( 1 ) );
+        assertThat( window.windowNanos() ).isZero();
+    }
+
+    @Test
+    void mustNotHoldForcesWhenCommittersArriveSlowerThanForcesComplete()
+    {
+        GroupCommitWindow window = new GroupCommitWindow( MILLISECONDS.toNanos( 1 ) );
+        arriveEvery( window, MILLISECONDS.toNanos( 2 ), 100 );
+        window.forced( MILLISECONDS.toNanos( 1 ) );
+
+        assertThat( window.windowNanos() ).isZero();
+    }
+
+    @Test
+    void mustHoldForcesForHalfTheForceLatencyWhenCommittersArriveFaster()
+    {
+        GroupCommitWindow window = new GroupCommitWindow( MILLISECONDS.toNanos( 1 ) );
+        arriveEvery( window, MICROSECONDS.toNanos( 50 ), 100 );
+        window.forced( MICROSECONDS.toNanos( 400 ) );
+
+        assertThat( window.arrivalIntervalNanos() ).isEqualTo( MICROSECONDS.toNanos( 50 ) );
+        assertThat( window.windowNanos() ).isEqualTo( MICROSECONDS.toNanos( 200 ) );
+    }
+
+    @Test
+    void mustNeverHoldForcesLongerThanTheMaximumWindow()
+    {
+        GroupCommitWindow window = new GroupCommitWindow( MICROSECONDS.toNanos( 100 ) );
+        arriveEvery( window, MICROSECONDS.toNanos( 50 ), 100 );
+        window.forced( MILLISECONDS.toNanos( 10 ) );
+
+        assertThat( window.windowNanos() ).isEqualTo( MICROSECONDS.toNanos( 100 ) );
+    }
+
+    @Test
+    void mustAdaptToChangingForceLatency()
+    {
+        GroupCommitWindow window = new GroupCommitWindow( MILLISECONDS.toNanos( 1 ) );
+        arriveEvery( window, MICROSECONDS.toNanos( 50 ), 100 );
+        window.forced( MICROSECONDS.toNanos( 400 ) );
+        for ( int i = 0; i < 100; i++ )
+        {
+            window.forced( MICROSECONDS.toNanos( 40 ) );
+        }
+
+        assertThat( window.windowNanos() ).isZero();
+    }
+
+    private static void arriveEvery( GroupCommitWindow window, long intervalNanos, int arrivals )
+    {
+        long now = 0;
+        for ( int i = 0; i < arrivals; i++ )
+        {
+            window.arrived( now );
+            now += intervalNanos;
+        }
+    }
+}
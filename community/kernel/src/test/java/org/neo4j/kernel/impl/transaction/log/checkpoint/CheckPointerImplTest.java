@@ -21,6 +21,7 @@ package org.neo4j.kernel.impl.transaction.log.checkpoint;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
 import java.io.Flushable;
 import java.io.IOException;
 import java.time.Duration;
@@ -36,6 +37,7 @@ import java.util.function.BooleanSupplier;
 
 import org.neo4j.function.ThrowingConsumer;
 import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.kernel.database.DatabaseTracers;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
@@ -44,6 +46,8 @@ import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointerImpl.ForceOp
 import org.neo4j.kernel.impl.transaction.log.pruning.LogPruning;
 import org.neo4j.kernel.impl.transaction.tracing.DatabaseTracer;
 import org.neo4j.kernel.impl.transaction.tracing.LogCheckPointEvent;
+import org.neo4j.logging.AssertableLogProvider;
+import org.neo4j.logging.LogProvider;
 import org.neo4j.logging.NullLogProvider;
 import org.neo4j.monitoring.DatabaseHealth;
 import org.neo4j.monitoring.Health;
@@ -51,12 +55,12 @@ import org.neo4j.storageengine.api.TransactionIdStore;
 import org.neo4j.util.concurrent.BinaryLatch;
 
 import static java.time.Duration.ofMinutes;
-import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.RETURNS_MOCKS;
 import static org.mockito.Mockito.doAnswer;
@@ -69,7 +73,9 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 import static org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer.NULL;
+import static org.neo4j.logging.LogAssertions.assertThat;
 import static org.neo4j.test.ThreadTestUtils.forkFuture;
 
 class CheckPointerImplTest
@@ -85,6 +91,7 @@ class CheckPointerImplTest
     private final Health health = mock( DatabaseHealth.class );
     private final DatabaseTracer tracer = mock( DatabaseTracer.class, RETURNS_MOCKS );
     private IOLimiter limiter = mock( IOLimiter.class );
+    private LogProvider logProvider = NullLogProvider.getInstance();
 
     private final long initialTransactionId = 2L;
     private final long transactionId = 42L;
@@ -124,7 +131,7 @@ class CheckPointerImplTest
 
         // Then
         assertEquals( transactionId, txId );
-        verify( forceOperation ).flushAndForce( limiter, NULL );
+        verify( forceOperation ).flushAndForce( limitedBy( limiter ), eq( NULL ) );
         verify( health, times( 2 ) ).assertHealthy( IOException.class );
         verify( appender ).checkPoint( eq( logPosition ), any( LogCheckPointEvent.class ) );
         verify( threshold ).initialize( initialTransactionId );
@@ -150,7 +157,7 @@ class CheckPointerImplTest
 
         // Then
         assertEquals( transactionId, txId );
-        verify( forceOperation ).flushAndForce( limiter, NULL );
+        verify( forceOperation ).flushAndForce( limitedBy( limiter ), eq( NULL ) );
         verify( health, times( 2 ) ).assertHealthy( IOException.class );
         verify( appender ).checkPoint( eq( logPosition ), any( LogCheckPointEvent.class ) );
         verify( threshold ).initialize( initialTransactionId );
@@ -175,7 +182,7 @@ class CheckPointerImplTest
 
         // Then
         assertEquals( transactionId, txId );
-        verify( forceOperation ).flushAndForce( limiter, NULL );
+        verify( forceOperation ).flushAndForce( limitedBy( limiter ), eq( NULL ) );
         verify( health, times( 2 ) ).assertHealthy( IOException.class );
         verify( appender ).checkPoint( eq( logPosition ), any( LogCheckPointEvent.class ) );
         verify( threshold ).initialize( initialTransactionId );
@@ -200,7 +207,7 @@ class CheckPointerImplTest
 
         // Then
         assertEquals( transactionId, txId );
-        verify( forceOperation ).flushAndForce( limiter, NULL );
+        verify( forceOperation ).flushAndForce( limitedBy( limiter ), eq( NULL ) );
         verify( health, times( 2 ) ).assertHealthy( IOException.class );
         verify( appender ).checkPoint( eq( logPosition ), any( LogCheckPointEvent.class ) );
         verify( threshold ).initialize( initialTransactionId );
@@ -340,7 +347,7 @@ class CheckPointerImplTest
         checkPointing.start();
         checkPointing.checkPointIfNeeded( INFO );
 
-        verify( forceOperation ).flushAndForce( limiter, NULL );
+        verify( forceOperation ).flushAndForce( limitedBy( limiter ), eq( NULL ) );
     }
 
     @Test
@@ -404,6 +411,37 @@ class CheckPointerImplTest
         assertTrue( doneDisablingLimits.get() );
     }
 
+    @Test
+    void mustLogBytesFlushedPerFile() throws Exception
+    {
+        AssertableLogProvider assertableLogProvider = new AssertableLogProvider();
+        logProvider = assertableLogProvider;
+        PagedFile nodeStore = mock( PagedFile.class, withSettings().extraInterfaces( Flushable.class ) );
+        when( nodeStore.file() ).thenReturn( new File( "neostore.nodestore.db" ) );
+        when( nodeStore.pageSize() ).thenReturn( 8192 );
+        PagedFile relationshipStore = mock( PagedFile.class, withSettings().extraInterfaces( Flushable.class ) );
+        when( relationshipStore.file() ).thenReturn( new File( "neostore.relationshipstore.db" ) );
+        when( relationshipStore.pageSize() ).thenReturn( 8192 );
+        doAnswer( invocation ->
+        {
+            IOLimiter flushLimiter = invocation.getArgument( 0 );
+            flushLimiter.beginFileFlush( (Flushable) nodeStore );
+            flushLimiter.beginFileFlush( (Flushable) relationshipStore );
+            flushLimiter.maybeLimitIO( IOLimiter.INITIAL_STAMP, 2, (Flushable) nodeStore );
+            flushLimiter.maybeLimitIO( IOLimiter.INITIAL_STAMP, 8, (Flushable) relationshipStore );
+            flushLimiter.maybeLimitIO( IOLimiter.INITIAL_STAMP, 2, (Flushable) nodeStore );
+            flushLimiter.endFileFlush( (Flushable) relationshipStore );
+            flushLimiter.endFileFlush( (Flushable) nodeStore );
+            return null;
+        } ).when( forceOperation ).flushAndForce( limitedBy( limiter ), eq( NULL ) );
+        mockTxIdStore();
+
+        checkPointer().forceCheckPoint( INFO );
+
+        assertThat( assertableLogProvider ).containsMessages(
+                "checkpoint flushed neostore.relationshipstore.db (64.00KiB in ", ", neostore.nodestore.db (32.00KiB in " );
+    }
+
     @Test
     void tryCheckPointMustWaitForOnGoingCheckPointsToCompleteAsLongAsTimeoutPredicateIsFalse() throws Exception
     {
@@ -417,7 +455,7 @@ class CheckPointerImplTest
             arriveFlushAndForce.release();
             finishFlushAndForce.await();
             return null;
-        } ).when( forceOperation ).flushAndForce( limiter, NULL );
+        } ).when( forceOperation ).flushAndForce( limitedBy( limiter ), eq( NULL ) );
 
         Thread forceCheckPointThread = new Thread( () ->
         {
@@ -445,6 +483,12 @@ class CheckPointerImplTest
         assertThat( checkPointer.tryCheckPoint( INFO, predicate ) ).isEqualTo( this.transactionId );
     }
 
+    private static IOLimiter limitedBy( IOLimiter limiter )
+    {
+        return argThat( flushLimiter -> flushLimiter instanceof FileFlushRecordingIOLimiter &&
+                ((FileFlushRecordingIOLimiter) flushLimiter).delegate() == limiter );
+    }
+
     private void verifyAsyncActionCausesConcurrentFlushingRush(
             ThrowingConsumer<CheckPointerImpl,IOException> asyncAction ) throws Exception
     {
@@ -491,7 +535,7 @@ class CheckPointerImplTest
             long newValue = limitDisableCounter.get();
             observedRushCount.set( newValue );
             return null;
-        } ).when( forceOperation ).flushAndForce( limiter, NULL );
+        } ).when( forceOperation ).flushAndForce( limitedBy( limiter ), eq( NULL ) );
 
         Future<Object> forceCheckPointer = forkFuture( () ->
         {
@@ -527,7 +571,7 @@ class CheckPointerImplTest
         when( databaseTracers.getDatabaseTracer() ).thenReturn( tracer );
         when( databaseTracers.getPageCacheTracer() ).thenReturn( PageCacheTracer.NULL );
         return new CheckPointerImpl( txIdStore, threshold, forceOperation, logPruning, appender, health,
-                NullLogProvider.getInstance(), databaseTracers, limiter, mutex );
+                logProvider, databaseTracers, limiter, mutex );
     }
 
     private CheckPointerImpl checkPointer()
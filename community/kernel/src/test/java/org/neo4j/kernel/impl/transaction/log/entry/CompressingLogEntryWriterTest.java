@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.kernel.impl.api.TestCommand;
+import org.neo4j.kernel.impl.api.TestCommandReaderFactory;
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.InMemoryClosableChannel;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.TransactionLogWriter;
+import org.neo4j.storageengine.api.StorageCommand;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompressedCommands.NO_DICTIONARY;
+import static org.neo4j.storageengine.api.TransactionIdStore.BASE_TX_CHECKSUM;
+
+class CompressingLogEntryWriterTest
+{
+    private final InMemoryClosableChannel channel = new InMemoryClosableChannel( (int) ByteUnit.mebiBytes( 1 ) );
+    private final TransactionLogWriter writer = new TransactionLogWriter( new CompressingLogEntryWriter( channel, false ) );
+    private final LogEntryReader reader = new VersionAwareLogEntryReader( new TestCommandReaderFactory() );
+
+    @Test
+    void shouldWriteCommandsOfTransactionAsOneCompressedEntry() throws IOException
+    {
+        // given
+        List<StorageCommand> commands = recordLikeCommands( 100 );
+
+        // when
+        int checksum = writer.append( transaction( commands ), 2, BASE_TX_CHECKSUM );
+
+        // then
+        assertThat( reader.readLogEntry( channel ) ).isInstanceOf( LogEntryStart.class );
+        LogEntryCompressedCommands compressed = (LogEntryCompressedCommands) reader.readLogEntry( channel );
+        assertEquals( NO_DICTIONARY, compressed.getDictionaryId() );
+        assertThat( compressed.getCompressedLength() ).isLessThan( compressed.getUncompressedLength() / 2 );
+        assertEquals( commands, compressed.getCommands() );
+        LogEntryCommit commit = (LogEntryCommit) reader.readLogEntry( channel );
+        assertEquals( 2, commit.getTxId() );
+        assertEquals( checksum, commit.getChecksum() );
+        assertNull( reader.readLogEntry( channel ) );
+    }
+
+    @Test
+    void shouldWriteSmallTransactionsUncompressed() throws IOException
+    {
+        // given
+        TestCommand command = new TestCommand( 10 );
+
+        // when
+        writer.append( transaction( List.of( command ) ), 2, BASE_TX_CHECKSUM );
+
+        // then
+        assertThat( reader.readLogEntry( channel ) ).isInstanceOf( LogEntryStart.class );
+        assertEquals( new LogEntryCommand( command ), reader.readLogEntry( channel ) );
+        assertThat( reader.readLogEntry( channel ) ).isInstanceOf( LogEntryCommit.class );
+    }
+
+    @Test
+    void shouldWriteIncompressibleTransactionsUncompressed() throws IOException
+    {
+        // given
+        SplittableRandom random = new SplittableRandom( 1 );
+        byte[] noise = new byte[1_000];
+        for ( int i = 0; i < noise.length; i++ )
+        {
+            noise[i] = (byte) random.nextInt();
+        }
+        TestCommand command = new TestCommand( noise );
+
+        // when
+        writer.append( transaction( List.of( command ) ), 2, BASE_TX_CHECKSUM );
+
+        // then
+        assertThat( reader.readLogEntry( channel ) ).isInstanceOf( LogEntryStart.class );
+        assertEquals( new LogEntryCommand( command ), reader.readLogEntry( channel ) );
+        assertThat( reader.readLogEntry( channel ) ).isInstanceOf( LogEntryCommit.class );
+    }
+
+    static List<StorageCommand> recordLikeCommands( int count )
+    {
+        List<StorageCommand> commands = new ArrayList<>( count );
+        for ( int i = 0; i < count; i++ )
+        {
+            // Mostly the same bytes with a few that differ, like the before and after states of records
+            byte[] bytes = new byte[60];
+            bytes[0] = 1;
+            bytes[9] = (byte) i;
+            bytes[17] = (byte) (i >>> 8);
+            bytes[30] = 1;
+            bytes[39] = (byte) (i + 1);
+            commands.add( new TestCommand( bytes ) );
+        }
+        return commands;
+    }
+
+    private static TransactionRepresentation transaction( List<StorageCommand> commands )
+    {
+        PhysicalTransactionRepresentation tx = new PhysicalTransactionRepresentation( commands );
+        tx.setHeader( new byte[0], 1, 1, 2, -1 );
+        return tx;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.stresstest;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.layout.DatabaseLayout;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.impl.api.TestCommand;
+import org.neo4j.kernel.impl.api.TestCommandReaderFactory;
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.transaction.SimpleLogVersionRepository;
+import org.neo4j.kernel.impl.transaction.SimpleTransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.BatchingTransactionAppender;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.TransactionMetadataCache;
+import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
+import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
+import org.neo4j.kernel.impl.transaction.log.files.LogFilesBuilder;
+import org.neo4j.kernel.impl.transaction.log.rotation.LogRotation;
+import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
+import org.neo4j.kernel.lifecycle.Lifespan;
+import org.neo4j.logging.NullLog;
+import org.neo4j.monitoring.DatabaseEventListeners;
+import org.neo4j.monitoring.DatabaseHealth;
+import org.neo4j.monitoring.DatabasePanicEventGenerator;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.storageengine.api.StoreId;
+
+import static org.neo4j.configuration.GraphDatabaseSettings.DEFAULT_DATABASE_NAME;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.CURRENT_FORMAT_LOG_HEADER_SIZE;
+
+/**
+ * Appends the same stream of transactions, made up of commands that look like the before and after states of records, to the transaction log
+ * with and without compressed commands. Reports the size of the log and the append throughput for each, which shows the compression ratio
+ * and what it costs. Every run first appends enough transactions to train a compression dictionary, and then rotates the log so that the
+ * measured part is written to a log file that starts with the dictionary.
+ */
+public class TransactionLogCompressionBenchmark
+{
+    private static final int WARMUP_TRANSACTIONS = 5_000;
+    private static final int MEASURED_TRANSACTIONS = 50_000;
+    private static final int TRANSACTIONS_PER_BATCH = 100;
+
+    private final File workingDirectory;
+
+    private TransactionLogCompressionBenchmark( File workingDirectory )
+    {
+        this.workingDirectory = workingDirectory;
+    }
+
+    /**
+     * @return the number of bytes written to the log and the time it took, for the measured transactions.
+     */
+    private Result run( boolean compressCommands ) throws IOException
+    {
+        File directory = new File( workingDirectory, compressCommands ? "compressed" : "uncompressed" );
+        try ( FileSystemAbstraction fs = new DefaultFileSystemAbstraction();
+              Lifespan life = new Lifespan() )
+        {
+            fs.deleteRecursively( directory );
+            SimpleTransactionIdStore transactionIdStore = new SimpleTransactionIdStore();
+            LogFiles logFiles = life.add( LogFilesBuilder.builder( DatabaseLayout.ofFlat( directory ), fs )
+                    .withTransactionIdStore( transactionIdStore )
+                    .withLogVersionRepository( new SimpleLogVersionRepository() )
+                    .withLogEntryReader( new VersionAwareLogEntryReader( new TestCommandReaderFactory() ) )
+                    .withStoreId( StoreId.UNKNOWN )
+                    .build() );
+            DatabaseHealth health = new DatabaseHealth( new DatabasePanicEventGenerator( new DatabaseEventListeners( NullLog.getInstance() ),
+                    DEFAULT_DATABASE_NAME ), NullLog.getInstance() );
+            BatchingTransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, LogRotation.NO_ROTATION,
+                    new TransactionMetadataCache(), transactionIdStore, health, Duration.ZERO, compressCommands ) );
+
+            SplittableRandom random = new SplittableRandom( 42 );
+            append( appender, WARMUP_TRANSACTIONS, random );
+            logFiles.getLogFile().rotate();
+
+            long startNanos = System.nanoTime();
+            append( appender, MEASURED_TRANSACTIONS, random );
+            long elapsedNanos = System.nanoTime() - startNanos;
+
+            LogPositionMarker position = logFiles.getLogFile().getWriter().getCurrentPosition( new LogPositionMarker() );
+            return new Result( position.getByteOffset() - CURRENT_FORMAT_LOG_HEADER_SIZE, elapsedNanos );
+        }
+        finally
+        {
+            try ( FileSystemAbstraction fs = new DefaultFileSystemAbstraction() )
+            {
+                fs.deleteRecursively( directory );
+            }
+        }
+    }
+
+    private static void append( BatchingTransactionAppender appender, int transactions, SplittableRandom random ) throws IOException
+    {
+        for ( int appended = 0; appended < transactions; appended += TRANSACTIONS_PER_BATCH )
+        {
+            TransactionToApply first = null;
+            TransactionToApply last = null;
+            for ( int i = 0; i < TRANSACTIONS_PER_BATCH; i++ )
+            {
+                TransactionToApply tx = new TransactionToApply( transaction( random ), PageCursorTracer.NULL );
+                if ( first == null )
+                {
+                    first = tx;
+                }
+                else
+                {
+                    last.next( tx );
+                }
+                last = tx;
+            }
+            appender.append( first, LogAppendEvent.NULL );
+        }
+    }
+
+    private static PhysicalTransactionRepresentation transaction( SplittableRandom random )
+    {
+        int count = 5 + random.nextInt( 50 );
+        List<StorageCommand> commands = new ArrayList<>( count );
+        for ( int i = 0; i < count; i++ )
+        {
+            byte[] bytes = new byte[48];
+            bytes[0] = (byte) (1 + random.nextInt( 4 ));
+            long id = random.nextLong( 100_000_000 );
+            for ( int b = 0; b < 5; b++ )
+            {
+                bytes[2 + b] = (byte) (id >>> (8 * b));
+                bytes[26 + b] = (byte) (id >>> (8 * b));
+            }
+            bytes[12] = (byte) random.nextInt( 16 );
+            bytes[36] = (byte) random.nextInt( 16 );
+            for ( int b = 40; b < 44; b++ )
+            {
+                bytes[b] = (byte) random.nextInt();
+            }
+            commands.add( new TestCommand( bytes ) );
+        }
+        PhysicalTransactionRepresentation tx = new PhysicalTransactionRepresentation( commands );
+        tx.setHeader( new byte[0], 1, 1, 2, -1 );
+        return tx;
+    }
+
+    public static void main( String[] args ) throws Exception
+    {
+        File workingDirectory = new File( args.length > 0 ? args[0] : System.getProperty( "java.io.tmpdir" ), "tx-log-compression-benchmark" );
+        TransactionLogCompressionBenchmark benchmark = new TransactionLogCompressionBenchmark( workingDirectory );
+        Result uncompressed = benchmark.run( false );
+        Result compressed = benchmark.run( true );
+        System.out.printf( "uncompressed: %s%n", uncompressed );
+        System.out.printf( "compressed:   %s%n", compressed );
+        System.out.printf( "compression ratio %.2f, throughput %.1f%% of uncompressed%n",
+                (double) uncompressed.bytes / compressed.bytes, 100 * compressed.transactionsPerSecond() / uncompressed.transactionsPerSecond() );
+    }
+
+    private static class Result
+    {
+        private final long bytes;
+        private final long elapsedNanos;
+
+        Result( long bytes, long elapsedNanos )
+        {
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        double transactionsPerSecond()
+        {
+            return MEASURED_TRANSACTIONS / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos( 1 ));
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format( "%,d bytes for %,d transactions, %,.0f transactions/s", bytes, MEASURED_TRANSACTIONS, transactionsPerSecond() );
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.collection;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.internal.unsafe.UnsafeUtil;
+import org.neo4j.kernel.impl.util.collection.OffHeapBlockAllocator.MemoryBlock;
+import org.neo4j.memory.LocalMemoryTracker;
+import org.neo4j.memory.MemoryTracker;
+import org.neo4j.test.extension.Inject;
+import org.neo4j.test.extension.testdirectory.TestDirectoryExtension;
+import org.neo4j.test.rule.TestDirectory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestDirectoryExtension
+class SpillingBlockAllocatorDecoratorTest
+{
+    @Inject
+    private TestDirectory directory;
+
+    private final MemoryTracker tracker = new LocalMemoryTracker();
+    private SpillingBlockAllocatorDecorator allocator;
+
+    @BeforeEach
+    void setUp()
+    {
+        final CapacityLimitingBlockAllocatorDecorator limited = new CapacityLimitingBlockAllocatorDecorator( new CachingOffHeapBlockAllocator(), 1024 );
+        allocator = new SpillingBlockAllocatorDecorator( limited, directory.homeDir().toPath(), 0, 4096 );
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        allocator.release();
+    }
+
+    @Test
+    void spillBlocksExceedingMemoryLimit()
+    {
+        final List<MemoryBlock> blocks = new ArrayList<>();
+        for ( int i = 0; i < 64; i++ )
+        {
+            final MemoryBlock block = allocator.allocate( 256, tracker );
+            UnsafeUtil.putLong( block.addr, i );
+            UnsafeUtil.putLong( block.addr + block.size - Long.BYTES, -i );
+            blocks.add( block );
+        }
+
+        assertEquals( 1024, tracker.usedNativeMemory() );
+        assertEquals( 60 * 256, allocator.spilledMemory() );
+        assertNotNull( allocator.swapFile() );
+
+        for ( int i = 0; i < blocks.size(); i++ )
+        {
+            final MemoryBlock block = blocks.get( i );
+            assertEquals( i, UnsafeUtil.getLong( block.addr ) );
+            assertEquals( -i, UnsafeUtil.getLong( block.addr + block.size - Long.BYTES ) );
+        }
+
+        blocks.forEach( block -> allocator.free( block, tracker ) );
+        assertEquals( 0, tracker.usedNativeMemory() );
+        assertEquals( 0, allocator.spilledMemory() );
+    }
+
+    @Test
+    void spillBlocksLargerThanChunk()
+    {
+        allocator.allocate( 1024, tracker );
+        final MemoryBlock block = allocator.allocate( 10_000, tracker );
+        UnsafeUtil.setMemory( block.addr, block.size, (byte) 0xFF );
+
+        assertEquals( 10_000, allocator.spilledMemory() );
+        assertEquals( (byte) 0xFF, UnsafeUtil.getByte( block.addr + block.size - 1 ) );
+    }
+
+    @Test
+    void reuseFreedSpilledBlocks()
+    {
+        allocator.allocate( 1024, tracker );
+        allocator.allocate( 128, tracker );
+        final MemoryBlock first = allocator.allocate( 512, tracker );
+        allocator.free( first, tracker );
+
+        final MemoryBlock second = allocator.allocate( 512, tracker );
+        assertEquals( first.addr, second.addr );
+    }
+
+    @Test
+    void preallocateSwapFileBeforeMapping() throws IOException
+    {
+        allocator.allocate( 1024, tracker );
+        allocator.allocate( 128, tracker );
+        assertEquals( 4096, Files.size( allocator.swapFile() ) );
+
+        allocator.allocate( 10_000, tracker );
+        assertEquals( 4096 + 10_000, Files.size( allocator.swapFile() ) );
+    }
+
+    @Test
+    void failAllocationsExceedingSpillLimit()
+    {
+        final CapacityLimitingBlockAllocatorDecorator limited = new CapacityLimitingBlockAllocatorDecorator( new CachingOffHeapBlockAllocator(), 1024 );
+        final SpillingBlockAllocatorDecorator spillLimited = new SpillingBlockAllocatorDecorator( limited, directory.homeDir().toPath(), 1024, 4096 );
+        try
+        {
+            spillLimited.allocate( 1024, tracker );
+            final MemoryBlock spilled = spillLimited.allocate( 768, tracker );
+
+            assertThrows( MemoryAllocationLimitException.class, () -> spillLimited.allocate( 512, tracker ) );
+            assertEquals( 768, spillLimited.spilledMemory() );
+
+            spillLimited.free( spilled, tracker );
+            spillLimited.allocate( 512, tracker );
+            assertEquals( 512, spillLimited.spilledMemory() );
+        }
+        finally
+        {
+            spillLimited.release();
+        }
+    }
+
+    @Test
+    void deleteSwapFileOnRelease()
+    {
+        allocator.allocate( 1024, tracker );
+        allocator.allocate( 128, tracker );
+        final Path swapFile = allocator.swapFile();
+        assertTrue( Files.exists( swapFile ) );
+
+        allocator.release();
+
+        assertFalse( Files.exists( swapFile ) );
+        assertNull( allocator.swapFile() );
+        assertEquals( 0, allocator.spilledMemory() );
+    }
+
+    @Test
+    void deleteSwapFileWhenAllSpilledBlocksAreFreed()
+    {
+        allocator.allocate( 1024, tracker );
+        final MemoryBlock first = allocator.allocate( 128, tracker );
+        final MemoryBlock second = allocator.allocate( 10_000, tracker );
+        final Path swapFile = allocator.swapFile();
+
+        allocator.free( first, tracker );
+        assertTrue( Files.exists( swapFile ) );
+
+        allocator.free( second, tracker );
+        assertFalse( Files.exists( swapFile ) );
+        assertNull( allocator.swapFile() );
+        assertEquals( 0, allocator.spilledMemory() );
+
+        // spilling again starts a new swap file
+        allocator.allocate( 128, tracker );
+        assertNotNull( allocator.swapFile() );
+        assertEquals( 128, allocator.spilledMemory() );
+    }
+
+    @Test
+    void ignoreFreeOfBlocksFromReleasedSwapFile()
+    {
+        allocator.allocate( 1024, tracker );
+        final MemoryBlock stale = allocator.allocate( 128, tracker );
+        allocator.free( stale, tracker );
+        allocator.allocate( 256, tracker );
+
+        allocator.free( stale, tracker );
+
+        assertEquals( 256, allocator.spilledMemory() );
+    }
+
+    @Test
+    void deleteStaleSwapFiles() throws IOException
+    {
+        final Path home = directory.homeDir().toPath();
+        final Path staleSwapFile = Files.createTempFile( home, "tx-state-", ".swap" );
+        final Path otherFile = Files.createFile( home.resolve( "neostore" ) );
+
+        SpillingBlockAllocatorDecorator.deleteStaleSwapFiles( home );
+
+        assertFalse( Files.exists( staleSwapFile ) );
+        assertTrue( Files.exists( otherFile ) );
+    }
+
+    @Test
+    void doNotSpillWithinMemoryLimit()
+    {
+        final MemoryBlock block = allocator.allocate( 512, tracker );
+        allocator.free( block, tracker );
+
+        assertNull( allocator.swapFile() );
+        assertEquals( 0, allocator.spilledMemory() );
+    }
+}
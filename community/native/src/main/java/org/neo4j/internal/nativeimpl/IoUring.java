@@ -0,0 +1,456 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.nativeimpl;
+
+import com.sun.jna.LastErrorException;
+import com.sun.jna.Native;
+import com.sun.jna.Platform;
+import com.sun.jna.Pointer;
+
+import java.io.IOException;
+
+/**
+ * A minimal binding to a Linux io_uring instance, used for submitting batches of vectored reads and writes at explicit
+ * file offsets, and waiting for them to complete.
+ * <p>
+ * The submission and completion rings are only ever accessed by the thread that owns the instance, and we never use
+ * kernel side polling, so the kernel only looks at the rings during an {@code io_uring_enter} system call. The system
+ * call is a full memory barrier, which is why the ring indexes can be accessed with plain loads and stores.
+ * <p>
+ * Instances are not thread-safe, and must be {@link #close() closed} to release the kernel resources.
+ */
+public final class IoUring implements AutoCloseable
+{
+    // System call numbers are the same on all 64-bit Linux architectures.
+    private static final long SYS_IO_URING_SETUP = 425;
+    private static final long SYS_IO_URING_ENTER = 426;
+
+    private static final int IORING_ENTER_GETEVENTS = 1;
+    private static final int IORING_FEAT_SINGLE_MMAP = 1;
+    private static final byte IORING_OP_READV = 1;
+    private static final byte IORING_OP_WRITEV = 2;
+    private static final long IORING_OFF_SQ_RING = 0;
+    private static final long IORING_OFF_CQ_RING = 0x8000000L;
+    private static final long IORING_OFF_SQES = 0x10000000L;
+
+    private static final int PROT_READ_WRITE = 0x1 | 0x2;
+    private static final int MAP_SHARED_POPULATE = 0x01 | 0x8000;
+    private static final int EINTR = 4;
+
+    private static final int SIZEOF_PARAMS = 120;
+    private static final int SIZEOF_SQE = 64;
+    private static final int SIZEOF_CQE = 16;
+    private static final int SIZEOF_IOVEC = 16;
+
+    private static final boolean REGISTERED;
+
+    static
+    {
+        boolean registered = false;
+        try
+        {
+            if ( Platform.isLinux() && Platform.is64Bit() )
+            {
+                Native.register( Platform.C_LIBRARY_NAME );
+                registered = true;
+            }
+        }
+        catch ( Throwable ignore )
+        {
+            // io_uring will simply be reported as unavailable.
+        }
+        REGISTERED = registered;
+    }
+
+    private static native long syscall( long number, long arg1, long arg2, long arg3, long arg4, long arg5, long arg6 )
+            throws LastErrorException;
+
+    private static native long mmap( long address, long length, int protection, int flags, int fd, long offset )
+            throws LastErrorException;
+
+    private static native int munmap( long address, long length ) throws LastErrorException;
+
+    private static native int close( int fd ) throws LastErrorException;
+
+    private final int ringFd;
+    private final int entries;
+    private final int buffersPerSubmission;
+    private final long sqRingSize;
+    private final long cqRingSize;
+    private final Pointer sqRing;
+    private final Pointer cqRing;
+    private final Pointer sqes;
+    private final Pointer iovecs;
+    private final int sqHead;
+    private final int sqTail;
+    private final int sqMask;
+    private final int sqArray;
+    private final int cqHead;
+    private final int cqTail;
+    private final int cqMask;
+    private final int cqes;
+    private final long[] transferred;
+    private final long[] expected;
+    private boolean closed;
+
+    /**
+     * @param entries the size of the submission queue, which is how many submissions can be in flight at once.
+     * @param buffersPerSubmission the maximum number of buffers in a single vectored submission.
+     * @throws IOException if io_uring is not supported by the platform or the kernel.
+     */
+    IoUring( int entries, int buffersPerSubmission ) throws IOException
+    {
+        if ( !REGISTERED )
+        {
+            throw new IOException( "io_uring is only available on 64-bit Linux." );
+        }
+        this.buffersPerSubmission = buffersPerSubmission;
+        long params = Native.malloc( SIZEOF_PARAMS );
+        if ( params == 0 )
+        {
+            throw new IOException( "Could not allocate io_uring parameters." );
+        }
+        Pointer p = new Pointer( params );
+        int fd = -1;
+        long sqSize = 0;
+        long cqSize = 0;
+        long sqRingAddress = 0;
+        long cqRingAddress = 0;
+        long sqesSize = 0;
+        long sqesAddress = 0;
+        long iovecsAddress = 0;
+        boolean success = false;
+        try
+        {
+            p.setMemory( 0, SIZEOF_PARAMS, (byte) 0 );
+            fd = (int) syscall( SYS_IO_URING_SETUP, entries, params, 0, 0, 0, 0 );
+            int sqEntries = p.getInt( 0 );
+            int cqEntries = p.getInt( 4 );
+            int features = p.getInt( 20 );
+            // struct io_sqring_offsets starts at offset 40, and struct io_cqring_offsets at offset 80.
+            sqHead = p.getInt( 40 );
+            sqTail = p.getInt( 44 );
+            sqMask = p.getInt( 48 );
+            sqArray = p.getInt( 64 );
+            cqHead = p.getInt( 80 );
+            cqTail = p.getInt( 84 );
+            cqMask = p.getInt( 88 );
+            cqes = p.getInt( 100 );
+
+            sqSize = sqArray + sqEntries * (long) Integer.BYTES;
+            cqSize = cqes + cqEntries * (long) SIZEOF_CQE;
+            if ( (features & IORING_FEAT_SINGLE_MMAP) != 0 )
+            {
+                // The completion ring lives in the same mapping as the submission ring.
+                sqSize = Math.max( sqSize, cqSize );
+                cqSize = 0;
+                sqRingAddress = mmap( 0, sqSize, PROT_READ_WRITE, MAP_SHARED_POPULATE, fd, IORING_OFF_SQ_RING );
+                cqRingAddress = sqRingAddress;
+            }
+            else
+            {
+                sqRingAddress = mmap( 0, sqSize, PROT_READ_WRITE, MAP_SHARED_POPULATE, fd, IORING_OFF_SQ_RING );
+                cqRingAddress = mmap( 0, cqSize, PROT_READ_WRITE, MAP_SHARED_POPULATE, fd, IORING_OFF_CQ_RING );
+            }
+            sqesSize = sqEntries * (long) SIZEOF_SQE;
+            sqesAddress = mmap( 0, sqesSize, PROT_READ_WRITE, MAP_SHARED_POPULATE, fd, IORING_OFF_SQES );
+            iovecsAddress = Native.malloc( sqEntries * (long) buffersPerSubmission * SIZEOF_IOVEC );
+            if ( iovecsAddress == 0 )
+            {
+                throw new IOException( "Could not allocate io_uring vectors." );
+            }
+            this.ringFd = fd;
+            this.entries = sqEntries;
+            this.sqRingSize = sqSize;
+            this.cqRingSize = cqSize;
+            this.sqRing = new Pointer( sqRingAddress );
+            this.cqRing = new Pointer( cqRingAddress );
+            this.sqes = new Pointer( sqesAddress );
+            this.iovecs = new Pointer( iovecsAddress );
+            this.transferred = new long[sqEntries];
+            this.expected = new long[sqEntries];
+            success = true;
+        }
+        catch ( LastErrorException e )
+        {
+            throw new IOException( "Could not set up io_uring, error code " + e.getErrorCode() + ".", e );
+        }
+        finally
+        {
+            Native.free( params );
+            if ( !success )
+            {
+                unmapQuietly( sqesAddress, sqesSize );
+                unmapQuietly( cqRingAddress, cqSize );
+                unmapQuietly( sqRingAddress, sqSize );
+                if ( fd >= 0 )
+                {
+                    closeQuietly( fd );
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly( int fd )
+    {
+        try
+        {
+            close( fd );
+        }
+        catch ( LastErrorException ignore )
+        {
+            // We are already failing.
+        }
+    }
+
+    private static void unmapQuietly( long address, long length )
+    {
+        if ( address != 0 && length != 0 )
+        {
+            try
+            {
+                munmap( address, length );
+            }
+            catch ( LastErrorException ignore )
+            {
+                // We are already failing.
+            }
+        }
+    }
+
+    /**
+     * Read consecutive bytes from the given file offset into the given buffers. The buffers are split into vectored
+     * reads of a bounded number of buffers each, which are all submitted together so the kernel can execute them
+     * concurrently. Short reads are retried, until the requested bytes have been read or the end of the file is
+     * reached.
+     *
+     * @return the number of bytes read, which is less than requested only if the end of the file was reached.
+     */
+    public long read( int fd, long fileOffset, long[] bufferAddresses, int arrayOffset, int length, int bufferSize )
+            throws IOException
+    {
+        return transfer( IORING_OP_READV, fd, fileOffset, bufferAddresses, arrayOffset, length, bufferSize );
+    }
+
+    /**
+     * Write the given buffers to consecutive bytes from the given file offset. Like
+     * {@link #read(int, long, long[], int, int, int)}, the buffers are split into concurrently executed vectored
+     * writes.
+     *
+     * @return the number of bytes written.
+     */
+    public long write( int fd, long fileOffset, long[] bufferAddresses, int arrayOffset, int length, int bufferSize )
+            throws IOException
+    {
+        return transfer( IORING_OP_WRITEV, fd, fileOffset, bufferAddresses, arrayOffset, length, bufferSize );
+    }
+
+    private long transfer( byte opcode, int fd, long fileOffset, long[] bufferAddresses, int arrayOffset, int length,
+            int bufferSize ) throws IOException
+    {
+        if ( closed )
+        {
+            throw new IOException( "This io_uring instance has been closed." );
+        }
+        long total = 0;
+        int maxBuffersPerWave = entries * buffersPerSubmission;
+        for ( int waveStart = 0; waveStart < length; waveStart += maxBuffersPerWave )
+        {
+            int waveLength = Math.min( maxBuffersPerWave, length - waveStart );
+            int submissions = (waveLength + buffersPerSubmission - 1) / buffersPerSubmission;
+            for ( int i = 0; i < submissions; i++ )
+            {
+                transferred[i] = 0;
+                expected[i] = Math.min( buffersPerSubmission, waveLength - i * buffersPerSubmission ) * (long) bufferSize;
+            }
+            int pending = submissions;
+            while ( pending > 0 )
+            {
+                int toSubmit = 0;
+                for ( int i = 0; i < submissions; i++ )
+                {
+                    if ( transferred[i] < expected[i] )
+                    {
+                        int firstBuffer = arrayOffset + waveStart + i * buffersPerSubmission;
+                        long offset = fileOffset + (waveStart + (long) i * buffersPerSubmission) * bufferSize;
+                        prepare( opcode, fd, i, offset, bufferAddresses, firstBuffer, bufferSize );
+                        toSubmit++;
+                    }
+                }
+                submitAndWait( toSubmit );
+                pending = reap( opcode, toSubmit, submissions );
+            }
+            for ( int i = 0; i < submissions; i++ )
+            {
+                total += transferred[i];
+            }
+            if ( total < (waveStart + waveLength) * (long) bufferSize )
+            {
+                // We reached the end of the file.
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Prepare a vectored submission for the remaining part of the given submission slot.
+     */
+    private void prepare( byte opcode, int fd, int slot, long slotFileOffset, long[] bufferAddresses, int firstBuffer,
+            int bufferSize )
+    {
+        long done = transferred[slot];
+        int skippedBuffers = (int) (done / bufferSize);
+        int partial = (int) (done % bufferSize);
+        int buffers = (int) ((expected[slot] - done + partial + bufferSize - 1) / bufferSize);
+        long iovecOffset = (long) slot * buffersPerSubmission * SIZEOF_IOVEC;
+        for ( int i = 0; i < buffers; i++ )
+        {
+            long address = bufferAddresses[firstBuffer + skippedBuffers + i];
+            int skip = i == 0 ? partial : 0;
+            iovecs.setLong( iovecOffset + i * SIZEOF_IOVEC, address + skip );
+            iovecs.setLong( iovecOffset + i * SIZEOF_IOVEC + Long.BYTES, bufferSize - skip );
+        }
+
+        int tail = sqRing.getInt( sqTail );
+        int index = tail & sqRing.getInt( sqMask );
+        long sqe = (long) index * SIZEOF_SQE;
+        sqes.setMemory( sqe, SIZEOF_SQE, (byte) 0 );
+        sqes.setByte( sqe, opcode );
+        sqes.setInt( sqe + 4, fd );
+        sqes.setLong( sqe + 8, slotFileOffset + done );
+        sqes.setLong( sqe + 16, Pointer.nativeValue( iovecs ) + iovecOffset );
+        sqes.setInt( sqe + 24, buffers );
+        sqes.setLong( sqe + 32, slot );
+        sqRing.setInt( sqArray + index * Integer.BYTES, index );
+        sqRing.setInt( sqTail, tail + 1 );
+    }
+
+    private void submitAndWait( int count ) throws IOException
+    {
+        int toSubmit = count;
+        do
+        {
+            try
+            {
+                toSubmit -= (int) syscall( SYS_IO_URING_ENTER, ringFd, toSubmit, count, IORING_ENTER_GETEVENTS, 0, 0 );
+            }
+            catch ( LastErrorException e )
+            {
+                if ( e.getErrorCode() != EINTR )
+                {
+                    throw new IOException( "io_uring_enter failed with error code " + e.getErrorCode() + ".", e );
+                }
+            }
+        }
+        while ( toSubmit > 0 );
+    }
+
+    /**
+     * Consume the given number of completions, waiting for more if they are not all there yet.
+     * @return the number of submission slots that still have bytes left to transfer.
+     */
+    private int reap( byte opcode, int count, int submissions ) throws IOException
+    {
+        IOException failure = null;
+        int reaped = 0;
+        while ( reaped < count )
+        {
+            int head = cqRing.getInt( cqHead );
+            int tail = cqRing.getInt( cqTail );
+            if ( head == tail )
+            {
+                awaitCompletions( count - reaped );
+                continue;
+            }
+            int mask = cqRing.getInt( cqMask );
+            for ( ; head != tail; head++, reaped++ )
+            {
+                long cqe = cqes + (long) (head & mask) * SIZEOF_CQE;
+                int slot = (int) cqRing.getLong( cqe );
+                int result = cqRing.getInt( cqe + 8 );
+                if ( result < 0 )
+                {
+                    failure = new IOException( (opcode == IORING_OP_READV ? "Read" : "Write") +
+                            " through io_uring failed with error code " + -result + "." );
+                }
+                else if ( result == 0 )
+                {
+                    if ( opcode == IORING_OP_WRITEV )
+                    {
+                        failure = new IOException( "Write through io_uring made no progress." );
+                    }
+                    // A read of zero bytes means the end of the file, so there is nothing more to read for this slot.
+                    expected[slot] = transferred[slot];
+                }
+                else
+                {
+                    transferred[slot] += result;
+                }
+            }
+            cqRing.setInt( cqHead, head );
+        }
+        if ( failure != null )
+        {
+            throw failure;
+        }
+        int pending = 0;
+        for ( int i = 0; i < submissions; i++ )
+        {
+            if ( transferred[i] < expected[i] )
+            {
+                pending++;
+            }
+        }
+        return pending;
+    }
+
+    private void awaitCompletions( int count ) throws IOException
+    {
+        try
+        {
+            syscall( SYS_IO_URING_ENTER, ringFd, 0, count, IORING_ENTER_GETEVENTS, 0, 0 );
+        }
+        catch ( LastErrorException e )
+        {
+            if ( e.getErrorCode() != EINTR )
+            {
+                throw new IOException( "io_uring_enter failed with error code " + e.getErrorCode() + ".", e );
+            }
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if ( !closed )
+        {
+            closed = true;
+            unmapQuietly( Pointer.nativeValue( sqes ), entries * (long) SIZEOF_SQE );
+            if ( cqRingSize != 0 )
+            {
+                unmapQuietly( Pointer.nativeValue( cqRing ), cqRingSize );
+            }
+            unmapQuietly( Pointer.nativeValue( sqRing ), sqRingSize );
+            Native.free( Pointer.nativeValue( iovecs ) );
+            closeQuietly( ringFd );
+        }
+    }
+}
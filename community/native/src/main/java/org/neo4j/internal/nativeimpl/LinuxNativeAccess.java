@@ -24,6 +24,8 @@ import com.sun.jna.Native;
 import com.sun.jna.Platform;
 import com.sun.jna.Pointer;
 
+import java.io.IOException;
+
 import static org.apache.commons.lang3.exception.ExceptionUtils.getStackTrace;
 
 public class LinuxNativeAccess implements NativeAccess
@@ -48,6 +50,7 @@ public class LinuxNativeAccess implements NativeAccess
     private static final int POSIX_FADV_DONTNEED = 4;
 
     private static final boolean NATIVE_ACCESS_AVAILABLE;
+    private static volatile Boolean ioUringAvailable;
     private static final Throwable INITIALIZATION_FAILURE;
 
     static
@@ -153,6 +156,32 @@ public class LinuxNativeAccess implements NativeAccess
         return wrapResult( () -> posix_fallocate( fd, 0, bytes ) );
     }
 
+    @Override
+    public boolean isIoUringAvailable()
+    {
+        Boolean available = ioUringAvailable;
+        if ( available == null )
+        {
+            // The only reliable way to know if the kernel supports io_uring, and allows us to use it, is to try.
+            try ( IoUring ignore = new IoUring( 1, 1 ) )
+            {
+                available = true;
+            }
+            catch ( IOException | LinkageError e )
+            {
+                available = false;
+            }
+            ioUringAvailable = available;
+        }
+        return available;
+    }
+
+    @Override
+    public IoUring createIoUring( int entries, int buffersPerSubmission ) throws IOException
+    {
+        return new IoUring( entries, buffersPerSubmission );
+    }
+
     @Override
     public String describe()
     {
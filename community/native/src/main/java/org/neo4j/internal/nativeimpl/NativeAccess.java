@@ -19,6 +19,8 @@
  */
 package org.neo4j.internal.nativeimpl;
 
+import java.io.IOException;
+
 public interface NativeAccess
 {
     /**
@@ -69,6 +71,27 @@ public interface NativeAccess
      */
     NativeCallResult tryPreallocateSpace( int fd, long bytes );
 
+    /**
+     * Check if io_uring based asynchronous I/O is available, which requires a Linux kernel that supports it.
+     * @return true if {@link #createIoUring(int, int)} can be used, false otherwise
+     */
+    default boolean isIoUringAvailable()
+    {
+        return false;
+    }
+
+    /**
+     * Create a new io_uring instance. The instance is not thread-safe, and must be closed after use.
+     * @param entries the size of the submission queue, which is how many vectored operations can be in flight at once
+     * @param buffersPerSubmission the maximum number of buffers in a single vectored operation
+     * @return a new io_uring instance
+     * @throws IOException if io_uring is not available, or the instance could not be created
+     */
+    default IoUring createIoUring( int entries, int buffersPerSubmission ) throws IOException
+    {
+        throw new IOException( "io_uring is not available." );
+    }
+
     /**
      * Details about native access provider
      * @return details about native access
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.nativeimpl;
+
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@EnabledOnOs( OS.LINUX )
+class IoUringTest
+{
+    private static final int BUFFER_SIZE = 512;
+    private static final int BUFFERS = 10;
+
+    @TempDir
+    File directory;
+
+    private final LinuxNativeAccess nativeAccess = new LinuxNativeAccess();
+    private final long[] buffers = new long[BUFFERS];
+    private IoUring ioUring;
+
+    @BeforeEach
+    void setUp() throws IOException
+    {
+        assumeTrue( nativeAccess.isIoUringAvailable() );
+        // Three buffers per submission, and two submissions in flight, means several rounds of submissions.
+        ioUring = nativeAccess.createIoUring( 2, 3 );
+        for ( int i = 0; i < BUFFERS; i++ )
+        {
+            buffers[i] = Native.malloc( BUFFER_SIZE );
+        }
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        if ( ioUring != null )
+        {
+            ioUring.close();
+            for ( long buffer : buffers )
+            {
+                Native.free( buffer );
+            }
+        }
+    }
+
+    @Test
+    void writeAndReadBackBuffers() throws Exception
+    {
+        File file = new File( directory, "file" );
+        try ( RandomAccessFile randomFile = new RandomAccessFile( file, "rw" ) )
+        {
+            int fd = getDescriptor( randomFile );
+            for ( int i = 0; i < BUFFERS; i++ )
+            {
+                new Pointer( buffers[i] ).setMemory( 0, BUFFER_SIZE, (byte) i );
+            }
+            assertThat( ioUring.write( fd, BUFFER_SIZE, buffers, 0, BUFFERS, BUFFER_SIZE ) ).isEqualTo( BUFFERS * BUFFER_SIZE );
+            assertThat( randomFile.length() ).isEqualTo( (BUFFERS + 1) * BUFFER_SIZE );
+
+            for ( long buffer : buffers )
+            {
+                new Pointer( buffer ).setMemory( 0, BUFFER_SIZE, (byte) -1 );
+            }
+            assertThat( ioUring.read( fd, BUFFER_SIZE, buffers, 1, BUFFERS - 1, BUFFER_SIZE ) ).isEqualTo( (BUFFERS - 1) * BUFFER_SIZE );
+            for ( int i = 1; i < BUFFERS; i++ )
+            {
+                assertThat( new Pointer( buffers[i] ).getByte( BUFFER_SIZE - 1 ) ).isEqualTo( (byte) (i - 1) );
+            }
+        }
+    }
+
+    @Test
+    void readMustStopAtEndOfFile() throws Exception
+    {
+        File file = new File( directory, "file" );
+        try ( RandomAccessFile randomFile = new RandomAccessFile( file, "rw" ) )
+        {
+            randomFile.write( new byte[BUFFER_SIZE * 4 + 10] );
+            int fd = getDescriptor( randomFile );
+            assertThat( ioUring.read( fd, 0, buffers, 0, BUFFERS, BUFFER_SIZE ) ).isEqualTo( BUFFER_SIZE * 4 + 10 );
+            assertThat( ioUring.read( fd, BUFFER_SIZE * 5, buffers, 0, BUFFERS, BUFFER_SIZE ) ).isZero();
+        }
+    }
+
+    @Test
+    void mustReportErrors()
+    {
+        assertThrows( IOException.class, () -> ioUring.read( -1, 0, buffers, 0, 1, BUFFER_SIZE ) );
+    }
+
+    private static int getDescriptor( RandomAccessFile randomFile ) throws IOException, IllegalAccessException
+    {
+        FileDescriptor fd = randomFile.getFD();
+        return FieldUtils.getDeclaredField( FileDescriptor.class, "fd", true ).getInt( fd );
+    }
+}
@@ -21,6 +21,8 @@ package org.neo4j.graphdb.factory.module;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
@@ -54,6 +56,7 @@ import org.neo4j.kernel.extension.context.GlobalExtensionContext;
 import org.neo4j.kernel.impl.cache.VmPauseMonitorComponent;
 import org.neo4j.kernel.impl.factory.DatabaseInfo;
 import org.neo4j.kernel.impl.pagecache.ConfiguringPageCacheFactory;
+import org.neo4j.kernel.impl.pagecache.PageCacheFiles;
 import org.neo4j.kernel.impl.pagecache.PageCacheLifecycle;
 import org.neo4j.kernel.impl.scheduler.JobSchedulerFactory;
 import org.neo4j.kernel.impl.security.URLAccessRules;
@@ -62,6 +65,7 @@ import org.neo4j.kernel.impl.util.collection.CapacityLimitingBlockAllocatorDecor
 import org.neo4j.kernel.impl.util.collection.CollectionsFactorySupplier;
 import org.neo4j.kernel.impl.util.collection.OffHeapBlockAllocator;
 import org.neo4j.kernel.impl.util.collection.OffHeapCollectionsFactory;
+import org.neo4j.kernel.impl.util.collection.SpillingBlockAllocatorDecorator;
 import org.neo4j.kernel.impl.util.watcher.DefaultFileSystemWatcherService;
 import org.neo4j.kernel.impl.util.watcher.FileSystemWatcherService;
 import org.neo4j.kernel.info.JvmChecker;
@@ -196,6 +200,8 @@ public class GlobalModule
                 () -> createPageCache( fileSystem, globalConfig, logService, tracers, jobScheduler, globalClock, memoryPools ) );
 
         globalLife.add( new PageCacheLifecycle( pageCache ) );
+        globalLife.add( new PageCacheFiles( pageCache, ManagementFactory.getPlatformMBeanServer(), globalConfig.get( GraphDatabaseSettings.neo4j_home ),
+                logService.getInternalLog( PageCacheFiles.class ) ) );
 
         dbmsDiagnosticsManager = new DbmsDiagnosticsManager( globalDependencies, logService );
         globalDependencies.satisfyDependency( dbmsDiagnosticsManager );
@@ -375,6 +381,12 @@ public class GlobalModule
         jobScheduler.setParallelism( Group.INDEX_POPULATION, globalConfig.get( GraphDatabaseSettings.index_population_parallelism ) );
         jobScheduler.setParallelism( Group.INDEX_POPULATION_WORK, globalConfig.get( GraphDatabaseSettings.index_population_workers ) );
         jobScheduler.setParallelism( Group.PAGE_CACHE_PRE_FETCHER, globalConfig.get( GraphDatabaseSettings.pagecache_scan_prefetch ) );
+        // 0 keeps the default of one thread per processor, and -1 means that the parallel runtime doesn't use any workers
+        int cypherWorkers = globalConfig.get( GraphDatabaseSettings.cypher_worker_count );
+        if ( cypherWorkers > 0 )
+        {
+            jobScheduler.setParallelism( Group.CYPHER_WORKER, cypherWorkers );
+        }
         return jobScheduler;
     }
 
@@ -408,7 +420,18 @@ public class GlobalModule
             final long maxMemory = config.get( GraphDatabaseSettings.tx_state_max_off_heap_memory );
             if ( maxMemory > 0 )
             {
-                sharedBlockAllocator = new CapacityLimitingBlockAllocatorDecorator( allocator, maxMemory );
+                final OffHeapBlockAllocator limitedAllocator = new CapacityLimitingBlockAllocatorDecorator( allocator, maxMemory );
+                if ( config.get( GraphDatabaseSettings.tx_state_off_heap_spill_to_disk ) )
+                {
+                    final Path swapDirectory = config.get( GraphDatabaseSettings.data_directory );
+                    SpillingBlockAllocatorDecorator.deleteStaleSwapFiles( swapDirectory );
+                    sharedBlockAllocator = new SpillingBlockAllocatorDecorator( limitedAllocator, swapDirectory,
+                            config.get( GraphDatabaseSettings.tx_state_off_heap_max_spilled_size ) );
+                }
+                else
+                {
+                    sharedBlockAllocator = limitedAllocator;
+                }
             }
             else
             {
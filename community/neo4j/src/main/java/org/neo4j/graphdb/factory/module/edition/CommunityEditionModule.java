@@ -124,7 +124,7 @@ public class CommunityEditionModule extends StandaloneEditionModule
 
         tokenHoldersProvider = createTokenHolderProvider( globalModule );
 
-        commitProcessFactory = new CommunityCommitProcessFactory();
+        commitProcessFactory = new CommunityCommitProcessFactory( globalModule.getJobScheduler() );
 
         constraintSemantics = createSchemaRuleVerifier();
 
@@ -19,6 +19,8 @@
  */
 package org.neo4j.internal.recordstorage;
 
+import java.io.IOException;
+
 import org.neo4j.internal.recordstorage.Command.BaseCommand;
 import org.neo4j.internal.schema.SchemaRule;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
@@ -37,6 +39,9 @@ import org.neo4j.storageengine.api.CommandVersion;
  * <p>
  * For other modes of application, like recovery or external there are other, added functionality, decorated
  * outside this applier.
+ * <p>
+ * If given {@link PartitionedRecordUpdates} the updates of node, relationship, property and relationship group records are
+ * collected and written, possibly by multiple threads, before schema rule updates and when this applier is closed.
  */
 public class NeoStoreTransactionApplier extends TransactionApplier.Adapter
 {
@@ -48,9 +53,16 @@ public class NeoStoreTransactionApplier extends TransactionApplier.Adapter
     private final LockService lockService;
     private final IdUpdateListener idUpdateListener;
     private final PageCursorTracer cursorTracer;
+    private final PartitionedRecordUpdates recordUpdates;
 
     public NeoStoreTransactionApplier( CommandVersion version, NeoStores neoStores, CacheAccessBackDoor cacheAccess, LockService lockService,
             long transactionId, BatchContext batchContext, PageCursorTracer cursorTracer )
+    {
+        this( version, neoStores, cacheAccess, lockService, transactionId, batchContext, cursorTracer, null );
+    }
+
+    NeoStoreTransactionApplier( CommandVersion version, NeoStores neoStores, CacheAccessBackDoor cacheAccess, LockService lockService,
+            long transactionId, BatchContext batchContext, PageCursorTracer cursorTracer, PartitionedRecordUpdates recordUpdates )
     {
         this.version = version;
         this.lockGroup = batchContext.getLockGroup();
@@ -60,6 +72,13 @@ public class NeoStoreTransactionApplier extends TransactionApplier.Adapter
         this.cacheAccess = cacheAccess;
         this.idUpdateListener = batchContext.getIdUpdateListener();
         this.cursorTracer = cursorTracer;
+        this.recordUpdates = recordUpdates;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        applyRecordUpdates();
     }
 
     @Override
@@ -69,7 +88,7 @@ public class NeoStoreTransactionApplier extends TransactionApplier.Adapter
         lockGroup.add( lockService.acquireNodeLock( command.getKey(), LockService.LockType.WRITE_LOCK ) );
 
         // update store
-        updateStore( neoStores.getNodeStore(), command );
+        updateRecordStore( neoStores.getNodeStore(), command );
         return false;
     }
 
@@ -78,7 +97,7 @@ public class NeoStoreTransactionApplier extends TransactionApplier.Adapter
     {
         lockGroup.add( lockService.acquireRelationshipLock( command.getKey(), LockService.LockType.WRITE_LOCK ) );
 
-        updateStore( neoStores.getRelationshipStore(), command );
+        updateRecordStore( neoStores.getRelationshipStore(), command );
         return false;
     }
 
@@ -95,14 +114,14 @@ public class NeoStoreTransactionApplier extends TransactionApplier.Adapter
             lockGroup.add( lockService.acquireRelationshipLock( command.getRelId(), LockService.LockType.WRITE_LOCK ) );
         }
 
-        updateStore( neoStores.getPropertyStore(), command );
+        updateRecordStore( neoStores.getPropertyStore(), command );
         return false;
     }
 
     @Override
     public boolean visitRelationshipGroupCommand( Command.RelationshipGroupCommand command )
     {
-        updateStore( neoStores.getRelationshipGroupStore(), command );
+        updateRecordStore( neoStores.getRelationshipGroupStore(), command );
         return false;
     }
 
@@ -128,7 +147,7 @@ public class NeoStoreTransactionApplier extends TransactionApplier.Adapter
     }
 
     @Override
-    public boolean visitSchemaRuleCommand( Command.SchemaRuleCommand command )
+    public boolean visitSchemaRuleCommand( Command.SchemaRuleCommand command ) throws IOException
     {
         // schema rules. Execute these after generating the property updates so. If executed
         // before and we've got a transaction that sets properties/labels as well as creating an index
@@ -139,6 +158,7 @@ public class NeoStoreTransactionApplier extends TransactionApplier.Adapter
         //    job might get those as updates
         // 4) the population job will apply those updates as added properties, and might end up with duplicate
         //    entries for the same property
+        applyRecordUpdates();
         updateStore( neoStores.getSchemaStore(), command );
         SchemaRule schemaRule = command.getSchemaRule();
         boolean isConstraint = command.getAfter().isConstraint();
@@ -173,6 +193,26 @@ public class NeoStoreTransactionApplier extends TransactionApplier.Adapter
         }
     }
 
+    private <RECORD extends AbstractBaseRecord> void updateRecordStore( CommonAbstractStore<RECORD,?> store, BaseCommand<RECORD> command )
+    {
+        if ( recordUpdates != null )
+        {
+            recordUpdates.add( store, selectRecordByCommandVersion( command ) );
+        }
+        else
+        {
+            updateStore( store, command );
+        }
+    }
+
+    private void applyRecordUpdates() throws IOException
+    {
+        if ( recordUpdates != null && !recordUpdates.isEmpty() )
+        {
+            recordUpdates.apply( idUpdateListener, cursorTracer );
+        }
+    }
+
     private <RECORD extends AbstractBaseRecord> void updateStore( CommonAbstractStore<RECORD,?> store, BaseCommand<RECORD> command )
     {
         store.updateRecord( selectRecordByCommandVersion( command ), idUpdateListener, cursorTracer );
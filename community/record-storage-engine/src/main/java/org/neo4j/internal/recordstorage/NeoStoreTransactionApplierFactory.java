@@ -21,6 +21,7 @@ package org.neo4j.internal.recordstorage;
 
 import org.neo4j.kernel.impl.store.NeoStores;
 import org.neo4j.lock.LockService;
+import org.neo4j.scheduler.CallableExecutor;
 import org.neo4j.storageengine.api.CommandVersion;
 import org.neo4j.storageengine.api.CommandsToApply;
 import org.neo4j.storageengine.api.TransactionApplicationMode;
@@ -38,20 +39,35 @@ public class NeoStoreTransactionApplierFactory implements TransactionApplierFact
     // Ideally we don't want any cache access in here, but it is how it is. At least we try to minimize use of it
     private final CacheAccessBackDoor cacheAccess;
     private final LockService lockService;
+    private final CallableExecutor applyExecutor;
+    private final int applyParallelism;
 
     NeoStoreTransactionApplierFactory( TransactionApplicationMode mode, NeoStores store, CacheAccessBackDoor cacheAccess, LockService lockService )
+    {
+        this( mode, store, cacheAccess, lockService, null, 0 );
+    }
+
+    /**
+     * @param applyExecutor executor for writing record updates of large transactions by {@code applyParallelism} threads,
+     * or {@code null} for writing all record updates by the applying thread.
+     */
+    NeoStoreTransactionApplierFactory( TransactionApplicationMode mode, NeoStores store, CacheAccessBackDoor cacheAccess, LockService lockService,
+            CallableExecutor applyExecutor, int applyParallelism )
     {
         this.version = mode.version();
         this.neoStores = store;
         this.cacheAccess = cacheAccess;
         this.lockService = lockService;
+        this.applyExecutor = applyExecutor;
+        this.applyParallelism = applyParallelism;
     }
 
     @Override
     public TransactionApplier startTx( CommandsToApply transaction, BatchContext batchContext )
     {
+        PartitionedRecordUpdates recordUpdates = applyExecutor != null ? new PartitionedRecordUpdates( applyExecutor, applyParallelism ) : null;
         return new NeoStoreTransactionApplier( version, neoStores, cacheAccess, lockService, transaction.transactionId(), batchContext,
-                transaction.cursorTracer() );
+                transaction.cursorTracer(), recordUpdates );
     }
 
 }
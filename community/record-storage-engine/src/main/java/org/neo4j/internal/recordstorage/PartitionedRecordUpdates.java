@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.recordstorage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.neo4j.internal.id.IdGenerator;
+import org.neo4j.internal.id.IdType;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.impl.store.CommonAbstractStore;
+import org.neo4j.kernel.impl.store.IdUpdateListener;
+import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
+import org.neo4j.scheduler.CallableExecutor;
+
+/**
+ * Record updates of one transaction, partitioned by record id so that the updates can be written to the stores by multiple threads.
+ * All updates of a record, including the dynamic records and secondary units written along with it, end up in the same partition,
+ * and records of one transaction are never written more than once, so the partitions don't conflict with each other.
+ * <p>
+ * Threads writing a partition don't touch the {@link IdUpdateListener} of the batch, which isn't thread safe. Their id changes are
+ * buffered and handed to the listener by the thread calling {@link #apply(IdUpdateListener, PageCursorTracer)}, after all partitions
+ * have been written. The same goes for their page cache accesses, which are traced per partition and added to the cursor tracer of the
+ * transaction afterwards, since cursor tracers aren't thread safe. Too few updates to be worth the hand-over are written by the calling
+ * thread directly.
+ */
+class PartitionedRecordUpdates
+{
+    static final int PARALLEL_THRESHOLD = 1_000;
+    private static final String PARTITION_TAG = "applyRecordUpdatesPartition";
+
+    private final CallableExecutor executor;
+    private final int numberOfPartitions;
+    private final List<RecordUpdate<?>> updates = new ArrayList<>();
+
+    PartitionedRecordUpdates( CallableExecutor executor, int numberOfPartitions )
+    {
+        this.executor = executor;
+        this.numberOfPartitions = numberOfPartitions;
+    }
+
+    <RECORD extends AbstractBaseRecord> void add( CommonAbstractStore<RECORD,?> store, RECORD record )
+    {
+        updates.add( new RecordUpdate<>( store, record ) );
+    }
+
+    boolean isEmpty()
+    {
+        return updates.isEmpty();
+    }
+
+    /**
+     * Writes all added updates to their stores and clears this instance. Returns when all updates have been written, or when all
+     * partitions have stopped after one of them failed.
+     */
+    void apply( IdUpdateListener idUpdateListener, PageCursorTracer cursorTracer ) throws IOException
+    {
+        try
+        {
+            if ( updates.size() < PARALLEL_THRESHOLD )
+            {
+                for ( RecordUpdate<?> update : updates )
+                {
+                    update.apply( idUpdateListener, cursorTracer );
+                }
+                return;
+            }
+
+            List<Future<PartitionResult>> futures = new ArrayList<>( numberOfPartitions );
+            for ( List<RecordUpdate<?>> partition : partition() )
+            {
+                if ( !partition.isEmpty() )
+                {
+                    futures.add( executor.submit( () -> applyPartition( partition ) ) );
+                }
+            }
+            List<PartitionResult> results = awaitAll( futures );
+            for ( PartitionResult result : results )
+            {
+                cursorTracer.merge( result.cursorTracer );
+                result.idUpdates.replay( idUpdateListener, cursorTracer );
+            }
+        }
+        finally
+        {
+            updates.clear();
+        }
+    }
+
+    /**
+     * Waits for every partition to finish, also when some of them fail or this thread is interrupted, so that no partition is still
+     * writing to the stores when this transaction is considered applied or failed.
+     */
+    private static List<PartitionResult> awaitAll( List<Future<PartitionResult>> futures ) throws IOException
+    {
+        List<PartitionResult> results = new ArrayList<>( futures.size() );
+        Throwable failure = null;
+        boolean interrupted = false;
+        for ( Future<PartitionResult> future : futures )
+        {
+            while ( true )
+            {
+                try
+                {
+                    results.add( future.get() );
+                    break;
+                }
+                catch ( InterruptedException e )
+                {
+                    interrupted = true;
+                }
+                catch ( ExecutionException e )
+                {
+                    if ( failure == null )
+                    {
+                        failure = e.getCause();
+                    }
+                    else
+                    {
+                        failure.addSuppressed( e.getCause() );
+                    }
+                    break;
+                }
+            }
+        }
+        if ( interrupted )
+        {
+            Thread.currentThread().interrupt();
+        }
+        if ( failure != null )
+        {
+            throw new IOException( "Failed to apply record updates", failure );
+        }
+        return results;
+    }
+
+    private List<List<RecordUpdate<?>>> partition()
+    {
+        List<List<RecordUpdate<?>>> partitions = new ArrayList<>( numberOfPartitions );
+        for ( int i = 0; i < numberOfPartitions; i++ )
+        {
+            partitions.add( new ArrayList<>( updates.size() / numberOfPartitions + 1 ) );
+        }
+        for ( RecordUpdate<?> update : updates )
+        {
+            // Spread ids of neighbouring records, which are often allocated in sequence, over all partitions
+            long id = update.record.getId();
+            partitions.get( (int) Long.remainderUnsigned( id * 0x9E3779B97F4A7C15L, numberOfPartitions ) ).add( update );
+        }
+        return partitions;
+    }
+
+    private static PartitionResult applyPartition( List<RecordUpdate<?>> partition )
+    {
+        // Only counts on behalf of the transaction, which reports the counts along with its own, so this tracer has nothing to report to.
+        PartitionResult result = new PartitionResult( new BufferingIdUpdateListener(), new DefaultPageCursorTracer( PageCacheTracer.NULL, PARTITION_TAG ) );
+        for ( RecordUpdate<?> update : partition )
+        {
+            update.apply( result.idUpdates, result.cursorTracer );
+        }
+        return result;
+    }
+
+    private static class PartitionResult
+    {
+        private final BufferingIdUpdateListener idUpdates;
+        private final PageCursorTracer cursorTracer;
+
+        PartitionResult( BufferingIdUpdateListener idUpdates, PageCursorTracer cursorTracer )
+        {
+            this.idUpdates = idUpdates;
+            this.cursorTracer = cursorTracer;
+        }
+    }
+
+    private static class RecordUpdate<RECORD extends AbstractBaseRecord>
+    {
+        private final CommonAbstractStore<RECORD,?> store;
+        private final RECORD record;
+
+        RecordUpdate( CommonAbstractStore<RECORD,?> store, RECORD record )
+        {
+            this.store = store;
+            this.record = record;
+        }
+
+        void apply( IdUpdateListener idUpdateListener, PageCursorTracer cursorTracer )
+        {
+            store.updateRecord( record, idUpdateListener, cursorTracer );
+        }
+    }
+
+    private static class BufferingIdUpdateListener implements IdUpdateListener
+    {
+        private final List<IdChange> changes = new ArrayList<>();
+
+        @Override
+        public void markIdAsUsed( IdType idType, IdGenerator idGenerator, long id, PageCursorTracer cursorTracer )
+        {
+            changes.add( new IdChange( idType, idGenerator, id, true ) );
+        }
+
+        @Override
+        public void markIdAsUnused( IdType idType, IdGenerator idGenerator, long id, PageCursorTracer cursorTracer )
+        {
+            changes.add( new IdChange( idType, idGenerator, id, false ) );
+        }
+
+        void replay( IdUpdateListener target, PageCursorTracer cursorTracer )
+        {
+            for ( IdChange change : changes )
+            {
+                if ( change.used )
+                {
+                    target.markIdAsUsed( change.idType, change.idGenerator, change.id, cursorTracer );
+                }
+                else
+                {
+                    target.markIdAsUnused( change.idType, change.idGenerator, change.id, cursorTracer );
+                }
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            // no-op
+        }
+    }
+
+    private static class IdChange
+    {
+        private final IdType idType;
+        private final IdGenerator idGenerator;
+        private final long id;
+        private final boolean used;
+
+        IdChange( IdType idType, IdGenerator idGenerator, long id, boolean used )
+        {
+            this.idType = idType;
+            this.idGenerator = idGenerator;
+            this.id = id;
+            this.used = used;
+        }
+    }
+}
@@ -19,13 +19,17 @@
  */
 package org.neo4j.internal.recordstorage;
 
+import org.neo4j.internal.id.IdSequence;
+import org.neo4j.internal.id.LeasingIdSequence;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.kernel.impl.store.CommonAbstractStore;
 import org.neo4j.kernel.impl.store.NeoStores;
 import org.neo4j.kernel.impl.store.PropertyStore;
 import org.neo4j.kernel.impl.store.StandardDynamicRecordAllocator;
 import org.neo4j.kernel.impl.store.StoreType;
 import org.neo4j.lock.ResourceLocker;
 import org.neo4j.storageengine.api.CommandCreationContext;
+import org.neo4j.util.FeatureToggles;
 
 import static java.lang.Math.toIntExact;
 
@@ -34,6 +38,13 @@ import static java.lang.Math.toIntExact;
  */
 class RecordStorageCommandCreationContext implements CommandCreationContext
 {
+    /**
+     * Number of node and relationship ids to lease from the id generators at a time. Ids are then handed out from the lease without
+     * contending with other transactions and the records created by a transaction end up close to each other.
+     * A value of 0 means that every id is allocated directly from the id generator.
+     */
+    private static final int ID_LEASE_SIZE = FeatureToggles.getInteger( RecordStorageCommandCreationContext.class, "idLeaseSize", 16 );
+
     private final NeoStores neoStores;
     private final Loaders loaders;
     private final RelationshipCreator relationshipCreator;
@@ -41,6 +52,8 @@ class RecordStorageCommandCreationContext implements CommandCreationContext
     private final PropertyCreator propertyCreator;
     private final PropertyDeleter propertyDeleter;
     private final PageCursorTracer cursorTracer;
+    private final IdSequence nodeIds;
+    private final IdSequence relationshipIds;
 
     RecordStorageCommandCreationContext( NeoStores neoStores, int denseNodeThreshold, PageCursorTracer cursorTracer )
     {
@@ -57,6 +70,13 @@ class RecordStorageCommandCreationContext implements CommandCreationContext
                 new StandardDynamicRecordAllocator( propertyStore.getStringStore(), propertyStore.getStringStore().getRecordDataSize() ),
                 new StandardDynamicRecordAllocator( propertyStore.getArrayStore(), propertyStore.getArrayStore().getRecordDataSize() ), propertyStore,
                 propertyTraverser, propertyStore.allowStorePointsAndTemporal(), cursorTracer );
+        this.nodeIds = idSequence( neoStores.getNodeStore() );
+        this.relationshipIds = idSequence( neoStores.getRelationshipStore() );
+    }
+
+    private static IdSequence idSequence( CommonAbstractStore<?,?> store )
+    {
+        return ID_LEASE_SIZE > 0 ? new LeasingIdSequence( store.getIdGenerator(), ID_LEASE_SIZE ) : store;
     }
 
     private long nextId( StoreType storeType )
@@ -67,13 +87,13 @@ class RecordStorageCommandCreationContext implements CommandCreationContext
     @Override
     public long reserveNode()
     {
-        return nextId( StoreType.NODE );
+        return nodeIds.nextId( cursorTracer );
     }
 
     @Override
     public long reserveRelationship()
     {
-        return nextId( StoreType.RELATIONSHIP );
+        return relationshipIds.nextId( cursorTracer );
     }
 
     @Override
@@ -100,9 +120,27 @@ class RecordStorageCommandCreationContext implements CommandCreationContext
         return toIntExact( neoStores.getLabelTokenStore().nextId( cursorTracer ) );
     }
 
+    @Override
+    public void release()
+    {
+        // This context outlives the transactions that use it, so leases are given back when each transaction ends, and not just when this
+        // context is closed.
+        release( nodeIds );
+        release( relationshipIds );
+    }
+
     @Override
     public void close()
     {
+        release();
+    }
+
+    private void release( IdSequence ids )
+    {
+        if ( ids instanceof LeasingIdSequence )
+        {
+            ((LeasingIdSequence) ids).release( cursorTracer );
+        }
     }
 
     TransactionRecordState createTransactionRecordState( IntegrityValidator integrityValidator, long lastTransactionIdWhenStarted,
@@ -71,6 +71,9 @@ import org.neo4j.lock.ResourceLocker;
 import org.neo4j.logging.Log;
 import org.neo4j.logging.LogProvider;
 import org.neo4j.monitoring.Health;
+import org.neo4j.scheduler.CallableExecutor;
+import org.neo4j.scheduler.Group;
+import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.CommandCreationContext;
 import org.neo4j.storageengine.api.CommandsToApply;
 import org.neo4j.storageengine.api.ConstraintRuleAccessor;
@@ -122,6 +125,8 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     private final PageCacheTracer cacheTracer;
     private final GBPTreeCountsStore countsStore;
     private final int denseNodeThreshold;
+    private final int applyParallelism;
+    private final CallableExecutor applyExecutor;
     private final Map<IdType,WorkSync<IdGenerator,IdGeneratorUpdateWork>> idGeneratorWorkSyncs = new EnumMap<>( IdType.class );
     private final Map<TransactionApplicationMode,TransactionApplierFactoryChain> applierChains = new EnumMap<>( TransactionApplicationMode.class );
 
@@ -144,6 +149,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
             IdGeneratorFactory idGeneratorFactory,
             IdController idController,
             RecoveryCleanupWorkCollector recoveryCleanupWorkCollector,
+            JobScheduler jobScheduler,
             PageCacheTracer cacheTracer,
             boolean createStoreIfNotExists )
     {
@@ -176,6 +182,9 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
             countsStore = openCountsStore( pageCache, fs, databaseLayout, config, logProvider, recoveryCleanupWorkCollector, cacheTracer );
 
             consistencyCheckApply = config.get( GraphDatabaseSettings.consistency_check_on_apply );
+
+            applyParallelism = config.get( GraphDatabaseSettings.tx_apply_parallelism );
+            applyExecutor = applyParallelism > 1 ? jobScheduler.executor( Group.TRANSACTION_APPLY ) : null;
         }
         catch ( Throwable failure )
         {
@@ -202,7 +211,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         {
             appliers.add( new ConsistencyCheckingApplierFactory( neoStores ) );
         }
-        appliers.add( new NeoStoreTransactionApplierFactory( mode, neoStores, cacheAccess, lockService( mode ) ) );
+        appliers.add( new NeoStoreTransactionApplierFactory( mode, neoStores, cacheAccess, lockService( mode ), applyExecutor, applyParallelism ) );
         if ( mode.needsHighIdTracking() )
         {
             appliers.add( new HighIdTransactionApplierFactory( neoStores ) );
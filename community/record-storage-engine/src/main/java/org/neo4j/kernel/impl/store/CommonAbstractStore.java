@@ -63,6 +63,7 @@ import static java.lang.String.format;
 import static java.nio.file.StandardOpenOption.CREATE;
 import static org.neo4j.internal.helpers.Exceptions.throwIfUnchecked;
 import static org.neo4j.io.pagecache.PageCacheOpenOptions.ANY_PAGE_SIZE;
+import static org.neo4j.io.pagecache.PageCacheOpenOptions.READ_ONLY;
 import static org.neo4j.io.pagecache.PagedFile.PF_EAGER_FLUSH;
 import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
@@ -198,7 +199,7 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
                 // This store has a store-specific header so we have read it before we can be sure that we can map it with correct page size.
                 // Try to open the store file (w/o creating if it doesn't exist), with page size for the configured header value.
                 HEADER defaultHeader = storeHeaderFormat.generateHeader();
-                pagedFile = pageCache.map( storageFile, filePageSize, openOptions.newWith( ANY_PAGE_SIZE ) );
+                pagedFile = pageCache.map( storageFile, filePageSize, existingFileOpenOptions().newWith( ANY_PAGE_SIZE ) );
                 HEADER readHeader = readStoreHeaderAndDetermineRecordSize( pagedFile, cursorTracer );
                 if ( !defaultHeader.equals( readHeader ) )
                 {
@@ -211,7 +212,7 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
             if ( pagedFile == null )
             {
                 // Map the file with the correct page size
-                pagedFile = pageCache.map( storageFile, filePageSize, openOptions );
+                pagedFile = pageCache.map( storageFile, filePageSize, existingFileOpenOptions() );
             }
         }
         catch ( NoSuchFileException | StoreNotFoundException e )
@@ -257,6 +258,26 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
         return false;
     }
 
+    /**
+     * The store files of read-only databases are mapped read-only, which allows the page cache to serve page faults more cheaply.
+     */
+    private ImmutableSet<OpenOption> existingFileOpenOptions()
+    {
+        if ( configuration.get( GraphDatabaseSettings.read_only ) && canMapReadOnly() )
+        {
+            return openOptions.newWith( READ_ONLY );
+        }
+        return openOptions;
+    }
+
+    /**
+     * @return {@code true} if this store is never written to when the database is read-only, so its store file can be mapped read-only.
+     */
+    protected boolean canMapReadOnly()
+    {
+        return true;
+    }
+
     protected void initialiseNewStoreFile( PageCursorTracer cursorTracer ) throws IOException
     {
         if ( getNumberOfReservedLowIds() > 0 )
@@ -715,6 +736,32 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
         return pagedFile.fileSize();
     }
 
+    /**
+     * Lowers the high id of this store past the free ids at the end of it, see {@link IdGenerator#trimFreeTail(PageCursorTracer)}.
+     *
+     * @param cursorTracer underlying page cursor tracer.
+     * @return the high id after trimming.
+     */
+    public long trimFreeIdTail( PageCursorTracer cursorTracer )
+    {
+        assertIdGeneratorInitialized();
+        return idGenerator.trimFreeTail( cursorTracer );
+    }
+
+    /**
+     * @return the size in bytes, rounded up to whole pages, that the store file needs to have to contain all records below high id,
+     * or {@code -1} if this store isn't initialized.
+     */
+    long storeSizeCoveringHighId()
+    {
+        if ( idGenerator == null || pagedFile == null )
+        {
+            return -1;
+        }
+        long pages = (idGenerator.getHighId() + recordsPerPage - 1) / recordsPerPage;
+        return pages * pagedFile.pageSize();
+    }
+
     @Override
     public int getRecordDataSize()
     {
@@ -830,7 +877,9 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
 
     void logIdUsage( Logger logger, PageCursorTracer cursorTracer )
     {
-        logger.log( format( "%s: used=%s high=%s", getTypeDescriptor(), getNumberOfIdsInUse(), getHighestPossibleIdInUse( cursorTracer ) ) );
+        logger.log( format( "%s: used=%s high=%s allocatedFromCache=%s allocatedFromHigh=%s freeIdScans=%s", getTypeDescriptor(), getNumberOfIdsInUse(),
+                getHighestPossibleIdInUse( cursorTracer ), idGenerator.getNumberOfIdsAllocatedFromCache(), idGenerator.getNumberOfIdsAllocatedFromHigh(),
+                idGenerator.getNumberOfFreeIdScans() ) );
     }
 
     @Override
@@ -176,6 +176,13 @@ public class MetaDataStore extends CommonAbstractStore<MetaDataRecord,NoStoreHea
         this.pageCacheTracer = pageCacheTracer;
     }
 
+    @Override
+    protected boolean canMapReadOnly()
+    {
+        // The meta data store can be written to during startup, for instance if the store has to be upgraded or its fields are missing.
+        return false;
+    }
+
     @Override
     protected void initialiseNewStoreFile( PageCursorTracer cursorTracer ) throws IOException
     {
@@ -84,6 +84,7 @@ public class NeoStores implements AutoCloseable
     private final CommonAbstractStore[] stores;
     private final PageCacheTracer pageCacheTracer;
     private final ImmutableSet<OpenOption> openOptions;
+    private final boolean trimFreeIdTails;
 
     NeoStores(
             FileSystemAbstraction fileSystem,
@@ -108,6 +109,7 @@ public class NeoStores implements AutoCloseable
         this.createIfNotExist = createIfNotExist;
         this.pageCacheTracer = pageCacheTracer;
         this.openOptions = openOptions;
+        this.trimFreeIdTails = config.get( GraphDatabaseSettings.trim_free_id_tail ) && !config.get( GraphDatabaseSettings.read_only );
 
         stores = new CommonAbstractStore[StoreType.values().length];
         // First open the meta data store so that we can verify the record format. We know that this store is of the type MetaDataStore
@@ -221,6 +223,8 @@ public class NeoStores implements AutoCloseable
         int i = type.ordinal();
         if ( stores[i] != null )
         {
+            long truncatedStoreSize = trimFreeIdTails && stores[i].getIdType().highActivity() ? stores[i].storeSizeCoveringHighId() : -1;
+            File storageFile = stores[i].getStorageFile();
             try
             {
                 stores[i].close();
@@ -229,6 +233,30 @@ public class NeoStores implements AutoCloseable
             {
                 stores[i] = null;
             }
+            if ( truncatedStoreSize >= 0 )
+            {
+                truncateStoreFile( storageFile, truncatedStoreSize );
+            }
+        }
+    }
+
+    /**
+     * Truncates a closed store file down to its high id, after its free id tail has been trimmed. This is only done if no one else
+     * has the file mapped, since the page cache may otherwise still hold pages beyond the new end of it.
+     */
+    private void truncateStoreFile( File storageFile, long size )
+    {
+        try
+        {
+            if ( pageCache.getExistingMapping( storageFile ).isEmpty() && fileSystem.fileExists( storageFile ) &&
+                    fileSystem.getFileSize( storageFile ) > size )
+            {
+                fileSystem.truncate( storageFile, size );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Unable to truncate store file: " + storageFile, e );
         }
     }
 
@@ -243,6 +271,18 @@ public class NeoStores implements AutoCloseable
         // it's weird I know. The most stable and secure thing we can do is to invoke this on the IdGenerator instances
         // that our stores reference.
 
+        // Free id tails are trimmed before flushing, so that the id generator updates are flushed along with everything else,
+        // at the pace of the limiter.
+        if ( trimFreeIdTails )
+        {
+            visitStores( store ->
+            {
+                if ( store.getIdType().highActivity() )
+                {
+                    store.trimFreeIdTail( cursorTracer );
+                }
+            } );
+        }
         pageCache.flushAndForce( limiter );
         visitStores( store -> store.getIdGenerator().checkpoint( limiter, cursorTracer ) );
     }
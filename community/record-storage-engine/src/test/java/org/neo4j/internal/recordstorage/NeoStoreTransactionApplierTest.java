@@ -22,8 +22,16 @@ package org.neo4j.internal.recordstorage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.neo4j.internal.id.IdGenerator;
 import org.neo4j.internal.id.IdType;
@@ -38,6 +46,7 @@ import org.neo4j.internal.schema.IndexProviderDescriptor;
 import org.neo4j.internal.schema.LabelSchemaDescriptor;
 import org.neo4j.internal.schema.constraints.ConstraintDescriptorFactory;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.kernel.impl.store.CommonAbstractStore;
 import org.neo4j.kernel.impl.store.DynamicArrayStore;
@@ -62,7 +71,9 @@ import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
 import org.neo4j.kernel.impl.store.record.RelationshipRecord;
 import org.neo4j.kernel.impl.store.record.RelationshipTypeTokenRecord;
 import org.neo4j.kernel.impl.store.record.SchemaRecord;
+import org.neo4j.lock.LockGroup;
 import org.neo4j.lock.LockService;
+import org.neo4j.scheduler.CallableExecutorService;
 import org.neo4j.storageengine.api.CommandsToApply;
 import org.neo4j.storageengine.api.EntityTokenUpdateListener;
 import org.neo4j.storageengine.api.IndexUpdateListener;
@@ -71,15 +82,18 @@ import org.neo4j.util.concurrent.WorkSync;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.neo4j.internal.schema.SchemaDescriptor.forLabel;
@@ -241,6 +255,121 @@ class NeoStoreTransactionApplierTest
         verify( nodeStore ).updateRecord( eq( after ), any(), any() );
     }
 
+    @Test
+    void shouldWriteNodeRecordsOfLargeTransactionByMultipleThreads() throws Exception
+    {
+        // given
+        int parallelism = 4;
+        ExecutorService executor = Executors.newFixedThreadPool( parallelism );
+        try
+        {
+            TransactionApplierFactory applier = new NeoStoreTransactionApplierFactory( INTERNAL, neoStores, cacheAccess, lockService,
+                    new CallableExecutorService( executor ), parallelism );
+            Set<Thread> writingThreads = ConcurrentHashMap.newKeySet();
+            doAnswer( invocation ->
+            {
+                writingThreads.add( Thread.currentThread() );
+                NodeRecord record = invocation.getArgument( 0 );
+                IdUpdateListener listener = invocation.getArgument( 1 );
+                PageCursorTracer cursorTracer = invocation.getArgument( 2 );
+                cursorTracer.beginPin( true, record.getId(), null ).done();
+                listener.markIdAsUsed( IdType.NODE, null, record.getId(), cursorTracer );
+                return null;
+            } ).when( nodeStore ).updateRecord( any(), any(), any() );
+            List<Thread> markingThreads = new CopyOnWriteArrayList<>();
+            IdUpdateListener idUpdateListener = mock( IdUpdateListener.class );
+            doAnswer( invocation -> markingThreads.add( Thread.currentThread() ) )
+                    .when( idUpdateListener ).markIdAsUsed( any(), any(), anyLong(), any() );
+            BatchContext batchContext = mock( BatchContext.class );
+            when( batchContext.getLockGroup() ).thenReturn( new LockGroup() );
+            when( batchContext.getIdUpdateListener() ).thenReturn( idUpdateListener );
+            PageCursorTracer transactionCursorTracer = new DefaultPageCursorTracer( PageCacheTracer.NULL, "transaction" );
+            when( transactionToApply.cursorTracer() ).thenReturn( transactionCursorTracer );
+            int numberOfNodes = PartitionedRecordUpdates.PARALLEL_THRESHOLD * 2;
+
+            // when
+            CommandHandlerContract.apply( applier, txApplier ->
+            {
+                createNodes( txApplier, numberOfNodes );
+                return false;
+            }, batchContext, transactionToApply );
+
+            // then
+            verify( nodeStore, times( numberOfNodes ) ).updateRecord( any(), any(), any() );
+            assertEquals( numberOfNodes, markingThreads.size() );
+            assertEquals( Set.of( Thread.currentThread() ), Set.copyOf( markingThreads ) );
+            assertFalse( writingThreads.contains( Thread.currentThread() ) );
+            assertEquals( numberOfNodes, transactionCursorTracer.pins() );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldWaitForAllPartitionsWhenOneOfThemFails() throws Exception
+    {
+        // given
+        int parallelism = 4;
+        ExecutorService executor = Executors.newFixedThreadPool( parallelism );
+        try
+        {
+            TransactionApplierFactory applier = new NeoStoreTransactionApplierFactory( INTERNAL, neoStores, cacheAccess, lockService,
+                    new CallableExecutorService( executor ), parallelism );
+            RuntimeException failure = new RuntimeException( "Failed to write" );
+            AtomicInteger writing = new AtomicInteger();
+            doAnswer( invocation ->
+            {
+                writing.incrementAndGet();
+                try
+                {
+                    NodeRecord record = invocation.getArgument( 0 );
+                    if ( record.getId() == 0 )
+                    {
+                        throw failure;
+                    }
+                    Thread.sleep( 1 );
+                    return null;
+                }
+                finally
+                {
+                    writing.decrementAndGet();
+                }
+            } ).when( nodeStore ).updateRecord( any(), any(), any() );
+            BatchContext batchContext = mock( BatchContext.class );
+            when( batchContext.getLockGroup() ).thenReturn( new LockGroup() );
+            when( batchContext.getIdUpdateListener() ).thenReturn( IdUpdateListener.IGNORE );
+            int numberOfNodes = PartitionedRecordUpdates.PARALLEL_THRESHOLD * 2;
+
+            // when
+            IOException exception = assertThrows( IOException.class, () -> CommandHandlerContract.apply( applier, txApplier ->
+            {
+                createNodes( txApplier, numberOfNodes );
+                return false;
+            }, batchContext, transactionToApply ) );
+
+            // then
+            assertSame( failure, exception.getCause() );
+            assertEquals( 0, writing.get() );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private static void createNodes( TransactionApplier txApplier, int numberOfNodes ) throws IOException
+    {
+        for ( int id = 0; id < numberOfNodes; id++ )
+        {
+            NodeRecord after = new NodeRecord( id );
+            after.setInUse( true );
+            after.setCreated();
+            txApplier.visitNodeCommand( new Command.NodeCommand( new NodeRecord( id ), after ) );
+        }
+    }
+
     // RELATIONSHIP COMMAND
 
     @Test
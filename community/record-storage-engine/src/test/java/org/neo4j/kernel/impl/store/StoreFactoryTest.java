@@ -28,14 +28,18 @@ import java.io.File;
 import java.nio.file.OpenOption;
 
 import org.neo4j.configuration.Config;
+import org.neo4j.configuration.GraphDatabaseSettings;
 import org.neo4j.internal.id.DefaultIdGeneratorFactory;
+import org.neo4j.internal.id.IdGenerator;
 import org.neo4j.internal.id.IdGeneratorFactory;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.layout.DatabaseLayout;
+import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.kernel.impl.store.format.RecordFormats;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.logging.LogProvider;
 import org.neo4j.logging.NullLogProvider;
 import org.neo4j.test.extension.EphemeralNeo4jLayoutExtension;
@@ -52,6 +56,9 @@ import static org.neo4j.configuration.Config.defaults;
 import static org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector.immediate;
 import static org.neo4j.io.pagecache.tracing.PageCacheTracer.NULL;
 import static org.neo4j.kernel.impl.store.format.RecordFormatSelector.selectForStoreOrConfig;
+import static org.neo4j.kernel.impl.store.record.Record.NO_LABELS_FIELD;
+import static org.neo4j.kernel.impl.store.record.Record.NO_NEXT_PROPERTY;
+import static org.neo4j.kernel.impl.store.record.Record.NO_NEXT_RELATIONSHIP;
 
 @EphemeralPageCacheExtension
 @EphemeralNeo4jLayoutExtension
@@ -176,4 +183,41 @@ class StoreFactoryTest
         storeFactory = storeFactory( defaults(), NULL );
         storeFactory.openAllNeoStores( true ).close();
     }
+
+    @Test
+    void shouldTrimFreeIdTailOnFlushAndTruncateStoreFileOnClose() throws Exception
+    {
+        // given
+        Config config = Config.defaults( GraphDatabaseSettings.trim_free_id_tail, true );
+        neoStores = storeFactory( config, NULL ).openAllNeoStores( true );
+        neoStores.start( NULL );
+        NodeStore nodeStore = neoStores.getNodeStore();
+        for ( int i = 0; i < 10_000; i++ )
+        {
+            NodeRecord node = new NodeRecord( nodeStore.nextId( NULL ) ).initialize( true, NO_NEXT_PROPERTY.longValue(), false,
+                    NO_NEXT_RELATIONSHIP.longValue(), NO_LABELS_FIELD.longValue() );
+            node.setCreated();
+            nodeStore.updateRecord( node, IdUpdateListener.DIRECT, NULL );
+        }
+        for ( long id = 100; id < 10_000; id++ )
+        {
+            nodeStore.updateRecord( new NodeRecord( id ), IdUpdateListener.DIRECT, NULL );
+            try ( IdGenerator.Marker marker = nodeStore.getIdGenerator().marker( NULL ) )
+            {
+                marker.markFree( id );
+            }
+        }
+
+        // when
+        neoStores.flush( IOLimiter.UNLIMITED, NULL );
+        assertEquals( 100, nodeStore.getHighId() );
+        File nodeStoreFile = nodeStore.getStorageFile();
+        long sizeBefore = fileSystem.getFileSize( nodeStoreFile );
+        neoStores.close();
+        neoStores = null;
+
+        // then
+        assertThat( fileSystem.getFileSize( nodeStoreFile ) ).isLessThan( sizeBefore );
+        assertThat( fileSystem.getFileSize( nodeStoreFile ) ).isLessThanOrEqualTo( pageCache.pageSize() );
+    }
 }
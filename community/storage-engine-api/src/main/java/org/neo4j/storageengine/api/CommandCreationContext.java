@@ -70,6 +70,12 @@ public interface CommandCreationContext extends AutoCloseable
      */
     int reserveRelationshipTypeTokenId();
 
+    /**
+     * Releases what has been held on to for the transaction that used this context, e.g. ids that were reserved ahead of time but never handed out.
+     * The context stays usable, and is typically used by the next transaction.
+     */
+    void release();
+
     @Override
     void close();
 }
@@ -28,6 +28,7 @@ import org.neo4j.adversaries.Adversary;
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 
 /**
@@ -80,6 +81,12 @@ public class AdversarialPagedFile implements PagedFile
         return delegate.file();
     }
 
+    @Override
+    public PagedFileCounters counters()
+    {
+        return delegate.counters();
+    }
+
     @Override
     public void flushAndForce() throws IOException
     {
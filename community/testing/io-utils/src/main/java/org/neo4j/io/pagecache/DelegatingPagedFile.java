@@ -22,6 +22,7 @@ package org.neo4j.io.pagecache;
 import java.io.File;
 import java.io.IOException;
 
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 
 public class DelegatingPagedFile implements PagedFile
@@ -69,6 +70,12 @@ public class DelegatingPagedFile implements PagedFile
         return delegate.file();
     }
 
+    @Override
+    public PagedFileCounters counters()
+    {
+        return delegate.counters();
+    }
+
     @Override
     public void close()
     {
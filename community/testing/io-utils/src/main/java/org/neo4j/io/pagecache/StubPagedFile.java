@@ -22,13 +22,17 @@ package org.neo4j.io.pagecache;
 import java.io.File;
 import java.io.IOException;
 
+import org.neo4j.io.pagecache.monitoring.DefaultPagedFileCounters;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.time.Clocks;
 
 public class StubPagedFile implements PagedFile
 {
     private final int pageSize;
     public final int exposedPageSize;
     public long lastPageId = 1;
+    private final DefaultPagedFileCounters counters = new DefaultPagedFileCounters( Clocks.nanoClock() );
 
     public StubPagedFile( int pageSize )
     {
@@ -70,6 +74,12 @@ public class StubPagedFile implements PagedFile
         return new File( "stub" );
     }
 
+    @Override
+    public PagedFileCounters counters()
+    {
+        return counters;
+    }
+
     @Override
     public void flushAndForce()
     {
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.stress;
+
+import org.eclipse.collections.api.factory.Sets;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.mem.MemoryAllocator;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.impl.muninn.EvictionPolicy;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
+import org.neo4j.memory.EmptyMemoryTracker;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.test.scheduler.ThreadPoolJobScheduler;
+import org.neo4j.time.Clocks;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+/**
+ * Replays a mixed workload of random point lookups into a small hot region of a file, interleaved with full scans of a large cold region,
+ * against a page cache that is big enough for the hot region but not for the cold region. The hit ratio of the point lookups is reported
+ * for each {@link EvictionPolicy}, which shows how well the policy protects the hot pages from being pushed out by the scans.
+ */
+public class EvictionPolicyBenchmark
+{
+    private final int hotPages;
+    private final int coldPages;
+    private final int cachePages;
+    private final int lookupsBetweenScans;
+    private final int scans;
+    private final File workingDirectory;
+
+    private EvictionPolicyBenchmark( Builder builder )
+    {
+        this.hotPages = builder.hotPages;
+        this.coldPages = builder.coldPages;
+        this.cachePages = builder.cachePages;
+        this.lookupsBetweenScans = builder.lookupsBetweenScans;
+        this.scans = builder.scans;
+        this.workingDirectory = builder.workingDirectory;
+    }
+
+    /**
+     * Run the workload against a page cache with the given eviction policy.
+     *
+     * @return the hit ratio of the point lookups.
+     */
+    public double run( EvictionPolicy evictionPolicy ) throws Exception
+    {
+        try ( FileSystemAbstraction fs = new DefaultFileSystemAbstraction();
+              JobScheduler jobScheduler = new ThreadPoolJobScheduler() )
+        {
+            File file = new File( workingDirectory, "eviction-policy-benchmark" );
+            MemoryAllocator allocator = MemoryAllocator.createAllocator( MuninnPageCache.memoryRequiredForPages( cachePages ), EmptyMemoryTracker.INSTANCE );
+            try ( PageCache pageCache = new MuninnPageCache( new SingleFilePageSwapperFactory( fs ), allocator, PageCacheTracer.NULL,
+                    EmptyVersionContextSupplier.EMPTY, jobScheduler, Clocks.nanoClock(), evictionPolicy, MuninnPageCache.DEFAULT_FLUSH_THREADS );
+                  PagedFile pagedFile = pageCache.map( file, pageCache.pageSize(), Sets.immutable.of( StandardOpenOption.CREATE,
+                          StandardOpenOption.DELETE_ON_CLOSE ) ) )
+            {
+                populate( pagedFile );
+                return replay( pagedFile );
+            }
+        }
+    }
+
+    private void populate( PagedFile pagedFile ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK, PageCursorTracer.NULL ) )
+        {
+            for ( long pageId = 0; pageId < hotPages + coldPages; pageId++ )
+            {
+                if ( cursor.next( pageId ) )
+                {
+                    cursor.putLong( pageId );
+                }
+            }
+        }
+        pagedFile.flushAndForce();
+    }
+
+    private double replay( PagedFile pagedFile ) throws IOException
+    {
+        SplittableRandom random = new SplittableRandom( 42 );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        long hits = 0;
+        long pins = 0;
+        for ( int round = 0; round < scans; round++ )
+        {
+            try ( PageCursorTracer lookupTracer = tracer.createPageCursorTracer( "lookups" );
+                  PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK, lookupTracer ) )
+            {
+                for ( int i = 0; i < lookupsBetweenScans; i++ )
+                {
+                    cursor.next( random.nextInt( hotPages ) );
+                }
+                hits += lookupTracer.hits();
+                pins += lookupTracer.pins();
+            }
+            try ( PageCursor scan = pagedFile.io( hotPages, PF_SHARED_READ_LOCK | PF_READ_AHEAD, PageCursorTracer.NULL ) )
+            {
+                while ( scan.next() )
+                {
+                    scan.getLong();
+                }
+            }
+        }
+        return pins == 0 ? 0 : (double) hits / pins;
+    }
+
+    public static void main( String[] args ) throws Exception
+    {
+        File workingDirectory = new File( args.length > 0 ? args[0] : System.getProperty( "java.io.tmpdir" ) );
+        EvictionPolicyBenchmark benchmark = new Builder().withWorkingDirectory( workingDirectory ).build();
+        for ( EvictionPolicy policy : EvictionPolicy.values() )
+        {
+            System.out.printf( "%-14s point lookup hit ratio: %.4f%n", policy, benchmark.run( policy ) );
+        }
+    }
+
+    public static class Builder
+    {
+        int hotPages = 1_000;
+        int coldPages = 20_000;
+        int cachePages = 2_000;
+        int lookupsBetweenScans = 50_000;
+        int scans = 10;
+        File workingDirectory;
+
+        public EvictionPolicyBenchmark build()
+        {
+            if ( cachePages <= hotPages || coldPages <= cachePages )
+            {
+                throw new IllegalArgumentException( "The cache should fit the hot pages, but not the cold pages." );
+            }
+            return new EvictionPolicyBenchmark( this );
+        }
+
+        public Builder withHotPages( int hotPages )
+        {
+            this.hotPages = hotPages;
+            return this;
+        }
+
+        public Builder withColdPages( int coldPages )
+        {
+            this.coldPages = coldPages;
+            return this;
+        }
+
+        public Builder withCachePages( int cachePages )
+        {
+            this.cachePages = cachePages;
+            return this;
+        }
+
+        public Builder withLookupsBetweenScans( int lookupsBetweenScans )
+        {
+            this.lookupsBetweenScans = lookupsBetweenScans;
+            return this;
+        }
+
+        public Builder withScans( int scans )
+        {
+            this.scans = scans;
+            return this;
+        }
+
+        public Builder withWorkingDirectory( File workingDirectory )
+        {
+            this.workingDirectory = workingDirectory;
+            return this;
+        }
+    }
+}
@@ -55,6 +55,13 @@ public class StubRead implements Read
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public void nodeIndexSeekMany( IndexReadSession index, NodeValueIndexCursor cursor, IndexQueryConstraints constraints,
+            IndexQuery.ExactPredicate[]... queries )
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public void relationshipIndexSeek( IndexDescriptor index, RelationshipIndexCursor cursor, IndexQueryConstraints constraints, IndexQuery... query )
     {
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictDecompress;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.neo4j.io.fs.ReadableChannel;
+import org.neo4j.storageengine.api.CommandReader;
+import org.neo4j.storageengine.api.StorageCommand;
+
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryTypeCodes.COMPRESSED_COMMANDS;
+
+/**
+ * All commands of one transaction, serialized back to back and compressed as a single zstd frame. Written in place of
+ * one {@link LogEntryCommand} per command, between the {@link LogEntryStart} and {@link LogEntryCommit} of the transaction.
+ * The frame is compressed with the {@link LogEntryCompressionDictionary} of the same log file, unless the dictionary id
+ * is {@link #NO_DICTIONARY}.
+ * <p>
+ * The parsed entry only holds the compressed bytes. The {@link VersionAwareLogEntryReader} inflates it before handing it out,
+ * since only the reader knows about the dictionaries of the log files it has seen.
+ */
+public class LogEntryCompressedCommands extends AbstractLogEntry
+{
+    public static final int NO_DICTIONARY = 0;
+
+    private final int dictionaryId;
+    private final int uncompressedLength;
+    private final byte[] compressed;
+    private List<StorageCommand> commands;
+
+    public LogEntryCompressedCommands( byte version, int dictionaryId, int uncompressedLength, byte[] compressed )
+    {
+        super( version, COMPRESSED_COMMANDS );
+        this.dictionaryId = dictionaryId;
+        this.uncompressedLength = uncompressedLength;
+        this.compressed = compressed;
+    }
+
+    public int getDictionaryId()
+    {
+        return dictionaryId;
+    }
+
+    public int getUncompressedLength()
+    {
+        return uncompressedLength;
+    }
+
+    public int getCompressedLength()
+    {
+        return compressed.length;
+    }
+
+    /**
+     * @return the commands of this entry, in the order they were written.
+     * @throws IllegalStateException if this entry has not been inflated yet.
+     */
+    public List<StorageCommand> getCommands()
+    {
+        if ( commands == null )
+        {
+            throw new IllegalStateException( "Compressed commands have not been inflated" );
+        }
+        return commands;
+    }
+
+    void inflate( ZstdDictDecompress dictionary, CommandReader commandReader ) throws IOException
+    {
+        byte[] serialized = dictionary == null ? Zstd.decompress( compressed, uncompressedLength )
+                                               : Zstd.decompress( compressed, dictionary, uncompressedLength );
+        if ( serialized.length != uncompressedLength )
+        {
+            throw new IOException( "Compressed commands inflated to " + serialized.length + " bytes, expected " + uncompressedLength );
+        }
+        SerializedCommands source = new SerializedCommands( serialized );
+        List<StorageCommand> inflated = new ArrayList<>();
+        while ( source.buffer.hasRemaining() )
+        {
+            StorageCommand command = commandReader.read( source );
+            if ( command == null )
+            {
+                break;
+            }
+            inflated.add( command );
+        }
+        commands = inflated;
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( o == null || getClass() != o.getClass() )
+        {
+            return false;
+        }
+        LogEntryCompressedCommands that = (LogEntryCompressedCommands) o;
+        return dictionaryId == that.dictionaryId && uncompressedLength == that.uncompressedLength && Arrays.equals( compressed, that.compressed );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * (31 * dictionaryId + uncompressedLength) + Arrays.hashCode( compressed );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CompressedCommands{dictionaryId=" + dictionaryId + ", uncompressedLength=" + uncompressedLength +
+                ", compressedLength=" + compressed.length + ", commands=" + commands + '}';
+    }
+
+    private static class SerializedCommands implements ReadableChannel
+    {
+        private final ByteBuffer buffer;
+
+        SerializedCommands( byte[] serialized )
+        {
+            this.buffer = ByteBuffer.wrap( serialized );
+        }
+
+        @Override
+        public byte get() throws IOException
+        {
+            ensureRemaining( Byte.BYTES );
+            return buffer.get();
+        }
+
+        @Override
+        public short getShort() throws IOException
+        {
+            ensureRemaining( Short.BYTES );
+            return buffer.getShort();
+        }
+
+        @Override
+        public int getInt() throws IOException
+        {
+            ensureRemaining( Integer.BYTES );
+            return buffer.getInt();
+        }
+
+        @Override
+        public long getLong() throws IOException
+        {
+            ensureRemaining( Long.BYTES );
+            return buffer.getLong();
+        }
+
+        @Override
+        public float getFloat() throws IOException
+        {
+            ensureRemaining( Float.BYTES );
+            return buffer.getFloat();
+        }
+
+        @Override
+        public double getDouble() throws IOException
+        {
+            ensureRemaining( Double.BYTES );
+            return buffer.getDouble();
+        }
+
+        @Override
+        public void get( byte[] bytes, int length ) throws IOException
+        {
+            ensureRemaining( length );
+            buffer.get( bytes, 0, length );
+        }
+
+        @Override
+        public void close()
+        {
+        }
+
+        private void ensureRemaining( int bytes ) throws IOException
+        {
+            // Not a ReadPastEndException, the frame was complete so running out of bytes here means the content is broken
+            if ( buffer.remaining() < bytes )
+            {
+                throw new IOException( "Compressed commands ended in the middle of a command" );
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import java.util.Arrays;
+
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryTypeCodes.COMPRESSION_DICTIONARY;
+
+/**
+ * A zstd dictionary, trained on serialized commands, that {@link LogEntryCompressedCommands} entries in the same log file
+ * are compressed with. When present it is always the first entry after the log header, so that readers starting anywhere
+ * in the file know where to find it.
+ */
+public class LogEntryCompressionDictionary extends AbstractLogEntry
+{
+    private final int dictionaryId;
+    private final byte[] dictionary;
+
+    public LogEntryCompressionDictionary( int dictionaryId, byte[] dictionary )
+    {
+        this( LogEntryVersion.LATEST.version(), dictionaryId, dictionary );
+    }
+
+    public LogEntryCompressionDictionary( byte version, int dictionaryId, byte[] dictionary )
+    {
+        super( version, COMPRESSION_DICTIONARY );
+        this.dictionaryId = dictionaryId;
+        this.dictionary = dictionary;
+    }
+
+    public int getDictionaryId()
+    {
+        return dictionaryId;
+    }
+
+    public byte[] getDictionary()
+    {
+        return dictionary;
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( o == null || getClass() != o.getClass() )
+        {
+            return false;
+        }
+        LogEntryCompressionDictionary that = (LogEntryCompressionDictionary) o;
+        return dictionaryId == that.dictionaryId && Arrays.equals( dictionary, that.dictionary );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * dictionaryId + Arrays.hashCode( dictionary );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CompressionDictionary{id=" + dictionaryId + ", size=" + dictionary.length + '}';
+    }
+}
@@ -60,6 +60,20 @@ public class LogEntryParserSetV4_0 extends LogEntryParserSet.Adapter
                 return command == null ? null : new LogEntryCommand( version, command );
             }
         } );
+        register( new LogEntryParser.Adapter( LogEntryTypeCodes.COMPRESSED_COMMANDS )
+        {
+            @Override
+            public LogEntry parse( byte version, ReadableChecksumChannel channel, LogPositionMarker marker, CommandReaderFactory commandReaderFactory )
+                    throws IOException
+            {
+                int dictionaryId = channel.getInt();
+                int uncompressedLength = channel.getInt();
+                int compressedLength = channel.getInt();
+                byte[] compressed = new byte[compressedLength];
+                channel.get( compressed, compressedLength );
+                return new LogEntryCompressedCommands( version, dictionaryId, uncompressedLength, compressed );
+            }
+        } );
         register( new LogEntryParser.Adapter( LogEntryTypeCodes.TX_COMMIT )
         {
             @Override
@@ -84,5 +98,19 @@ public class LogEntryParserSetV4_0 extends LogEntryParserSet.Adapter
                 return new CheckPoint( version, new LogPosition( logVersion, byteOffset ) );
             }
         } );
+        register( new LogEntryParser.Adapter( LogEntryTypeCodes.COMPRESSION_DICTIONARY )
+        {
+            @Override
+            public LogEntry parse( byte version, ReadableChecksumChannel channel, LogPositionMarker marker, CommandReaderFactory commandReaderFactory )
+                    throws IOException
+            {
+                int dictionaryId = channel.getInt();
+                int length = channel.getInt();
+                byte[] dictionary = new byte[length];
+                channel.get( dictionary, length );
+                channel.endChecksumAndValidate();
+                return new LogEntryCompressionDictionary( version, dictionaryId, dictionary );
+            }
+        } );
     }
 }
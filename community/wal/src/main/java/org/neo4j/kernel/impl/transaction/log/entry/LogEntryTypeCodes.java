@@ -31,4 +31,6 @@ public class LogEntryTypeCodes
     public static final byte COMMAND = (byte) 3;
     public static final byte TX_COMMIT = (byte) 5;
     public static final byte CHECK_POINT = (byte) 7;
+    public static final byte COMPRESSED_COMMANDS = (byte) 9;
+    public static final byte COMPRESSION_DICTIONARY = (byte) 11;
 }
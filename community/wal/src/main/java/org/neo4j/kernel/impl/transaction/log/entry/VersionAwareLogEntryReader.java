@@ -19,22 +19,39 @@
  */
 package org.neo4j.kernel.impl.transaction.log.entry;
 
+import com.github.luben.zstd.ZstdDictDecompress;
+
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.neo4j.io.fs.PositionableChannel;
 import org.neo4j.io.fs.ReadPastEndException;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
 import org.neo4j.kernel.impl.transaction.log.ReadableClosablePositionAwareChecksumChannel;
+import org.neo4j.kernel.impl.transaction.log.ReadableLogChannel;
 import org.neo4j.storageengine.api.CommandReaderFactory;
 import org.neo4j.util.FeatureToggles;
 
 import static org.neo4j.internal.helpers.Exceptions.throwIfInstanceOf;
 import static org.neo4j.internal.helpers.Exceptions.withMessage;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompressedCommands.NO_DICTIONARY;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryParserSetV4_0.V4_0;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryTypeCodes.CHECK_POINT;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryTypeCodes.COMPRESSION_DICTIONARY;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryTypeCodes.TX_START;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.CURRENT_FORMAT_LOG_HEADER_SIZE;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.LOG_VERSION_4_0;
 import static org.neo4j.storageengine.api.TransactionIdStore.BASE_TX_CHECKSUM;
 
 /**
  * Reads {@link LogEntry log entries} off of a channel. Supported versions can be read intermixed.
+ * <p>
+ * {@link LogEntryCompressionDictionary Compression dictionaries} are remembered rather than handed out, and
+ * {@link LogEntryCompressedCommands compressed commands} are handed out inflated. A log file that contains compressed
+ * commands has its dictionary as the first entry after the header, so when reading starts somewhere in the middle of such
+ * a file the dictionary is looked up there before the first transaction or check point is read.
  */
 public class VersionAwareLogEntryReader implements LogEntryReader
 {
@@ -45,6 +62,10 @@ public class VersionAwareLogEntryReader implements LogEntryReader
     private final boolean verifyChecksumChain;
     private LogEntryParserSet parsetSet = LogEntryVersion.LATEST;
     private int lastTxChecksum = BASE_TX_CHECKSUM;
+    // Readers are shared between concurrent cursors, so this state must be safe to share too. Both are tiny: one dictionary
+    // per trained dictionary, and one entry per log file that reading has started in.
+    private final Map<Integer,ZstdDictDecompress> dictionaries = new ConcurrentHashMap<>();
+    private final Map<Long,Boolean> dictionaryLookedUp = new ConcurrentHashMap<>();
 
     public VersionAwareLogEntryReader( CommandReaderFactory commandReaderFactory )
     {
@@ -95,6 +116,10 @@ public class VersionAwareLogEntryReader implements LogEntryReader
                 }
 
                 byte typeCode = channel.get();
+                if ( typeCode == TX_START || typeCode == CHECK_POINT )
+                {
+                    lookUpDictionaryIfStartingMidFile( channel );
+                }
 
                 LogEntryParser entryReader;
                 LogEntry entry;
@@ -102,6 +127,10 @@ public class VersionAwareLogEntryReader implements LogEntryReader
                 {
                     entryReader = parsetSet.select( typeCode );
                     entry = entryReader.parse( versionCode, channel, positionMarker, commandReaderFactory );
+                    if ( entry instanceof LogEntryCompressedCommands )
+                    {
+                        inflate( (LogEntryCompressedCommands) entry );
+                    }
                 }
                 catch ( ReadPastEndException e )
                 {   // Make these exceptions slip by straight out to the outer handler
@@ -115,6 +144,16 @@ public class VersionAwareLogEntryReader implements LogEntryReader
                     throw new IOException( e );
                 }
 
+                if ( entry instanceof LogEntryCompressionDictionary )
+                {
+                    remember( (LogEntryCompressionDictionary) entry );
+                    if ( channel instanceof ReadableLogChannel )
+                    {
+                        dictionaryLookedUp.put( ((ReadableLogChannel) channel).getVersion(), Boolean.TRUE );
+                    }
+                    continue;
+                }
+
                 verifyChecksumChain( entry );
                 return entry;
             }
@@ -125,6 +164,73 @@ public class VersionAwareLogEntryReader implements LogEntryReader
         }
     }
 
+    private void inflate( LogEntryCompressedCommands entry ) throws IOException
+    {
+        ZstdDictDecompress dictionary = null;
+        if ( entry.getDictionaryId() != NO_DICTIONARY )
+        {
+            dictionary = dictionaries.get( entry.getDictionaryId() );
+            if ( dictionary == null )
+            {
+                throw new IOException( "Compressed commands refer to unknown compression dictionary " + entry.getDictionaryId() );
+            }
+        }
+        entry.inflate( dictionary, commandReaderFactory.get( entry.getVersion() ) );
+    }
+
+    private void remember( LogEntryCompressionDictionary entry )
+    {
+        dictionaries.computeIfAbsent( entry.getDictionaryId(), id -> new ZstdDictDecompress( entry.getDictionary() ) );
+    }
+
+    /**
+     * Called when about to read an entry that begins a checksum segment, i.e. between transactions, which is what makes it
+     * possible to move the channel to the dictionary and back without disturbing the checksum. Since the version and type
+     * of the entry have already been read they are read again, to be part of the checksum.
+     */
+    private void lookUpDictionaryIfStartingMidFile( ReadableClosablePositionAwareChecksumChannel channel ) throws IOException
+    {
+        if ( !(channel instanceof ReadableLogChannel) || !(channel instanceof PositionableChannel) ||
+             positionMarker.getByteOffset() <= CURRENT_FORMAT_LOG_HEADER_SIZE )
+        {
+            return;
+        }
+        ReadableLogChannel logChannel = (ReadableLogChannel) channel;
+        if ( logChannel.getLogFormatVersion() < LOG_VERSION_4_0 || dictionaryLookedUp.containsKey( logChannel.getVersion() ) )
+        {
+            return;
+        }
+        if ( positionMarker.getLogVersion() != logChannel.getVersion() )
+        {
+            // The channel moved on to the next log file when reading this entry, so this is the first entry in that file,
+            // and it is not a dictionary
+            dictionaryLookedUp.put( logChannel.getVersion(), Boolean.TRUE );
+            return;
+        }
+
+        PositionableChannel positionableChannel = (PositionableChannel) channel;
+        try
+        {
+            positionableChannel.setCurrentPosition( CURRENT_FORMAT_LOG_HEADER_SIZE );
+            if ( channel.get() == V4_0.version() && channel.get() == COMPRESSION_DICTIONARY )
+            {
+                remember( (LogEntryCompressionDictionary) V4_0.select( COMPRESSION_DICTIONARY )
+                        .parse( V4_0.version(), channel, positionMarker, commandReaderFactory ) );
+            }
+        }
+        catch ( ReadPastEndException e )
+        {
+            // Nothing after the header, so no dictionary either
+        }
+        finally
+        {
+            positionableChannel.setCurrentPosition( positionMarker.getByteOffset() );
+            channel.get();
+            channel.get();
+        }
+        dictionaryLookedUp.put( logChannel.getVersion(), Boolean.TRUE );
+    }
+
     private void verifyChecksumChain( LogEntry e )
     {
         if ( VERIFY_CHECKSUM_CHAIN && verifyChecksumChain )